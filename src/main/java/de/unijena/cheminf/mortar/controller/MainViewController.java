@@ -38,6 +38,7 @@ import de.unijena.cheminf.mortar.gui.views.MoleculesDataTableView;
 import de.unijena.cheminf.mortar.message.Message;
 import de.unijena.cheminf.mortar.model.data.FragmentDataModel;
 import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+import de.unijena.cheminf.mortar.model.fragmentation.FragmentationDiskCache;
 import de.unijena.cheminf.mortar.model.fragmentation.FragmentationService;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
 import de.unijena.cheminf.mortar.model.io.ChemFileTypes;
@@ -49,6 +50,7 @@ import de.unijena.cheminf.mortar.model.util.ChemUtil;
 import de.unijena.cheminf.mortar.model.util.CollectionUtil;
 import de.unijena.cheminf.mortar.model.util.FileUtil;
 import de.unijena.cheminf.mortar.model.util.LogUtil;
+import de.unijena.cheminf.mortar.model.util.ThreadUtil;
 
 import javafx.application.Platform;
 import javafx.beans.Observable;
@@ -94,6 +96,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -240,7 +243,7 @@ public class MainViewController {
         this.mainView = aMainView;
         this.settingsContainer = new SettingsContainer();
         this.settingsContainer.reloadGlobalSettings();
-        this.fragmentationService = new FragmentationService();
+        this.fragmentationService = new FragmentationService(this.settingsContainer);
         this.fragmentationService.reloadFragmenterSettings();
         this.fragmentationService.reloadActiveFragmenterAndPipeline();
         this.viewToolsManager = new ViewToolsManager(this.configuration);
@@ -284,11 +287,22 @@ public class MainViewController {
                 EventType.ROOT,
                 anEvent -> this.chooseAndImportMoleculeFile(this.primaryStage)
         );
+        this.mainView.getMainMenuBar().getAppendMenuItem().addEventHandler(
+                EventType.ROOT,
+                anEvent -> this.chooseAndAppendMoleculeFile(this.primaryStage)
+        );
         this.mainView.getMainMenuBar().getCancelImportMenuItem().addEventHandler(
                 EventType.ROOT,
                 anEvent -> this.interruptImport()
         );
         this.mainView.getMainMenuBar().getCancelImportMenuItem().visibleProperty().bind(this.isImportRunningProperty);
+        //the progress is only shown while no import or export started later occupies the status bar
+        this.fragmentationService.fragmentationProgressMessageProperty().addListener((anObservable, anOldValue, aNewValue) -> {
+            if (this.isFragmentationRunning && aNewValue != null && !aNewValue.isEmpty()
+                    && !this.threadList.isEmpty() && this.threadList.getLast() == this.fragmentationThread) {
+                this.mainView.getStatusBar().getStatusLabel().setText(aNewValue);
+            }
+        });
         this.mainView.getMainMenuBar().getCancelExportMenuItem().addEventHandler(
                 EventType.ROOT,
                 anEvent -> this.interruptExport()
@@ -336,6 +350,7 @@ public class MainViewController {
                 EventType.ROOT,
                 anEvent -> this.openPipelineSettingsView()
         );
+        this.mainView.getMainMenuBar().getClearFragmentationCacheMenuItem().setOnAction(anEvent -> this.clearFragmentationCache());
         this.mainView.getMainMenuBar().getHistogramViewerMenuItem().addEventHandler(
                 EventType.ROOT,
                 anEvent -> this.openHistogramView()
@@ -514,12 +529,94 @@ public class MainViewController {
             this.interruptExport();
         }
         this.clearGuiAndCollections();
+        this.startImportTask(aFile, tmpImporter, tmpImportedMoleculeDataModels -> {
+            this.moleculeDataModelList.addAll(tmpImportedMoleculeDataModels);
+            this.mainView.getMainMenuBar().getExportMenu().setDisable(true);
+            this.mainView.getMainMenuBar().getHistogramViewerMenuItem().setDisable(true);
+            this.mainView.getMainMenuBar().getOverviewViewMenuItem().setDisable(false);
+            this.primaryStage.setTitle(Message.get("Title.text") + " - " + tmpImporter.getFileName() + " - " + tmpImportedMoleculeDataModels.size() +
+                    " " + Message.get((tmpImportedMoleculeDataModels.size() == 1 ? "Title.molecule" : "Title.molecules")));
+            this.importedFileName = tmpImporter.getFileName();
+            this.updateStatusBar(this.importerThread, Message.get("Status.imported"));
+            this.isImportRunningProperty.setValue(false);
+            this.mainView.getMainCenterPane().setStyle("-fx-background-image: none");
+            this.openMoleculesTab();
+        });
+    }
+    //
+    /**
+     * Lets the user choose a molecule file, adds its molecules to the current molecule set, and fragments only them
+     * under the single fragmentation of the selected fragments or itemization tab or, if no such tab is selected, the
+     * last fragmentation. The fragments of this fragmentation are updated instead of fragmenting all molecules again.
+     *
+     * @param aParentStage Stage to show the file chooser on
+     */
+    private void chooseAndAppendMoleculeFile(Stage aParentStage) {
+        if (this.isFragmentationRunning || this.isImportRunningProperty.get()) {
+            GuiUtil.guiMessageAlert(Alert.AlertType.INFORMATION,
+                    Message.get("MainViewController.AppendToFragmentation.Title"),
+                    null,
+                    Message.get("MainViewController.AppendToFragmentation.Running"));
+            return;
+        }
+        String tmpFragmentationName = this.fragmentationService.getCurrentFragmentationName();
+        Tab tmpSelectedTab = this.mainTabPane.getSelectionModel().getSelectedItem();
+        if (tmpSelectedTab instanceof GridTabForTableView tmpGridTab && !tmpGridTab.getId().equals(TabNames.MOLECULES.name())) {
+            tmpFragmentationName = tmpGridTab.getFragmentationNameOutOfTitle();
+        }
+        if (!this.fragmentationService.isFragmentationAppendable(tmpFragmentationName)) {
+            GuiUtil.guiMessageAlert(Alert.AlertType.INFORMATION,
+                    Message.get("MainViewController.AppendToFragmentation.Title"),
+                    null,
+                    Message.get("MainViewController.AppendToFragmentation.NotAppendable"));
+            return;
+        }
+        Importer tmpImporter = new Importer(this.settingsContainer);
+        File tmpFile = tmpImporter.openFile(aParentStage);
+        if (tmpFile == null) {
+            return;
+        }
+        //the appended molecules share the fragments of the molecules they are appended to
+        if (!this.moleculeDataModelList.isEmpty()) {
+            tmpImporter.setMoleculeIndexToExtend(this.moleculeDataModelList.getFirst().getMoleculeIndex());
+        }
+        String tmpAppendedFragmentationName = tmpFragmentationName;
+        this.startImportTask(tmpFile, tmpImporter, tmpImportedMoleculeDataModels -> {
+            this.isImportRunningProperty.setValue(false);
+            this.moleculeDataModelList.addAll(tmpImportedMoleculeDataModels);
+            for (Tab tmpTab : this.mainTabPane.getTabs()) {
+                if (tmpTab.getId().equals(TabNames.MOLECULES.name())) {
+                    ((GridTabForTableView) tmpTab).getPagination().setPageCount(this.calculatePageCount(this.moleculeDataModelList.size()));
+                }
+            }
+            this.primaryStage.setTitle(Message.get("Title.text") + " - " + this.importedFileName + " - " + this.moleculeDataModelList.size() +
+                    " " + Message.get((this.moleculeDataModelList.size() == 1 ? "Title.molecule" : "Title.molecules")));
+            this.updateStatusBar(this.importerThread, Message.get("Status.imported"));
+            this.startFragmentation(tmpImportedMoleculeDataModels, false, tmpAppendedFragmentationName);
+        });
+    }
+    //
+    /**
+     * Imports the given file on the import thread and passes the imported molecules to the given consumer in the
+     * JavaFX application thread. If the import fails, is cancelled, or yields no molecules, the status bar is updated,
+     * the user is notified, and the consumer is not called. The consumer is responsible for resetting the import
+     * running property.
+     *
+     * @param aFile File that contains molecular data
+     * @param anImporter Importer to import the file with
+     * @param anImportedMoleculesConsumer Consumer of the imported molecules, never called with null or an empty list
+     */
+    private void startImportTask(File aFile, Importer anImporter, Consumer<List<MoleculeDataModel>> anImportedMoleculesConsumer) {
         boolean tmpIsRegardStereo = this.settingsContainer.getRegardStereochemistrySetting();
         boolean tmpIsFillOpenValences = this.settingsContainer.getAddImplicitHydrogensAtImportSetting();
         this.importTask = new Task<>() {
             @Override
             protected List<MoleculeDataModel> call() throws Exception {
-                List<MoleculeDataModel> tmpSet = tmpImporter.importMoleculeFile(aFile, tmpIsRegardStereo, tmpIsFillOpenValences);
+                long tmpStartTime = System.currentTimeMillis();
+                List<MoleculeDataModel> tmpSet = anImporter.importMoleculeFile(aFile, tmpIsRegardStereo, tmpIsFillOpenValences);
+                //logged with the thread kind to allow comparing the thread execution modes
+                MainViewController.LOGGER.log(Level.INFO, "Import on {0} thread took {1} ms.",
+                        new Object[]{Thread.currentThread().isVirtual() ? "virtual" : "platform", System.currentTimeMillis() - tmpStartTime});
                 return tmpSet;
             }
         };
@@ -527,40 +624,30 @@ public class MainViewController {
             //note: setOnSucceeded() takes place in the JavaFX GUI thread again but still runLater() is necessary to wait
             // for the thread to be free for the update
             Platform.runLater(() -> {
-                List<MoleculeDataModel> tmpImportedMoleculeDataModels = null;
+                List<MoleculeDataModel> tmpImportedMoleculeDataModels;
                 try {
                     tmpImportedMoleculeDataModels = this.importTask.get();
                 } catch (InterruptedException | ExecutionException anException) {
                     MainViewController.LOGGER.log(Level.SEVERE, anException.toString(), anException);
+                    this.updateStatusBar(this.importerThread, Message.get("Status.importFailed"));
+                    this.isImportRunningProperty.setValue(false);
                     GuiUtil.guiExceptionAlert(Message.get("Error.ExceptionAlert.Title"),
                             Message.get("Importer.FileImportExceptionAlert.Header"),
                             Message.get("Importer.FileImportExceptionAlert.Text"),
                             anException);
-                    this.updateStatusBar(this.importerThread, Message.get("Status.importFailed"));
+                    return;
                 }
-                this.moleculeDataModelList.addAll(tmpImportedMoleculeDataModels);
-                if (tmpImportedMoleculeDataModels == null || tmpImportedMoleculeDataModels.isEmpty() || this.moleculeDataModelList.isEmpty()) {
+                if (tmpImportedMoleculeDataModels == null || tmpImportedMoleculeDataModels.isEmpty()) {
                     MainViewController.LOGGER.log(Level.WARNING, "Import failed, set of imported molecules is null or empty");
                     this.updateStatusBar(this.importerThread, Message.get("Status.importFailed"));
                     this.isImportRunningProperty.setValue(false);
-                    Platform.runLater(() -> {
-                        GuiUtil.guiMessageAlert(Alert.AlertType.WARNING,
-                                Message.get("Error.ExceptionAlert.Title"),
-                                Message.get("Importer.FileImportEmptyAlert.Header"),
-                                Message.get("Importer.FileImportEmptyAlert.Content"));
-                    });
+                    GuiUtil.guiMessageAlert(Alert.AlertType.WARNING,
+                            Message.get("Error.ExceptionAlert.Title"),
+                            Message.get("Importer.FileImportEmptyAlert.Header"),
+                            Message.get("Importer.FileImportEmptyAlert.Content"));
                     return;
                 }
-                this.mainView.getMainMenuBar().getExportMenu().setDisable(true);
-                this.mainView.getMainMenuBar().getHistogramViewerMenuItem().setDisable(true);
-                this.mainView.getMainMenuBar().getOverviewViewMenuItem().setDisable(false);
-                this.primaryStage.setTitle(Message.get("Title.text") + " - " + tmpImporter.getFileName() + " - " + tmpImportedMoleculeDataModels.size() +
-                        " " + Message.get((tmpImportedMoleculeDataModels.size() == 1 ? "Title.molecule" : "Title.molecules")));
-                this.importedFileName = tmpImporter.getFileName();
-                this.updateStatusBar(this.importerThread, Message.get("Status.imported"));
-                this.isImportRunningProperty.setValue(false);
-                this.mainView.getMainCenterPane().setStyle("-fx-background-image: none");
-                this.openMoleculesTab();
+                anImportedMoleculesConsumer.accept(tmpImportedMoleculeDataModels);
             })
         );
         this.importTask.setOnCancelled(event -> {
@@ -579,11 +666,8 @@ public class MainViewController {
                         tmpCause);
             });
         });
-        this.importerThread = new Thread(importTask);
-        this.importerThread.setName(ThreadType.IMPORT_THREAD.getThreadName());
-        this.importerThread.setUncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler());
-        this.importerThread.setDaemon(false);
-        this.importerThread.setPriority(Thread.currentThread().getPriority() - 2); //magic number
+        this.importerThread = ThreadUtil.createBackgroundThread(this.importTask, ThreadType.IMPORT_THREAD.getThreadName(),
+                this.settingsContainer.getThreadExecutionModeSetting());
         this.isImportRunningProperty.setValue(true);
         this.updateStatusBar(this.importerThread, Message.get("Status.importing"));
         this.importerThread.start();
@@ -764,11 +848,8 @@ public class MainViewController {
                     null);
 
         });
-        this.exporterThread = new Thread(this.exportTask);
-        this.exporterThread.setName(ThreadType.EXPORT_THREAD.getThreadName());
-        this.exporterThread.setUncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler());
-        this.exporterThread.setDaemon(false);
-        this.exporterThread.setPriority(Thread.currentThread().getPriority() - 2); //magic number
+        this.exporterThread = ThreadUtil.createBackgroundThread(this.exportTask, ThreadType.EXPORT_THREAD.getThreadName(),
+                this.settingsContainer.getThreadExecutionModeSetting());
         this.isExportRunningProperty.setValue(true);
         this.updateStatusBar(this.exporterThread, Message.get("Status.exporting"));
         this.exporterThread.start();
@@ -830,6 +911,47 @@ public class MainViewController {
         });
     }
     //
+    /**
+     * Asks the user for confirmation, showing the size and the session statistics of the persistent fragmentation
+     * cache, and clears it. Not possible while a fragmentation is running.
+     */
+    private void clearFragmentationCache() {
+        if (this.isFragmentationRunning) {
+            GuiUtil.guiMessageAlert(Alert.AlertType.INFORMATION,
+                    Message.get("MainViewController.ClearFragmentationCache.Title"),
+                    null,
+                    Message.get("MainViewController.ClearFragmentationCache.Running"));
+            return;
+        }
+        FragmentationDiskCache tmpDiskCache;
+        try {
+            tmpDiskCache = this.fragmentationService.getFragmentationDiskCache();
+        } catch (SecurityException anException) {
+            MainViewController.LOGGER.log(Level.WARNING, anException.toString(), anException);
+            GuiUtil.guiExceptionAlert(Message.get("MainViewController.ClearFragmentationCache.Title"),
+                    null,
+                    Message.get("MainViewController.ClearFragmentationCache.Failed"),
+                    anException);
+            return;
+        }
+        ButtonType tmpConfirmationResult = GuiUtil.guiConfirmationAlert(
+                Message.get("MainViewController.ClearFragmentationCache.Title"),
+                Message.get("MainViewController.ClearFragmentationCache.Header"),
+                String.format(Message.get("MainViewController.ClearFragmentationCache.Content"),
+                        tmpDiskCache.getSizeInBytes() / (1024.0 * 1024.0),
+                        tmpDiskCache.getNumberOfHits(),
+                        tmpDiskCache.getNumberOfMisses()));
+        if (tmpConfirmationResult != ButtonType.OK) {
+            return;
+        }
+        if (!this.fragmentationService.clearFragmentationDiskCache()) {
+            GuiUtil.guiMessageAlert(Alert.AlertType.WARNING,
+                    Message.get("MainViewController.ClearFragmentationCache.Title"),
+                    null,
+                    Message.get("MainViewController.ClearFragmentationCache.Failed"));
+        }
+    }
+    //
     /**
      * Opens settings view for global settings.
      */
@@ -1072,6 +1194,21 @@ public class MainViewController {
      * @return configured pagination control instance
      */
     private Pagination createPaginationWithSuitablePageCount(int aListSize) {
+        Pagination tmpPagination = new Pagination(this.calculatePageCount(aListSize), 0);
+        tmpPagination.setSkin(new CustomPaginationSkin(tmpPagination));
+        VBox.setVgrow(tmpPagination, Priority.ALWAYS);
+        HBox.setHgrow(tmpPagination, Priority.ALWAYS);
+        return tmpPagination;
+    }
+    //
+    /**
+     * Returns the number of pages needed to display the given number of molecules/fragments taking into account the
+     * rows per page setting.
+     *
+     * @param aListSize number of molecules/fragments to display
+     * @return page count, at least 1
+     */
+    private int calculatePageCount(int aListSize) {
         int tmpRowsPerPage = this.settingsContainer.getRowsPerPageSetting();
         int tmpPageCount = aListSize / tmpRowsPerPage;
         if (aListSize % tmpRowsPerPage > 0) {
@@ -1080,11 +1217,7 @@ public class MainViewController {
         if (aListSize == 0) {
             tmpPageCount = 1;
         }
-        Pagination tmpPagination = new Pagination(tmpPageCount, 0);
-        tmpPagination.setSkin(new CustomPaginationSkin(tmpPagination));
-        VBox.setVgrow(tmpPagination, Priority.ALWAYS);
-        HBox.setHgrow(tmpPagination, Priority.ALWAYS);
-        return tmpPagination;
+        return tmpPageCount;
     }
     //
     /**
@@ -1121,12 +1254,24 @@ public class MainViewController {
     }
     //
     /**
-     * Starts fragmentation task and opens fragment and itemization tabs.
+     * Starts fragmentation task for the selected molecules and opens fragment and itemization tabs.
      */
     private void startFragmentation(boolean isPipelining) {
+        this.startFragmentation(this.moleculeDataModelList.stream().filter(MoleculeDataModel::isSelected).toList(), isPipelining, null);
+    }
+    //
+    /**
+     * Starts fragmentation task for the given molecules and opens fragment and itemization tabs. If the name of an
+     * existing fragmentation is given, the molecules are appended to it and its tabs are replaced by updated ones.
+     *
+     * @param aListOfMolecules molecules to fragment
+     * @param isPipelining whether the pipeline should be run, ignored if molecules are appended
+     * @param anAppendedFragmentationName name of the fragmentation to append the molecules to or null to start a new one
+     */
+    private void startFragmentation(List<MoleculeDataModel> aListOfMolecules, boolean isPipelining, String anAppendedFragmentationName) {
         long tmpStartTime = System.nanoTime();
         MainViewController.LOGGER.info("Start of method startFragmentation");
-        List<MoleculeDataModel> tmpSelectedMolecules = this.moleculeDataModelList.stream().filter(MoleculeDataModel::isSelected).toList();
+        List<MoleculeDataModel> tmpSelectedMolecules = aListOfMolecules;
         int tmpNumberOfCores = this.settingsContainer.getNumberOfTasksForFragmentationSetting();
         boolean tmpIsKeepLastFragmentSetting = this.settingsContainer.isKeepLastFragmentSetting();
         boolean tmpIsStereoChemRegarded = this.settingsContainer.getRegardStereochemistrySetting();
@@ -1136,7 +1281,10 @@ public class MainViewController {
             this.parallelFragmentationMainTask = new Task<>() {
                 @Override
                 protected Void call() throws Exception {
-                    if (isPipelining) {
+                    if (anAppendedFragmentationName != null) {
+                        MainViewController.this.fragmentationService.appendToFragmentation(anAppendedFragmentationName,
+                                tmpSelectedMolecules, tmpNumberOfCores);
+                    } else if (isPipelining) {
                         MainViewController.this.fragmentationService.startPipelineFragmentation(tmpSelectedMolecules,
                                 tmpNumberOfCores, tmpIsStereoChemRegarded, tmpIsKeepLastFragmentSetting);
 //                        fragmentationService.startPipelineFragmentationMolByMol(tmpSelectedMolecules, tmpNumberOfCores);
@@ -1163,6 +1311,11 @@ public class MainViewController {
                         for (String tmpKey : tmpKeys) {
                             tmpObservableFragments.add(this.fragmentationService.getFragments().get(tmpKey));
                         }
+                        if (anAppendedFragmentationName != null) {
+                            //the tabs of the fragmentation are replaced by ones showing the updated fragments
+                            this.mainTabPane.getTabs().removeIf(aTab -> !aTab.getId().equals(TabNames.MOLECULES.name())
+                                    && ((GridTabForTableView) aTab).getFragmentationNameOutOfTitle().equals(anAppendedFragmentationName));
+                        }
                         this.mapOfFragmentDataModelLists.put(this.fragmentationService.getCurrentFragmentationName(), tmpObservableFragments);
                         this.addFragmentationResultTabs(this.fragmentationService.getCurrentFragmentationName());
                         this.updateStatusBar(this.fragmentationThread, Message.get("Status.finished"));
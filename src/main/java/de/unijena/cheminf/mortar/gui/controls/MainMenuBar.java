@@ -52,6 +52,10 @@ public class MainMenuBar extends MenuBar {
      * MenuItem to import molecules.
      */
     private final MenuItem openMenuItem;
+    /**
+     * MenuItem to import molecules and append them to an existing fragmentation.
+     */
+    private final MenuItem appendMenuItem;
     /**
      * MenuItem for export.
      */
@@ -124,6 +128,10 @@ public class MainMenuBar extends MenuBar {
      * MenuItem to open pipeline settings.
      */
     private final MenuItem pipelineSettingsMenuItem;
+    /**
+     * MenuItem to clear the persistent fragmentation cache.
+     */
+    private final MenuItem clearFragmentationCacheMenuItem;
     /**
      * MenuItem to open AboutView.
      */
@@ -165,6 +173,7 @@ public class MainMenuBar extends MenuBar {
         //fileMenu
         this.fileMenu = new Menu(Message.get("MainView.menuBar.fileMenu.text"));
         this.openMenuItem = new MenuItem(Message.get("MainView.menuBar.fileMenu.openMenuItem.text"));
+        this.appendMenuItem = new MenuItem(Message.get("MainView.menuBar.fileMenu.appendMenuItem.text"));
         this.cancelImportMenuItem = new MenuItem(Message.get("MainView.menuBar.fileMenu.openMenuItem.cancel"));
         this.exportMenu = new Menu(Message.get("MainView.menuBar.fileMenu.exportMenu.text"));
         this.cancelExportMenuItem = new MenuItem(Message.get("MainView.menuBar.fileMenu.exportMenu.cancel"));
@@ -190,6 +199,7 @@ public class MainMenuBar extends MenuBar {
         this.globalSettingsMenuItem = new MenuItem(Message.get("MainView.menuBar.settingsMenu.globalSettingsMenuItem.text"));
         this.fragmentationAlgorithmMenu = new Menu(Message.get("MainView.menuBar.settingsMenu.fragmentationAlgorithmMenuItem.text"));
         this.fragmentationSettingsMenuItem = new MenuItem(Message.get("MainView.menuBar.settingsMenu.fragmentationSettingsMenuItem.text"));
+        this.clearFragmentationCacheMenuItem = new MenuItem(Message.get("MainView.menuBar.settingsMenu.clearFragmentationCacheMenuItem.text"));
         //pipelineMenu
         this.pipelineMenu = new Menu(Message.get("MainView.menuBar.pipelineMenu.text"));
         this.pipelineSettingsMenuItem = new MenuItem(Message.get("MainView.menuBar.pipelineMenu.pipelineSettingsMenuItem.text"));
@@ -217,6 +227,8 @@ public class MainMenuBar extends MenuBar {
         this.getMenus().add(this.fileMenu);
         //openMenuItem
         this.fileMenu.getItems().add(this.openMenuItem);
+        //appendMenuItem
+        this.fileMenu.getItems().add(this.appendMenuItem);
         this.fileMenu.getItems().add(this.cancelImportMenuItem);
         this.cancelImportMenuItem.setVisible(false);
         //exportMenu
@@ -240,6 +252,10 @@ public class MainMenuBar extends MenuBar {
         this.settingsMenu.getItems().add(this.fragmentationAlgorithmMenu);
         //fragmentationSettingsMenuItem
         this.settingsMenu.getItems().add(this.fragmentationSettingsMenuItem);
+        //separator
+        this.settingsMenu.getItems().add(new SeparatorMenuItem());
+        //clearFragmentationCacheMenuItem
+        this.settingsMenu.getItems().add(this.clearFragmentationCacheMenuItem);
         //</editor-fold>
         //<editor-fold desc="pipelineMenu" defaultstate="collapsed">
         this.getMenus().add(this.pipelineMenu);
@@ -296,6 +312,16 @@ public class MainMenuBar extends MenuBar {
         return this.openMenuItem;
     }
     //</editor-fold>
+    //<editor-fold desc="getAppendMenuItem" defaultstate="collapsed">
+    /**
+     * Returns the menu item that is supposed to import molecules and append them to an existing fragmentation.
+     *
+     * @return the menu item that should append molecules to a fragmentation
+     */
+    public MenuItem getAppendMenuItem() {
+        return this.appendMenuItem;
+    }
+    //</editor-fold>
     //<editor-fold desc="getExportMenu" defaultstate="collapsed">
     /**
      * Returns the menu that is supposed to open a list of export options.
@@ -436,6 +462,16 @@ public class MainMenuBar extends MenuBar {
         return this.fragmentationAlgorithmMenu;
     }
     //</editor-fold>
+    //<editor-fold desc="getClearFragmentationCacheMenuItem" defaultstate="collapsed">
+    /**
+     * Returns the menu item that is supposed to clear the persistent fragmentation cache.
+     *
+     * @return the menu item that should clear the persistent fragmentation cache
+     */
+    public MenuItem getClearFragmentationCacheMenuItem() {
+        return this.clearFragmentationCacheMenuItem;
+    }
+    //</editor-fold>
     //<editor-fold desc="getFragmentationSettingsMenuItem" defaultstate="collapsed">
     /**
      * Returns the menu item that is supposed to open the fragmentation settings window.
@@ -35,7 +35,6 @@ import org.openscience.cdk.interfaces.IAtomContainer;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -103,8 +102,8 @@ public class FragmentDataModel extends MoleculeDataModel {
         this.absolutePercentage = 0.;
         this.moleculeFrequency = new AtomicInteger(0);
         this.moleculePercentage = 0.;
-        // sounds weird but to set the number of the total molecule set as expected size kills the performance
-        this.parentMolecules = ConcurrentHashMap.newKeySet();
+        // stores indexed molecules as primitive indices, see ParentMoleculeSet
+        this.parentMolecules = new ParentMoleculeSet();
     }
     //
     /**
@@ -120,8 +119,8 @@ public class FragmentDataModel extends MoleculeDataModel {
         this.absolutePercentage = 0.;
         this.moleculeFrequency = new AtomicInteger(0);
         this.moleculePercentage = 0.;
-        // sounds weird but to set the number of the total molecule set as expected size kills the performance
-        this.parentMolecules = ConcurrentHashMap.newKeySet();
+        // stores indexed molecules as primitive indices, see ParentMoleculeSet
+        this.parentMolecules = new ParentMoleculeSet();
     }
     //</editor-fold>
     //
@@ -0,0 +1,159 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the fragments of one fragmentation that assigns every unique SMILES code a dense int ID. The per-molecule
+ * fragmentation results can then be stored as int arrays of fragment IDs and frequencies, see {@link FragmentIdList} and
+ * {@link FragmentFrequencyMap}. IDs can be assigned concurrently while the fragmentation is running; the fragment data
+ * models the IDs stand for are set once all fragments are known via {@link #setFragments(Map)}.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentDictionary {
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * IDs of the fragments, keys are unique SMILES codes.
+     */
+    private final ConcurrentHashMap<String, Integer> idsBySmiles;
+    /**
+     * Lock for the assignment of new IDs, only used if a SMILES code is encountered for the first time.
+     */
+    private final Object idAssignmentLock;
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Next free ID.
+     */
+    private int nextId;
+    /**
+     * Fragment data models, the position in the array is the fragment ID; null until set via {@link #setFragments(Map)}.
+     */
+    private volatile FragmentDataModel[] fragmentsById;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructor" defaultstate="collapsed">
+    /**
+     * Constructor creating an empty dictionary.
+     */
+    public FragmentDictionary() {
+        this.idsBySmiles = new ConcurrentHashMap<>();
+        this.idAssignmentLock = new Object();
+        this.nextId = 0;
+        this.fragmentsById = null;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Returns the ID of the given unique SMILES code and assigns a new one if the SMILES code is not known yet.
+     * Thread-safe.
+     *
+     * @param aUniqueSmiles unique SMILES code of a fragment
+     * @return fragment ID
+     * @throws NullPointerException if the given SMILES code is null
+     */
+    public int getOrAssignId(String aUniqueSmiles) throws NullPointerException {
+        Objects.requireNonNull(aUniqueSmiles, "aUniqueSmiles (instance of String) is null.");
+        //the lookup of known SMILES codes does not lock
+        return this.idsBySmiles.computeIfAbsent(aUniqueSmiles, aKey -> {
+            synchronized (this.idAssignmentLock) {
+                return this.nextId++;
+            }
+        });
+    }
+    //
+    /**
+     * Returns the ID of the given unique SMILES code.
+     *
+     * @param aUniqueSmiles unique SMILES code of a fragment
+     * @return fragment ID or -1 if the SMILES code is not known or null
+     */
+    public int getId(Object aUniqueSmiles) {
+        if (aUniqueSmiles == null) {
+            return -1;
+        }
+        Integer tmpId = this.idsBySmiles.get(aUniqueSmiles);
+        return tmpId == null ? -1 : tmpId;
+    }
+    //
+    /**
+     * Returns the fragment data model with the given ID.
+     *
+     * @param anId fragment ID
+     * @return fragment data model
+     * @throws IllegalStateException if the fragments have not been set yet or the given ID has no fragment
+     */
+    public FragmentDataModel getFragment(int anId) throws IllegalStateException {
+        FragmentDataModel[] tmpFragmentsById = this.fragmentsById;
+        if (tmpFragmentsById == null || anId < 0 || anId >= tmpFragmentsById.length || tmpFragmentsById[anId] == null) {
+            throw new IllegalStateException("No fragment set for ID " + anId + " in the fragment dictionary.");
+        }
+        return tmpFragmentsById[anId];
+    }
+    //
+    /**
+     * Sets the fragment data models the IDs stand for. Must be called after all IDs were assigned and before the
+     * fragments are accessed by their ID. IDs that already have a fragment from an earlier call keep it, so that the
+     * fragments of molecules appended to a fragmentation can be set from a map of the new fragments only.
+     *
+     * @param aFragmentsMap final fragments of the fragmentation, keys are unique SMILES codes
+     * @throws NullPointerException if the given map is null
+     */
+    public void setFragments(Map<String, FragmentDataModel> aFragmentsMap) throws NullPointerException {
+        Objects.requireNonNull(aFragmentsMap, "aFragmentsMap (instance of Map<String, FragmentDataModel>) is null.");
+        FragmentDataModel[] tmpFragmentsById;
+        synchronized (this.idAssignmentLock) {
+            tmpFragmentsById = this.fragmentsById == null
+                    ? new FragmentDataModel[this.nextId]
+                    : Arrays.copyOf(this.fragmentsById, this.nextId);
+        }
+        for (Map.Entry<String, FragmentDataModel> tmpEntry : aFragmentsMap.entrySet()) {
+            int tmpId = this.getId(tmpEntry.getKey());
+            if (tmpId >= 0 && tmpId < tmpFragmentsById.length && tmpFragmentsById[tmpId] == null) {
+                tmpFragmentsById[tmpId] = tmpEntry.getValue();
+            }
+        }
+        this.fragmentsById = tmpFragmentsById;
+    }
+    //
+    /**
+     * Returns the number of assigned IDs.
+     *
+     * @return number of fragments in this dictionary
+     */
+    public int size() {
+        return this.idsBySmiles.size();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,268 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Map of the frequencies of the fragments in one molecule in one fragmentation, keyed by the unique SMILES codes of the
+ * fragments. Stores the int IDs of the fragments in a {@link FragmentDictionary} and their frequencies in two parallel
+ * int arrays instead of hash map nodes and boxed integers. Since a molecule only has a few fragments, keys are looked up
+ * by a linear scan of the IDs. The ID array given at construction may be shared with a {@link FragmentIdList}, it is
+ * copied before the first modification.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentFrequencyMap extends AbstractMap<String, Integer> {
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Dictionary the IDs refer to.
+     */
+    private final FragmentDictionary dictionary;
+    /**
+     * Fragment IDs, only valid in the first {@link #size} positions.
+     */
+    private int[] ids;
+    /**
+     * Frequencies of the fragments, parallel to {@link #ids}.
+     */
+    private int[] frequencies;
+    /**
+     * Number of entries.
+     */
+    private int size;
+    /**
+     * Whether the ID array is still the one given at construction and must be copied before a modification.
+     */
+    private boolean isArrayShared;
+    /**
+     * Number of structural modifications, for fail-fast iteration.
+     */
+    private int modificationCount;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructor" defaultstate="collapsed">
+    /**
+     * Constructor.
+     *
+     * @param aDictionary dictionary the IDs refer to
+     * @param anArrayOfIds fragment IDs, not copied
+     * @param anArrayOfFrequencies frequencies of the fragments, parallel to the IDs, not copied
+     * @throws NullPointerException if a parameter is null
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public FragmentFrequencyMap(FragmentDictionary aDictionary, int[] anArrayOfIds, int[] anArrayOfFrequencies)
+            throws NullPointerException, IllegalArgumentException {
+        this.dictionary = Objects.requireNonNull(aDictionary, "aDictionary (instance of FragmentDictionary) is null.");
+        this.ids = Objects.requireNonNull(anArrayOfIds, "anArrayOfIds (instance of int[]) is null.");
+        this.frequencies = Objects.requireNonNull(anArrayOfFrequencies, "anArrayOfFrequencies (instance of int[]) is null.");
+        if (anArrayOfIds.length != anArrayOfFrequencies.length) {
+            throw new IllegalArgumentException("The arrays of IDs and frequencies must have the same length.");
+        }
+        this.size = anArrayOfIds.length;
+        this.isArrayShared = true;
+        this.modificationCount = 0;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    @Override
+    public Integer get(Object aKey) {
+        int tmpPosition = this.getPosition(aKey);
+        return tmpPosition < 0 ? null : this.frequencies[tmpPosition];
+    }
+    //
+    @Override
+    public boolean containsKey(Object aKey) {
+        return this.getPosition(aKey) >= 0;
+    }
+    //
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the given SMILES code is not in the dictionary of this map
+     * @throws NullPointerException if the given frequency is null
+     */
+    @Override
+    public Integer put(String aKey, Integer aFrequency) throws IllegalArgumentException, NullPointerException {
+        Objects.requireNonNull(aFrequency, "aFrequency (instance of Integer) is null.");
+        int tmpId = this.dictionary.getId(aKey);
+        if (tmpId < 0) {
+            throw new IllegalArgumentException("Fragment " + aKey + " is not in the fragment dictionary.");
+        }
+        int tmpPosition = this.getPositionOfId(tmpId);
+        if (tmpPosition >= 0) {
+            int tmpOldFrequency = this.frequencies[tmpPosition];
+            this.frequencies[tmpPosition] = aFrequency;
+            return tmpOldFrequency;
+        }
+        this.ensureOwnArrays(this.size + 1);
+        this.ids[this.size] = tmpId;
+        this.frequencies[this.size] = aFrequency;
+        this.size++;
+        this.modificationCount++;
+        return null;
+    }
+    //
+    @Override
+    public Integer remove(Object aKey) {
+        int tmpPosition = this.getPosition(aKey);
+        if (tmpPosition < 0) {
+            return null;
+        }
+        int tmpOldFrequency = this.frequencies[tmpPosition];
+        this.removeAt(tmpPosition);
+        return tmpOldFrequency;
+    }
+    //
+    @Override
+    public int size() {
+        return this.size;
+    }
+    //
+    @Override
+    public void clear() {
+        this.ids = new int[0];
+        this.frequencies = new int[0];
+        this.isArrayShared = false;
+        this.size = 0;
+        this.modificationCount++;
+    }
+    //
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Integer>> iterator() {
+                return new Iterator<>() {
+                    private int nextPosition = 0;
+                    private int lastPosition = -1;
+                    private int expectedModificationCount = FragmentFrequencyMap.this.modificationCount;
+                    //
+                    @Override
+                    public boolean hasNext() {
+                        return this.nextPosition < FragmentFrequencyMap.this.size;
+                    }
+                    //
+                    @Override
+                    public Map.Entry<String, Integer> next() {
+                        if (this.expectedModificationCount != FragmentFrequencyMap.this.modificationCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        this.lastPosition = this.nextPosition++;
+                        return new AbstractMap.SimpleImmutableEntry<>(
+                                FragmentFrequencyMap.this.dictionary.getFragment(FragmentFrequencyMap.this.ids[this.lastPosition]).getUniqueSmiles(),
+                                FragmentFrequencyMap.this.frequencies[this.lastPosition]);
+                    }
+                    //
+                    @Override
+                    public void remove() {
+                        if (this.lastPosition < 0) {
+                            throw new IllegalStateException();
+                        }
+                        FragmentFrequencyMap.this.removeAt(this.lastPosition);
+                        this.nextPosition = this.lastPosition;
+                        this.lastPosition = -1;
+                        this.expectedModificationCount = FragmentFrequencyMap.this.modificationCount;
+                    }
+                };
+            }
+            //
+            @Override
+            public int size() {
+                return FragmentFrequencyMap.this.size;
+            }
+        };
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods" defaultstate="collapsed">
+    /**
+     * Returns the position of the given SMILES code in the arrays.
+     *
+     * @param aKey unique SMILES code
+     * @return position or -1 if not contained
+     */
+    private int getPosition(Object aKey) {
+        int tmpId = this.dictionary.getId(aKey);
+        return tmpId < 0 ? -1 : this.getPositionOfId(tmpId);
+    }
+    //
+    /**
+     * Returns the position of the given fragment ID in the arrays.
+     *
+     * @param anId fragment ID
+     * @return position or -1 if not contained
+     */
+    private int getPositionOfId(int anId) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.ids[i] == anId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    //
+    /**
+     * Removes the entry at the given position.
+     *
+     * @param aPosition position in the arrays
+     */
+    private void removeAt(int aPosition) {
+        this.ensureOwnArrays(this.size);
+        System.arraycopy(this.ids, aPosition + 1, this.ids, aPosition, this.size - aPosition - 1);
+        System.arraycopy(this.frequencies, aPosition + 1, this.frequencies, aPosition, this.size - aPosition - 1);
+        this.size--;
+        this.modificationCount++;
+    }
+    //
+    /**
+     * Copies the ID array if it is still shared and makes sure both arrays can hold the given number of entries.
+     *
+     * @param aMinimumCapacity number of entries the arrays must be able to hold
+     */
+    private void ensureOwnArrays(int aMinimumCapacity) {
+        if (this.isArrayShared || this.ids.length < aMinimumCapacity) {
+            int tmpNewCapacity = Math.max(aMinimumCapacity, this.size + (this.size >> 1));
+            this.ids = Arrays.copyOf(this.ids, tmpNewCapacity);
+            this.frequencies = Arrays.copyOf(this.frequencies, tmpNewCapacity);
+            this.isArrayShared = false;
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,168 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * List of the fragments of one molecule in one fragmentation that stores only the int IDs of the fragments in a
+ * {@link FragmentDictionary} and resolves them on access. The ID array given at construction may be shared with a
+ * {@link FragmentFrequencyMap}, it is copied before the first modification.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentIdList extends AbstractList<FragmentDataModel> implements RandomAccess {
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Dictionary the IDs refer to.
+     */
+    private final FragmentDictionary dictionary;
+    /**
+     * Fragment IDs, only valid in the first {@link #size} positions.
+     */
+    private int[] ids;
+    /**
+     * Number of fragments in the list.
+     */
+    private int size;
+    /**
+     * Whether the ID array is still the one given at construction and must be copied before a modification.
+     */
+    private boolean isArrayShared;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructor" defaultstate="collapsed">
+    /**
+     * Constructor.
+     *
+     * @param aDictionary dictionary the IDs refer to
+     * @param anArrayOfIds fragment IDs in list order, not copied
+     * @throws NullPointerException if a parameter is null
+     */
+    public FragmentIdList(FragmentDictionary aDictionary, int[] anArrayOfIds) throws NullPointerException {
+        this.dictionary = Objects.requireNonNull(aDictionary, "aDictionary (instance of FragmentDictionary) is null.");
+        this.ids = Objects.requireNonNull(anArrayOfIds, "anArrayOfIds (instance of int[]) is null.");
+        this.size = anArrayOfIds.length;
+        this.isArrayShared = true;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    @Override
+    public FragmentDataModel get(int anIndex) {
+        Objects.checkIndex(anIndex, this.size);
+        return this.dictionary.getFragment(this.ids[anIndex]);
+    }
+    //
+    @Override
+    public int size() {
+        return this.size;
+    }
+    //
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the given fragment is not in the dictionary of this list
+     */
+    @Override
+    public FragmentDataModel set(int anIndex, FragmentDataModel aFragment) throws IllegalArgumentException {
+        Objects.checkIndex(anIndex, this.size);
+        int tmpId = this.getIdOf(aFragment);
+        FragmentDataModel tmpOldFragment = this.get(anIndex);
+        this.ensureOwnArray(this.size);
+        this.ids[anIndex] = tmpId;
+        return tmpOldFragment;
+    }
+    //
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the given fragment is not in the dictionary of this list
+     */
+    @Override
+    public void add(int anIndex, FragmentDataModel aFragment) throws IllegalArgumentException {
+        Objects.checkIndex(anIndex, this.size + 1);
+        int tmpId = this.getIdOf(aFragment);
+        this.ensureOwnArray(this.size + 1);
+        System.arraycopy(this.ids, anIndex, this.ids, anIndex + 1, this.size - anIndex);
+        this.ids[anIndex] = tmpId;
+        this.size++;
+        this.modCount++;
+    }
+    //
+    @Override
+    public FragmentDataModel remove(int anIndex) {
+        FragmentDataModel tmpOldFragment = this.get(anIndex);
+        this.ensureOwnArray(this.size);
+        System.arraycopy(this.ids, anIndex + 1, this.ids, anIndex, this.size - anIndex - 1);
+        this.size--;
+        this.modCount++;
+        return tmpOldFragment;
+    }
+    //
+    @Override
+    public void clear() {
+        this.ids = new int[0];
+        this.isArrayShared = false;
+        this.size = 0;
+        this.modCount++;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods" defaultstate="collapsed">
+    /**
+     * Returns the ID of the given fragment in the dictionary of this list.
+     *
+     * @param aFragment fragment
+     * @return fragment ID
+     * @throws IllegalArgumentException if the fragment is not in the dictionary
+     */
+    private int getIdOf(FragmentDataModel aFragment) throws IllegalArgumentException {
+        Objects.requireNonNull(aFragment, "aFragment (instance of FragmentDataModel) is null.");
+        int tmpId = this.dictionary.getId(aFragment.getUniqueSmiles());
+        if (tmpId < 0) {
+            throw new IllegalArgumentException("Fragment " + aFragment.getUniqueSmiles() + " is not in the fragment dictionary.");
+        }
+        return tmpId;
+    }
+    //
+    /**
+     * Copies the ID array if it is still shared and makes sure it can hold the given number of IDs.
+     *
+     * @param aMinimumCapacity number of IDs the array must be able to hold
+     */
+    private void ensureOwnArray(int aMinimumCapacity) {
+        if (this.isArrayShared || this.ids.length < aMinimumCapacity) {
+            this.ids = Arrays.copyOf(this.ids, Math.max(aMinimumCapacity, this.size + (this.size >> 1)));
+            this.isArrayShared = false;
+        }
+    }
+    //</editor-fold>
+}
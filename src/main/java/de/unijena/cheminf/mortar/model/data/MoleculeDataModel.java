@@ -102,6 +102,16 @@ public class MoleculeDataModel {
      * Width value for image of structure.
      */
     private double structureImageWidth;
+    //
+    /**
+     * Index of the import this molecule belongs to; null if the molecule is not indexed.
+     */
+    private MoleculeIndex moleculeIndex;
+    //
+    /**
+     * Position of this molecule in its molecule index; -1 if the molecule is not indexed.
+     */
+    private int indexInMoleculeIndex;
     //</editor-fold>
     //
     //<editor-fold desc="constructors">
@@ -125,6 +135,8 @@ public class MoleculeDataModel {
                 BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
         this.fragmentFrequencies = new HashMap<>(BasicDefinitions.DEFAULT_INITIAL_MAP_CAPACITY,
                 BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
+        this.moleculeIndex = null;
+        this.indexInMoleculeIndex = -1;
     }
     //
     /**
@@ -194,6 +206,24 @@ public class MoleculeDataModel {
         return this.uniqueSmiles;
     }
     //
+    /**
+     * Returns the index of the import this molecule belongs to.
+     *
+     * @return molecule index or null if the molecule is not indexed
+     */
+    public MoleculeIndex getMoleculeIndex() {
+        return this.moleculeIndex;
+    }
+    //
+    /**
+     * Returns the position of this molecule in its molecule index.
+     *
+     * @return index of this molecule or -1 if the molecule is not indexed
+     */
+    public int getIndexInMoleculeIndex() {
+        return this.indexInMoleculeIndex;
+    }
+    //
     /**
      * Returns boolean telling whether molecule is selected or not.
      *
@@ -397,5 +427,16 @@ public class MoleculeDataModel {
     public void setStructureImageWidth(double aStructureImageWidth) {
         this.structureImageWidth = aStructureImageWidth;
     }
+    //
+    /**
+     * Sets the index of the import this molecule belongs to and its position in it, see {@link MoleculeIndex#assign(List)}.
+     *
+     * @param aMoleculeIndex molecule index
+     * @param anIndex position of this molecule in the molecule index
+     */
+    void setMoleculeIndex(MoleculeIndex aMoleculeIndex, int anIndex) {
+        this.moleculeIndex = aMoleculeIndex;
+        this.indexInMoleculeIndex = anIndex;
+    }
     //</editor-fold>
 }
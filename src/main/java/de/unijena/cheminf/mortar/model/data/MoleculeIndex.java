@@ -0,0 +1,144 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Dense integer index of the molecules of one import and the molecules appended to it. Every indexed molecule knows
+ * its index and the index it belongs to, so that collections of molecules like the parent molecules of a fragment can
+ * store primitive integers instead of object references and resolve them on access.
+ * <br>NOTE: Appending is thread-safe, the molecules are copied on write so that they can be resolved concurrently.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public final class MoleculeIndex {
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * Indexed molecules, the position in the list is the index of the molecule. Replaced by a new list when molecules
+     * are appended.
+     */
+    private volatile List<MoleculeDataModel> molecules;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructor" defaultstate="collapsed">
+    /**
+     * Private constructor, use {@link #assign(List)}.
+     *
+     * @param aListOfMolecules molecules to index
+     */
+    private MoleculeIndex(List<MoleculeDataModel> aListOfMolecules) {
+        this.molecules = new ArrayList<>(aListOfMolecules);
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public static methods" defaultstate="collapsed">
+    /**
+     * Creates a new index of the given molecules and assigns it to them, each molecule gets its position in the given
+     * list as index. Molecules that are indexed already are rejected because the parent molecule sets of fragments
+     * refer to them by their current index.
+     *
+     * @param aListOfMolecules molecules to index
+     * @return the new index
+     * @throws NullPointerException if the given list or one of its elements is null
+     * @throws IllegalArgumentException if one of the molecules is indexed already
+     */
+    public static MoleculeIndex assign(List<MoleculeDataModel> aListOfMolecules) throws NullPointerException, IllegalArgumentException {
+        MoleculeIndex.checkNotIndexed(aListOfMolecules);
+        MoleculeIndex tmpMoleculeIndex = new MoleculeIndex(aListOfMolecules);
+        for (int i = 0; i < tmpMoleculeIndex.molecules.size(); i++) {
+            tmpMoleculeIndex.molecules.get(i).setMoleculeIndex(tmpMoleculeIndex, i);
+        }
+        return tmpMoleculeIndex;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static methods" defaultstate="collapsed">
+    /**
+     * Checks that none of the given molecules is null or indexed already, before any of them is changed.
+     *
+     * @param aListOfMolecules molecules to index
+     * @throws NullPointerException if the given list or one of its elements is null
+     * @throws IllegalArgumentException if one of the molecules is indexed already
+     */
+    private static void checkNotIndexed(List<MoleculeDataModel> aListOfMolecules) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aListOfMolecules, "aListOfMolecules (instance of List<MoleculeDataModel>) is null.");
+        for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+            Objects.requireNonNull(tmpMolecule, "aListOfMolecules contains null.");
+            if (tmpMolecule.getMoleculeIndex() != null) {
+                throw new IllegalArgumentException("Molecule " + tmpMolecule.getName() + " is indexed already.");
+            }
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Appends the given molecules to this index and assigns it to them, each molecule gets the current size of this
+     * index plus its position in the given list as index. The indices of the molecules indexed already are kept, so
+     * that the parent molecule sets of fragments can store the appended molecules by their index as well.
+     *
+     * @param aListOfMolecules molecules to append
+     * @throws NullPointerException if the given list or one of its elements is null
+     * @throws IllegalArgumentException if one of the molecules is indexed already
+     */
+    public synchronized void append(List<MoleculeDataModel> aListOfMolecules) throws NullPointerException, IllegalArgumentException {
+        MoleculeIndex.checkNotIndexed(aListOfMolecules);
+        List<MoleculeDataModel> tmpMolecules = new ArrayList<>(this.molecules.size() + aListOfMolecules.size());
+        tmpMolecules.addAll(this.molecules);
+        tmpMolecules.addAll(aListOfMolecules);
+        int tmpFirstIndex = this.molecules.size();
+        //published before the molecules get their indices, so that every assigned index can be resolved
+        this.molecules = tmpMolecules;
+        for (int i = tmpFirstIndex; i < tmpMolecules.size(); i++) {
+            tmpMolecules.get(i).setMoleculeIndex(this, i);
+        }
+    }
+    //
+    /**
+     * Returns the molecule with the given index.
+     *
+     * @param anIndex index of the molecule
+     * @return molecule
+     * @throws IndexOutOfBoundsException if there is no molecule with the given index
+     */
+    public MoleculeDataModel get(int anIndex) throws IndexOutOfBoundsException {
+        return this.molecules.get(anIndex);
+    }
+    //
+    /**
+     * Returns the number of indexed molecules. All indices are between 0 (inclusive) and this number (exclusive).
+     *
+     * @return number of indexed molecules
+     */
+    public int size() {
+        return this.molecules.size();
+    }
+    //</editor-fold>
+}
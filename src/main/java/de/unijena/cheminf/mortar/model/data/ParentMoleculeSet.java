@@ -0,0 +1,377 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Thread-safe set of the parent molecules of a fragment that stores the molecules by their index in a
+ * {@link MoleculeIndex} instead of by reference. As long as only few molecules are contained, the indices are kept in a
+ * sorted int array; once the array would need more memory than a bitmap over all indexed molecules, a bitmap is used
+ * instead, which grows when molecules are appended to the index. Molecules are resolved from the index when iterating,
+ * in the order of their indices. Molecules without an
+ * index or with an index other than the one of the first added indexed molecule, like intermediate fragments in a
+ * pipeline fragmentation, are kept in an ordinary set and iterated after the indexed ones.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class ParentMoleculeSet extends AbstractSet<MoleculeDataModel> {
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Initial capacity of the sorted index array when the first indexed molecule is added.
+     */
+    private static final int INITIAL_ARRAY_CAPACITY = 4;
+    /**
+     * Empty index array shared by all empty sets.
+     */
+    private static final int[] EMPTY_ARRAY = new int[0];
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Index the stored indices refer to, taken from the first indexed molecule that is added.
+     */
+    private MoleculeIndex moleculeIndex;
+    /**
+     * Sorted indices of the contained indexed molecules, only valid in the first {@link #indexedCount} positions;
+     * null if the bitmap is used.
+     */
+    private int[] sortedIndices;
+    /**
+     * Bitmap of the indices of the contained indexed molecules; null if the sorted array is used.
+     */
+    private long[] bitmap;
+    /**
+     * Number of contained indexed molecules.
+     */
+    private int indexedCount;
+    /**
+     * Contained molecules that cannot be stored by their index; only created when needed.
+     */
+    private Set<MoleculeDataModel> unindexedMolecules;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructor" defaultstate="collapsed">
+    /**
+     * Constructor creating an empty set.
+     */
+    public ParentMoleculeSet() {
+        this.sortedIndices = ParentMoleculeSet.EMPTY_ARRAY;
+        this.bitmap = null;
+        this.indexedCount = 0;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the given molecule is null
+     */
+    @Override
+    public synchronized boolean add(MoleculeDataModel aMolecule) throws NullPointerException {
+        Objects.requireNonNull(aMolecule, "aMolecule (instance of MoleculeDataModel) is null.");
+        if (this.moleculeIndex == null && aMolecule.getMoleculeIndex() != null) {
+            this.moleculeIndex = aMolecule.getMoleculeIndex();
+        }
+        if (this.isStoredByIndex(aMolecule)) {
+            return this.addIndex(aMolecule.getIndexInMoleculeIndex());
+        }
+        if (this.unindexedMolecules == null) {
+            this.unindexedMolecules = new HashSet<>();
+        }
+        return this.unindexedMolecules.add(aMolecule);
+    }
+    //
+    @Override
+    public synchronized boolean contains(Object anObject) {
+        if (!(anObject instanceof MoleculeDataModel tmpMolecule)) {
+            return false;
+        }
+        if (this.isStoredByIndex(tmpMolecule)) {
+            return this.containsIndex(tmpMolecule.getIndexInMoleculeIndex());
+        }
+        return this.unindexedMolecules != null && this.unindexedMolecules.contains(tmpMolecule);
+    }
+    //
+    @Override
+    public synchronized boolean remove(Object anObject) {
+        if (!(anObject instanceof MoleculeDataModel tmpMolecule)) {
+            return false;
+        }
+        if (this.isStoredByIndex(tmpMolecule)) {
+            return this.removeIndex(tmpMolecule.getIndexInMoleculeIndex());
+        }
+        return this.unindexedMolecules != null && this.unindexedMolecules.remove(tmpMolecule);
+    }
+    //
+    @Override
+    public synchronized void clear() {
+        this.moleculeIndex = null;
+        this.sortedIndices = ParentMoleculeSet.EMPTY_ARRAY;
+        this.bitmap = null;
+        this.indexedCount = 0;
+        this.unindexedMolecules = null;
+    }
+    //
+    @Override
+    public synchronized int size() {
+        return this.indexedCount + (this.unindexedMolecules == null ? 0 : this.unindexedMolecules.size());
+    }
+    //
+    /**
+     * Returns the number of contained molecules that are stored by their index.
+     *
+     * @return number of molecules stored by index
+     */
+    synchronized int getNumberOfMoleculesStoredByIndex() {
+        return this.indexedCount;
+    }
+    //
+    /**
+     * Returns an iterator over the indexed molecules in the order of their indices, followed by the other molecules.
+     * The iterator is weakly consistent: it never throws a ConcurrentModificationException and reflects modifications
+     * of indices greater than the last returned one. Removal is supported.
+     *
+     * @return iterator over the contained molecules
+     */
+    @Override
+    public Iterator<MoleculeDataModel> iterator() {
+        return new Iterator<>() {
+            /**
+             * Index of the next indexed molecule to return or -1 if all indexed molecules were returned.
+             */
+            private int nextIndex = ParentMoleculeSet.this.getNextIndex(-1);
+            /**
+             * Iterator over a snapshot of the other molecules, created after all indexed molecules were returned.
+             */
+            private Iterator<MoleculeDataModel> unindexedIterator = null;
+            /**
+             * Molecule returned by the last call to next(), null if it was removed or next() was not called yet.
+             */
+            private MoleculeDataModel lastReturned = null;
+            //
+            @Override
+            public boolean hasNext() {
+                if (this.nextIndex >= 0) {
+                    return true;
+                }
+                if (this.unindexedIterator == null) {
+                    this.unindexedIterator = ParentMoleculeSet.this.getUnindexedMoleculesSnapshot().iterator();
+                }
+                return this.unindexedIterator.hasNext();
+            }
+            //
+            @Override
+            public MoleculeDataModel next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (this.nextIndex >= 0) {
+                    this.lastReturned = ParentMoleculeSet.this.getIndexedMolecule(this.nextIndex);
+                    this.nextIndex = ParentMoleculeSet.this.getNextIndex(this.nextIndex);
+                } else {
+                    this.lastReturned = this.unindexedIterator.next();
+                }
+                return this.lastReturned;
+            }
+            //
+            @Override
+            public void remove() {
+                if (this.lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                ParentMoleculeSet.this.remove(this.lastReturned);
+                this.lastReturned = null;
+            }
+        };
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods" defaultstate="collapsed">
+    /**
+     * Returns whether the given molecule is stored by its index in this set, i.e. whether it belongs to the same
+     * index as the first indexed molecule that was added.
+     *
+     * @param aMolecule molecule to check
+     * @return true if the molecule is stored by its index
+     */
+    private boolean isStoredByIndex(MoleculeDataModel aMolecule) {
+        return this.moleculeIndex != null && aMolecule.getMoleculeIndex() == this.moleculeIndex;
+    }
+    //
+    /**
+     * Returns whether the given index is contained.
+     *
+     * @param anIndex index of a molecule
+     * @return true if the index is contained
+     */
+    private boolean containsIndex(int anIndex) {
+        if (this.bitmap != null) {
+            return (anIndex >>> 6) < this.bitmap.length && (this.bitmap[anIndex >>> 6] & (1L << anIndex)) != 0;
+        }
+        return Arrays.binarySearch(this.sortedIndices, 0, this.indexedCount, anIndex) >= 0;
+    }
+    //
+    /**
+     * Adds the given index and switches to the bitmap if the sorted array would need more memory than the bitmap.
+     *
+     * @param anIndex index of a molecule
+     * @return true if the index was not contained before
+     */
+    private boolean addIndex(int anIndex) {
+        if (this.bitmap == null) {
+            int tmpPosition = Arrays.binarySearch(this.sortedIndices, 0, this.indexedCount, anIndex);
+            if (tmpPosition >= 0) {
+                return false;
+            }
+            //four bytes per array entry versus one bit per indexed molecule
+            if ((long) (this.indexedCount + 1) * Integer.SIZE <= this.moleculeIndex.size()) {
+                int tmpInsertionPosition = -tmpPosition - 1;
+                if (this.indexedCount == this.sortedIndices.length) {
+                    int tmpNewCapacity = Math.max(ParentMoleculeSet.INITIAL_ARRAY_CAPACITY, this.indexedCount + (this.indexedCount >> 1));
+                    this.sortedIndices = Arrays.copyOf(this.sortedIndices, tmpNewCapacity);
+                }
+                System.arraycopy(this.sortedIndices, tmpInsertionPosition, this.sortedIndices, tmpInsertionPosition + 1,
+                        this.indexedCount - tmpInsertionPosition);
+                this.sortedIndices[tmpInsertionPosition] = anIndex;
+                this.indexedCount++;
+                return true;
+            }
+            this.convertToBitmap();
+        }
+        if ((anIndex >>> 6) >= this.bitmap.length) {
+            //molecules were appended to the index after the bitmap was created
+            this.bitmap = Arrays.copyOf(this.bitmap, Math.max((anIndex >>> 6) + 1, (this.moleculeIndex.size() + 63) >>> 6));
+        }
+        long tmpMask = 1L << anIndex;
+        if ((this.bitmap[anIndex >>> 6] & tmpMask) != 0) {
+            return false;
+        }
+        this.bitmap[anIndex >>> 6] |= tmpMask;
+        this.indexedCount++;
+        return true;
+    }
+    //
+    /**
+     * Removes the given index.
+     *
+     * @param anIndex index of a molecule
+     * @return true if the index was contained
+     */
+    private boolean removeIndex(int anIndex) {
+        if (this.bitmap != null) {
+            long tmpMask = 1L << anIndex;
+            if ((anIndex >>> 6) >= this.bitmap.length || (this.bitmap[anIndex >>> 6] & tmpMask) == 0) {
+                return false;
+            }
+            this.bitmap[anIndex >>> 6] &= ~tmpMask;
+            this.indexedCount--;
+            return true;
+        }
+        int tmpPosition = Arrays.binarySearch(this.sortedIndices, 0, this.indexedCount, anIndex);
+        if (tmpPosition < 0) {
+            return false;
+        }
+        System.arraycopy(this.sortedIndices, tmpPosition + 1, this.sortedIndices, tmpPosition,
+                this.indexedCount - tmpPosition - 1);
+        this.indexedCount--;
+        return true;
+    }
+    //
+    /**
+     * Moves the contained indices from the sorted array to a bitmap over all indexed molecules.
+     */
+    private void convertToBitmap() {
+        this.bitmap = new long[(this.moleculeIndex.size() + 63) >>> 6];
+        for (int i = 0; i < this.indexedCount; i++) {
+            this.bitmap[this.sortedIndices[i] >>> 6] |= 1L << this.sortedIndices[i];
+        }
+        this.sortedIndices = null;
+    }
+    //
+    /**
+     * Returns the smallest contained index that is greater than the given one.
+     *
+     * @param aPreviousIndex index to start after, -1 to start at the beginning
+     * @return the next contained index or -1 if there is none
+     */
+    private synchronized int getNextIndex(int aPreviousIndex) {
+        int tmpFromIndex = aPreviousIndex + 1;
+        if (this.bitmap != null) {
+            int tmpWordIndex = tmpFromIndex >>> 6;
+            if (tmpWordIndex >= this.bitmap.length) {
+                return -1;
+            }
+            long tmpWord = this.bitmap[tmpWordIndex] & (-1L << tmpFromIndex);
+            while (tmpWord == 0) {
+                tmpWordIndex++;
+                if (tmpWordIndex >= this.bitmap.length) {
+                    return -1;
+                }
+                tmpWord = this.bitmap[tmpWordIndex];
+            }
+            return (tmpWordIndex << 6) + Long.numberOfTrailingZeros(tmpWord);
+        }
+        int tmpPosition = Arrays.binarySearch(this.sortedIndices, 0, this.indexedCount, tmpFromIndex);
+        if (tmpPosition < 0) {
+            tmpPosition = -tmpPosition - 1;
+        }
+        return tmpPosition < this.indexedCount ? this.sortedIndices[tmpPosition] : -1;
+    }
+    //
+    /**
+     * Returns the molecule with the given index.
+     *
+     * @param anIndex index of a contained molecule
+     * @return molecule
+     */
+    private synchronized MoleculeDataModel getIndexedMolecule(int anIndex) {
+        return this.moleculeIndex.get(anIndex);
+    }
+    //
+    /**
+     * Returns a copy of the molecules that are not stored by their index.
+     *
+     * @return list of the other molecules, empty if there are none
+     */
+    private synchronized Iterable<MoleculeDataModel> getUnindexedMoleculesSnapshot() {
+        if (this.unindexedMolecules == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(this.unindexedMolecules);
+    }
+    //</editor-fold>
+}
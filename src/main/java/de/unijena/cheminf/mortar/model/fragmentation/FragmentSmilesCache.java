@@ -0,0 +1,328 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.util.ChemUtil;
+
+import org.openscience.cdk.hash.AtomEncoder;
+import org.openscience.cdk.hash.HashGeneratorMaker;
+import org.openscience.cdk.hash.MoleculeHashGenerator;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.isomorphisms.AtomMatcher;
+import org.openscience.cdk.isomorphisms.BondMatcher;
+import org.openscience.cdk.isomorphisms.Pattern;
+import org.openscience.cdk.isomorphisms.VentoFoggia;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of the unique SMILES codes of already seen fragments, looked up by a structure hash of the fragment that is
+ * much cheaper to compute than the unique SMILES code itself. Only fragments with a hash not seen before get a unique
+ * SMILES code generated. The hash encodes elements, isotopes, charges, radicals, implicit hydrogens, bond orders,
+ * aromaticity, and stereochemistry if required, and the atom and bond counts are part of the lookup key as well.
+ * Because two different fragments might still get the same key, the first fragment seen with a key is kept as its
+ * representative and the cached SMILES code is only returned for fragments that are isomorphic to it with respect to
+ * everything the unique SMILES code encodes. Fragments colliding with the representative of their key get their
+ * unique SMILES code generated.
+ * <br>NOTE: Not thread-safe, every fragmentation task needs its own instance.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentSmilesCache {
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FragmentSmilesCache.class.getName());
+    /**
+     * Encodes the implicit hydrogen count and aromaticity of an atom and the orders of its bonds, i.e. the information
+     * of the unique SMILES code not covered by the basic atom encoders of the hash generator.
+     */
+    private static final AtomEncoder BONDING_ENCODER = (anAtom, aContainer) -> {
+        Integer tmpImplicitHydrogenCount = anAtom.getImplicitHydrogenCount();
+        int tmpCode = tmpImplicitHydrogenCount == null ? -1 : tmpImplicitHydrogenCount;
+        tmpCode = 31 * tmpCode + (anAtom.isAromatic() ? 1 : 0);
+        for (IBond tmpBond : aContainer.getConnectedBondsList(anAtom)) {
+            if (tmpBond.isAromatic()) {
+                tmpCode += 1009;
+            } else if (tmpBond.getOrder() != null) {
+                tmpCode += 31 * (tmpBond.getOrder().ordinal() + 1);
+            }
+        }
+        return tmpCode;
+    };
+    /**
+     * Matches atoms with the same element, mass number, formal charge, implicit hydrogen count, and aromaticity, i.e.
+     * the atom properties encoded in the unique SMILES code.
+     */
+    private static final AtomMatcher IDENTITY_ATOM_MATCHER = new AtomMatcher() {
+        @Override
+        public boolean matches(IAtom anAtom, IAtom anotherAtom) {
+            return Objects.equals(anAtom.getAtomicNumber(), anotherAtom.getAtomicNumber())
+                    && Objects.equals(anAtom.getMassNumber(), anotherAtom.getMassNumber())
+                    && Objects.equals(anAtom.getFormalCharge(), anotherAtom.getFormalCharge())
+                    && Objects.equals(anAtom.getImplicitHydrogenCount(), anotherAtom.getImplicitHydrogenCount())
+                    && anAtom.isAromatic() == anotherAtom.isAromatic();
+        }
+    };
+    /**
+     * Matches bonds with the same order and aromaticity.
+     */
+    private static final BondMatcher IDENTITY_BOND_MATCHER = new BondMatcher() {
+        @Override
+        public boolean matches(IBond aBond, IBond anotherBond) {
+            return aBond.getOrder() == anotherBond.getOrder() && aBond.isAromatic() == anotherBond.isAromatic();
+        }
+    };
+    //</editor-fold>
+    //
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * Generator of the structure hashes.
+     */
+    private final MoleculeHashGenerator hashGenerator;
+    /**
+     * Representative fragment and its unique SMILES code of every lookup key seen so far.
+     */
+    private final Map<FragmentKey, CachedFragment> cachedFragmentsByKey;
+    /**
+     * Whether stereochemistry should be regarded in the hashes and unique SMILES codes.
+     */
+    private final boolean isStereochemistryRegarded;
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Number of unique SMILES codes requested from this cache.
+     */
+    private int numberOfLookups;
+    /**
+     * Number of requested unique SMILES codes that were found in this cache.
+     */
+    private int numberOfHits;
+    /**
+     * Number of fragments that had the key of a different fragment and got their unique SMILES code generated.
+     */
+    private int numberOfCollisions;
+    //</editor-fold>
+    //
+    /**
+     * Constructor.
+     *
+     * @param isStereo whether stereochemistry should be regarded in the hashes and unique SMILES codes
+     */
+    public FragmentSmilesCache(boolean isStereo) {
+        this(FragmentSmilesCache.createHashGenerator(isStereo), isStereo);
+    }
+    //
+    /**
+     * Constructor with the given hash generator, e.g. to force collisions in tests.
+     *
+     * @param aHashGenerator generator of the structure hashes
+     * @param isStereo whether stereochemistry should be regarded in the unique SMILES codes
+     */
+    FragmentSmilesCache(MoleculeHashGenerator aHashGenerator, boolean isStereo) {
+        this.hashGenerator = aHashGenerator;
+        this.cachedFragmentsByKey = new HashMap<>();
+        this.isStereochemistryRegarded = isStereo;
+        this.numberOfLookups = 0;
+        this.numberOfHits = 0;
+        this.numberOfCollisions = 0;
+    }
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Returns the unique SMILES code of the given fragment, either from this cache if it is isomorphic to the
+     * representative of its key or newly generated via {@link ChemUtil#createUniqueSmiles(IAtomContainer, boolean)}.
+     * If the hash cannot be computed, the unique SMILES code is generated without caching it. The first fragment seen
+     * with a key becomes its representative and is kept by this cache, so it must not be changed afterwards.
+     *
+     * @param aFragment fragment to get the unique SMILES code of
+     * @return unique SMILES code of the fragment or null if it could not be generated
+     */
+    public String getUniqueSmiles(IAtomContainer aFragment) {
+        this.numberOfLookups++;
+        FragmentKey tmpKey;
+        try {
+            tmpKey = new FragmentKey(this.hashGenerator.generate(aFragment), aFragment.getAtomCount(), aFragment.getBondCount());
+        } catch (RuntimeException anException) {
+            FragmentSmilesCache.LOGGER.log(Level.WARNING, "Hash of fragment could not be generated: {0}", anException.toString());
+            return ChemUtil.createUniqueSmiles(aFragment, this.isStereochemistryRegarded);
+        }
+        CachedFragment tmpCachedFragment = this.cachedFragmentsByKey.get(tmpKey);
+        if (tmpCachedFragment == null) {
+            String tmpSmiles = ChemUtil.createUniqueSmiles(aFragment, this.isStereochemistryRegarded);
+            if (tmpSmiles != null) {
+                this.cachedFragmentsByKey.put(tmpKey, new CachedFragment(tmpSmiles, aFragment));
+            }
+            return tmpSmiles;
+        }
+        if (this.isIdentical(tmpCachedFragment, aFragment)) {
+            this.numberOfHits++;
+            return tmpCachedFragment.smiles;
+        }
+        //a different fragment with the same key, the representative is kept
+        this.numberOfCollisions++;
+        return ChemUtil.createUniqueSmiles(aFragment, this.isStereochemistryRegarded);
+    }
+    //
+    /**
+     * Returns whether stereochemistry is regarded in the hashes and unique SMILES codes.
+     *
+     * @return true if stereochemistry is regarded
+     */
+    public boolean isStereochemistryRegarded() {
+        return this.isStereochemistryRegarded;
+    }
+    //
+    /**
+     * Returns the number of unique SMILES codes requested from this cache.
+     *
+     * @return number of lookups
+     */
+    public int getNumberOfLookups() {
+        return this.numberOfLookups;
+    }
+    //
+    /**
+     * Returns the number of requested unique SMILES codes that were found in this cache and did not have to be
+     * generated.
+     *
+     * @return number of hits
+     */
+    public int getNumberOfHits() {
+        return this.numberOfHits;
+    }
+    //
+    /**
+     * Returns the number of fragments that had the same key as a different fragment seen before and therefore got their
+     * unique SMILES code generated.
+     *
+     * @return number of key collisions
+     */
+    public int getNumberOfCollisions() {
+        return this.numberOfCollisions;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods" defaultstate="collapsed">
+    /**
+     * Creates the generator of the structure hashes.
+     *
+     * @param isStereo whether stereochemistry should be encoded in the hashes
+     * @return hash generator
+     */
+    private static MoleculeHashGenerator createHashGenerator(boolean isStereo) {
+        HashGeneratorMaker tmpHashGeneratorMaker = new HashGeneratorMaker().depth(8)
+                .elemental()
+                .isotopic()
+                .charged()
+                .radical()
+                .encode(FragmentSmilesCache.BONDING_ENCODER);
+        if (isStereo) {
+            tmpHashGeneratorMaker.chiral();
+        }
+        return tmpHashGeneratorMaker.perturbed().molecular();
+    }
+    //
+    /**
+     * Returns whether the given fragment is isomorphic to the representative of the given cached fragment with respect
+     * to the atom and bond properties encoded in the unique SMILES code and, if it is regarded, stereochemistry. The
+     * isomorphism pattern of the representative is created on the first check.
+     *
+     * @param aCachedFragment cached fragment with the same key as the given fragment
+     * @param aFragment fragment to check
+     * @return true if the cached unique SMILES code is the one of the given fragment
+     */
+    private boolean isIdentical(CachedFragment aCachedFragment, IAtomContainer aFragment) {
+        if (aCachedFragment.representative == aFragment) {
+            return true;
+        }
+        try {
+            if (aCachedFragment.pattern == null) {
+                aCachedFragment.pattern = VentoFoggia.findIdentical(aCachedFragment.representative,
+                        FragmentSmilesCache.IDENTITY_ATOM_MATCHER, FragmentSmilesCache.IDENTITY_BOND_MATCHER);
+            }
+            if (this.isStereochemistryRegarded) {
+                return aCachedFragment.pattern.matchAll(aFragment).stereo().atLeast(1);
+            }
+            return aCachedFragment.pattern.matches(aFragment);
+        } catch (RuntimeException anException) {
+            FragmentSmilesCache.LOGGER.log(Level.WARNING, "Fragment could not be compared to the cached one: {0}", anException.toString());
+            return false;
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private records and classes" defaultstate="collapsed">
+    /**
+     * Lookup key of a fragment.
+     *
+     * @param hash structure hash of the fragment
+     * @param atomCount number of atoms of the fragment
+     * @param bondCount number of bonds of the fragment
+     */
+    private record FragmentKey(long hash, int atomCount, int bondCount) {
+    }
+    //
+    /**
+     * Representative fragment of a lookup key with its unique SMILES code.
+     */
+    private static final class CachedFragment {
+        /**
+         * Unique SMILES code of the representative.
+         */
+        private final String smiles;
+        /**
+         * First fragment seen with the key.
+         */
+        private final IAtomContainer representative;
+        /**
+         * Pattern to find fragments identical to the representative; null until the first fragment with the same key
+         * has to be compared to it.
+         */
+        private Pattern pattern;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aSmiles unique SMILES code of the representative
+         * @param aRepresentative first fragment seen with the key
+         */
+        private CachedFragment(String aSmiles, IAtomContainer aRepresentative) {
+            this.smiles = aSmiles;
+            this.representative = aRepresentative;
+            this.pattern = null;
+        }
+    }
+    //</editor-fold>
+}
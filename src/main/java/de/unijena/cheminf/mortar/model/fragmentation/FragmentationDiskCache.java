@@ -0,0 +1,683 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.util.BasicDefinitions;
+import de.unijena.cheminf.mortar.model.util.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of fragmentation results on disk, so that fragmentations with the same fragmenter settings can reuse
+ * the results of structures fragmented in earlier fragmentations, also across sessions. There is one cache file per
+ * settings key (see {@link FragmentationMemo#createSettingsKey(
+ * de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter, boolean)}), named by the SHA-256 digest
+ * of the key. Within a file, the results are ordered from the most to the least recently used one. When the cache
+ * exceeds its size limit, the least recently used results of the written file and afterwards the least recently
+ * used files are discarded. Strings are written as length-prefixed UTF-8 and the fragments of every structure are
+ * prefixed with their length in bytes, so that the entries of other structures can be skipped and copied without
+ * decoding them.
+ * <br>Only fragment properties with string keys and values are cached.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationDiskCache {
+    //<editor-fold desc="public static final class constants" defaultstate="collapsed">
+    /**
+     * Name of the cache directory in the application directory.
+     */
+    public static final String CACHE_DIRECTORY_NAME = "Fragmentation_Cache";
+    /**
+     * File name extension of the cache files.
+     */
+    public static final String CACHE_FILE_EXTENSION = ".cache";
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FragmentationDiskCache.class.getName());
+    /**
+     * Number identifying MORTAR fragmentation cache files.
+     */
+    private static final int MAGIC_NUMBER = 0x4D4F4643;
+    /**
+     * Version of the cache file format.
+     */
+    private static final int FORMAT_VERSION = 2;
+    //
+    /**
+     * Maximum initial capacity of the collections read from a cache file, whose counts are not trusted.
+     */
+    private static final int MAXIMUM_INITIAL_CAPACITY = 64;
+    //</editor-fold>
+    //
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * Path of the cache directory.
+     */
+    private final String directoryPath;
+    /**
+     * Number of molecules whose fragmentation result was found in this cache in this session.
+     */
+    private final AtomicLong numberOfHits;
+    /**
+     * Number of molecules whose fragmentation result was not found in this cache in this session.
+     */
+    private final AtomicLong numberOfMisses;
+    //</editor-fold>
+    //
+    //<editor-fold desc="Constructors" defaultstate="collapsed">
+    /**
+     * Constructor, uses the cache directory in the application directory.
+     *
+     * @throws SecurityException if the application directory cannot be determined or created
+     */
+    public FragmentationDiskCache() throws SecurityException {
+        this(FileUtil.getAppDirPath() + File.separator + FragmentationDiskCache.CACHE_DIRECTORY_NAME);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param aDirectoryPath path of the cache directory, created if necessary when results are stored
+     * @throws NullPointerException if the path is null
+     */
+    public FragmentationDiskCache(String aDirectoryPath) throws NullPointerException {
+        Objects.requireNonNull(aDirectoryPath, "aDirectoryPath (instance of String) is null.");
+        this.directoryPath = aDirectoryPath;
+        this.numberOfHits = new AtomicLong(0L);
+        this.numberOfMisses = new AtomicLong(0L);
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Loads the cached fragmentation results of the given structures that were created with the given settings key.
+     * Structures without cached results are not contained in the returned map. An incompatible cache file is treated
+     * as empty, a corrupt one is deleted and treated as empty as well. Of a truncated cache file, the complete entries
+     * are used.
+     *
+     * @param aSettingsKey settings key of the fragmentation
+     * @param aSmilesCollection unique SMILES codes of the molecules to fragment
+     * @return cached fragments of the molecules by their unique SMILES codes
+     * @throws IOException if the cache file cannot be read
+     */
+    public synchronized Map<String, List<FragmentationMemo.FragmentOccurrence>> load(String aSettingsKey,
+                                                                                    Collection<String> aSmilesCollection)
+            throws IOException {
+        Set<String> tmpSmilesSet = aSmilesCollection instanceof Set<String> tmpSet ? tmpSet : new HashSet<>(aSmilesCollection);
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpResultMap = new HashMap<>();
+        File tmpFile = this.getCacheFile(aSettingsKey);
+        if (!tmpFile.isFile()) {
+            return tmpResultMap;
+        }
+        try (DataInputStream tmpInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(tmpFile), BasicDefinitions.BUFFER_SIZE))) {
+            if (!FragmentationDiskCache.readHeader(tmpInputStream, aSettingsKey)) {
+                FragmentationDiskCache.LOGGER.log(Level.WARNING, "Fragmentation cache file {0} is incompatible and ignored.", tmpFile.getName());
+                return tmpResultMap;
+            }
+            while (tmpInputStream.readBoolean()) {
+                String tmpSmiles = FragmentationDiskCache.readString(tmpInputStream);
+                int tmpLength = FragmentationDiskCache.readLength(tmpInputStream);
+                if (tmpSmilesSet.contains(tmpSmiles)) {
+                    tmpResultMap.put(tmpSmiles, FragmentationDiskCache.readFragments(tmpInputStream));
+                } else {
+                    tmpInputStream.skipNBytes(tmpLength);
+                }
+            }
+        } catch (EOFException anException) {
+            FragmentationDiskCache.LOGGER.log(Level.WARNING, "Fragmentation cache file {0} is truncated, only its complete entries are used.", tmpFile.getName());
+        } catch (FragmentationDiskCache.CorruptCacheFileException anException) {
+            FragmentationDiskCache.LOGGER.log(Level.WARNING, String.format("Fragmentation cache file %s is corrupt and deleted.", tmpFile.getName()), anException);
+            FragmentationDiskCache.deleteCorruptFile(tmpFile);
+            return new HashMap<>();
+        }
+        return tmpResultMap;
+    }
+    //
+    /**
+     * Stores the given fragmentation results created with the given settings key as the most recently used ones, in
+     * the iteration order of the given map, which should be from the most to the least recently used one. The results
+     * of other structures already in the cache file are kept behind them as far as the size limit allows, and
+     * afterwards, the least recently used files of other settings are deleted until the whole cache fits into the
+     * size limit. If the cache file is corrupt, it is replaced by a file holding the given results only. If writing
+     * fails, the cache file is left unchanged and no temporary file is left behind.
+     *
+     * @param aSettingsKey settings key of the fragmentation
+     * @param aResultMap fragments of the recently fragmented molecules by their unique SMILES codes, ordered from the
+     *                   most to the least recently used one
+     * @param aSizeLimitInBytes maximum size of the whole cache in bytes
+     * @throws IOException if the cache file cannot be written
+     */
+    public synchronized void store(String aSettingsKey,
+                                   Map<String, List<FragmentationMemo.FragmentOccurrence>> aResultMap,
+                                   long aSizeLimitInBytes)
+            throws IOException {
+        File tmpDirectory = new File(this.directoryPath);
+        if (!tmpDirectory.isDirectory() && !tmpDirectory.mkdirs()) {
+            throw new IOException("Fragmentation cache directory " + this.directoryPath + " could not be created.");
+        }
+        File tmpFile = this.getCacheFile(aSettingsKey);
+        File tmpTemporaryFile = new File(tmpFile.getPath() + ".tmp");
+        try {
+            try {
+                this.writeCacheFile(tmpTemporaryFile, tmpFile, aSettingsKey, aResultMap, aSizeLimitInBytes, true);
+            } catch (FragmentationDiskCache.CorruptCacheFileException anException) {
+                //the older results cannot be copied, so the file is written again with the recent results only
+                FragmentationDiskCache.LOGGER.log(Level.WARNING, String.format("Fragmentation cache file %s is corrupt, its older results are dropped.", tmpFile.getName()), anException);
+                FragmentationDiskCache.deleteCorruptFile(tmpFile);
+                this.writeCacheFile(tmpTemporaryFile, tmpFile, aSettingsKey, aResultMap, aSizeLimitInBytes, false);
+            }
+            Files.move(tmpTemporaryFile.toPath(), tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException anException) {
+            //no temporary file is left behind
+            Files.deleteIfExists(tmpTemporaryFile.toPath());
+            throw anException;
+        }
+        this.evictLeastRecentlyUsedFiles(tmpFile, aSizeLimitInBytes);
+    }
+    //
+    /**
+     * Marks the cache file of the given settings key as used without rewriting it, e.g. if all results of a
+     * fragmentation were found in it. The order of the results within the file is kept.
+     *
+     * @param aSettingsKey settings key of the fragmentation
+     */
+    public synchronized void markAsUsed(String aSettingsKey) {
+        File tmpFile = this.getCacheFile(aSettingsKey);
+        if (tmpFile.isFile() && !tmpFile.setLastModified(System.currentTimeMillis())) {
+            FragmentationDiskCache.LOGGER.log(Level.WARNING, "Fragmentation cache file {0} could not be marked as used.", tmpFile.getName());
+        }
+    }
+    //
+    /**
+     * Deletes all cache files and resets the hit and miss statistics.
+     *
+     * @return true if all cache files were deleted
+     */
+    public synchronized boolean clear() {
+        this.numberOfHits.set(0L);
+        this.numberOfMisses.set(0L);
+        if (!new File(this.directoryPath).isDirectory()) {
+            return true;
+        }
+        return FileUtil.deleteAllFilesInDirectory(this.directoryPath);
+    }
+    //
+    /**
+     * Adds the given numbers of cache hits and misses of a fragmentation to the statistics of this session.
+     *
+     * @param aNumberOfHits number of molecules whose fragmentation result was found in the cache
+     * @param aNumberOfMisses number of molecules whose fragmentation result was not found in the cache
+     */
+    public void recordLookups(long aNumberOfHits, long aNumberOfMisses) {
+        this.numberOfHits.addAndGet(aNumberOfHits);
+        this.numberOfMisses.addAndGet(aNumberOfMisses);
+    }
+    //
+    /**
+     * Returns the number of molecules whose fragmentation result was found in this cache in this session.
+     *
+     * @return number of hits
+     */
+    public long getNumberOfHits() {
+        return this.numberOfHits.get();
+    }
+    //
+    /**
+     * Returns the number of molecules whose fragmentation result was not found in this cache in this session.
+     *
+     * @return number of misses
+     */
+    public long getNumberOfMisses() {
+        return this.numberOfMisses.get();
+    }
+    //
+    /**
+     * Returns the current size of all cache files in bytes.
+     *
+     * @return size of the cache in bytes
+     */
+    public synchronized long getSizeInBytes() {
+        long tmpSize = 0L;
+        for (File tmpFile : this.listCacheFiles()) {
+            tmpSize += tmpFile.length();
+        }
+        return tmpSize;
+    }
+    //
+    /**
+     * Returns the path of the cache directory.
+     *
+     * @return cache directory path
+     */
+    public String getDirectoryPath() {
+        return this.directoryPath;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods" defaultstate="collapsed">
+    /**
+     * Returns the cache file of the given settings key, named by the SHA-256 digest of the key.
+     *
+     * @param aSettingsKey settings key of a fragmentation
+     * @return cache file, may not exist
+     */
+    private File getCacheFile(String aSettingsKey) {
+        return new File(this.directoryPath, FragmentationDiskCache.getDigest(aSettingsKey) + FragmentationDiskCache.CACHE_FILE_EXTENSION);
+    }
+    //
+    /**
+     * Returns all cache files in the cache directory.
+     *
+     * @return cache files, empty if there is no cache directory
+     */
+    private List<File> listCacheFiles() {
+        File[] tmpFiles = new File(this.directoryPath).listFiles((aDirectory, aName) -> aName.endsWith(FragmentationDiskCache.CACHE_FILE_EXTENSION));
+        return tmpFiles == null ? new ArrayList<>(0) : new ArrayList<>(Arrays.asList(tmpFiles));
+    }
+    //
+    /**
+     * Writes the given fragmentation results to the given temporary file, in the iteration order of the given map, and
+     * the older results of the given cache file behind them if requested and as far as the size limit allows.
+     *
+     * @param aTemporaryFile file to write
+     * @param aFile existing cache file of the settings key, may not exist
+     * @param aSettingsKey settings key of the fragmentation
+     * @param aResultMap fragments of the recently fragmented molecules by their unique SMILES codes
+     * @param aSizeLimitInBytes size limit of the new cache file
+     * @param isCopyingOlderEntries whether the older results of the existing cache file should be kept
+     * @throws CorruptCacheFileException if the existing cache file is corrupt
+     * @throws IOException if the existing cache file cannot be read or the temporary file cannot be written
+     */
+    private void writeCacheFile(File aTemporaryFile,
+                                File aFile,
+                                String aSettingsKey,
+                                Map<String, List<FragmentationMemo.FragmentOccurrence>> aResultMap,
+                                long aSizeLimitInBytes,
+                                boolean isCopyingOlderEntries)
+            throws IOException {
+        try (DataOutputStream tmpOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aTemporaryFile), BasicDefinitions.BUFFER_SIZE))) {
+            //DataOutputStream.size() stops counting at Integer.MAX_VALUE
+            long tmpSizeInBytes = FragmentationDiskCache.writeHeader(tmpOutputStream, aSettingsKey);
+            boolean tmpIsLimitReached = false;
+            ByteArrayOutputStream tmpFragmentsByteStream = new ByteArrayOutputStream();
+            DataOutputStream tmpFragmentsOutputStream = new DataOutputStream(tmpFragmentsByteStream);
+            for (Map.Entry<String, List<FragmentationMemo.FragmentOccurrence>> tmpEntry : aResultMap.entrySet()) {
+                tmpFragmentsByteStream.reset();
+                FragmentationDiskCache.writeFragments(tmpFragmentsOutputStream, tmpEntry.getValue());
+                byte[] tmpSmilesBytes = tmpEntry.getKey().getBytes(StandardCharsets.UTF_8);
+                long tmpEntrySize = FragmentationDiskCache.getEntrySize(tmpSmilesBytes.length, tmpFragmentsByteStream.size());
+                if (tmpSizeInBytes + tmpEntrySize > aSizeLimitInBytes) {
+                    tmpIsLimitReached = true;
+                    break;
+                }
+                tmpOutputStream.writeBoolean(true);
+                FragmentationDiskCache.writeBytes(tmpOutputStream, tmpSmilesBytes);
+                tmpOutputStream.writeInt(tmpFragmentsByteStream.size());
+                tmpFragmentsByteStream.writeTo(tmpOutputStream);
+                tmpSizeInBytes += tmpEntrySize;
+            }
+            if (isCopyingOlderEntries && aFile.isFile() && !tmpIsLimitReached) {
+                //copies the older results behind the recent ones, in their previous order
+                this.copyOlderEntries(aFile, aSettingsKey, aResultMap.keySet(), tmpOutputStream, tmpSizeInBytes, aSizeLimitInBytes);
+            }
+            tmpOutputStream.writeBoolean(false);
+        }
+    }
+    //
+    /**
+     * Copies the entries of the given existing cache file that are not among the given recent keys to the given output
+     * stream as long as they fit into the size limit. The fragments of the entries are copied without decoding them.
+     * Nothing is copied if the file is incompatible.
+     *
+     * @param aFile existing cache file
+     * @param aSettingsKey settings key of the file
+     * @param aRecentKeySet unique SMILES codes of the recently stored results
+     * @param anOutputStream stream of the new cache file
+     * @param aSizeInBytes number of bytes already written to the stream
+     * @param aSizeLimitInBytes size limit of the new cache file
+     * @throws CorruptCacheFileException if the file is corrupt
+     * @throws IOException if the file cannot be read or the stream cannot be written
+     */
+    private void copyOlderEntries(File aFile,
+                                  String aSettingsKey,
+                                  Set<String> aRecentKeySet,
+                                  DataOutputStream anOutputStream,
+                                  long aSizeInBytes,
+                                  long aSizeLimitInBytes)
+            throws IOException {
+        long tmpSizeInBytes = aSizeInBytes;
+        try (DataInputStream tmpInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile), BasicDefinitions.BUFFER_SIZE))) {
+            if (!FragmentationDiskCache.readHeader(tmpInputStream, aSettingsKey)) {
+                return;
+            }
+            while (tmpInputStream.readBoolean()) {
+                byte[] tmpSmilesBytes = FragmentationDiskCache.readBytes(tmpInputStream);
+                int tmpLength = FragmentationDiskCache.readLength(tmpInputStream);
+                if (aRecentKeySet.contains(new String(tmpSmilesBytes, StandardCharsets.UTF_8))) {
+                    tmpInputStream.skipNBytes(tmpLength);
+                    continue;
+                }
+                long tmpEntrySize = FragmentationDiskCache.getEntrySize(tmpSmilesBytes.length, tmpLength);
+                if (tmpSizeInBytes + tmpEntrySize > aSizeLimitInBytes) {
+                    break;
+                }
+                byte[] tmpFragmentsBytes = tmpInputStream.readNBytes(tmpLength);
+                if (tmpFragmentsBytes.length < tmpLength) {
+                    //truncated entry
+                    break;
+                }
+                anOutputStream.writeBoolean(true);
+                FragmentationDiskCache.writeBytes(anOutputStream, tmpSmilesBytes);
+                anOutputStream.writeInt(tmpLength);
+                anOutputStream.write(tmpFragmentsBytes);
+                tmpSizeInBytes += tmpEntrySize;
+            }
+        } catch (EOFException anException) {
+            //truncated file, its complete entries were copied
+        }
+    }
+    //
+    /**
+     * Deletes the least recently used cache files, i.e. the ones written or marked as used longest ago, except the given
+     * one until the whole cache fits into the given size limit.
+     *
+     * @param aCurrentFile cache file that was just written and must be kept
+     * @param aSizeLimitInBytes maximum size of the whole cache in bytes
+     */
+    private void evictLeastRecentlyUsedFiles(File aCurrentFile, long aSizeLimitInBytes) {
+        List<File> tmpFiles = this.listCacheFiles();
+        long tmpSize = 0L;
+        for (File tmpFile : tmpFiles) {
+            tmpSize += tmpFile.length();
+        }
+        tmpFiles.sort(Comparator.comparingLong(File::lastModified));
+        for (File tmpFile : tmpFiles) {
+            if (tmpSize <= aSizeLimitInBytes) {
+                break;
+            }
+            if (tmpFile.equals(aCurrentFile)) {
+                continue;
+            }
+            long tmpLength = tmpFile.length();
+            if (FileUtil.deleteSingleFile(tmpFile.getPath())) {
+                tmpSize -= tmpLength;
+                FragmentationDiskCache.LOGGER.log(Level.INFO, "Evicted fragmentation cache file {0}.", tmpFile.getName());
+            }
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static methods" defaultstate="collapsed">
+    /**
+     * Deletes the given corrupt cache file, so that it is neither read nor copied again. A file that cannot be deleted
+     * is logged and overwritten by the next store.
+     *
+     * @param aFile corrupt cache file
+     */
+    private static void deleteCorruptFile(File aFile) {
+        try {
+            Files.deleteIfExists(aFile.toPath());
+        } catch (IOException | SecurityException anException) {
+            FragmentationDiskCache.LOGGER.log(Level.WARNING, anException.toString(), anException);
+        }
+    }
+    //
+    /**
+     * Returns the SHA-256 digest of the given settings key as hexadecimal string.
+     *
+     * @param aSettingsKey settings key of a fragmentation
+     * @return digest
+     */
+    private static String getDigest(String aSettingsKey) {
+        try {
+            byte[] tmpDigest = MessageDigest.getInstance("SHA-256").digest(aSettingsKey.getBytes(StandardCharsets.UTF_8));
+            StringBuilder tmpStringBuilder = new StringBuilder(tmpDigest.length * 2);
+            for (byte tmpByte : tmpDigest) {
+                tmpStringBuilder.append(String.format("%02x", tmpByte));
+            }
+            return tmpStringBuilder.toString();
+        } catch (NoSuchAlgorithmException anException) {
+            //every Java platform is required to support SHA-256
+            throw new IllegalStateException(anException);
+        }
+    }
+    //
+    /**
+     * Reads the header of a cache file and checks whether it belongs to a compatible file of the given settings key.
+     *
+     * @param anInputStream stream of the cache file, positioned at its start
+     * @param aSettingsKey expected settings key
+     * @return true if the file is compatible
+     * @throws IOException if the stream cannot be read
+     */
+    private static boolean readHeader(DataInputStream anInputStream, String aSettingsKey) throws IOException {
+        return anInputStream.readInt() == FragmentationDiskCache.MAGIC_NUMBER
+                && anInputStream.readInt() == FragmentationDiskCache.FORMAT_VERSION
+                && FragmentationDiskCache.readString(anInputStream).equals(aSettingsKey);
+    }
+    //
+    /**
+     * Writes the header of a cache file with the given settings key.
+     *
+     * @param anOutputStream stream of the cache file, positioned at its start
+     * @param aSettingsKey settings key of the file
+     * @return number of bytes written
+     * @throws IOException if the stream cannot be written
+     */
+    private static long writeHeader(DataOutputStream anOutputStream, String aSettingsKey) throws IOException {
+        anOutputStream.writeInt(FragmentationDiskCache.MAGIC_NUMBER);
+        anOutputStream.writeInt(FragmentationDiskCache.FORMAT_VERSION);
+        byte[] tmpSettingsKeyBytes = aSettingsKey.getBytes(StandardCharsets.UTF_8);
+        FragmentationDiskCache.writeBytes(anOutputStream, tmpSettingsKeyBytes);
+        return Integer.BYTES * 3L + tmpSettingsKeyBytes.length;
+    }
+    //
+    /**
+     * Returns the number of bytes an entry with the given lengths of its SMILES code and fragments takes in a cache
+     * file, including its leading marker.
+     *
+     * @param aSmilesLength length of the UTF-8 encoded SMILES code in bytes
+     * @param aFragmentsLength length of the encoded fragments in bytes
+     * @return size of the entry in bytes
+     */
+    private static long getEntrySize(int aSmilesLength, int aFragmentsLength) {
+        return 1L + Integer.BYTES * 2L + aSmilesLength + aFragmentsLength;
+    }
+    //
+    /**
+     * Writes the given bytes prefixed with their length to the given stream.
+     *
+     * @param anOutputStream stream of a cache file
+     * @param aByteArray bytes to write
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeBytes(DataOutputStream anOutputStream, byte[] aByteArray) throws IOException {
+        anOutputStream.writeInt(aByteArray.length);
+        anOutputStream.write(aByteArray);
+    }
+    //
+    /**
+     * Writes the given string as length-prefixed UTF-8 to the given stream. Other than
+     * {@link DataOutputStream#writeUTF(String)}, this is not limited to 65535 bytes.
+     *
+     * @param anOutputStream stream of a cache file
+     * @param aString string to write
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeString(DataOutputStream anOutputStream, String aString) throws IOException {
+        FragmentationDiskCache.writeBytes(anOutputStream, aString.getBytes(StandardCharsets.UTF_8));
+    }
+    //
+    /**
+     * Reads a non-negative length from the given stream.
+     *
+     * @param anInputStream stream of a cache file
+     * @return length
+     * @throws CorruptCacheFileException if the length is negative because the file is corrupt
+     * @throws IOException if the stream cannot be read
+     */
+    private static int readLength(DataInputStream anInputStream) throws IOException {
+        int tmpLength = anInputStream.readInt();
+        if (tmpLength < 0) {
+            throw new FragmentationDiskCache.CorruptCacheFileException("Fragmentation cache file is corrupt, found a negative length.");
+        }
+        return tmpLength;
+    }
+    //
+    /**
+     * Reads bytes prefixed with their length from the given stream.
+     *
+     * @param anInputStream stream of a cache file
+     * @return bytes read
+     * @throws IOException if the stream cannot be read or ends before all bytes were read
+     */
+    private static byte[] readBytes(DataInputStream anInputStream) throws IOException {
+        int tmpLength = FragmentationDiskCache.readLength(anInputStream);
+        byte[] tmpBytes = anInputStream.readNBytes(tmpLength);
+        if (tmpBytes.length < tmpLength) {
+            throw new EOFException();
+        }
+        return tmpBytes;
+    }
+    //
+    /**
+     * Reads a string written as length-prefixed UTF-8 from the given stream.
+     *
+     * @param anInputStream stream of a cache file
+     * @return string read
+     * @throws IOException if the stream cannot be read
+     */
+    private static String readString(DataInputStream anInputStream) throws IOException {
+        return new String(FragmentationDiskCache.readBytes(anInputStream), StandardCharsets.UTF_8);
+    }
+    //
+    /**
+     * Writes the given fragments of a molecule to the given stream.
+     *
+     * @param anOutputStream stream of a cache file
+     * @param aFragmentList fragments of a molecule
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeFragments(DataOutputStream anOutputStream, List<FragmentationMemo.FragmentOccurrence> aFragmentList)
+            throws IOException {
+        anOutputStream.writeInt(aFragmentList.size());
+        for (FragmentationMemo.FragmentOccurrence tmpFragment : aFragmentList) {
+            FragmentationDiskCache.writeString(anOutputStream, tmpFragment.uniqueSmiles());
+            anOutputStream.writeBoolean(tmpFragment.name() != null);
+            if (tmpFragment.name() != null) {
+                FragmentationDiskCache.writeString(anOutputStream, tmpFragment.name());
+            }
+            anOutputStream.writeInt(tmpFragment.frequency());
+            List<Map.Entry<Object, Object>> tmpStringProperties = new ArrayList<>();
+            if (tmpFragment.properties() != null) {
+                for (Map.Entry<Object, Object> tmpProperty : tmpFragment.properties().entrySet()) {
+                    if (tmpProperty.getKey() instanceof String && tmpProperty.getValue() instanceof String) {
+                        tmpStringProperties.add(tmpProperty);
+                    }
+                }
+            }
+            anOutputStream.writeInt(tmpStringProperties.size());
+            for (Map.Entry<Object, Object> tmpProperty : tmpStringProperties) {
+                FragmentationDiskCache.writeString(anOutputStream, (String) tmpProperty.getKey());
+                FragmentationDiskCache.writeString(anOutputStream, (String) tmpProperty.getValue());
+            }
+        }
+    }
+    //
+    /**
+     * Reads the fragments of a molecule from the given stream.
+     *
+     * @param anInputStream stream of a cache file
+     * @return fragments of a molecule
+     * @throws IOException if the stream cannot be read
+     */
+    private static List<FragmentationMemo.FragmentOccurrence> readFragments(DataInputStream anInputStream) throws IOException {
+        int tmpNumberOfFragments = FragmentationDiskCache.readLength(anInputStream);
+        //a corrupt count must not allocate huge collections up front
+        List<FragmentationMemo.FragmentOccurrence> tmpFragmentList = new ArrayList<>(Math.min(tmpNumberOfFragments, FragmentationDiskCache.MAXIMUM_INITIAL_CAPACITY));
+        for (int i = 0; i < tmpNumberOfFragments; i++) {
+            String tmpSmiles = FragmentationDiskCache.readString(anInputStream);
+            String tmpName = anInputStream.readBoolean() ? FragmentationDiskCache.readString(anInputStream) : null;
+            int tmpFrequency = anInputStream.readInt();
+            int tmpNumberOfProperties = FragmentationDiskCache.readLength(anInputStream);
+            Map<Object, Object> tmpProperties = new HashMap<>(Math.min(tmpNumberOfProperties, FragmentationDiskCache.MAXIMUM_INITIAL_CAPACITY) * 2);
+            for (int j = 0; j < tmpNumberOfProperties; j++) {
+                tmpProperties.put(FragmentationDiskCache.readString(anInputStream), FragmentationDiskCache.readString(anInputStream));
+            }
+            tmpFragmentList.add(new FragmentationMemo.FragmentOccurrence(tmpSmiles, tmpName, tmpProperties, tmpFrequency));
+        }
+        return tmpFragmentList;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private classes" defaultstate="collapsed">
+    /**
+     * Thrown if a cache file contains values that cannot have been written by this class.
+     */
+    private static class CorruptCacheFileException extends IOException {
+        /**
+         * Constructor.
+         *
+         * @param aMessage description of the corruption
+         */
+        CorruptCacheFileException(String aMessage) {
+            super(aMessage);
+        }
+    }
+    //</editor-fold>
+}
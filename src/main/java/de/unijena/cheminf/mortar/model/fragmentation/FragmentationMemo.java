@@ -0,0 +1,247 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
+import de.unijena.cheminf.mortar.model.util.CollectionUtil;
+
+import javafx.beans.property.Property;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memo of the fragmentation results of already fragmented structures, shared by all tasks of one fragmentation. The
+ * results are stored by the unique SMILES code of the fragmented molecule, so molecules occurring multiple times in
+ * the input (e.g. under different names) are fragmented only once. The memo is bound to a settings key describing the
+ * fragmenter and its settings, see {@link #createSettingsKey(IMoleculeFragmenter, boolean)}. To not keep the result
+ * of every molecule for the whole fragmentation, the memo can be restricted to the structures that occur more than
+ * once in the input, see {@link #findRepeatedSmiles(List)}.
+ * <br>NOTE: Thread-safe.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationMemo {
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * Key describing the fragmenter and its settings the results in this memo were created with.
+     */
+    private final String settingsKey;
+    /**
+     * Fragmentation results by the unique SMILES code of the fragmented molecule.
+     */
+    private final Map<String, List<FragmentOccurrence>> resultsBySmiles;
+    /**
+     * Unique SMILES codes of the structures whose results are memoized via {@link #put(String, List)}; null if the
+     * results of all structures are memoized.
+     */
+    private final Set<String> memoizedSmilesSet;
+    /**
+     * Number of results that were taken from this memo.
+     */
+    private final AtomicInteger numberOfHits;
+    //</editor-fold>
+    //
+    /**
+     * Constructor for a memo that keeps the results of all structures.
+     *
+     * @param aSettingsKey key describing the fragmenter and its settings the results in this memo are created with
+     * @throws NullPointerException if the settings key is null
+     */
+    public FragmentationMemo(String aSettingsKey) throws NullPointerException {
+        this(aSettingsKey, null);
+    }
+    //
+    /**
+     * Constructor for a memo that only keeps the results of the given structures, e.g. the ones occurring more than
+     * once in the input, see {@link #findRepeatedSmiles(List)}.
+     *
+     * @param aSettingsKey key describing the fragmenter and its settings the results in this memo are created with
+     * @param aMemoizedSmilesSet unique SMILES codes of the structures whose results should be memoized, must not be
+     *                           changed afterwards; null to memoize the results of all structures
+     * @throws NullPointerException if the settings key is null
+     */
+    public FragmentationMemo(String aSettingsKey, Set<String> aMemoizedSmilesSet) throws NullPointerException {
+        Objects.requireNonNull(aSettingsKey, "aSettingsKey (instance of String) is null.");
+        this.settingsKey = aSettingsKey;
+        this.resultsBySmiles = new ConcurrentHashMap<>();
+        this.memoizedSmilesSet = aMemoizedSmilesSet;
+        this.numberOfHits = new AtomicInteger(0);
+    }
+    //
+    //<editor-fold desc="public static methods" defaultstate="collapsed">
+    /**
+     * Creates a key describing the given fragmenter with its current settings and the stereochemistry setting of the
+     * fragmentation. Two fragmentations with equal keys produce the same fragments for the same molecule.
+     *
+     * @param aFragmenter fragmenter with the settings to describe
+     * @param isStereo whether stereochemistry is regarded in the fragment SMILES codes
+     * @return settings key
+     */
+    public static String createSettingsKey(IMoleculeFragmenter aFragmenter, boolean isStereo) {
+        StringBuilder tmpStringBuilder = new StringBuilder(aFragmenter.getFragmentationAlgorithmName());
+        tmpStringBuilder.append(";stereo=").append(isStereo);
+        for (Property<?> tmpProperty : aFragmenter.settingsProperties()) {
+            tmpStringBuilder.append(';').append(tmpProperty.getName()).append('=').append(tmpProperty.getValue());
+        }
+        return tmpStringBuilder.toString();
+    }
+    //
+    /**
+     * Creates a key describing the given pipeline of fragmenters with their current settings, in which the fragments of
+     * every fragmenter are fragmented further by the next one. For a single fragmenter, the key equals the one created
+     * by {@link #createSettingsKey(IMoleculeFragmenter, boolean)}.
+     *
+     * @param aFragmenterPipeline fragmenters in the order they are applied
+     * @param isStereo whether stereochemistry is regarded in the fragment SMILES codes
+     * @return settings key
+     */
+    public static String createSettingsKey(IMoleculeFragmenter[] aFragmenterPipeline, boolean isStereo) {
+        StringBuilder tmpStringBuilder = new StringBuilder(FragmentationMemo.createSettingsKey(aFragmenterPipeline[0], isStereo));
+        for (int i = 1; i < aFragmenterPipeline.length; i++) {
+            tmpStringBuilder.append(" > ").append(FragmentationMemo.createSettingsKey(aFragmenterPipeline[i], isStereo));
+        }
+        return tmpStringBuilder.toString();
+    }
+    //
+    /**
+     * Returns the unique SMILES codes that occur more than once among the given molecules. Only the results of these
+     * structures can be reused within one fragmentation.
+     *
+     * @param aListOfMolecules molecules to fragment
+     * @return unique SMILES codes of the repeated structures, empty if there are none
+     */
+    public static Set<String> findRepeatedSmiles(List<MoleculeDataModel> aListOfMolecules) {
+        Set<String> tmpSeenSmilesSet = new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(aListOfMolecules.size()));
+        Set<String> tmpRepeatedSmilesSet = new HashSet<>();
+        for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+            if (!tmpSeenSmilesSet.add(tmpMolecule.getUniqueSmiles())) {
+                tmpRepeatedSmilesSet.add(tmpMolecule.getUniqueSmiles());
+            }
+        }
+        return tmpRepeatedSmilesSet;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Returns the memoized fragmentation result of the molecule with the given unique SMILES code and counts the hit.
+     *
+     * @param aUniqueSmiles unique SMILES code of the molecule
+     * @return fragments of the molecule or null if the structure was not fragmented before
+     */
+    public List<FragmentOccurrence> get(String aUniqueSmiles) {
+        List<FragmentOccurrence> tmpResult = this.resultsBySmiles.get(aUniqueSmiles);
+        if (tmpResult != null) {
+            this.numberOfHits.incrementAndGet();
+        }
+        return tmpResult;
+    }
+    //
+    /**
+     * Memoizes the fragmentation result of the molecule with the given unique SMILES code. An existing result is kept
+     * and the result is dropped if this memo is restricted to other structures.
+     *
+     * @param aUniqueSmiles unique SMILES code of the molecule
+     * @param aResult fragments of the molecule, must not be changed afterwards
+     */
+    public void put(String aUniqueSmiles, List<FragmentOccurrence> aResult) {
+        if (this.memoizedSmilesSet != null && !this.memoizedSmilesSet.contains(aUniqueSmiles)) {
+            return;
+        }
+        this.resultsBySmiles.putIfAbsent(aUniqueSmiles, aResult);
+    }
+    //
+    /**
+     * Memoizes the given fragmentation results, e.g. loaded from a persistent cache created with the same settings key.
+     * Existing results are kept, the given ones are memoized even if this memo is restricted to other structures.
+     *
+     * @param aResultMap fragments of the molecules by their unique SMILES codes, must not be changed afterwards
+     */
+    public void putAll(Map<String, List<FragmentOccurrence>> aResultMap) {
+        for (Map.Entry<String, List<FragmentOccurrence>> tmpEntry : aResultMap.entrySet()) {
+            this.resultsBySmiles.putIfAbsent(tmpEntry.getKey(), tmpEntry.getValue());
+        }
+    }
+    //
+    /**
+     * Returns an unmodifiable view of all memoized fragmentation results.
+     *
+     * @return fragments of the molecules by their unique SMILES codes
+     */
+    public Map<String, List<FragmentOccurrence>> getResults() {
+        return Collections.unmodifiableMap(this.resultsBySmiles);
+    }
+    //
+    /**
+     * Returns the key describing the fragmenter and its settings the results in this memo were created with.
+     *
+     * @return settings key
+     */
+    public String getSettingsKey() {
+        return this.settingsKey;
+    }
+    //
+    /**
+     * Returns the number of results that were taken from this memo.
+     *
+     * @return number of hits
+     */
+    public int getNumberOfHits() {
+        return this.numberOfHits.get();
+    }
+    //
+    /**
+     * Returns the number of memoized structures.
+     *
+     * @return number of memoized structures
+     */
+    public int size() {
+        return this.resultsBySmiles.size();
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public records" defaultstate="collapsed">
+    /**
+     * A distinct fragment of a molecule with the number of times it occurs in the molecule.
+     *
+     * @param uniqueSmiles unique SMILES code of the fragment
+     * @param name name (title) of the first fragment atom container with this SMILES code
+     * @param properties properties of the first fragment atom container with this SMILES code
+     * @param frequency number of times the fragment occurs in the molecule
+     */
+    public record FragmentOccurrence(String uniqueSmiles, String name, Map<Object, Object> properties, int frequency) {
+    }
+    //</editor-fold>
+}
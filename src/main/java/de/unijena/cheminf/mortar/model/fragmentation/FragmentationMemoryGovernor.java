@@ -0,0 +1,301 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adapts the number of molecules that are fragmented in parallel to the heap usage, so that large fragmentations finish
+ * slower instead of running out of memory. The governor samples the heap occupancy after the last garbage collection
+ * via the {@link MemoryPoolMXBean}s of the tenured heap pools at a fixed rate on its own thread, because the current
+ * heap usage also contains garbage and crosses any threshold between two collections. When the occupancy crosses the
+ * high threshold, the governor halves the number of active workers once; it does not halve them again before the
+ * occupancy has dropped below the high threshold minus {@link #RECOVERY_MARGIN_PERCENT}. Above the critical threshold,
+ * it pauses the intake of molecules for all workers but one. Below the recovery margin, it lets one more worker proceed
+ * per sample until all are active again. The fragmentation tasks acquire a permit from the governor before every chunk
+ * of molecules they pass to the fragmenter and release it afterwards.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationMemoryGovernor implements Runnable {
+    //<editor-fold desc="public static final class constants" defaultstate="collapsed">
+    /**
+     * Interval in milliseconds in which the heap occupancy is sampled.
+     */
+    public static final long SAMPLING_INTERVAL_MILLISECONDS = 500L;
+    /**
+     * Percentage points below the high threshold the heap occupancy has to drop to before workers are activated again.
+     */
+    public static final int RECOVERY_MARGIN_PERCENT = 10;
+    /**
+     * Name of the governor thread.
+     */
+    public static final String GOVERNOR_THREAD_NAME = "MORTAR_Fragmentation_Memory_Governor";
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FragmentationMemoryGovernor.class.getName());
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Maximum number of workers that fragment molecules at the same time, i.e. the number of tasks.
+     */
+    private final int maximumNumberOfWorkers;
+    /**
+     * Heap occupancy between 0 and 1 above which the number of active workers is halved.
+     */
+    private final double highThreshold;
+    /**
+     * Heap occupancy between 0 and 1 above which only one worker is active.
+     */
+    private final double criticalThreshold;
+    /**
+     * Supplier of the current heap occupancy between 0 and 1.
+     */
+    private final DoubleSupplier heapOccupancySupplier;
+    /**
+     * Number of workers currently allowed to fragment molecules; guarded by this.
+     */
+    private int allowedNumberOfWorkers;
+    /**
+     * Number of workers currently fragmenting a molecule; guarded by this.
+     */
+    private int activeNumberOfWorkers;
+    /**
+     * Whether the occupancy has crossed the high threshold and not yet dropped below the recovery margin, so that the
+     * number of workers is not halved again; guarded by this.
+     */
+    private boolean isAboveHighThreshold;
+    /**
+     * Executor running the sampling; null if not started.
+     */
+    private ScheduledExecutorService samplingExecutor;
+    //</editor-fold>
+    //
+    //<editor-fold desc="Constructors">
+    /**
+     * Constructor, the heap occupancy after the last garbage collection is determined via the tenured
+     * {@link MemoryPoolMXBean}s of the JVM.
+     *
+     * @param aMaximumNumberOfWorkers number of tasks of the fragmentation
+     * @param aHighThresholdPercent heap usage in percent above which the number of active workers is halved
+     * @param aCriticalThresholdPercent heap usage in percent above which only one worker is active; if it is lower than
+     *                                  the high threshold, the high threshold is used
+     * @throws IllegalArgumentException if the number of workers is 0 or negative or a threshold is not between 1 and
+     *                                  100
+     */
+    public FragmentationMemoryGovernor(int aMaximumNumberOfWorkers, int aHighThresholdPercent, int aCriticalThresholdPercent)
+            throws IllegalArgumentException {
+        this(aMaximumNumberOfWorkers, aHighThresholdPercent, aCriticalThresholdPercent,
+                FragmentationMemoryGovernor.createHeapOccupancySupplier(ManagementFactory.getMemoryPoolMXBeans(), ManagementFactory.getMemoryMXBean()));
+    }
+    //
+    /**
+     * Constructor with the given source of the heap occupancy.
+     *
+     * @param aMaximumNumberOfWorkers number of tasks of the fragmentation
+     * @param aHighThresholdPercent heap usage in percent above which the number of active workers is halved
+     * @param aCriticalThresholdPercent heap usage in percent above which only one worker is active; if it is lower than
+     *                                  the high threshold, the high threshold is used
+     * @param aHeapOccupancySupplier supplier of the current heap occupancy between 0 and 1
+     * @throws NullPointerException if the supplier is null
+     * @throws IllegalArgumentException if the number of workers is 0 or negative or a threshold is not between 1 and
+     *                                  100
+     */
+    FragmentationMemoryGovernor(int aMaximumNumberOfWorkers,
+                                int aHighThresholdPercent,
+                                int aCriticalThresholdPercent,
+                                DoubleSupplier aHeapOccupancySupplier)
+            throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aHeapOccupancySupplier, "aHeapOccupancySupplier is null.");
+        if (aMaximumNumberOfWorkers <= 0) {
+            throw new IllegalArgumentException("aMaximumNumberOfWorkers must be positive.");
+        }
+        if (aHighThresholdPercent < 1 || aHighThresholdPercent > 100 || aCriticalThresholdPercent < 1 || aCriticalThresholdPercent > 100) {
+            throw new IllegalArgumentException("The thresholds must be between 1 and 100.");
+        }
+        this.maximumNumberOfWorkers = aMaximumNumberOfWorkers;
+        this.highThreshold = aHighThresholdPercent / 100.0;
+        this.criticalThreshold = Math.max(aHighThresholdPercent, aCriticalThresholdPercent) / 100.0;
+        this.heapOccupancySupplier = aHeapOccupancySupplier;
+        this.allowedNumberOfWorkers = aMaximumNumberOfWorkers;
+        this.activeNumberOfWorkers = 0;
+        this.isAboveHighThreshold = false;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Starts sampling the heap occupancy at a fixed rate on a new daemon thread.
+     */
+    public synchronized void start() {
+        if (this.samplingExecutor != null) {
+            return;
+        }
+        this.samplingExecutor = Executors.newSingleThreadScheduledExecutor(aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, FragmentationMemoryGovernor.GOVERNOR_THREAD_NAME);
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        });
+        this.samplingExecutor.scheduleAtFixedRate(this,
+                FragmentationMemoryGovernor.SAMPLING_INTERVAL_MILLISECONDS,
+                FragmentationMemoryGovernor.SAMPLING_INTERVAL_MILLISECONDS,
+                TimeUnit.MILLISECONDS);
+    }
+    //
+    /**
+     * Stops sampling the heap occupancy and lets all waiting workers proceed.
+     */
+    public synchronized void stop() {
+        if (this.samplingExecutor != null) {
+            this.samplingExecutor.shutdownNow();
+            this.samplingExecutor = null;
+        }
+        this.allowedNumberOfWorkers = this.maximumNumberOfWorkers;
+        this.notifyAll();
+    }
+    //
+    /**
+     * Waits until the calling worker is allowed to fragment a molecule. Every acquired permit has to be released via
+     * {@link #releasePermit()} after the molecule is fragmented.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquirePermit() throws InterruptedException {
+        while (this.activeNumberOfWorkers >= this.allowedNumberOfWorkers) {
+            this.wait();
+        }
+        this.activeNumberOfWorkers++;
+    }
+    //
+    /**
+     * Releases a permit acquired via {@link #acquirePermit()}.
+     */
+    public synchronized void releasePermit() {
+        this.activeNumberOfWorkers--;
+        this.notifyAll();
+    }
+    //
+    /**
+     * Returns the number of workers currently allowed to fragment molecules.
+     *
+     * @return number of allowed workers
+     */
+    public synchronized int getAllowedNumberOfWorkers() {
+        return this.allowedNumberOfWorkers;
+    }
+    //
+    /**
+     * Samples the heap occupancy once and adapts the number of allowed workers to it, halving them at most once per
+     * excursion above the high threshold. Called at a fixed rate on the governor thread.
+     */
+    @Override
+    public void run() {
+        double tmpHeapOccupancy = this.heapOccupancySupplier.getAsDouble();
+        int tmpOldNumberOfWorkers;
+        int tmpNewNumberOfWorkers;
+        synchronized (this) {
+            tmpOldNumberOfWorkers = this.allowedNumberOfWorkers;
+            if (tmpHeapOccupancy >= this.criticalThreshold) {
+                tmpNewNumberOfWorkers = 1;
+                this.isAboveHighThreshold = true;
+            } else if (tmpHeapOccupancy >= this.highThreshold && !this.isAboveHighThreshold) {
+                tmpNewNumberOfWorkers = Math.max(1, tmpOldNumberOfWorkers / 2);
+                this.isAboveHighThreshold = true;
+            } else if (tmpHeapOccupancy < this.highThreshold - FragmentationMemoryGovernor.RECOVERY_MARGIN_PERCENT / 100.0) {
+                tmpNewNumberOfWorkers = Math.min(this.maximumNumberOfWorkers, tmpOldNumberOfWorkers + 1);
+                this.isAboveHighThreshold = false;
+            } else {
+                tmpNewNumberOfWorkers = tmpOldNumberOfWorkers;
+            }
+            this.allowedNumberOfWorkers = tmpNewNumberOfWorkers;
+            if (tmpNewNumberOfWorkers > tmpOldNumberOfWorkers) {
+                this.notifyAll();
+            }
+        }
+        if (tmpNewNumberOfWorkers != tmpOldNumberOfWorkers) {
+            FragmentationMemoryGovernor.LOGGER.log(Level.INFO, "Heap usage after garbage collection at {0} %, {1} the number of active fragmentation workers from {2} to {3}.",
+                    new Object[]{Math.round(tmpHeapOccupancy * 100.0),
+                            tmpNewNumberOfWorkers < tmpOldNumberOfWorkers ? "reducing" : "increasing",
+                            tmpOldNumberOfWorkers, tmpNewNumberOfWorkers});
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="package-private static methods" defaultstate="collapsed">
+    /**
+     * Creates a supplier of the heap occupancy after the last garbage collection, i.e. the highest ratio of the memory
+     * used after the last collection to the maximum size among the tenured heap pools. Only pools that support both a
+     * usage threshold and a collection usage threshold are sampled, which is the old generation for the common
+     * collectors; eden and survivor spaces are skipped because they are routinely close to full right after a young
+     * collection without the live data set being large. If no tenured pool reports its usage after collection, the
+     * current heap usage divided by the maximum or, if no maximum is defined, the committed heap size is used instead.
+     *
+     * @param aMemoryPoolMXBeanList memory pool beans of the JVM
+     * @param aMemoryMXBean memory bean of the JVM, used if no tenured pool reports its usage after collection
+     * @return supplier of the heap occupancy between 0 and 1
+     */
+    static DoubleSupplier createHeapOccupancySupplier(List<MemoryPoolMXBean> aMemoryPoolMXBeanList, MemoryMXBean aMemoryMXBean) {
+        return () -> {
+            double tmpHighestOccupancy = -1.0;
+            for (MemoryPoolMXBean tmpPool : aMemoryPoolMXBeanList) {
+                //young generation pools do not support usage thresholds
+                if (tmpPool.getType() != MemoryType.HEAP || !tmpPool.isValid()
+                        || !tmpPool.isUsageThresholdSupported() || !tmpPool.isCollectionUsageThresholdSupported()) {
+                    continue;
+                }
+                MemoryUsage tmpCollectionUsage = tmpPool.getCollectionUsage();
+                if (tmpCollectionUsage == null || tmpCollectionUsage.getMax() <= 0L) {
+                    continue;
+                }
+                tmpHighestOccupancy = Math.max(tmpHighestOccupancy, (double) tmpCollectionUsage.getUsed() / tmpCollectionUsage.getMax());
+            }
+            if (tmpHighestOccupancy >= 0.0) {
+                return tmpHighestOccupancy;
+            }
+            MemoryUsage tmpHeapUsage = aMemoryMXBean.getHeapMemoryUsage();
+            long tmpLimit = tmpHeapUsage.getMax() > 0L ? tmpHeapUsage.getMax() : tmpHeapUsage.getCommitted();
+            return tmpLimit <= 0L ? 0.0 : (double) tmpHeapUsage.getUsed() / tmpLimit;
+        };
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,269 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.message.Message;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samples the counters of the tasks of a running fragmentation at a fixed rate on its own thread and reports the
+ * progress, the throughput in molecules per second, and the estimated remaining time. Every sample is passed to an
+ * optional consumer, e.g. to show it in the status bar, and a sample is logged periodically. The tasks only increment
+ * their own counters, so the reporting does not slow the fragmentation down.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationProgressReporter implements Runnable {
+    //<editor-fold desc="public static final class constants" defaultstate="collapsed">
+    /**
+     * Interval in milliseconds in which the task counters are sampled.
+     */
+    public static final long SAMPLING_INTERVAL_MILLISECONDS = 1000L;
+    /**
+     * Interval in milliseconds in which a sample is logged.
+     */
+    public static final long LOGGING_INTERVAL_MILLISECONDS = 30000L;
+    /**
+     * Name of the thread sampling the task counters.
+     */
+    public static final String SAMPLING_THREAD_NAME = "MORTAR_Fragmentation_Progress";
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FragmentationProgressReporter.class.getName());
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Tasks of the fragmentation whose counters are sampled.
+     */
+    private final List<FragmentationTask> taskList;
+    /**
+     * Total number of molecules to fragment.
+     */
+    private final int numberOfMolecules;
+    /**
+     * Name of the fragmentation.
+     */
+    private final String fragmentationName;
+    /**
+     * Consumer of the progress message of every sample; null if the samples should only be logged.
+     */
+    private final Consumer<String> progressMessageConsumer;
+    /**
+     * Start time of the fragmentation in milliseconds.
+     */
+    private long startTime;
+    /**
+     * Time in milliseconds when the last sample was logged.
+     */
+    private long lastLoggingTime;
+    /**
+     * Executor running the sampling; null if not started.
+     */
+    private ScheduledExecutorService samplingExecutor;
+    //</editor-fold>
+    //
+    /**
+     * Constructor.
+     *
+     * @param aTaskList tasks of the fragmentation whose counters should be sampled
+     * @param aNumberOfMolecules total number of molecules to fragment
+     * @param aFragmentationName name of the fragmentation
+     * @param aProgressMessageConsumer consumer of the progress message of every sample, called on the sampling thread;
+     *                                 may be null if the samples should only be logged
+     * @throws NullPointerException if the task list or the fragmentation name is null
+     */
+    public FragmentationProgressReporter(List<FragmentationTask> aTaskList,
+                                         int aNumberOfMolecules,
+                                         String aFragmentationName,
+                                         Consumer<String> aProgressMessageConsumer) throws NullPointerException {
+        Objects.requireNonNull(aTaskList, "aTaskList (list of FragmentationTask instances) is null.");
+        Objects.requireNonNull(aFragmentationName, "aFragmentationName (String) is null.");
+        this.taskList = aTaskList;
+        this.numberOfMolecules = aNumberOfMolecules;
+        this.fragmentationName = aFragmentationName;
+        this.progressMessageConsumer = aProgressMessageConsumer;
+        this.startTime = System.currentTimeMillis();
+        this.lastLoggingTime = this.startTime;
+    }
+    //
+    /**
+     * Starts sampling the task counters at a fixed rate on a new daemon thread. Should be called right before the tasks
+     * are started.
+     */
+    public synchronized void start() {
+        if (this.samplingExecutor != null) {
+            return;
+        }
+        this.startTime = System.currentTimeMillis();
+        this.lastLoggingTime = this.startTime;
+        this.samplingExecutor = Executors.newSingleThreadScheduledExecutor(aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, FragmentationProgressReporter.SAMPLING_THREAD_NAME);
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        });
+        this.samplingExecutor.scheduleAtFixedRate(this,
+                FragmentationProgressReporter.SAMPLING_INTERVAL_MILLISECONDS,
+                FragmentationProgressReporter.SAMPLING_INTERVAL_MILLISECONDS,
+                TimeUnit.MILLISECONDS);
+    }
+    //
+    /**
+     * Stops the sampling and logs a last sample. Should be called after the tasks are done or cancelled.
+     */
+    public synchronized void stop() {
+        if (this.samplingExecutor == null) {
+            return;
+        }
+        this.samplingExecutor.shutdownNow();
+        this.samplingExecutor = null;
+        FragmentationProgressReporter.LOGGER.log(Level.INFO, this.sample().toLogMessage(this.fragmentationName));
+    }
+    //
+    /**
+     * Samples the task counters, passes the progress message to the consumer, and logs the sample if the logging
+     * interval has passed since the last logged one. Called at a fixed rate on the sampling thread.
+     */
+    @Override
+    public void run() {
+        ProgressSample tmpSample = this.sample();
+        if (this.progressMessageConsumer != null) {
+            try {
+                this.progressMessageConsumer.accept(tmpSample.toStatusMessage());
+            } catch (RuntimeException anException) {
+                //an exception would suppress all subsequent samples
+                FragmentationProgressReporter.LOGGER.log(Level.WARNING, anException.toString(), anException);
+            }
+        }
+        long tmpCurrentTime = System.currentTimeMillis();
+        if (tmpCurrentTime - this.lastLoggingTime >= FragmentationProgressReporter.LOGGING_INTERVAL_MILLISECONDS) {
+            this.lastLoggingTime = tmpCurrentTime;
+            FragmentationProgressReporter.LOGGER.log(Level.INFO, tmpSample.toLogMessage(this.fragmentationName));
+        }
+    }
+    //
+    /**
+     * Sums up the current counters of all tasks and derives the throughput and the estimated remaining time from them.
+     *
+     * @return current progress sample
+     */
+    public ProgressSample sample() {
+        int tmpProcessedMolecules = 0;
+        long tmpProducedFragments = 0;
+        int tmpFailures = 0;
+        for (FragmentationTask tmpTask : this.taskList) {
+            tmpProcessedMolecules += tmpTask.getNumberOfProcessedMolecules();
+            tmpProducedFragments += tmpTask.getNumberOfProducedFragments();
+            tmpFailures += tmpTask.getNumberOfExceptions();
+        }
+        long tmpElapsedMilliseconds = Math.max(0L, System.currentTimeMillis() - this.startTime);
+        double tmpMoleculesPerSecond = tmpElapsedMilliseconds == 0L ? 0.0 : tmpProcessedMolecules * 1000.0 / tmpElapsedMilliseconds;
+        long tmpRemainingSeconds = -1L;
+        if (tmpMoleculesPerSecond > 0.0) {
+            tmpRemainingSeconds = Math.round(Math.max(0, this.numberOfMolecules - tmpProcessedMolecules) / tmpMoleculesPerSecond);
+        }
+        return new ProgressSample(tmpProcessedMolecules, this.numberOfMolecules, tmpProducedFragments, tmpFailures,
+                tmpElapsedMilliseconds, tmpMoleculesPerSecond, tmpRemainingSeconds);
+    }
+    //
+    /**
+     * Formats the given duration as hours, minutes, and seconds, e.g. "1:02:03".
+     *
+     * @param aSeconds duration in seconds
+     * @return formatted duration or "-" if the duration is negative, i.e. unknown
+     */
+    public static String formatDuration(long aSeconds) {
+        if (aSeconds < 0L) {
+            return "-";
+        }
+        return String.format("%d:%02d:%02d", aSeconds / 3600L, (aSeconds % 3600L) / 60L, aSeconds % 60L);
+    }
+    //
+    //<editor-fold desc="public records" defaultstate="collapsed">
+    /**
+     * Progress of a fragmentation at one point in time.
+     *
+     * @param processedMolecules number of molecules processed so far, whether successfully or not
+     * @param numberOfMolecules total number of molecules to fragment
+     * @param producedFragments number of fragment occurrences produced so far
+     * @param failures number of exceptions that occurred so far
+     * @param elapsedMilliseconds time since the start of the fragmentation
+     * @param moleculesPerSecond average throughput since the start of the fragmentation
+     * @param remainingSeconds estimated remaining time; -1 if it cannot be estimated yet
+     */
+    public record ProgressSample(int processedMolecules,
+                                 int numberOfMolecules,
+                                 long producedFragments,
+                                 int failures,
+                                 long elapsedMilliseconds,
+                                 double moleculesPerSecond,
+                                 long remainingSeconds) {
+        /**
+         * Returns the fraction of processed molecules.
+         *
+         * @return value between 0 and 1
+         */
+        public double getProgress() {
+            return this.numberOfMolecules <= 0 ? 1.0 : Math.min(1.0, (double) this.processedMolecules / this.numberOfMolecules);
+        }
+        //
+        /**
+         * Returns the localized progress message to show in the status bar.
+         *
+         * @return progress message
+         */
+        public String toStatusMessage() {
+            return String.format(Message.get("Status.fragmentationProgress"), this.processedMolecules, this.numberOfMolecules,
+                    this.getProgress() * 100.0, this.moleculesPerSecond, FragmentationProgressReporter.formatDuration(this.remainingSeconds));
+        }
+        //
+        /**
+         * Returns the progress message to log.
+         *
+         * @param aFragmentationName name of the fragmentation
+         * @return log message
+         */
+        public String toLogMessage(String aFragmentationName) {
+            return String.format("Fragmentation \"%s\": %d of %d molecules processed, %d fragments, %d failures, %.1f molecules/s, elapsed %s, ETA %s",
+                    aFragmentationName, this.processedMolecules, this.numberOfMolecules, this.producedFragments, this.failures,
+                    this.moleculesPerSecond, FragmentationProgressReporter.formatDuration(this.elapsedMilliseconds / 1000L),
+                    FragmentationProgressReporter.formatDuration(this.remainingSeconds));
+        }
+    }
+    //</editor-fold>
+}
@@ -28,11 +28,13 @@ package de.unijena.cheminf.mortar.model.fragmentation;
 import de.unijena.cheminf.mortar.gui.util.GuiUtil;
 import de.unijena.cheminf.mortar.message.Message;
 import de.unijena.cheminf.mortar.model.data.FragmentDataModel;
+import de.unijena.cheminf.mortar.model.data.FragmentDictionary;
 import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.ErtlFunctionalGroupsFinderFragmenter;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.ScaffoldGeneratorFragmenter;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.SugarRemovalUtilityFragmenter;
+import de.unijena.cheminf.mortar.model.settings.SettingsContainer;
 import de.unijena.cheminf.mortar.model.util.BasicDefinitions;
 import de.unijena.cheminf.mortar.model.util.ChemUtil;
 import de.unijena.cheminf.mortar.model.util.CollectionUtil;
@@ -56,21 +58,25 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -132,6 +138,16 @@ public class FragmentationService {
      * Name of the setting to persist the algorithm name of a pipeline fragmenter.
      */
     public static final String PIPELINE_FRAGMENTER_ALGORITHM_NAME_SETTING_NAME = "AlgorithmName";
+
+    /**
+     * Time in seconds after which idle threads of the fragmentation executor are terminated.
+     */
+    public static final long EXECUTOR_KEEP_ALIVE_TIME_SECONDS = 60L;
+
+    /**
+     * Prefix of the names of the threads of the fragmentation executor.
+     */
+    public static final String EXECUTOR_THREAD_NAME_PREFIX = "MORTAR_Fragmentation_Worker_";
     //</editor-fold>
     //
     //<editor-fold desc="private class variables" defaultstate="collapsed">
@@ -160,9 +176,22 @@ public class FragmentationService {
      */
     private String pipeliningFragmentationName;
     /**
-     * ExecutorService for the fragmentation tasks.
+     * Executor for the fragmentation tasks. It is created when it is needed first and then reused for all following
+     * fragmentations and pipeline stages until it is aborted.
+     */
+    private ThreadPoolExecutor executorService;
+    /**
+     * Whether the running fragmentation was aborted via {@link #abortExecutor()}; reset when a new fragmentation starts.
+     */
+    private volatile boolean isAborted;
+    /**
+     * Persistent cache of fragmentation results on disk, created when it is needed first.
      */
-    private ExecutorService executorService;
+    private FragmentationDiskCache fragmentationDiskCache;
+    /**
+     * Results of the single fragmentations that further molecules can be appended to, keys are fragmentation names.
+     */
+    private Map<String, AppendableFragmentation> appendableFragmentations;
     //</editor-fold>
     //
     //<editor-fold desc="private static final class constants" defaultstate="collapsed">
@@ -197,13 +226,33 @@ public class FragmentationService {
      * Property of display name of selected fragmenter.
      */
     private final SimpleStringProperty selectedFragmenterDisplayNameProperty;
+    //
+    /**
+     * Property of the progress message of the running fragmentation, updated on the JavaFX application thread.
+     */
+    private final SimpleStringProperty fragmentationProgressMessageProperty;
+    //
+    /**
+     * Pool of configured fragmenter instances for the parallel fragmentation tasks.
+     */
+    private final FragmenterPool fragmenterPool;
+    //
+    /**
+     * Global MORTAR settings, e.g. for the distribution of the molecules onto the parallel fragmentation tasks.
+     */
+    private final SettingsContainer settingsContainer;
     //</editor-fold>
     //
     //<editor-fold desc="Constructors">
     /**
      * Constructor, instantiates the fragmenters and sets the selected fragmenter and the pipeline to their defaults.
+     *
+     * @param aSettingsContainer global MORTAR settings
+     * @throws NullPointerException if the given settings container is null
      */
-    public FragmentationService() {
+    public FragmentationService(SettingsContainer aSettingsContainer) throws NullPointerException {
+        Objects.requireNonNull(aSettingsContainer, "aSettingsContainer must not be null");
+        this.settingsContainer = aSettingsContainer;
         //Note: Every fragmenter class should only be added once to the array or there will be problems with setting persistence!
         this.fragmenters = new IMoleculeFragmenter[3];
         this.ertlFGF = new ErtlFunctionalGroupsFinderFragmenter();
@@ -214,6 +263,8 @@ public class FragmentationService {
         this.fragmenters[2] = this.scaffoldGF;
         //
         this.selectedFragmenterDisplayNameProperty = new SimpleStringProperty();
+        this.fragmentationProgressMessageProperty = new SimpleStringProperty("");
+        this.fragmenterPool = new FragmenterPool();
         try {
             this.checkFragmenters();
         } catch (Exception anException) {
@@ -242,6 +293,11 @@ public class FragmentationService {
         }
         this.pipeliningFragmentationName = FragmentationService.DEFAULT_PIPELINE_NAME;
         this.existingFragmentations = new LinkedList<>();
+        this.appendableFragmentations = new HashMap<>();
+        this.isAborted = false;
+        //the pool size of an existing executor follows the setting; if there is none yet, it is created with the right size when needed
+        this.settingsContainer.numberOfTasksForFragmentationSettingProperty().addListener((anObservable, anOldValue, aNewValue) ->
+                this.resizeExecutorService(aNewValue.intValue()));
         //fragments hash table, current fragmentation name, and executor service are only instantiated when needed
     }
     //</editor-fold>
@@ -263,13 +319,91 @@ public class FragmentationService {
             aNumberOfTasks = 1;
         }
         //</editor-fold>
+        this.isAborted = false;
         String tmpFragmentationName = this.createAndCheckFragmentationName(this.selectedFragmenter.getFragmentationAlgorithmDisplayName());
         this.existingFragmentations.add(tmpFragmentationName);
         this.currentFragmentationName = tmpFragmentationName;
-        this.fragments = this.startFragmentation(aListOfMolecules, aNumberOfTasks, this.selectedFragmenter, tmpFragmentationName, isStereoChemistryRegarded);
+        FragmentDictionary tmpFragmentDictionary = new FragmentDictionary();
+        this.fragments = this.startFragmentation(aListOfMolecules, aNumberOfTasks, new IMoleculeFragmenter[] {this.selectedFragmenter},
+                tmpFragmentationName, isStereoChemistryRegarded, tmpFragmentDictionary);
+        if (this.fragments != null) {
+            //the fragmenter is copied, so later changes of its settings do not affect appended molecules
+            this.appendableFragmentations.put(tmpFragmentationName, new AppendableFragmentation(this.fragments, tmpFragmentDictionary,
+                    this.selectedFragmenter.copy(), isStereoChemistryRegarded, aListOfMolecules.size()));
+        }
         FragmentationService.LOGGER.log(Level.INFO, "Number of different fragments extracted: {0}", this.fragments == null ? 0 : this.fragments.size());
     }
     //
+    /**
+     * Fragments the given molecules with the fragmenter and settings of the existing single fragmentation with the given
+     * name and merges the resulting fragments into its fragments. Only the fragments of the given molecules are
+     * created, existing fragments are updated with the frequencies and parent molecules of the new ones, and the
+     * percentages of all fragments are recalculated for the new total numbers of fragments and molecules. Molecules
+     * that have already undergone the fragmentation are skipped. If the fragmentation is aborted, the existing
+     * fragments are left unchanged.
+     *
+     * @param aFragmentationName name of the existing fragmentation to append the molecules to
+     * @param aListOfMolecules molecules to add to the fragmentation
+     * @param aNumberOfTasks how many parallel tasks should be used
+     * @throws NullPointerException if the name or list is null
+     * @throws IllegalArgumentException if no single fragmentation with the given name exists
+     * @throws Exception if anything else goes wrong
+     */
+    public void appendToFragmentation(String aFragmentationName, List<MoleculeDataModel> aListOfMolecules, int aNumberOfTasks)
+            throws NullPointerException, IllegalArgumentException, Exception {
+        //<editor-fold desc="checks" defaultstate="collapsed">
+        Objects.requireNonNull(aFragmentationName, "aFragmentationName must not be null");
+        Objects.requireNonNull(aListOfMolecules, "aListOfMolecules must not be null");
+        AppendableFragmentation tmpFragmentation = this.appendableFragmentations.get(aFragmentationName);
+        if (tmpFragmentation == null) {
+            throw new IllegalArgumentException("No single fragmentation named " + aFragmentationName + " exists to append molecules to.");
+        }
+        if (aNumberOfTasks == 0) {
+            aNumberOfTasks = 1;
+        }
+        //</editor-fold>
+        this.isAborted = false;
+        List<MoleculeDataModel> tmpNewMolecules = new ArrayList<>(aListOfMolecules.size());
+        for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+            if (!tmpMolecule.hasMoleculeUndergoneSpecificFragmentation(aFragmentationName)) {
+                tmpNewMolecules.add(tmpMolecule);
+            }
+        }
+        long tmpStartTime = System.currentTimeMillis();
+        //the new molecules refer to the existing fragments via the dictionary of the fragmentation
+        Map<String, FragmentDataModel> tmpNewFragmentsMap = this.startFragmentation(tmpNewMolecules, aNumberOfTasks,
+                new IMoleculeFragmenter[] {tmpFragmentation.fragmenter()}, aFragmentationName, tmpFragmentation.isStereoChemistryRegarded(),
+                tmpFragmentation.fragmentDictionary());
+        if (tmpNewFragmentsMap == null) {
+            //the existing fragments were not touched yet and the new molecules have forgotten their partial results
+            return;
+        }
+        Map<String, FragmentDataModel> tmpFragmentsMap = tmpFragmentation.fragmentsMap();
+        int tmpNumberOfChangedFragments = FragmentationService.mergeFragments(tmpNewFragmentsMap, tmpFragmentsMap);
+        int tmpNumberOfMolecules = tmpFragmentation.numberOfMolecules() + tmpNewMolecules.size();
+        FragmentationService.calculatePercentages(tmpFragmentsMap, tmpNumberOfMolecules);
+        this.appendableFragmentations.put(aFragmentationName, new AppendableFragmentation(tmpFragmentsMap,
+                tmpFragmentation.fragmentDictionary(), tmpFragmentation.fragmenter(), tmpFragmentation.isStereoChemistryRegarded(),
+                tmpNumberOfMolecules));
+        this.currentFragmentationName = aFragmentationName;
+        this.fragments = tmpFragmentsMap;
+        FragmentationService.LOGGER.log(Level.INFO, "Appended {0} molecules to fragmentation \"{1}\" in {2} ms, {3} of {4} fragments were new or updated.",
+                new Object[]{tmpNewMolecules.size(), aFragmentationName, System.currentTimeMillis() - tmpStartTime,
+                        tmpNumberOfChangedFragments, tmpFragmentsMap.size()});
+    }
+    //
+    /**
+     * Returns whether further molecules can be appended to the fragmentation with the given name via
+     * {@link #appendToFragmentation(String, List, int)}. This is the case for all single fragmentations of the current
+     * molecule set, but not for pipeline fragmentations.
+     *
+     * @param aFragmentationName name of a fragmentation
+     * @return true if molecules can be appended to the fragmentation
+     */
+    public boolean isFragmentationAppendable(String aFragmentationName) {
+        return aFragmentationName != null && this.appendableFragmentations.containsKey(aFragmentationName);
+    }
+    //
     /**
      * Starts fragmentation pipeline for given List of molecules.
      * Fragmentation will be done on fragments of previous step.
@@ -290,6 +424,7 @@ public class FragmentationService {
             aNumberOfTasks = 1;
         }
         //</editor-fold>
+        this.isAborted = false;
         this.fragments = new ConcurrentHashMap<>(aListOfMolecules.size() * this.pipelineFragmenter.length);
         Map<String, FragmentDataModel> tmpFragmentsMap;
         if (this.pipeliningFragmentationName == null || this.pipeliningFragmentationName.isEmpty()) {
@@ -298,21 +433,39 @@ public class FragmentationService {
         String tmpPipelineFragmentationName = this.createAndCheckFragmentationName(this.pipeliningFragmentationName);
         this.existingFragmentations.add(tmpPipelineFragmentationName);
         this.currentFragmentationName = tmpPipelineFragmentationName;
+        if (this.settingsContainer.getFusedPipelineFragmentationSetting() && !isKeepLastFragmentSetting) {
+            //every molecule passes all stages at once, so there are no intermediate fragment generations to consolidate
+            tmpFragmentsMap = this.startFragmentation(aListOfMolecules, aNumberOfTasks, this.pipelineFragmenter, tmpPipelineFragmentationName,
+                    isStereoChemistryRegarded, new FragmentDictionary());
+            if (tmpFragmentsMap == null) {
+                FragmentationService.LOGGER.log(Level.INFO, "Pipeline fragmentation cancelled");
+                return;
+            }
+            this.fragments = tmpFragmentsMap;
+            FragmentationService.LOGGER.log(Level.INFO, "Number of different fragments extracted: {0}", this.fragments.size());
+            return;
+        }
         List<MoleculeDataModel> tmpMolsToFragment = new ArrayList<>(aListOfMolecules);
         for (int i = 0; i < this.pipelineFragmenter.length; i++) {
             this.fragments.clear();
             tmpFragmentsMap = this.startFragmentation(tmpMolsToFragment, aNumberOfTasks, this.pipelineFragmenter[i], tmpPipelineFragmentationName, isStereoChemistryRegarded);
+            if (this.isAborted) {
+                FragmentationService.LOGGER.log(Level.INFO, "Pipeline fragmentation cancelled");
+                return;
+            }
             tmpMolsToFragment.clear();
             //iterate through all initial molecules
             for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
-                Set<FragmentDataModel> tmpNewFragmentsOfMol = new HashSet<>();
-                HashMap<String, Integer> tmpNewFragmentFrequenciesOfMol = new HashMap<>(tmpMolecule.getFragmentsOfSpecificFragmentation(tmpPipelineFragmentationName).size() * 2);
                 //check if molecule has undergone fragmentation (redundant)
                 if (!tmpMolecule.hasMoleculeUndergoneSpecificFragmentation(tmpPipelineFragmentationName)) {
                     continue;
                 }
                 // get fragments of molecules in a new list
                 List<FragmentDataModel> tmpFragmentsOfMolList = new ArrayList<>(tmpMolecule.getFragmentsOfSpecificFragmentation(tmpPipelineFragmentationName));
+                //the frequencies of the molecule are looked up once per parent fragment instead of once per use
+                Map<String, Integer> tmpFragmentFrequenciesOfMol = tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName);
+                Set<FragmentDataModel> tmpNewFragmentsOfMol = new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(tmpFragmentsOfMolList.size()));
+                HashMap<String, Integer> tmpNewFragmentFrequenciesOfMol = new HashMap<>(tmpFragmentsOfMolList.size() * 2);
                 //clear fragments in molecule, child fragments will be added later
                 tmpMolecule.getFragmentsOfSpecificFragmentation(tmpPipelineFragmentationName).clear();
                 //iterate through fragments on mol list
@@ -321,91 +474,63 @@ public class FragmentationService {
                     if (i > 0 && !tmpParentFragment.hasMoleculeUndergoneSpecificFragmentation(tmpPipelineFragmentationName)) {
                         continue;
                     }
+                    String tmpParentSmiles = tmpParentFragment.getUniqueSmiles();
+                    Integer tmpParentFrequency = tmpFragmentFrequenciesOfMol.get(tmpParentSmiles);
                     //get child fragments of parent fragment
                     List<FragmentDataModel> tmpChildFragmentsList = tmpParentFragment.getFragmentsOfSpecificFragmentation(tmpPipelineFragmentationName);
                     //if parent fragment has no children, parent fragment is child fragment
                     if (tmpChildFragmentsList == null || tmpChildFragmentsList.isEmpty()) {
+                        FragmentDataModel tmpResultFragment = tmpFragmentsMap == null ? null : tmpFragmentsMap.get(tmpParentSmiles);
                         //if settingsContainer.isKeepLastFragmentSetting == true (DEPRECATED, always false) or
                         // parent fragment is part of the results of fragmentation, the parent fragment will be set as new fragment if no new fragment is found
-                        if (
-                            isKeepLastFragmentSetting ||
-                                (tmpFragmentsMap != null && tmpFragmentsMap.containsKey(tmpParentFragment.getUniqueSmiles()))
-                        ) {
-                            if (
-                                tmpFragmentsMap != null && tmpNewFragmentsOfMol.add(tmpFragmentsMap.get(tmpParentFragment.getUniqueSmiles()))
-                            ) {
-                                tmpNewFragmentFrequenciesOfMol.put(
-                                    tmpParentFragment.getUniqueSmiles(),
-                                    tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles())
-                                );
+                        if (isKeepLastFragmentSetting || tmpResultFragment != null) {
+                            if (tmpResultFragment != null && tmpNewFragmentsOfMol.add(tmpResultFragment)) {
+                                tmpNewFragmentFrequenciesOfMol.put(tmpParentSmiles, tmpParentFrequency);
                             }
                             //if map for resulting fragments contains fragment, update frequencies = add molecules fragment frequency
                             // of fragment to absolute frequency of fragment and increment molecule frequency
-                            if (this.fragments.containsKey(tmpParentFragment.getUniqueSmiles())) {
+                            if (this.fragments.containsKey(tmpParentSmiles)) {
                                 if (tmpParentFragment.getParentMolecules().add(tmpMolecule))
                                     tmpParentFragment.incrementMoleculeFrequency();
-                                tmpParentFragment.setAbsoluteFrequency(
-                                    tmpParentFragment.getAbsoluteFrequency() +
-                                        tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles())
-                                );
+                                tmpParentFragment.setAbsoluteFrequency(tmpParentFragment.getAbsoluteFrequency() + tmpParentFrequency);
                             }
                             //else add to map, set molecules fragment frequency of fragment as initial absolute frequency of fragment and set molecule frequency to 1
                             else {
                                 tmpParentFragment.getParentMolecules().clear();
                                 if (tmpParentFragment.getParentMolecules().add(tmpMolecule))
                                     tmpParentFragment.setMoleculeFrequency(1);
-                                this.fragments.put(tmpParentFragment.getUniqueSmiles(), tmpParentFragment);
-                                tmpParentFragment.setAbsoluteFrequency(
-                                    tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles())
-                                );
-
+                                this.fragments.put(tmpParentSmiles, tmpParentFragment);
+                                tmpParentFragment.setAbsoluteFrequency(tmpParentFrequency);
                             }
                         }
                     }
                     //else (parent fragment has children) iterate through children fragment list
                     else {
+                        Map<String, Integer> tmpChildFrequenciesOfParent = tmpParentFragment.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName);
                         for (FragmentDataModel tmpChild : tmpChildFragmentsList) {
-                            FragmentDataModel tmpChildFragment;
-                            if (tmpFragmentsMap != null && tmpFragmentsMap.containsKey(tmpChild.getUniqueSmiles())) {
-                                tmpChildFragment = tmpFragmentsMap.get(tmpChild.getUniqueSmiles());
-                            } else {
+                            String tmpChildSmiles = tmpChild.getUniqueSmiles();
+                            FragmentDataModel tmpChildFragment = tmpFragmentsMap == null ? null : tmpFragmentsMap.get(tmpChildSmiles);
+                            if (tmpChildFragment == null) {
                                 tmpChildFragment = tmpChild;
                             }
+                            int tmpChildFrequency = tmpChildFrequenciesOfParent.get(tmpChildSmiles);
                             if (tmpNewFragmentsOfMol.contains(tmpChildFragment)) {
                                 if(tmpChildFragment.getParentMolecules().add(tmpMolecule))
                                     tmpChildFragment.incrementMoleculeFrequency();
-                                tmpNewFragmentFrequenciesOfMol.replace(
-                                        tmpChildFragment.getUniqueSmiles(),
-                                        tmpNewFragmentFrequenciesOfMol.get(tmpChildFragment.getUniqueSmiles()) +
-                                            tmpParentFragment.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpChildFragment.getUniqueSmiles())
-                                );
-
+                                tmpNewFragmentFrequenciesOfMol.replace(tmpChildSmiles, tmpNewFragmentFrequenciesOfMol.get(tmpChildSmiles) + tmpChildFrequency);
                             } else {
                                 if(tmpChildFragment.getParentMolecules().add(tmpMolecule))
                                     tmpChildFragment.incrementMoleculeFrequency();
                                 tmpNewFragmentsOfMol.add(tmpChildFragment);
-                                tmpNewFragmentFrequenciesOfMol.put(
-                                        tmpChildFragment.getUniqueSmiles(),
-                                        tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles()) *
-                                                tmpParentFragment.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpChildFragment.getUniqueSmiles())
-                                        );
+                                tmpNewFragmentFrequenciesOfMol.put(tmpChildSmiles, tmpParentFrequency * tmpChildFrequency);
                             }
                             //if map for resulting fragments contains fragment, update frequencies = add molecules fragment frequency of fragment to absolute frequency of fragment and increment molecule frequency
-                            if (this.fragments.containsKey(tmpChildFragment.getUniqueSmiles())) {
-                                tmpChildFragment.setAbsoluteFrequency(
-                                    tmpChildFragment.getAbsoluteFrequency() +
-                                        (tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles()) *
-                                            tmpParentFragment.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpChildFragment.getUniqueSmiles())
-                                        )
-                                );
+                            if (this.fragments.putIfAbsent(tmpChildSmiles, tmpChildFragment) != null) {
+                                tmpChildFragment.setAbsoluteFrequency(tmpChildFragment.getAbsoluteFrequency() + tmpParentFrequency * tmpChildFrequency);
                             }
-                            //else add to map, set molecules fragment frequency of fragment as initial absolute frequency of fragment and set molecule frequency to 1
+                            //else it was added to the map, set molecules fragment frequency of fragment as initial absolute frequency of fragment and set molecule frequency to 1
                             else {
-                                this.fragments.put(tmpChildFragment.getUniqueSmiles(), tmpChildFragment);
-                                tmpChildFragment.setAbsoluteFrequency(
-                                        tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpParentFragment.getUniqueSmiles()) *
-                                                tmpParentFragment.getFragmentFrequencyOfSpecificFragmentation(tmpPipelineFragmentationName).get(tmpChildFragment.getUniqueSmiles())
-                                );
+                                tmpChildFragment.setAbsoluteFrequency(tmpParentFrequency * tmpChildFrequency);
                                 tmpChildFragment.setMoleculeFrequency(1);
                             }
                         }
@@ -416,23 +541,10 @@ public class FragmentationService {
             }
             tmpMolsToFragment = new ArrayList<>(this.fragments.values());
         }
-        int tmpFragmentAmount = 0;
-        Set<String> tmpKeySet = this.fragments.keySet();
-        for (String tmpKey : tmpKeySet) {
-            tmpFragmentAmount += this.fragments.get(tmpKey).getAbsoluteFrequency();
-        }
-        // remove parent molecules that are not included in the original list
-        for (String tmpKey : tmpKeySet) {
-            this.fragments.get(tmpKey).getParentMolecules().removeIf(moleculeDataModel -> !aListOfMolecules.contains(moleculeDataModel));
-        }
-        if (tmpFragmentAmount != 0) {
-            for (String tmpKey : tmpKeySet) {
-                this.fragments.get(tmpKey).setAbsolutePercentage(1.0 * this.fragments.get(tmpKey).getAbsoluteFrequency() / tmpFragmentAmount);
-                this.fragments.get(tmpKey).setMoleculePercentage(1.0 * this.fragments.get(tmpKey).getMoleculeFrequency() / aListOfMolecules.size());
-            }
-        } else {
-            FragmentationService.LOGGER.log(Level.WARNING, "Sum of absolute frequencies of fragments was 0! Percentages could not be calculated.");
-        }
+        long tmpConsolidationStartTime = System.currentTimeMillis();
+        this.consolidatePipelineFragments(aListOfMolecules, aNumberOfTasks);
+        FragmentationService.LOGGER.log(Level.INFO, "Consolidating the {0} pipeline fragments took {1} ms.",
+                new Object[]{this.fragments.size(), System.currentTimeMillis() - tmpConsolidationStartTime});
         FragmentationService.LOGGER.log(Level.INFO, "Number of different fragments extracted: {0}",  this.fragments.size());
      }
     //
@@ -819,10 +931,15 @@ public class FragmentationService {
     }
 
     /**
-     * Shuts down executor service.
+     * Aborts the running fragmentation by shutting down the executor service. The next fragmentation creates a new
+     * executor service.
      * Used as <a href="https://docs.oracle.com/en/java/javase/11/docs/api/java.base/java/util/concurrent/ExecutorService.html">recommended by oracle</a>.
      */
-    public void abortExecutor() {
+    public synchronized void abortExecutor() {
+        this.isAborted = true;
+        if (Objects.isNull(this.executorService)) {
+            return;
+        }
         this.executorService.shutdown();
         try {
             if (!this.executorService.awaitTermination(600, TimeUnit.MILLISECONDS)) {
@@ -835,11 +952,28 @@ public class FragmentationService {
         }
     }
 
+    /**
+     * Deletes all fragmentation results cached on disk and resets the cache statistics.
+     *
+     * @return true if the cache was cleared successfully
+     */
+    public boolean clearFragmentationDiskCache() {
+        try {
+            boolean tmpIsCleared = this.getFragmentationDiskCache().clear();
+            FragmentationService.LOGGER.log(Level.INFO, "Fragmentation cache cleared: {0}", tmpIsCleared);
+            return tmpIsCleared;
+        } catch (SecurityException anException) {
+            FragmentationService.LOGGER.log(Level.WARNING, anException.toString(), anException);
+            return false;
+        }
+    }
+
     /**
      * Clears all cached variables like existingFragmentations and fragments.
      */
     public void clearCache() {
         this.existingFragmentations = new LinkedList<>();
+        this.appendableFragmentations = new HashMap<>();
         this.fragments = null;
         this.currentFragmentationName = null;
     }
@@ -939,6 +1073,16 @@ public class FragmentationService {
     public SimpleStringProperty selectedFragmenterDisplayNameProperty() {
         return this.selectedFragmenterDisplayNameProperty;
     }
+    /**
+     * Returns the property of the progress message of the running fragmentation, containing the number of processed
+     * molecules, the throughput, and the estimated remaining time. It is updated on the JavaFX application thread about
+     * every second while a fragmentation is running.
+     *
+     * @return SimpleStringProperty
+     */
+    public SimpleStringProperty fragmentationProgressMessageProperty() {
+        return this.fragmentationProgressMessageProperty;
+    }
     /**
      * Sets the display name of the selected fragmenter.
      *
@@ -947,6 +1091,19 @@ public class FragmentationService {
     public void setSelectedFragmenterDisplayName(String aFragmenterDisplayName) {
         this.selectedFragmenterDisplayNameProperty.set(aFragmenterDisplayName);
     }
+
+    /**
+     * Returns the persistent cache of fragmentation results on disk, it is created when it is needed first.
+     *
+     * @return fragmentation cache on disk
+     * @throws SecurityException if the application directory cannot be determined or created
+     */
+    public synchronized FragmentationDiskCache getFragmentationDiskCache() throws SecurityException {
+        if (Objects.isNull(this.fragmentationDiskCache)) {
+            this.fragmentationDiskCache = new FragmentationDiskCache();
+        }
+        return this.fragmentationDiskCache;
+    }
     //</editor-fold>
     //
     //<editor-fold desc="private methods">
@@ -970,7 +1127,10 @@ public class FragmentationService {
     //
     /**
      * Manages the fragmentation, creates {@link FragmentationTask} equal to the amount of {@param aNumberOfTasks},
-     * assigns the molecules of {@param aListOfMolecules} to them and starts the fragmentation.
+     * lets them share a {@link MoleculeBatchCursor} over {@param aListOfMolecules} and starts the fragmentation. If
+     * dynamic scheduling is turned on in the settings, the tasks take small batches of molecules until the list is
+     * exhausted, otherwise every task takes one static slice of the list. If task-local fragment aggregation is turned
+     * on, the tasks collect their fragments in their own maps that are merged in parallel after all tasks are done.
      *
      * @param aListOfMolecules molecules to fragment and to assign the fragments to
      * @param aNumberOfTasks number of parallel tasks to use for the process
@@ -985,61 +1145,179 @@ public class FragmentationService {
                                                                     String aFragmentationName,
                                                                     boolean isStereoChemistryRegarded)
             throws Exception {
+        return this.startFragmentation(aListOfMolecules, aNumberOfTasks, new IMoleculeFragmenter[] {aFragmenter}, aFragmentationName,
+                isStereoChemistryRegarded, new FragmentDictionary());
+    }
+    //
+    /**
+     * Manages the fragmentation like {@link #startFragmentation(List, int, IMoleculeFragmenter, String, boolean)} but
+     * lets the molecules store their fragments as IDs of the given dictionary. The dictionary may already contain the
+     * fragments of molecules fragmented before under the same name; the fragments of these IDs are kept. If multiple
+     * fragmenters are given, they form a fused pipeline: every molecule is passed through all of them one after
+     * another by the same task and only the fragments of the last one are aggregated.
+     *
+     * @param aListOfMolecules molecules to fragment and to assign the fragments to
+     * @param aNumberOfTasks number of parallel tasks to use for the process
+     * @param aFragmenterPipeline fragmenter instances to use to fragment, in the order they are applied; will be copied
+     *                            for the parallel tasks
+     * @param aFragmentationName name under which to store the fragmentation results on the molecules
+     * @param isStereoChemistryRegarded whether stereo chemistry should be encoded in the resulting fragment SMILES codes
+     * @param aFragmentDictionary dictionary of the fragment IDs stored on the molecules
+     * @return fragments of the given molecules, keys are unique SMILES codes; null if the fragmentation was aborted, the
+     *         given molecules have no results of it then
+     * @throws Exception if anything goes wrong
+     */
+    private Map<String, FragmentDataModel> startFragmentation(List<MoleculeDataModel> aListOfMolecules,
+                                                                    int aNumberOfTasks,
+                                                                    IMoleculeFragmenter[] aFragmenterPipeline,
+                                                                    String aFragmentationName,
+                                                                    boolean isStereoChemistryRegarded,
+                                                                    FragmentDictionary aFragmentDictionary)
+            throws Exception {
         if (aListOfMolecules.isEmpty() || aNumberOfTasks == 0) {
             return new ConcurrentHashMap<>(0);
         }
+        IMoleculeFragmenter tmpFirstFragmenter = aFragmenterPipeline[0];
+        StringBuilder tmpAlgorithmDisplayNameBuilder = new StringBuilder(tmpFirstFragmenter.getFragmentationAlgorithmDisplayName());
+        for (int i = 1; i < aFragmenterPipeline.length; i++) {
+            tmpAlgorithmDisplayNameBuilder.append(" > ").append(aFragmenterPipeline[i].getFragmentationAlgorithmDisplayName());
+        }
+        String tmpAlgorithmDisplayName = tmpAlgorithmDisplayNameBuilder.toString();
         int tmpNumberOfTasks = aNumberOfTasks;
         ConcurrentHashMap<String, FragmentDataModel> tmpFragmentMap = new ConcurrentHashMap<>(aListOfMolecules.size() * 2);
         if (aListOfMolecules.size() < tmpNumberOfTasks) {
             tmpNumberOfTasks = aListOfMolecules.size();
         }
-        int tmpMoleculesPerTask = aListOfMolecules.size() / tmpNumberOfTasks;
-        int tmpMoleculeModulo = aListOfMolecules.size() % tmpNumberOfTasks;
-        int tmpFromIndex = 0; //low endpoint (inclusive) of the subList
-        int tmpToIndex = tmpMoleculesPerTask; //high endpoint (exclusive) of the subList
-        if(tmpMoleculeModulo > 0){
-            tmpToIndex++;
-            tmpMoleculeModulo--;
-        }
-        this.executorService = Executors.newFixedThreadPool(tmpNumberOfTasks, tmpThreadFactory -> {
-            // note: the Callables used as threads here catch basically everything
-            // and wrap it in an ExecutionException; setting the UncaughtExceptionHandler
-            // anyway just to be sure
-            Thread tmpThread = new Thread(tmpThreadFactory);
-            tmpThread.setUncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler());
-            return tmpThread;
-        });
-        /* Explicit version that can be used to override methods:
-        this.executorService =  new ThreadPoolExecutor(tmpNumberOfTasks, tmpNumberOfTasks, 0L,
-                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>()) {
-            @Override
-            protected void afterExecute(Runnable r, Throwable t) {
-                super.afterExecute(r, t);
+        int tmpBatchSize;
+        if (this.settingsContainer.getDynamicFragmentationSchedulingSetting()) {
+            tmpBatchSize = this.settingsContainer.getFragmentationBatchSizeSetting();
+        } else {
+            //one static slice per task, the last slice may be smaller
+            tmpBatchSize = (aListOfMolecules.size() + tmpNumberOfTasks - 1) / tmpNumberOfTasks;
+        }
+        //all tasks share this cursor and take batches of molecules from it until all molecules are processed
+        MoleculeBatchCursor tmpMoleculeBatchCursor = new MoleculeBatchCursor(aListOfMolecules, tmpBatchSize);
+        //with a single task, there is no contention on the shared map to avoid
+        boolean tmpIsTaskLocalAggregation = this.settingsContainer.getTaskLocalFragmentAggregationSetting() && tmpNumberOfTasks > 1;
+        if (this.isAborted) {
+            return null;
+        }
+        ThreadPoolExecutor tmpExecutorService = this.getExecutorService(tmpNumberOfTasks);
+        //shared by all tasks, so that every structure is fragmented only once
+        FragmentationMemo tmpFragmentationMemo = null;
+        boolean tmpIsDiskCacheUsed = this.settingsContainer.getPersistentFragmentationCacheSetting();
+        String tmpSettingsKey = FragmentationMemo.createSettingsKey(aFragmenterPipeline, isStereoChemistryRegarded);
+        if (tmpIsDiskCacheUsed) {
+            //all results are stored on disk afterwards
+            tmpFragmentationMemo = new FragmentationMemo(tmpSettingsKey);
+        } else if (this.settingsContainer.getFragmentationMemoizationSetting()) {
+            //the results of structures occurring only once would never be reused but kept for the whole fragmentation
+            Set<String> tmpRepeatedSmilesSet = FragmentationMemo.findRepeatedSmiles(aListOfMolecules);
+            if (!tmpRepeatedSmilesSet.isEmpty()) {
+                tmpFragmentationMemo = new FragmentationMemo(tmpSettingsKey, tmpRepeatedSmilesSet);
+            }
+        }
+        //the results cached on disk are loaded into the memo, so the tasks reuse them like the ones of this fragmentation
+        Set<String> tmpDiskCachedSmilesSet = new HashSet<>(0);
+        if (tmpIsDiskCacheUsed) {
+            long tmpLoadStartTime = System.currentTimeMillis();
+            try {
+                Set<String> tmpSmilesSet = new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(aListOfMolecules.size()));
+                for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+                    tmpSmilesSet.add(tmpMolecule.getUniqueSmiles());
+                }
+                Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpCachedResults = this.getFragmentationDiskCache().load(tmpFragmentationMemo.getSettingsKey(), tmpSmilesSet);
+                tmpFragmentationMemo.putAll(tmpCachedResults);
+                tmpDiskCachedSmilesSet = tmpCachedResults.keySet();
+                FragmentationService.LOGGER.log(Level.INFO, "Loaded the cached fragmentation results of {0} structures in {1} ms.",
+                        new Object[]{tmpCachedResults.size(), System.currentTimeMillis() - tmpLoadStartTime});
+            } catch (IOException | SecurityException anException) {
+                FragmentationService.LOGGER.log(Level.WARNING, "Fragmentation cache could not be loaded: " + anException.toString(), anException);
             }
-        }; */
+        }
+        //shared by all tasks, throttles them when the heap fills up instead of letting the fragmentation run out of memory
+        FragmentationMemoryGovernor tmpMemoryGovernor = null;
+        if (this.settingsContainer.getMemoryGovernorSetting() && tmpNumberOfTasks > 1) {
+            tmpMemoryGovernor = new FragmentationMemoryGovernor(tmpNumberOfTasks,
+                    this.settingsContainer.getMemoryGovernorHighThresholdSetting(),
+                    this.settingsContainer.getMemoryGovernorCriticalThresholdSetting());
+        }
         List<FragmentationTask> tmpFragmentationTaskList = new LinkedList<>();
+        //configured fragmenter instances are reused across fragmentations until their settings change
+        List<IMoleculeFragmenter[]> tmpBorrowedFragmentersList = new ArrayList<>(tmpNumberOfTasks);
+        int tmpNumberOfCreatedFragmenters = this.fragmenterPool.getNumberOfCreatedInstances();
         for (int i = 1; i <= tmpNumberOfTasks; i++) {
-            List<MoleculeDataModel> tmpMoleculesForTask = aListOfMolecules.subList(tmpFromIndex, tmpToIndex);
-            IMoleculeFragmenter tmpFragmenterForTask = aFragmenter.copy();
-            tmpFragmentationTaskList.add(new FragmentationTask(tmpMoleculesForTask, tmpFragmenterForTask, tmpFragmentMap, aFragmentationName, isStereoChemistryRegarded));
-            tmpFromIndex = tmpToIndex;
-            tmpToIndex = tmpFromIndex + tmpMoleculesPerTask;
-            if(tmpMoleculeModulo > 0){
-                tmpToIndex++;
-                tmpMoleculeModulo--;
+            IMoleculeFragmenter[] tmpFragmentersForTask = new IMoleculeFragmenter[aFragmenterPipeline.length];
+            for (int j = 0; j < aFragmenterPipeline.length; j++) {
+                tmpFragmentersForTask[j] = this.fragmenterPool.borrow(aFragmenterPipeline[j]);
+            }
+            tmpBorrowedFragmentersList.add(tmpFragmentersForTask);
+            IMoleculeFragmenter tmpFragmenterForTask = tmpFragmentersForTask[0];
+            if (tmpIsTaskLocalAggregation) {
+                //one key shard per task for the final parallel merge
+                tmpFragmentationTaskList.add(new FragmentationTask(tmpMoleculeBatchCursor, tmpFragmenterForTask, aFragmentDictionary, aFragmentationName, isStereoChemistryRegarded, tmpNumberOfTasks));
+            } else {
+                tmpFragmentationTaskList.add(new FragmentationTask(tmpMoleculeBatchCursor, tmpFragmenterForTask, tmpFragmentMap, aFragmentDictionary, aFragmentationName, isStereoChemistryRegarded));
             }
-            if (i == tmpNumberOfTasks - 1 ) {
-                tmpToIndex = aListOfMolecules.size();
+            if (this.settingsContainer.getHashFirstFragmentDeduplicationSetting()) {
+                tmpFragmentationTaskList.getLast().setFragmentSmilesCache(new FragmentSmilesCache(isStereoChemistryRegarded));
+            }
+            tmpFragmentationTaskList.getLast().setFragmentationMemo(tmpFragmentationMemo);
+            tmpFragmentationTaskList.getLast().setMemoryGovernor(tmpMemoryGovernor);
+            if (this.settingsContainer.getFragmentationTimeBudgetSetting() > 0) {
+                //the time budget applies to single molecules, so they are passed to the fragmenter one by one
+                tmpFragmentationTaskList.getLast().setFragmenterBatchSize(1);
+            }
+            if (aFragmenterPipeline.length > 1) {
+                tmpFragmentationTaskList.getLast().setFurtherPipelineFragmenters(Arrays.copyOfRange(tmpFragmentersForTask, 1, tmpFragmentersForTask.length));
             }
         }
+        FragmentationService.LOGGER.log(Level.INFO, "Created {0} new fragmenter instances for {1} tasks, the others were reused.",
+                new Object[]{this.fragmenterPool.getNumberOfCreatedInstances() - tmpNumberOfCreatedFragmenters, tmpNumberOfTasks});
         List<Future<Integer>> tmpFuturesList;
         long tmpMemoryConsumption = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024*1024);
-        FragmentationService.LOGGER.log(Level.INFO, "Fragmentation \"{0}\" ({1}) starting. Current memory consumption: {2} MB",
-                new Object[]{aFragmentationName, aFragmenter.getFragmentationAlgorithmDisplayName(), tmpMemoryConsumption});
+        FragmentationService.LOGGER.log(Level.INFO, "Fragmentation \"{0}\" ({1}) starting with {2} tasks and batches of {3} molecules. Current memory consumption: {4} MB",
+                new Object[]{aFragmentationName, tmpAlgorithmDisplayName, tmpNumberOfTasks, tmpBatchSize, tmpMemoryConsumption});
         long tmpStartTime = System.currentTimeMillis();
         int tmpExceptionsCounter = 0;
-        tmpFuturesList = this.executorService.invokeAll(tmpFragmentationTaskList);
-        if (this.executorService.isShutdown() || this.executorService.isTerminated()) {
+        //samples the counters of the tasks, which only write them, on its own thread
+        FragmentationProgressReporter tmpProgressReporter = new FragmentationProgressReporter(tmpFragmentationTaskList,
+                aListOfMolecules.size(), aFragmentationName,
+                aMessage -> Platform.runLater(() -> this.fragmentationProgressMessageProperty.set(aMessage)));
+        //one watchdog for all tasks enforces the time budget for single molecules
+        FragmentationWatchdog tmpWatchdog = null;
+        if (this.settingsContainer.getFragmentationTimeBudgetSetting() > 0) {
+            tmpWatchdog = new FragmentationWatchdog(tmpFragmentationTaskList, this.settingsContainer.getFragmentationTimeBudgetSetting() * 1000L);
+            tmpWatchdog.start();
+        }
+        if (tmpMemoryGovernor != null) {
+            tmpMemoryGovernor.start();
+        }
+        tmpProgressReporter.start();
+        try {
+            tmpFuturesList = tmpExecutorService.invokeAll(tmpFragmentationTaskList);
+        } finally {
+            tmpProgressReporter.stop();
+            if (tmpMemoryGovernor != null) {
+                tmpMemoryGovernor.stop();
+            }
+            //cancelled tasks may still use their fragmenters, so these are discarded instead of being handed out again
+            for (IMoleculeFragmenter[] tmpFragmentersForTask : tmpBorrowedFragmentersList) {
+                for (int j = 0; j < aFragmenterPipeline.length; j++) {
+                    if (this.isAborted) {
+                        this.fragmenterPool.discard(aFragmenterPipeline[j], tmpFragmentersForTask[j]);
+                    } else {
+                        this.fragmenterPool.giveBack(aFragmenterPipeline[j], tmpFragmentersForTask[j]);
+                    }
+                }
+            }
+            if (tmpWatchdog != null) {
+                tmpWatchdog.stop();
+            }
+        }
+        if (this.isAborted || tmpExecutorService.isShutdown()) {
+            //the fragments of the dictionary are never set, so the partial results could not be resolved
+            FragmentationService.removeFragmentationResults(aListOfMolecules, aFragmentationName);
             FragmentationService.LOGGER.log(Level.INFO, "Fragmentation cancelled");
             return null;
         }
@@ -1087,33 +1365,254 @@ public class FragmentationService {
                 });
             }
         }
-        int tmpFragmentAmount = 0;
-        Set<String> tmpKeySet = tmpFragmentMap.keySet();
-        for(String tmpKey : tmpKeySet){
-            tmpFragmentAmount += tmpFragmentMap.get(tmpKey).getAbsoluteFrequency();
+        this.reportTimedOutMolecules(tmpFragmentationTaskList, aFragmentationName);
+        if (tmpIsTaskLocalAggregation) {
+            long tmpMergeStartTime = System.currentTimeMillis();
+            FragmentationTask.mergePartialFragmentMaps(tmpFragmentationTaskList, tmpFragmentMap, tmpExecutorService);
+            FragmentationService.LOGGER.log(Level.INFO, "Merging the partial fragment maps of {0} tasks took {1} ms.",
+                    new Object[]{tmpNumberOfTasks, System.currentTimeMillis() - tmpMergeStartTime});
         }
-        if (tmpFragmentAmount != 0) {
-            for(String tmpKey : tmpKeySet){
-                tmpFragmentMap.get(tmpKey).setAbsolutePercentage(1.0 * tmpFragmentMap.get(tmpKey).getAbsoluteFrequency() / tmpFragmentAmount);
-                tmpFragmentMap.get(tmpKey).setMoleculePercentage(1.0 * tmpFragmentMap.get(tmpKey).getMoleculeFrequency() / aListOfMolecules.size());
+        //the molecules store their fragments as IDs of the dictionary, resolved from here on
+        aFragmentDictionary.setFragments(tmpFragmentMap);
+        if (this.settingsContainer.getHashFirstFragmentDeduplicationSetting()) {
+            int tmpNumberOfLookups = 0;
+            int tmpNumberOfHits = 0;
+            int tmpNumberOfCollisions = 0;
+            for (FragmentationTask tmpTask : tmpFragmentationTaskList) {
+                tmpNumberOfLookups += tmpTask.getFragmentSmilesCache().getNumberOfLookups();
+                tmpNumberOfHits += tmpTask.getFragmentSmilesCache().getNumberOfHits();
+                tmpNumberOfCollisions += tmpTask.getFragmentSmilesCache().getNumberOfCollisions();
             }
-        } else {
-            FragmentationService.LOGGER.log(Level.WARNING, "Sum of absolute frequencies of fragments was 0! Percentages could not be calculated.");
+            FragmentationService.LOGGER.log(Level.INFO, "Hash-first deduplication found {0} of {1} fragment SMILES codes in the caches, {2} fragments collided with the cached fragment of their hash.",
+                    new Object[]{tmpNumberOfHits, tmpNumberOfLookups, tmpNumberOfCollisions});
+        }
+        if (tmpFragmentationMemo != null) {
+            FragmentationService.LOGGER.log(Level.INFO, "Fragmentation memo hits: {0} of {1} molecules reused the result of an already fragmented structure, {2} structures were memoized.",
+                    new Object[]{tmpFragmentationMemo.getNumberOfHits(), aListOfMolecules.size(), tmpFragmentationMemo.size()});
         }
+        if (tmpIsDiskCacheUsed) {
+            int tmpNumberOfDiskCacheHits = 0;
+            for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+                if (tmpDiskCachedSmilesSet.contains(tmpMolecule.getUniqueSmiles())) {
+                    tmpNumberOfDiskCacheHits++;
+                }
+            }
+            long tmpStoreStartTime = System.currentTimeMillis();
+            try {
+                FragmentationDiskCache tmpDiskCache = this.getFragmentationDiskCache();
+                tmpDiskCache.recordLookups(tmpNumberOfDiskCacheHits, aListOfMolecules.size() - tmpNumberOfDiskCacheHits);
+                if (tmpNumberOfDiskCacheHits == aListOfMolecules.size()) {
+                    //nothing new to store, the file is not rewritten only to reorder its results
+                    tmpDiskCache.markAsUsed(tmpFragmentationMemo.getSettingsKey());
+                } else {
+                    //the molecules at the end of the list were used most recently
+                    Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpMemoizedResults = tmpFragmentationMemo.getResults();
+                    Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpResultsByAccessOrder = new LinkedHashMap<>(
+                            CollectionUtil.calculateInitialHashCollectionCapacity(tmpMemoizedResults.size()));
+                    for (MoleculeDataModel tmpMolecule : aListOfMolecules.reversed()) {
+                        List<FragmentationMemo.FragmentOccurrence> tmpResult = tmpMemoizedResults.get(tmpMolecule.getUniqueSmiles());
+                        if (tmpResult != null) {
+                            tmpResultsByAccessOrder.putIfAbsent(tmpMolecule.getUniqueSmiles(), tmpResult);
+                        }
+                    }
+                    tmpDiskCache.store(tmpFragmentationMemo.getSettingsKey(), tmpResultsByAccessOrder,
+                            this.settingsContainer.getFragmentationCacheSizeLimitSetting() * 1024L * 1024L);
+                }
+                FragmentationService.LOGGER.log(Level.INFO, "Fragmentation cache hits: {0} of {1} molecules; stored the results in {2} ms. Session statistics: {3} hits, {4} misses.",
+                        new Object[]{tmpNumberOfDiskCacheHits, aListOfMolecules.size(), System.currentTimeMillis() - tmpStoreStartTime,
+                                tmpDiskCache.getNumberOfHits(), tmpDiskCache.getNumberOfMisses()});
+            } catch (IOException | SecurityException anException) {
+                FragmentationService.LOGGER.log(Level.WARNING, "Fragmentation cache could not be stored: " + anException.toString(), anException);
+            }
+        }
+        FragmentationService.calculatePercentages(tmpFragmentMap, aListOfMolecules.size());
         if (tmpExceptionsCounter > 0) {
             FragmentationService.LOGGER.log(Level.WARNING, "Fragmentation \"{0}\" ({1}) caused {2} exceptions",
-                    new Object[]{aFragmentationName, aFragmenter.getFragmentationAlgorithmDisplayName(), tmpExceptionsCounter});
+                    new Object[]{aFragmentationName, tmpAlgorithmDisplayName, tmpExceptionsCounter});
         }
-        this.executorService.shutdown();
         tmpMemoryConsumption = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / (1024*1024);
         long tmpEndTime = System.currentTimeMillis();
         long tmpDuration = tmpEndTime - tmpStartTime;
         FragmentationService.LOGGER.log(Level.INFO,
                 "Fragmentation \"{0}\" ({1}) of {2} molecules complete. It took {3} ms. Current memory consumption: {4} MB",
-                new Object[]{aFragmentationName, aFragmenter.getFragmentationAlgorithmDisplayName(), aListOfMolecules.size(), tmpDuration, tmpMemoryConsumption});
+                new Object[]{aFragmentationName, tmpAlgorithmDisplayName, aListOfMolecules.size(), tmpDuration, tmpMemoryConsumption});
         return tmpFragmentMap;
     }
     //
+    /**
+     * Calculates the absolute and molecule percentages of the given fragments from their frequencies.
+     *
+     * @param aFragmentsMap fragments of a fragmentation
+     * @param aNumberOfMolecules number of molecules that underwent the fragmentation
+     */
+    private static void calculatePercentages(Map<String, FragmentDataModel> aFragmentsMap, int aNumberOfMolecules) {
+        int tmpFragmentAmount = 0;
+        for (FragmentDataModel tmpFragment : aFragmentsMap.values()) {
+            tmpFragmentAmount += tmpFragment.getAbsoluteFrequency();
+        }
+        if (tmpFragmentAmount != 0) {
+            for (FragmentDataModel tmpFragment : aFragmentsMap.values()) {
+                tmpFragment.setAbsolutePercentage(1.0 * tmpFragment.getAbsoluteFrequency() / tmpFragmentAmount);
+                tmpFragment.setMoleculePercentage(1.0 * tmpFragment.getMoleculeFrequency() / aNumberOfMolecules);
+            }
+        } else {
+            FragmentationService.LOGGER.log(Level.WARNING, "Sum of absolute frequencies of fragments was 0! Percentages could not be calculated.");
+        }
+    }
+    //
+    /**
+     * Removes the fragments and fragment frequencies of the given fragmentation from the given molecules, used to
+     * discard the partial results of an aborted fragmentation.
+     *
+     * @param aListOfMolecules molecules of the aborted fragmentation
+     * @param aFragmentationName name of the aborted fragmentation
+     */
+    private static void removeFragmentationResults(List<MoleculeDataModel> aListOfMolecules, String aFragmentationName) {
+        for (MoleculeDataModel tmpMolecule : aListOfMolecules) {
+            if (tmpMolecule.getAllFragments() != null) {
+                tmpMolecule.getAllFragments().remove(aFragmentationName);
+            }
+            if (tmpMolecule.getFragmentFrequencies() != null) {
+                tmpMolecule.getFragmentFrequencies().remove(aFragmentationName);
+            }
+        }
+    }
+    //
+    /**
+     * Logs the molecules that were abandoned by the given finished tasks because their fragmentation exceeded the time
+     * budget and lists them to the user in an alert.
+     *
+     * @param aTaskList finished fragmentation tasks
+     * @param aFragmentationName name of the fragmentation
+     */
+    private void reportTimedOutMolecules(List<FragmentationTask> aTaskList, String aFragmentationName) {
+        List<String> tmpTimedOutMoleculeNames = new ArrayList<>(0);
+        for (FragmentationTask tmpTask : aTaskList) {
+            for (MoleculeDataModel tmpMolecule : tmpTask.getTimedOutMolecules()) {
+                tmpTimedOutMoleculeNames.add(tmpMolecule.getName());
+            }
+        }
+        if (tmpTimedOutMoleculeNames.isEmpty()) {
+            return;
+        }
+        String tmpReport = String.join(System.lineSeparator(), tmpTimedOutMoleculeNames);
+        FragmentationService.LOGGER.log(Level.WARNING, "Fragmentation \"{0}\": {1} molecules exceeded the time budget and were abandoned:{2}{3}",
+                new Object[]{aFragmentationName, tmpTimedOutMoleculeNames.size(), System.lineSeparator(), tmpReport});
+        Platform.runLater(() -> GuiUtil.guiExpandableAlert(Message.get("FragmentationService.TimedOutMolecules.Title"),
+                Message.get("FragmentationService.TimedOutMolecules.Header"),
+                String.format(Message.get("FragmentationService.TimedOutMolecules.Content"), tmpTimedOutMoleculeNames.size(), aFragmentationName),
+                Message.get("FragmentationService.TimedOutMolecules.Label"),
+                tmpReport));
+    }
+    //
+    /**
+     * Removes all parent molecules that are not among the given input molecules of a pipeline fragmentation, i.e. the
+     * intermediate fragments of earlier stages, from the final fragments and calculates their percentages. The input
+     * molecules are looked up in a hash set and the fragments are processed in parallel chunks, one per task.
+     *
+     * @param aListOfMolecules input molecules of the pipeline fragmentation
+     * @param aNumberOfTasks number of parallel tasks to use
+     * @throws InterruptedException if interrupted while waiting for the parallel tasks
+     * @throws ExecutionException if a parallel task threw an exception
+     */
+    private void consolidatePipelineFragments(List<MoleculeDataModel> aListOfMolecules, int aNumberOfTasks)
+            throws InterruptedException, ExecutionException {
+        //MoleculeDataModel does not override equals(), so the set finds the same instances as List.contains() did
+        Set<MoleculeDataModel> tmpInputMoleculeSet = new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(aListOfMolecules.size()));
+        tmpInputMoleculeSet.addAll(aListOfMolecules);
+        List<FragmentDataModel> tmpFragmentList = new ArrayList<>(this.fragments.values());
+        int tmpChunkSize = Math.max(1, (tmpFragmentList.size() + aNumberOfTasks - 1) / aNumberOfTasks);
+        List<Callable<Void>> tmpConsolidationTaskList = new ArrayList<>(aNumberOfTasks);
+        for (int tmpFromIndex = 0; tmpFromIndex < tmpFragmentList.size(); tmpFromIndex += tmpChunkSize) {
+            List<FragmentDataModel> tmpChunk = tmpFragmentList.subList(tmpFromIndex, Math.min(tmpFromIndex + tmpChunkSize, tmpFragmentList.size()));
+            tmpConsolidationTaskList.add(() -> {
+                //every fragment is in exactly one chunk, so no other task touches its parent molecules
+                for (FragmentDataModel tmpFragment : tmpChunk) {
+                    tmpFragment.getParentMolecules().removeIf(aMolecule -> !tmpInputMoleculeSet.contains(aMolecule));
+                }
+                return null;
+            });
+        }
+        for (Future<Void> tmpFuture : this.getExecutorService(aNumberOfTasks).invokeAll(tmpConsolidationTaskList)) {
+            tmpFuture.get();
+        }
+        FragmentationService.calculatePercentages(this.fragments, aListOfMolecules.size());
+    }
+    //
+    /**
+     * Merges the given new fragments into the given existing fragments. Fragments that do not exist yet are added as
+     * they are, existing ones get the frequencies and parent molecules of the new ones added. Only the fragments
+     * contained in the new map are touched.
+     *
+     * @param aNewFragmentsMap fragments of the appended molecules
+     * @param aFragmentsMap existing fragments of the fragmentation, updated in place
+     * @return number of added or updated fragments
+     */
+    private static int mergeFragments(Map<String, FragmentDataModel> aNewFragmentsMap, Map<String, FragmentDataModel> aFragmentsMap) {
+        for (Map.Entry<String, FragmentDataModel> tmpEntry : aNewFragmentsMap.entrySet()) {
+            FragmentDataModel tmpNewFragment = tmpEntry.getValue();
+            FragmentDataModel tmpFragment = aFragmentsMap.putIfAbsent(tmpEntry.getKey(), tmpNewFragment);
+            if (tmpFragment != null) {
+                tmpFragment.setAbsoluteFrequency(tmpFragment.getAbsoluteFrequency() + tmpNewFragment.getAbsoluteFrequency());
+                tmpFragment.setMoleculeFrequency(tmpFragment.getMoleculeFrequency() + tmpNewFragment.getMoleculeFrequency());
+                tmpFragment.getParentMolecules().addAll(tmpNewFragment.getParentMolecules());
+            }
+        }
+        return aNewFragmentsMap.size();
+    }
+    //
+    /**
+     * Returns the executor for the fragmentation tasks with at least the given number of threads. If there is no executor
+     * yet or the last one was aborted, a new one is created. The pool threads are terminated after they have been idle
+     * for {@link #EXECUTOR_KEEP_ALIVE_TIME_SECONDS} seconds and re-created on demand.
+     *
+     * @param aMinimumPoolSize number of tasks that should be able to run in parallel
+     * @return executor for the fragmentation tasks
+     */
+    synchronized ThreadPoolExecutor getExecutorService(int aMinimumPoolSize) {
+        int tmpPoolSize = Math.max(aMinimumPoolSize, this.settingsContainer.getNumberOfTasksForFragmentationSetting());
+        if (Objects.isNull(this.executorService) || this.executorService.isShutdown()) {
+            AtomicInteger tmpThreadCounter = new AtomicInteger(0);
+            this.executorService = new ThreadPoolExecutor(tmpPoolSize, tmpPoolSize,
+                    FragmentationService.EXECUTOR_KEEP_ALIVE_TIME_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), aRunnable -> {
+                // note: the Callables used as threads here catch basically everything
+                // and wrap it in an ExecutionException; setting the UncaughtExceptionHandler
+                // anyway just to be sure
+                Thread tmpThread = new Thread(aRunnable, FragmentationService.EXECUTOR_THREAD_NAME_PREFIX + tmpThreadCounter.incrementAndGet());
+                tmpThread.setUncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler());
+                //idle workers must not keep the application alive
+                tmpThread.setDaemon(true);
+                return tmpThread;
+            });
+            this.executorService.allowCoreThreadTimeOut(true);
+        } else if (this.executorService.getMaximumPoolSize() < tmpPoolSize) {
+            this.resizeExecutorService(tmpPoolSize);
+        }
+        return this.executorService;
+    }
+    //
+    /**
+     * Sets the number of threads of the executor for the fragmentation tasks, if there is one. Tasks that were already
+     * submitted are not affected but may have to wait in the queue if the pool shrinks.
+     *
+     * @param aPoolSize new number of threads
+     */
+    private synchronized void resizeExecutorService(int aPoolSize) {
+        if (Objects.isNull(this.executorService) || this.executorService.isShutdown() || aPoolSize <= 0) {
+            return;
+        }
+        //the core pool size must never exceed the maximum pool size, so the order of the two calls matters
+        if (aPoolSize > this.executorService.getMaximumPoolSize()) {
+            this.executorService.setMaximumPoolSize(aPoolSize);
+            this.executorService.setCorePoolSize(aPoolSize);
+        } else {
+            this.executorService.setCorePoolSize(aPoolSize);
+            this.executorService.setMaximumPoolSize(aPoolSize);
+        }
+        FragmentationService.LOGGER.log(Level.INFO, "Fragmentation executor resized to {0} threads.", aPoolSize);
+    }
+    //
     /**
      * Checks the available fragmenters and their settings for restrictions imposed by persistence. Throws an exception if
      * anything does not meet the requirements.
@@ -1157,4 +1656,22 @@ public class FragmentationService {
         }
     }
     //</editor-fold>
+    //
+    //<editor-fold desc="private records" defaultstate="collapsed">
+    /**
+     * Everything needed to append further molecules to a finished single fragmentation.
+     *
+     * @param fragmentsMap fragments of the fragmentation, keys are unique SMILES codes
+     * @param fragmentDictionary dictionary the fragment IDs stored on the fragmented molecules refer to
+     * @param fragmenter copy of the fragmenter with the settings the fragmentation was run with
+     * @param isStereoChemistryRegarded whether stereochemistry was encoded in the fragment SMILES codes
+     * @param numberOfMolecules number of molecules that underwent the fragmentation
+     */
+    private record AppendableFragmentation(Map<String, FragmentDataModel> fragmentsMap,
+                                           FragmentDictionary fragmentDictionary,
+                                           IMoleculeFragmenter fragmenter,
+                                           boolean isStereoChemistryRegarded,
+                                           int numberOfMolecules) {
+    }
+    //</editor-fold>
 }
@@ -26,6 +26,9 @@
 package de.unijena.cheminf.mortar.model.fragmentation;
 
 import de.unijena.cheminf.mortar.model.data.FragmentDataModel;
+import de.unijena.cheminf.mortar.model.data.FragmentDictionary;
+import de.unijena.cheminf.mortar.model.data.FragmentFrequencyMap;
+import de.unijena.cheminf.mortar.model.data.FragmentIdList;
 import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
 import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
 import de.unijena.cheminf.mortar.model.util.ChemUtil;
@@ -35,10 +38,18 @@ import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,6 +62,14 @@ import java.util.logging.Logger;
  * @version 1.0.0.0
  */
 public class FragmentationTask implements Callable<Integer> {
+    //<editor-fold desc="public static final class constants" defaultstate="collapsed">
+    /**
+     * Default number of molecules passed to the fragmenter at once. Small enough for the progress counters and the
+     * memory governor to be updated frequently.
+     */
+    public static final int DEFAULT_FRAGMENTER_BATCH_SIZE = 32;
+    //</editor-fold>
+    //
     //<editor-fold desc="private static final class constants" defaultstate="collapsed">
     /**
      * Lock to be used when updating the shared fragmentsHashTable. Needs to be static to be shared between all task
@@ -65,17 +84,28 @@ public class FragmentationTask implements Callable<Integer> {
     //
     //<editor-fold desc="private class variables" defaultstate="collapsed>
     /**
-     * List of molecules to fragment.
+     * Cursor handing out the batches of molecules to fragment, possibly shared with other tasks.
      */
-    private final List<MoleculeDataModel> moleculesList;
+    private final MoleculeBatchCursor moleculeBatchCursor;
     /**
      * Fragmenter instance to use.
      */
     private final IMoleculeFragmenter fragmenter;
     /**
-     * Map to hold fragments, should be synchronised, e.g. by using HashTable. Keys are unique SMILES codes.
+     * Map to hold fragments, should be synchronised, e.g. by using HashTable. Keys are unique SMILES codes. Null if the
+     * fragments are aggregated in the partial fragment maps of this task.
      */
     private final Map<String, FragmentDataModel> fragmentsHashTable;
+    /**
+     * Task-local fragment maps, one per key shard, only accessed by the thread running this task. Keys are unique SMILES
+     * codes. Null if the fragments are aggregated in the shared fragments map.
+     */
+    private final List<Map<String, FragmentDataModel>> partialFragmentMaps;
+    /**
+     * Dictionary assigning the fragments of this fragmentation int IDs, used to store the fragments and fragment
+     * frequencies of the molecules compactly; null if they should be stored in ordinary lists and maps.
+     */
+    private final FragmentDictionary fragmentDictionary;
     /**
      * Name of fragmentation.
      */
@@ -85,13 +115,68 @@ public class FragmentationTask implements Callable<Integer> {
      */
     private final boolean isStereochemistryRegarded;
     /**
-     * Integer to count possible exceptions which could occur during fragmentation.
+     * Integer to count possible exceptions which could occur during fragmentation. Only written by the thread running
+     * this task but volatile so that the progress can be sampled from other threads.
+     */
+    private volatile int exceptionsCounter;
+    /**
+     * Number of molecules this task has processed so far, whether successfully or not. Only written by the thread
+     * running this task but volatile so that the progress can be sampled from other threads.
+     */
+    private volatile int processedMoleculesCounter;
+    /**
+     * Number of fragment occurrences this task has produced so far. Only written by the thread running this task but
+     * volatile so that the progress can be sampled from other threads.
+     */
+    private volatile long producedFragmentsCounter;
+    /**
+     * Cache to look up the unique SMILES codes of already seen fragments by their structure hash; null if the unique
+     * SMILES code of every fragment should be generated.
+     */
+    private FragmentSmilesCache fragmentSmilesCache;
+    /**
+     * Memo of the fragmentation results of already fragmented structures, may be shared with the other tasks of the
+     * fragmentation; null if every molecule should be fragmented.
      */
-    private int exceptionsCounter;
+    private FragmentationMemo fragmentationMemo;
+    /**
+     * Fragmenters that fragment the fragments of the fragmenter of this task further, one after another, before only
+     * the final fragments are aggregated; null if the fragments of the fragmenter of this task are the final ones.
+     */
+    private IMoleculeFragmenter[] furtherPipelineFragmenters;
+    /**
+     * Molecule this task is currently fragmenting; null if it is idle. Only written by the thread running this task.
+     */
+    private volatile MoleculeDataModel currentMolecule;
+    /**
+     * Start time of the fragmentation of the current molecule as given by {@link System#nanoTime()}. Only written by
+     * the thread running this task.
+     */
+    private volatile long currentMoleculeStartTime;
+    /**
+     * Molecule whose fragmentation exceeded the time budget, set by the watchdog of the fragmentation; the current
+     * molecule is abandoned at the next checkpoint if it is this one. A fragmenter call in flight is not interrupted,
+     * the next checkpoint is after it returns.
+     */
+    private volatile MoleculeDataModel timedOutMolecule;
+    /**
+     * Molecules that were abandoned because their fragmentation exceeded the time budget. Only accessed by the thread
+     * running this task until it is done.
+     */
+    private final List<MoleculeDataModel> timedOutMoleculesList = new ArrayList<>(0);
+    /**
+     * Governor adapting the number of molecules fragmented in parallel to the heap usage, shared with the other tasks
+     * of the fragmentation; null if the molecules should not be throttled.
+     */
+    private FragmentationMemoryGovernor memoryGovernor;
+    /**
+     * Number of molecules passed to the fragmenter at once.
+     */
+    private int fragmenterBatchSize = FragmentationTask.DEFAULT_FRAGMENTER_BATCH_SIZE;
     //</editor-fold>
     //
     /**
-     * Instantiates the thread.
+     * Instantiates the thread. The task fragments all molecules in the given list.
      *
      * @param aListOfMolecules atom containers should meet the employed fragmentation algorithm's input specifications but
      *                         any occurring exception will be caught
@@ -106,105 +191,686 @@ public class FragmentationTask implements Callable<Integer> {
                              Map<String, FragmentDataModel> aHashtableOfFragments,
                              String aFragmentationName,
                              boolean isStereo) {
-        this.moleculesList = aListOfMolecules;
+        this(new MoleculeBatchCursor(aListOfMolecules, Math.max(1, aListOfMolecules.size())),
+                aFragmenter,
+                aHashtableOfFragments,
+                null,
+                aFragmentationName,
+                isStereo);
+    }
+    //
+    /**
+     * Instantiates the thread. The task keeps taking batches of molecules from the given cursor until it is exhausted,
+     * so multiple tasks can share one cursor to balance the work between them.
+     *
+     * @param aMoleculeBatchCursor cursor handing out the molecules to fragment, may be shared with other tasks; atom
+     *                             containers should meet the employed fragmentation algorithm's input specifications but
+     *                             any occurring exception will be caught
+     * @param aFragmenter Fragmenter to use, must not be shared with other tasks
+     * @param aHashtableOfFragments Map to hold fragments, should be synchronised, e.g. by using a HashTable instance;
+     *                              keys are unique SMILES codes.
+     * @param aFragmentDictionary dictionary shared by all tasks of the fragmentation to store the fragments of the
+     *                            molecules compactly, its fragments have to be set from the fragments map after all
+     *                            tasks are done; may be null to store them in ordinary lists and maps
+     * @param aFragmentationName String
+     * @param isStereo Whether stereochemistry in the fragments should be regarded when creating their SMILES codes
+     */
+    public FragmentationTask(MoleculeBatchCursor aMoleculeBatchCursor,
+                             IMoleculeFragmenter aFragmenter,
+                             Map<String, FragmentDataModel> aHashtableOfFragments,
+                             FragmentDictionary aFragmentDictionary,
+                             String aFragmentationName,
+                             boolean isStereo) {
+        this.moleculeBatchCursor = aMoleculeBatchCursor;
         this.fragmenter = aFragmenter;
         this.fragmentsHashTable = aHashtableOfFragments;
+        this.partialFragmentMaps = null;
+        this.fragmentDictionary = aFragmentDictionary;
         this.fragmentationName = aFragmentationName;
         this.isStereochemistryRegarded = isStereo;
         this.exceptionsCounter = 0;
     }
     //
     /**
-     * Applies the IMoleculeFragmenter.fragment(IAtomContainer container) method on all given
-     * molecules and counts the occurring exceptions.
+     * Instantiates the thread in partial aggregation mode. Instead of updating one map shared with all other tasks, the
+     * task collects the fragments of its molecules in its own maps, split into the given number of key shards. These
+     * partial maps have to be merged after all tasks are done, see
+     * {@link #mergePartialFragmentMaps(List, Map, ExecutorService)}. The molecules refer to their fragments by their
+     * IDs in the given dictionary, so they refer to the merged fragments once the fragments of the dictionary are set
+     * from the merged map.
+     *
+     * @param aMoleculeBatchCursor cursor handing out the molecules to fragment, may be shared with other tasks; atom
+     *                             containers should meet the employed fragmentation algorithm's input specifications but
+     *                             any occurring exception will be caught
+     * @param aFragmenter Fragmenter to use, must not be shared with other tasks
+     * @param aFragmentDictionary dictionary shared by all tasks of the fragmentation to store the fragments of the
+     *                            molecules compactly
+     * @param aFragmentationName String
+     * @param isStereo Whether stereochemistry in the fragments should be regarded when creating their SMILES codes
+     * @param aNumberOfShards number of key shards to split the partial fragment maps into
+     * @throws NullPointerException if the dictionary is null
+     * @throws IllegalArgumentException if the number of shards is 0 or negative
+     */
+    public FragmentationTask(MoleculeBatchCursor aMoleculeBatchCursor,
+                             IMoleculeFragmenter aFragmenter,
+                             FragmentDictionary aFragmentDictionary,
+                             String aFragmentationName,
+                             boolean isStereo,
+                             int aNumberOfShards) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aFragmentDictionary, "aFragmentDictionary (instance of FragmentDictionary) is null.");
+        if (aNumberOfShards <= 0) {
+            throw new IllegalArgumentException("aNumberOfShards must be positive.");
+        }
+        this.moleculeBatchCursor = aMoleculeBatchCursor;
+        this.fragmenter = aFragmenter;
+        this.fragmentsHashTable = null;
+        this.partialFragmentMaps = new ArrayList<>(aNumberOfShards);
+        for (int i = 0; i < aNumberOfShards; i++) {
+            this.partialFragmentMaps.add(new HashMap<>());
+        }
+        this.fragmentDictionary = aFragmentDictionary;
+        this.fragmentationName = aFragmentationName;
+        this.isStereochemistryRegarded = isStereo;
+        this.exceptionsCounter = 0;
+    }
+    //
+    /**
+     * Sets the cache to look up the unique SMILES codes of already seen fragments by their structure hash instead of
+     * generating them again. Must be called before the task is started and the cache must not be shared with other
+     * tasks.
+     *
+     * @param aFragmentSmilesCache cache to use or null if the unique SMILES code of every fragment should be generated
+     * @throws IllegalArgumentException if the cache regards stereochemistry differently than this task
+     */
+    public void setFragmentSmilesCache(FragmentSmilesCache aFragmentSmilesCache) throws IllegalArgumentException {
+        if (aFragmentSmilesCache != null && aFragmentSmilesCache.isStereochemistryRegarded() != this.isStereochemistryRegarded) {
+            throw new IllegalArgumentException("The given cache regards stereochemistry differently than this task.");
+        }
+        this.fragmentSmilesCache = aFragmentSmilesCache;
+    }
+    //
+    /**
+     * Returns the cache to look up the unique SMILES codes of already seen fragments by their structure hash.
+     *
+     * @return cache or null if the unique SMILES code of every fragment is generated
+     */
+    public FragmentSmilesCache getFragmentSmilesCache() {
+        return this.fragmentSmilesCache;
+    }
+    //
+    /**
+     * Sets the memo of the fragmentation results of already fragmented structures, so that molecules with the unique
+     * SMILES code of an already fragmented molecule reuse its result. The memo may be shared with the other tasks of
+     * the same fragmentation. Must be called before the task is started.
+     *
+     * @param aFragmentationMemo memo to use or null if every molecule should be fragmented
+     */
+    public void setFragmentationMemo(FragmentationMemo aFragmentationMemo) {
+        this.fragmentationMemo = aFragmentationMemo;
+    }
+    //
+    /**
+     * Sets further fragmenters to run a fused pipeline fragmentation. Each molecule is first fragmented by the
+     * fragmenter of this task and its fragments are then passed through the given fragmenters one after another as atom
+     * containers, without generating SMILES codes for the intermediate fragments. Only the fragments of the last
+     * fragmenter are aggregated and assigned to the molecule. Must be called before the task is started and the
+     * fragmenters must not be shared with other tasks. A given fragmentation memo has to be bound to the whole
+     * pipeline then, see {@link FragmentationMemo#createSettingsKey(IMoleculeFragmenter[], boolean)}.
+     *
+     * @param aFragmenterArray fragmenters to apply after the fragmenter of this task, in this order; null or empty if
+     *                         the fragments of the fragmenter of this task are the final ones
+     */
+    public void setFurtherPipelineFragmenters(IMoleculeFragmenter[] aFragmenterArray) {
+        this.furtherPipelineFragmenters = aFragmenterArray == null || aFragmenterArray.length == 0 ? null : aFragmenterArray;
+    }
+    //
+    /**
+     * Sets the governor adapting the number of molecules fragmented in parallel to the heap usage. The task acquires a
+     * permit from it before every chunk of molecules it passes to the fragmenter, see
+     * {@link #setFragmenterBatchSize(int)}. The governor should be shared by all tasks of the fragmentation and must be
+     * set before the task is started.
+     *
+     * @param aMemoryGovernor governor to use or null if the molecules should not be throttled
+     */
+    public void setMemoryGovernor(FragmentationMemoryGovernor aMemoryGovernor) {
+        this.memoryGovernor = aMemoryGovernor;
+    }
+    //
+    /**
+     * Sets the number of molecules passed to the fragmenter at once via
+     * {@link IMoleculeFragmenter#fragmentMolecules(List)}. Must be 1 if the fragmentation has a time budget for single
+     * molecules, because the time of a batch is attributed to its last molecule otherwise. Must be called before the
+     * task is started.
+     *
+     * @param aFragmenterBatchSize number of molecules per fragmenter call
+     * @throws IllegalArgumentException if the batch size is 0 or negative
+     */
+    public void setFragmenterBatchSize(int aFragmenterBatchSize) throws IllegalArgumentException {
+        if (aFragmenterBatchSize <= 0) {
+            throw new IllegalArgumentException("aFragmenterBatchSize must be positive.");
+        }
+        this.fragmenterBatchSize = aFragmenterBatchSize;
+    }
+    //
+    /**
+     * Returns the index of the key shard the given fragment SMILES code belongs to. The same key is always assigned to
+     * the same shard, so the partial fragment maps of different tasks can be merged shard by shard independently.
+     *
+     * @param aKey unique SMILES code of a fragment
+     * @param aNumberOfShards number of key shards
+     * @return shard index between 0 (inclusive) and the number of shards (exclusive)
+     */
+    static int getShardIndex(String aKey, int aNumberOfShards) {
+        int tmpHash = aKey.hashCode();
+        //spreads the higher bits like HashMap does
+        return Math.floorMod(tmpHash ^ (tmpHash >>> 16), aNumberOfShards);
+    }
+    //
+    /**
+     * Applies the IMoleculeFragmenter.fragmentMolecules(List) method on all molecules handed out by the cursor, in
+     * chunks of the fragmenter batch size, and counts the occurring exceptions.
      *
      * @return the number of occurred exceptions
      * @throws Exception if unable to compute a result (copied from doc in Callable interface)
      */
     @Override
     public Integer call() throws Exception {
-        for (MoleculeDataModel tmpMolecule : this.moleculesList) {
-            try {
-                IAtomContainer tmpAtomContainer;
+        List<MoleculeDataModel> tmpBatch = this.moleculeBatchCursor.nextBatch();
+        while (!tmpBatch.isEmpty()) {
+            for (int i = 0; i < tmpBatch.size(); i += this.fragmenterBatchSize) {
+                List<MoleculeDataModel> tmpChunk = tmpBatch.subList(i, Math.min(i + this.fragmenterBatchSize, tmpBatch.size()));
+                if (this.memoryGovernor != null) {
+                    try {
+                        this.memoryGovernor.acquirePermit();
+                    } catch (InterruptedException anInterruptedException) {
+                        FragmentationTask.LOGGER.log(Level.INFO, "Thread interrupted");
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
                 try {
-                    tmpAtomContainer = tmpMolecule.getAtomContainer();
+                    this.fragmentChunk(tmpChunk);
+                } finally {
+                    if (this.memoryGovernor != null) {
+                        this.memoryGovernor.releasePermit();
+                    }
                 }
-                catch(CDKException anException) {
-                    this.exceptionsCounter++;
-                    Logger.getLogger(MoleculeDataModel.class.getName()).log(
-                            Level.SEVERE, String.format("%s Molecule name: %s", anException.toString(), tmpMolecule.getName()), anException);
-                    continue;
+                if (Thread.currentThread().isInterrupted()) {
+                    FragmentationTask.LOGGER.log(Level.INFO, "Thread interrupted");
+                    return null;
                 }
-                //returns true if the molecule cannot be fragmented, so it gets empty lists and maps for this fragmentation
-                if (this.fragmenter.shouldBeFiltered(tmpAtomContainer)) {
-                    tmpMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
-                    tmpMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
-                    continue;
+            }
+            tmpBatch = this.moleculeBatchCursor.nextBatch();
+        }
+        return this.exceptionsCounter;
+    }
+    //
+    /**
+     * Returns the number of molecules this task has processed so far. May be called from any thread while the task is
+     * running.
+     *
+     * @return number of processed molecules
+     */
+    public int getNumberOfProcessedMolecules() {
+        return this.processedMoleculesCounter;
+    }
+    //
+    /**
+     * Returns the number of fragment occurrences this task has produced so far. May be called from any thread while the
+     * task is running.
+     *
+     * @return number of produced fragment occurrences
+     */
+    public long getNumberOfProducedFragments() {
+        return this.producedFragmentsCounter;
+    }
+    //
+    /**
+     * Returns the number of exceptions that occurred in this task so far. May be called from any thread while the task
+     * is running.
+     *
+     * @return number of occurred exceptions
+     */
+    public int getNumberOfExceptions() {
+        return this.exceptionsCounter;
+    }
+    //
+    /**
+     * Returns the molecules that were abandoned because their fragmentation exceeded the time budget. Must only be
+     * called after the task is done.
+     *
+     * @return timed out molecules, empty if there were none
+     */
+    public List<MoleculeDataModel> getTimedOutMolecules() {
+        return this.timedOutMoleculesList;
+    }
+    //
+    /**
+     * Marks the current molecule as timed out if its fragmentation has been running for longer than the given time
+     * budget, so that it is abandoned at the next checkpoint. Called periodically by the watchdog of the fragmentation
+     * from its own thread.
+     *
+     * @param aCurrentTime current time as given by {@link System#nanoTime()}
+     * @param aTimeBudget time budget for the fragmentation of a single molecule in nanoseconds
+     * @return the current molecule if it was newly marked as timed out, null otherwise
+     */
+    MoleculeDataModel checkTimeBudget(long aCurrentTime, long aTimeBudget) {
+        //molecule first, the start time read afterwards is the one of this molecule or of a later one
+        MoleculeDataModel tmpMolecule = this.currentMolecule;
+        if (tmpMolecule == null || tmpMolecule == this.timedOutMolecule) {
+            return null;
+        }
+        if (aCurrentTime - this.currentMoleculeStartTime > aTimeBudget) {
+            this.timedOutMolecule = tmpMolecule;
+            return tmpMolecule;
+        }
+        return null;
+    }
+    //
+    /**
+     * Returns the partial fragment map of the given key shard. Must only be called after the task is done.
+     *
+     * @param aShardIndex index of the key shard
+     * @return partial fragment map of the shard, keys are unique SMILES codes
+     * @throws IllegalStateException if this task aggregates its fragments in a shared map
+     */
+    Map<String, FragmentDataModel> getPartialFragmentMap(int aShardIndex) throws IllegalStateException {
+        if (this.partialFragmentMaps == null) {
+            throw new IllegalStateException("This task does not aggregate its fragments in partial maps.");
+        }
+        return this.partialFragmentMaps.get(aShardIndex);
+    }
+    //
+    /**
+     * Merges the partial fragment maps of the given finished tasks into the given map in parallel on the given executor,
+     * with one sub-task per key shard. The first partial fragment found for a unique SMILES code becomes the merged one
+     * and the frequencies and parent molecules of all others are added to it. Afterwards, the fragments of the fragment
+     * dictionary of the tasks have to be set from the merged map.
+     *
+     * @param aTaskList finished fragmentation tasks in partial aggregation mode, all with the same number of shards
+     * @param aMergedFragmentsMap map to merge the partial fragment maps into, keys are unique SMILES codes
+     * @param anExecutorService executor to run the parallel merge on
+     * @throws InterruptedException if interrupted while waiting for the merge
+     * @throws ExecutionException if the merge threw an exception
+     */
+    static void mergePartialFragmentMaps(List<FragmentationTask> aTaskList,
+                                         Map<String, FragmentDataModel> aMergedFragmentsMap,
+                                         ExecutorService anExecutorService)
+            throws InterruptedException, ExecutionException {
+        if (aTaskList.isEmpty()) {
+            return;
+        }
+        int tmpNumberOfShards = aTaskList.getFirst().partialFragmentMaps.size();
+        List<Callable<Void>> tmpMergeTaskList = new ArrayList<>(tmpNumberOfShards);
+        for (int i = 0; i < tmpNumberOfShards; i++) {
+            int tmpShardIndex = i;
+            tmpMergeTaskList.add(() -> {
+                //keys of different shards are disjoint, so no other merge task touches the fragments of this shard
+                for (FragmentationTask tmpTask : aTaskList) {
+                    for (Map.Entry<String, FragmentDataModel> tmpEntry : tmpTask.getPartialFragmentMap(tmpShardIndex).entrySet()) {
+                        FragmentDataModel tmpPartialFragment = tmpEntry.getValue();
+                        FragmentDataModel tmpMergedFragment = aMergedFragmentsMap.putIfAbsent(tmpEntry.getKey(), tmpPartialFragment);
+                        if (tmpMergedFragment != null) {
+                            tmpMergedFragment.setAbsoluteFrequency(tmpMergedFragment.getAbsoluteFrequency() + tmpPartialFragment.getAbsoluteFrequency());
+                            tmpMergedFragment.setMoleculeFrequency(tmpMergedFragment.getMoleculeFrequency() + tmpPartialFragment.getMoleculeFrequency());
+                            tmpMergedFragment.getParentMolecules().addAll(tmpPartialFragment.getParentMolecules());
+                        }
+                    }
                 }
-                if (this.fragmenter.shouldBePreprocessed(tmpAtomContainer)) {
-                    tmpAtomContainer = this.fragmenter.applyPreprocessing(tmpAtomContainer);
+                return null;
+            });
+        }
+        for (Future<Void> tmpFuture : anExecutorService.invokeAll(tmpMergeTaskList)) {
+            tmpFuture.get();
+        }
+    }
+    //
+    /**
+     * Fragments the given chunk of molecules with the fragmenter of this task and adds the resulting fragments to the
+     * shared fragments map and to the molecules themselves. The molecules are prepared one after another, passed to the
+     * fragmenter in one batch via {@link IMoleculeFragmenter#fragmentMolecules(List, boolean)}, and their fragments
+     * are aggregated afterwards. Atom containers that are only parsed for the fragmentation are consumed in place
+     * instead of being cloned, unless one of the chunk is retained by its molecule. Molecules whose structure was
+     * already fragmented get the memoized result instead if a fragmentation memo is set. With a memo, only the first
+     * molecule of every structure in the chunk is passed to the fragmenter and the others get its memoized result
+     * afterwards; if it was not memoized, e.g. because it timed out, they are fragmented in a further chunk. If anything
+     * goes wrong with a molecule, it gets empty fragment lists and maps for this fragmentation and the exceptions
+     * counter is incremented.
+     *
+     * @param aChunk molecules to fragment
+     */
+    private void fragmentChunk(List<MoleculeDataModel> aChunk) {
+        List<MoleculeDataModel> tmpMoleculesToFragment = new ArrayList<>(aChunk.size());
+        List<IAtomContainer> tmpAtomContainersToFragment = new ArrayList<>(aChunk.size());
+        //atom containers that are parsed for the fragmentation only are not used anywhere else and can be consumed
+        boolean tmpAreAtomContainersConsumable = true;
+        //structures passed to the fragmenter in this chunk; null if there is no memo to publish their results
+        Set<String> tmpSmilesToFragmentSet = this.fragmentationMemo == null ? null : new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(aChunk.size()));
+        List<MoleculeDataModel> tmpDuplicateMoleculesList = new ArrayList<>(0);
+        for (MoleculeDataModel tmpMolecule : aChunk) {
+            if (tmpSmilesToFragmentSet != null && tmpSmilesToFragmentSet.contains(tmpMolecule.getUniqueSmiles())) {
+                tmpDuplicateMoleculesList.add(tmpMolecule);
+                continue;
+            }
+            //start time first, so that the watchdog never combines a molecule with an earlier start time
+            this.currentMoleculeStartTime = System.nanoTime();
+            this.currentMolecule = tmpMolecule;
+            IAtomContainer tmpAtomContainer = this.prepareMolecule(tmpMolecule);
+            if (tmpAtomContainer == null) {
+                //single writer, so the non-atomic increment is safe
+                this.processedMoleculesCounter++;
+            } else {
+                tmpMoleculesToFragment.add(tmpMolecule);
+                tmpAtomContainersToFragment.add(tmpAtomContainer);
+                if (tmpSmilesToFragmentSet != null) {
+                    tmpSmilesToFragmentSet.add(tmpMolecule.getUniqueSmiles());
                 }
-                List<IAtomContainer> tmpFragmentsList;
-                try {
-                    tmpFragmentsList = this.fragmenter.fragmentMolecule(tmpAtomContainer);
+                if (tmpMolecule.isKeepAtomContainer()) {
+                    tmpAreAtomContainersConsumable = false;
                 }
-                catch (NullPointerException | IllegalArgumentException | CloneNotSupportedException anException) {
-                    FragmentationTask.LOGGER.log(Level.SEVERE, anException.toString(), anException);
+            }
+        }
+        if (!tmpMoleculesToFragment.isEmpty()) {
+            List<List<IAtomContainer>> tmpFragmentsLists;
+            try {
+                tmpFragmentsLists = this.fragmenter.fragmentMolecules(tmpAtomContainersToFragment, tmpAreAtomContainersConsumable);
+            } catch (Exception anException) {
+                //only reached if an overriding fragmenter breaks the contract of catching exceptions per molecule,
+                // none of the molecules of the batch gets fragments then
+                FragmentationTask.LOGGER.log(Level.SEVERE, anException.toString(), anException);
+                tmpFragmentsLists = Collections.nCopies(tmpMoleculesToFragment.size(), null);
+            }
+            for (int i = 0; i < tmpMoleculesToFragment.size(); i++) {
+                //the start time is kept, so that the time budget of a single molecule includes the fragmenter call
+                this.currentMolecule = tmpMoleculesToFragment.get(i);
+                this.processFragments(tmpMoleculesToFragment.get(i), tmpFragmentsLists.get(i));
+                this.processedMoleculesCounter++;
+            }
+        }
+        this.currentMolecule = null;
+        if (!tmpDuplicateMoleculesList.isEmpty()) {
+            this.addDuplicateMolecules(tmpDuplicateMoleculesList);
+        }
+    }
+    //
+    /**
+     * Gives the given molecules, whose structures were fragmented in the same chunk, the memoized results of these
+     * structures. Molecules whose structure was not memoized are fragmented in a further chunk.
+     *
+     * @param aDuplicateMoleculesList molecules of the chunk that were not passed to the fragmenter
+     */
+    private void addDuplicateMolecules(List<MoleculeDataModel> aDuplicateMoleculesList) {
+        List<MoleculeDataModel> tmpUnresolvedMoleculesList = new ArrayList<>(0);
+        for (MoleculeDataModel tmpMolecule : aDuplicateMoleculesList) {
+            List<FragmentationMemo.FragmentOccurrence> tmpMemoizedResult = this.fragmentationMemo.get(tmpMolecule.getUniqueSmiles());
+            if (tmpMemoizedResult == null) {
+                tmpUnresolvedMoleculesList.add(tmpMolecule);
+                continue;
+            }
+            try {
+                this.addFragments(tmpMolecule, tmpMemoizedResult);
+            } catch (Exception anException) {
+                this.handleFailedMolecule(tmpMolecule, anException);
+            }
+            this.processedMoleculesCounter++;
+        }
+        if (!tmpUnresolvedMoleculesList.isEmpty()) {
+            //the first molecule of every structure is passed to the fragmenter, so this terminates
+            this.fragmentChunk(tmpUnresolvedMoleculesList);
+        }
+    }
+    //
+    /**
+     * Prepares the given molecule for the fragmentation, i.e. filters and preprocesses it. Molecules that are filtered,
+     * already memoized, or timed out, or that cause an exception are completely handled here.
+     *
+     * @param aMolecule molecule to prepare
+     * @return atom container to pass to the fragmenter or null if the molecule is already handled
+     */
+    private IAtomContainer prepareMolecule(MoleculeDataModel aMolecule) {
+        try {
+            if (this.fragmentationMemo != null) {
+                List<FragmentationMemo.FragmentOccurrence> tmpMemoizedResult = this.fragmentationMemo.get(aMolecule.getUniqueSmiles());
+                if (tmpMemoizedResult != null) {
+                    this.addFragments(aMolecule, tmpMemoizedResult);
+                    return null;
+                }
+            }
+            IAtomContainer tmpAtomContainer;
+            try {
+                tmpAtomContainer = aMolecule.getAtomContainer();
+            }
+            catch(CDKException anException) {
+                this.exceptionsCounter++;
+                Logger.getLogger(MoleculeDataModel.class.getName()).log(
+                        Level.SEVERE, String.format("%s Molecule name: %s", anException.toString(), aMolecule.getName()), anException);
+                return null;
+            }
+            //returns true if the molecule cannot be fragmented, so it gets empty lists and maps for this fragmentation
+            if (this.fragmenter.shouldBeFiltered(tmpAtomContainer)) {
+                aMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
+                aMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+                if (this.fragmentationMemo != null) {
+                    this.fragmentationMemo.put(aMolecule.getUniqueSmiles(), List.of());
+                }
+                return null;
+            }
+            if (this.fragmenter.shouldBePreprocessed(tmpAtomContainer)) {
+                tmpAtomContainer = this.fragmenter.applyPreprocessing(tmpAtomContainer);
+            }
+            if (this.timedOutMolecule == aMolecule) {
+                this.abandonTimedOutMolecule(aMolecule);
+                return null;
+            }
+            return tmpAtomContainer;
+        }
+        catch(Exception anException) {
+            this.handleFailedMolecule(aMolecule, anException);
+            return null;
+        }
+    }
+    //
+    /**
+     * Passes the fragments of the given molecule through the further pipeline fragmenters, if there are any, and adds
+     * the final fragments to the shared fragments map and to the molecule itself.
+     *
+     * @param aMolecule fragmented molecule
+     * @param aFragmentsList fragments returned by the fragmenter of this task or null if the fragmentation failed
+     */
+    private void processFragments(MoleculeDataModel aMolecule, List<IAtomContainer> aFragmentsList) {
+        try {
+            if (aFragmentsList == null) {
+                //the reason is logged by the fragmenter
+                this.exceptionsCounter++;
+                aMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
+                aMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+                return;
+            }
+            List<IAtomContainer> tmpFragmentsList = aFragmentsList;
+            if (this.furtherPipelineFragmenters != null && this.timedOutMolecule != aMolecule) {
+                tmpFragmentsList = this.fragmentFurther(tmpFragmentsList, aMolecule);
+            }
+            if (this.timedOutMolecule == aMolecule) {
+                this.abandonTimedOutMolecule(aMolecule);
+                return;
+            }
+            // first fragment atom container and number of occurrences per unique SMILES code, in order of appearance
+            Map<String, IAtomContainer> tmpFirstFragmentsMap = new LinkedHashMap<>(CollectionUtil.calculateInitialHashCollectionCapacity(tmpFragmentsList.size()));
+            Map<String, Integer> tmpFragmentFrequenciesMap = new HashMap<>(CollectionUtil.calculateInitialHashCollectionCapacity(tmpFragmentsList.size()));
+            boolean tmpHasFailedFragments = false;
+            for (IAtomContainer tmpFragment : tmpFragmentsList) {
+                if (this.timedOutMolecule == aMolecule) {
+                    this.abandonTimedOutMolecule(aMolecule);
+                    return;
+                }
+                String tmpSmiles;
+                if (this.fragmentSmilesCache != null) {
+                    tmpSmiles = this.fragmentSmilesCache.getUniqueSmiles(tmpFragment);
+                } else {
+                    tmpSmiles = ChemUtil.createUniqueSmiles(tmpFragment, this.isStereochemistryRegarded);
+                }
+                if (tmpSmiles == null) {
                     this.exceptionsCounter++;
-                    tmpMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
-                    tmpMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+                    tmpHasFailedFragments = true;
                     continue;
                 }
-                // list of all fragments for this molecule
-                List<FragmentDataModel> tmpFragmentsOfMolList = new ArrayList<>(tmpFragmentsList.size());
-                // map of the frequency with which this molecule contains a specific fragment
-                HashMap<String, Integer> tmpFragmentFrequenciesOfMoleculeMap = new HashMap<>(CollectionUtil.calculateInitialHashCollectionCapacity(tmpFragmentsList.size()));
-                // iterate through list of resulting fragments
-                for (IAtomContainer tmpFragment : tmpFragmentsList) {
-                    String tmpSmiles = ChemUtil.createUniqueSmiles(tmpFragment, this.isStereochemistryRegarded);
-                    if (tmpSmiles == null) {
-                        this.exceptionsCounter++;
-                        continue;
-                    }
-                    // create new FragmentDataModel
-                    FragmentDataModel tmpNewFragmentDataModel =  new FragmentDataModel(tmpSmiles, tmpFragment.getTitle(), tmpFragment.getProperties());
-                    // putIfAbsent returns null if key is not present in the map, else previous value associated with this key
-                    // operation must be atomic (HashMap) or synchronised (HashTable); we are currently using ConcurrentHashMap
-                    FragmentDataModel tmpFragmentDataModel = this.fragmentsHashTable.putIfAbsent(tmpSmiles,  tmpNewFragmentDataModel);
-                    if (tmpFragmentDataModel == null) {
-                        tmpFragmentDataModel = tmpNewFragmentDataModel;
-                    }
-                    // increment the absolute frequency of this fragment - operation is atomic!
-                    tmpFragmentDataModel.incrementAbsoluteFrequency();
-                    // add the initial molecule as a parent molecule
-                    tmpFragmentDataModel.getParentMolecules().add(tmpMolecule);
-                    if (tmpFragmentsOfMolList.contains(tmpFragmentDataModel)) {
-                        tmpFragmentFrequenciesOfMoleculeMap.replace(tmpSmiles, tmpFragmentFrequenciesOfMoleculeMap.get(tmpSmiles) + 1);
-                    } else {
-                        // increment molecule frequency of this fragment - operation is atomic!
-                        tmpFragmentDataModel.incrementMoleculeFrequency();
-                        tmpFragmentsOfMolList.add(tmpFragmentDataModel);
-                        tmpFragmentFrequenciesOfMoleculeMap.put(tmpSmiles, 1);
+                tmpFirstFragmentsMap.putIfAbsent(tmpSmiles, tmpFragment);
+                tmpFragmentFrequenciesMap.merge(tmpSmiles, 1, Integer::sum);
+            }
+            List<FragmentationMemo.FragmentOccurrence> tmpResult = new ArrayList<>(tmpFirstFragmentsMap.size());
+            for (Map.Entry<String, IAtomContainer> tmpEntry : tmpFirstFragmentsMap.entrySet()) {
+                tmpResult.add(new FragmentationMemo.FragmentOccurrence(tmpEntry.getKey(), tmpEntry.getValue().getTitle(),
+                        tmpEntry.getValue().getProperties(), tmpFragmentFrequenciesMap.get(tmpEntry.getKey())));
+            }
+            this.addFragments(aMolecule, tmpResult);
+            // incomplete results are not reused, so that every molecule of the structure counts its failed fragments
+            if (this.fragmentationMemo != null && !tmpHasFailedFragments) {
+                this.fragmentationMemo.put(aMolecule.getUniqueSmiles(), tmpResult);
+            }
+        }
+        catch(Exception anException) {
+            this.handleFailedMolecule(aMolecule, anException);
+        }
+    }
+    //
+    /**
+     * Logs the given exception that occurred while fragmenting the given molecule, increments the exceptions counter,
+     * and gives the molecule empty fragment lists and maps for this fragmentation if it does not have any yet.
+     *
+     * @param aMolecule molecule that caused the exception
+     * @param anException occurred exception
+     */
+    private void handleFailedMolecule(MoleculeDataModel aMolecule, Exception anException) {
+        this.exceptionsCounter++;
+        FragmentationTask.LOGGER.log(Level.SEVERE, anException.toString(), anException);
+        if (aMolecule.getAllFragments() != null && !aMolecule.getAllFragments().containsKey(this.fragmentationName)) {
+            aMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
+        }
+        if (aMolecule.getFragmentFrequencies() != null && !aMolecule.getFragmentFrequencies().containsKey(this.fragmentationName)) {
+            aMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+        }
+    }
+    //
+    /**
+     * Passes the given fragments through the further pipeline fragmenters. The fragments of every stage are fragmented
+     * in one batch by the fragmenter of the next stage and fragments that it filters or fails to fragment are dropped,
+     * as in a pipeline fragmentation that runs the stages one after another on the whole molecule set. Stops early if
+     * the fragmentation of the molecule exceeds the time budget.
+     *
+     * @param aFragmentsList fragments of the fragmenter of this task
+     * @param aMolecule molecule the fragments belong to
+     * @return fragments of the last fragmenter, one atom container per occurrence; incomplete if the molecule timed out
+     */
+    private List<IAtomContainer> fragmentFurther(List<IAtomContainer> aFragmentsList, MoleculeDataModel aMolecule) {
+        List<IAtomContainer> tmpFragmentsList = aFragmentsList;
+        for (IMoleculeFragmenter tmpFragmenter : this.furtherPipelineFragmenters) {
+            List<IAtomContainer> tmpFragmentsToFragmentList = new ArrayList<>(tmpFragmentsList.size());
+            for (IAtomContainer tmpFragment : tmpFragmentsList) {
+                if (this.timedOutMolecule == aMolecule) {
+                    return new ArrayList<>(0);
+                }
+                if (tmpFragmenter.shouldBeFiltered(tmpFragment)) {
+                    continue;
+                }
+                try {
+                    IAtomContainer tmpFragmentToFragment = tmpFragment;
+                    if (tmpFragmenter.shouldBePreprocessed(tmpFragmentToFragment)) {
+                        tmpFragmentToFragment = tmpFragmenter.applyPreprocessing(tmpFragmentToFragment);
                     }
+                    tmpFragmentsToFragmentList.add(tmpFragmentToFragment);
+                } catch (NullPointerException | IllegalArgumentException | CloneNotSupportedException anException) {
+                    FragmentationTask.LOGGER.log(Level.SEVERE, anException.toString(), anException);
+                    this.exceptionsCounter++;
                 }
-                tmpMolecule.getFragmentFrequencies().put(this.fragmentationName, tmpFragmentFrequenciesOfMoleculeMap);
-                tmpMolecule.getAllFragments().put(this.fragmentationName, tmpFragmentsOfMolList);
             }
-            catch(Exception anException) {
-                this.exceptionsCounter++;
-                FragmentationTask.LOGGER.log(Level.SEVERE, anException.toString(), anException);
-                if (tmpMolecule.getAllFragments() != null && !tmpMolecule.getAllFragments().containsKey(this.fragmentationName)) {
-                    tmpMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
+            List<IAtomContainer> tmpNextFragmentsList = new ArrayList<>(tmpFragmentsToFragmentList.size());
+            //the fragments of the previous fragmenter are not used anywhere else, so they can be consumed
+            for (List<IAtomContainer> tmpFragmentsOfFragment : tmpFragmenter.fragmentMolecules(tmpFragmentsToFragmentList, true)) {
+                if (tmpFragmentsOfFragment == null) {
+                    //the reason is logged by the fragmenter
+                    this.exceptionsCounter++;
+                } else {
+                    tmpNextFragmentsList.addAll(tmpFragmentsOfFragment);
                 }
-                if (tmpMolecule.getFragmentFrequencies() != null && !tmpMolecule.getFragmentFrequencies().containsKey(this.fragmentationName)) {
-                    tmpMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+            }
+            tmpFragmentsList = tmpNextFragmentsList;
+        }
+        return tmpFragmentsList;
+    }
+    //
+    /**
+     * Abandons the fragmentation of the given molecule because it exceeded the time budget. Like a molecule that
+     * caused an exception, it gets empty fragment lists and maps for this fragmentation and its result is not memoized.
+     *
+     * @param aMolecule timed out molecule
+     */
+    private void abandonTimedOutMolecule(MoleculeDataModel aMolecule) {
+        FragmentationTask.LOGGER.log(Level.WARNING, "Fragmentation \"{0}\" of molecule \"{1}\" exceeded the time budget and was abandoned.",
+                new Object[]{this.fragmentationName, aMolecule.getName()});
+        aMolecule.getAllFragments().put(this.fragmentationName, new ArrayList<>(0));
+        aMolecule.getFragmentFrequencies().put(this.fragmentationName, new HashMap<>(0));
+        this.timedOutMoleculesList.add(aMolecule);
+    }
+    //
+    /**
+     * Adds the given distinct fragments of the given molecule to the shared fragments map or the partial fragment maps
+     * of this task, registers the molecule as their parent, and stores the fragments and their frequencies on the
+     * molecule.
+     *
+     * @param aMolecule fragmented molecule
+     * @param aFragmentOccurrenceList distinct fragments of the molecule with their frequencies in the molecule
+     */
+    private void addFragments(MoleculeDataModel aMolecule, List<FragmentationMemo.FragmentOccurrence> aFragmentOccurrenceList) {
+        // list of all fragments for this molecule
+        List<FragmentDataModel> tmpFragmentsOfMolList = new ArrayList<>(aFragmentOccurrenceList.size());
+        long tmpNumberOfFragments = 0;
+        for (FragmentationMemo.FragmentOccurrence tmpOccurrence : aFragmentOccurrenceList) {
+            tmpNumberOfFragments += tmpOccurrence.frequency();
+            String tmpSmiles = tmpOccurrence.uniqueSmiles();
+            FragmentDataModel tmpFragmentDataModel;
+            if (this.partialFragmentMaps != null) {
+                // task-local map, no other thread accesses it
+                tmpFragmentDataModel = this.partialFragmentMaps.get(FragmentationTask.getShardIndex(tmpSmiles, this.partialFragmentMaps.size()))
+                        .computeIfAbsent(tmpSmiles, aKey -> new FragmentDataModel(aKey, tmpOccurrence.name(), tmpOccurrence.properties()));
+            } else {
+                // create new FragmentDataModel
+                FragmentDataModel tmpNewFragmentDataModel = new FragmentDataModel(tmpSmiles, tmpOccurrence.name(), tmpOccurrence.properties());
+                // putIfAbsent returns null if key is not present in the map, else previous value associated with this key
+                // operation must be atomic (HashMap) or synchronised (HashTable); we are currently using ConcurrentHashMap
+                tmpFragmentDataModel = this.fragmentsHashTable.putIfAbsent(tmpSmiles, tmpNewFragmentDataModel);
+                if (tmpFragmentDataModel == null) {
+                    tmpFragmentDataModel = tmpNewFragmentDataModel;
                 }
             }
-            if (Thread.currentThread().isInterrupted()) {
-                FragmentationTask.LOGGER.log(Level.INFO, "Thread interrupted");
-                return null;
+            // increment the absolute frequency of this fragment - operation is atomic!
+            for (int i = 0; i < tmpOccurrence.frequency(); i++) {
+                tmpFragmentDataModel.incrementAbsoluteFrequency();
             }
+            // increment molecule frequency of this fragment - operation is atomic!
+            tmpFragmentDataModel.incrementMoleculeFrequency();
+            // add the initial molecule as a parent molecule
+            tmpFragmentDataModel.getParentMolecules().add(aMolecule);
+            tmpFragmentsOfMolList.add(tmpFragmentDataModel);
+        }
+        this.producedFragmentsCounter += tmpNumberOfFragments;
+        if (this.fragmentDictionary != null) {
+            // int IDs and frequencies in parallel arrays instead of hash map nodes and boxed integers
+            int[] tmpFragmentIds = new int[aFragmentOccurrenceList.size()];
+            int[] tmpFragmentFrequencies = new int[aFragmentOccurrenceList.size()];
+            for (int i = 0; i < tmpFragmentIds.length; i++) {
+                tmpFragmentIds[i] = this.fragmentDictionary.getOrAssignId(aFragmentOccurrenceList.get(i).uniqueSmiles());
+                tmpFragmentFrequencies[i] = aFragmentOccurrenceList.get(i).frequency();
+            }
+            aMolecule.getFragmentFrequencies().put(this.fragmentationName, new FragmentFrequencyMap(this.fragmentDictionary, tmpFragmentIds, tmpFragmentFrequencies));
+            aMolecule.getAllFragments().put(this.fragmentationName, new FragmentIdList(this.fragmentDictionary, tmpFragmentIds));
+        } else {
+            // map of the frequency with which this molecule contains a specific fragment
+            HashMap<String, Integer> tmpFragmentFrequenciesOfMoleculeMap = new HashMap<>(CollectionUtil.calculateInitialHashCollectionCapacity(aFragmentOccurrenceList.size()));
+            for (FragmentationMemo.FragmentOccurrence tmpOccurrence : aFragmentOccurrenceList) {
+                tmpFragmentFrequenciesOfMoleculeMap.put(tmpOccurrence.uniqueSmiles(), tmpOccurrence.frequency());
+            }
+            aMolecule.getFragmentFrequencies().put(this.fragmentationName, tmpFragmentFrequenciesOfMoleculeMap);
+            aMolecule.getAllFragments().put(this.fragmentationName, tmpFragmentsOfMolList);
         }
-        return this.exceptionsCounter;
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Enforces a time budget for the fragmentation of single molecules. One watchdog thread per fragmentation periodically
+ * checks the molecules currently fragmented by all tasks and marks those exceeding the budget as timed out. The tasks
+ * abandon a marked molecule cooperatively at their next checkpoint, i.e. between the steps of its fragmentation, and
+ * report it as timed out.
+ * <br>NOTE: A call of a fragmentation algorithm that is in flight is not interrupted. A molecule exceeding the budget
+ * inside the algorithm keeps its task busy until the call returns, the budget only saves the processing of its
+ * fragments afterwards. A call that never returns therefore still blocks the fragmentation.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationWatchdog implements Runnable {
+    //<editor-fold desc="public static final class constants" defaultstate="collapsed">
+    /**
+     * Maximum interval in milliseconds in which the time budget is checked.
+     */
+    public static final long MAX_CHECK_INTERVAL_MILLISECONDS = 1000L;
+    /**
+     * Minimum interval in milliseconds in which the time budget is checked.
+     */
+    public static final long MIN_CHECK_INTERVAL_MILLISECONDS = 10L;
+    /**
+     * Name of the watchdog thread.
+     */
+    public static final String WATCHDOG_THREAD_NAME = "MORTAR_Fragmentation_Watchdog";
+    //</editor-fold>
+    //
+    //<editor-fold desc="private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FragmentationWatchdog.class.getName());
+    //</editor-fold>
+    //
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Tasks of the fragmentation whose current molecules are checked.
+     */
+    private final List<FragmentationTask> taskList;
+    /**
+     * Time budget for the fragmentation of a single molecule in milliseconds.
+     */
+    private final long timeBudgetMilliseconds;
+    /**
+     * Executor running the checks; null if not started.
+     */
+    private ScheduledExecutorService checkExecutor;
+    //</editor-fold>
+    //
+    /**
+     * Constructor.
+     *
+     * @param aTaskList tasks of the fragmentation whose current molecules should be checked
+     * @param aTimeBudgetMilliseconds time budget for the fragmentation of a single molecule in milliseconds
+     * @throws NullPointerException if the task list is null
+     * @throws IllegalArgumentException if the time budget is 0 or negative
+     */
+    public FragmentationWatchdog(List<FragmentationTask> aTaskList, long aTimeBudgetMilliseconds)
+            throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aTaskList, "aTaskList (list of FragmentationTask instances) is null.");
+        if (aTimeBudgetMilliseconds <= 0L) {
+            throw new IllegalArgumentException("aTimeBudgetMilliseconds must be positive.");
+        }
+        this.taskList = aTaskList;
+        this.timeBudgetMilliseconds = aTimeBudgetMilliseconds;
+    }
+    //
+    /**
+     * Starts checking the time budget at a fixed rate on a new daemon thread. The check interval is a tenth of the
+     * budget, but at least {@link #MIN_CHECK_INTERVAL_MILLISECONDS} and at most {@link #MAX_CHECK_INTERVAL_MILLISECONDS}.
+     */
+    public synchronized void start() {
+        if (this.checkExecutor != null) {
+            return;
+        }
+        long tmpCheckInterval = Math.clamp(this.timeBudgetMilliseconds / 10L,
+                FragmentationWatchdog.MIN_CHECK_INTERVAL_MILLISECONDS,
+                FragmentationWatchdog.MAX_CHECK_INTERVAL_MILLISECONDS);
+        this.checkExecutor = Executors.newSingleThreadScheduledExecutor(aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, FragmentationWatchdog.WATCHDOG_THREAD_NAME);
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        });
+        this.checkExecutor.scheduleAtFixedRate(this, tmpCheckInterval, tmpCheckInterval, TimeUnit.MILLISECONDS);
+    }
+    //
+    /**
+     * Stops checking the time budget. Should be called after the tasks are done or cancelled.
+     */
+    public synchronized void stop() {
+        if (this.checkExecutor == null) {
+            return;
+        }
+        this.checkExecutor.shutdownNow();
+        this.checkExecutor = null;
+    }
+    //
+    /**
+     * Checks the current molecules of all tasks once and marks those exceeding the time budget as timed out.
+     */
+    @Override
+    public void run() {
+        long tmpCurrentTime = System.nanoTime();
+        long tmpTimeBudget = TimeUnit.MILLISECONDS.toNanos(this.timeBudgetMilliseconds);
+        for (FragmentationTask tmpTask : this.taskList) {
+            MoleculeDataModel tmpMolecule = tmpTask.checkTimeBudget(tmpCurrentTime, tmpTimeBudget);
+            if (tmpMolecule != null) {
+                FragmentationWatchdog.LOGGER.log(Level.INFO, "Molecule \"{0}\" exceeded the fragmentation time budget of {1} ms.",
+                        new Object[]{tmpMolecule.getName(), this.timeBudgetMilliseconds});
+            }
+        }
+    }
+}
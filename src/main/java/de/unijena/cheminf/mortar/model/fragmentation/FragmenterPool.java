@@ -0,0 +1,216 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.Property;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of configured fragmenter instances for the parallel fragmentation tasks, so that the fragmenters, e.g. their
+ * wrapped Scaffold Generator, Sugar Removal Utility, or ErtlFunctionalGroupsFinder instances, are not constructed and
+ * configured again for every task of every fragmentation. The instances are copies of a prototype fragmenter, e.g. the
+ * selected fragmenter or a pipeline fragmenter of the fragmentation service. A fragmenter that is not thread-safe is
+ * handed out to one task at a time and has to be returned to the pool when the task is done. A thread-safe fragmenter,
+ * see {@link IMoleculeFragmenter#isThreadSafe()}, is handed out to all tasks at the same time. All pooled instances of a
+ * prototype are discarded when one of its setting properties changes. Prototypes are referenced weakly, fragmenters
+ * use identity for equals() and hashCode().
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmenterPool {
+    //<editor-fold desc="private class variables" defaultstate="collapsed">
+    /**
+     * Pooled instances per prototype fragmenter.
+     */
+    private final Map<IMoleculeFragmenter, PoolEntry> poolEntriesMap;
+    /**
+     * Prototype fragmenters whose setting properties are observed to invalidate their pooled instances.
+     */
+    private final Set<IMoleculeFragmenter> observedPrototypesSet;
+    /**
+     * Number of fragmenter instances created by this pool.
+     */
+    private int numberOfCreatedInstances;
+    //</editor-fold>
+    //
+    /**
+     * Constructor.
+     */
+    public FragmenterPool() {
+        this.poolEntriesMap = new WeakHashMap<>();
+        this.observedPrototypesSet = Collections.newSetFromMap(new WeakHashMap<>());
+        this.numberOfCreatedInstances = 0;
+    }
+    //
+    /**
+     * Hands out an instance of the given prototype fragmenter with its current settings. If the fragmenter is not
+     * thread-safe, the instance is confined to the caller until it is returned via
+     * {@link #giveBack(IMoleculeFragmenter, IMoleculeFragmenter)}. Otherwise, the same instance is handed out to all
+     * callers.
+     *
+     * @param aPrototype fragmenter whose settings the instance should have
+     * @return pooled or new instance of the fragmenter
+     * @throws NullPointerException if the prototype is null
+     */
+    public synchronized IMoleculeFragmenter borrow(IMoleculeFragmenter aPrototype) throws NullPointerException {
+        Objects.requireNonNull(aPrototype, "aPrototype (instance of IMoleculeFragmenter) is null.");
+        this.observe(aPrototype);
+        PoolEntry tmpPoolEntry = this.poolEntriesMap.computeIfAbsent(aPrototype, aKey -> new PoolEntry());
+        if (aPrototype.isThreadSafe()) {
+            if (tmpPoolEntry.sharedInstance == null) {
+                tmpPoolEntry.sharedInstance = this.createInstance(aPrototype);
+            }
+            return tmpPoolEntry.sharedInstance;
+        }
+        IMoleculeFragmenter tmpInstance = tmpPoolEntry.idleInstances.pollFirst();
+        if (tmpInstance == null) {
+            tmpInstance = this.createInstance(aPrototype);
+        }
+        tmpPoolEntry.borrowedInstances.add(tmpInstance);
+        return tmpInstance;
+    }
+    //
+    /**
+     * Returns an instance handed out via {@link #borrow(IMoleculeFragmenter)} to the pool, so it can be handed out
+     * again. Instances of a prototype whose settings changed in the meantime are discarded.
+     *
+     * @param aPrototype prototype the instance was borrowed for
+     * @param anInstance instance to return
+     */
+    public synchronized void giveBack(IMoleculeFragmenter aPrototype, IMoleculeFragmenter anInstance) {
+        if (aPrototype == null || anInstance == null) {
+            return;
+        }
+        PoolEntry tmpPoolEntry = this.poolEntriesMap.get(aPrototype);
+        if (tmpPoolEntry != null && tmpPoolEntry.borrowedInstances.remove(anInstance)) {
+            tmpPoolEntry.idleInstances.addFirst(anInstance);
+        }
+    }
+    //
+    /**
+     * Releases an instance handed out via {@link #borrow(IMoleculeFragmenter)} without returning it to the pool, e.g.
+     * because a cancelled task may still be using it. The pool keeps no reference to the instance afterwards.
+     *
+     * @param aPrototype prototype the instance was borrowed for
+     * @param anInstance instance to discard
+     */
+    public synchronized void discard(IMoleculeFragmenter aPrototype, IMoleculeFragmenter anInstance) {
+        if (aPrototype == null || anInstance == null) {
+            return;
+        }
+        PoolEntry tmpPoolEntry = this.poolEntriesMap.get(aPrototype);
+        if (tmpPoolEntry != null) {
+            tmpPoolEntry.borrowedInstances.remove(anInstance);
+        }
+    }
+    //
+    /**
+     * Discards all pooled instances of the given prototype fragmenter. Instances that are currently handed out are
+     * discarded when they are returned.
+     *
+     * @param aPrototype prototype whose instances should be discarded
+     */
+    public synchronized void invalidate(IMoleculeFragmenter aPrototype) {
+        this.poolEntriesMap.remove(aPrototype);
+    }
+    //
+    /**
+     * Discards all pooled instances.
+     */
+    public synchronized void clear() {
+        this.poolEntriesMap.clear();
+    }
+    //
+    /**
+     * Returns the number of fragmenter instances created by this pool so far.
+     *
+     * @return number of created instances
+     */
+    public synchronized int getNumberOfCreatedInstances() {
+        return this.numberOfCreatedInstances;
+    }
+    //
+    /**
+     * Creates a new instance of the given prototype fragmenter with its current settings.
+     *
+     * @param aPrototype prototype to copy
+     * @return new instance
+     */
+    private IMoleculeFragmenter createInstance(IMoleculeFragmenter aPrototype) {
+        this.numberOfCreatedInstances++;
+        return aPrototype.copy();
+    }
+    //
+    /**
+     * Registers a listener on all setting properties of the given prototype fragmenter that invalidates its pooled
+     * instances, if not already done.
+     *
+     * @param aPrototype prototype to observe
+     */
+    private void observe(IMoleculeFragmenter aPrototype) {
+        if (!this.observedPrototypesSet.add(aPrototype)) {
+            return;
+        }
+        for (Property<?> tmpProperty : aPrototype.settingsProperties()) {
+            tmpProperty.addListener((InvalidationListener) anObservable -> {
+                //reading the value validates the property again, so the next change is reported as well
+                tmpProperty.getValue();
+                this.invalidate(aPrototype);
+            });
+        }
+    }
+    //
+    //<editor-fold desc="private classes" defaultstate="collapsed">
+    /**
+     * Pooled instances of one prototype fragmenter.
+     */
+    private static class PoolEntry {
+        /**
+         * Instances that are currently not handed out.
+         */
+        private final Deque<IMoleculeFragmenter> idleInstances = new ArrayDeque<>();
+        /**
+         * Instances that are currently handed out, compared by identity.
+         */
+        private final Set<IMoleculeFragmenter> borrowedInstances = Collections.newSetFromMap(new IdentityHashMap<>());
+        /**
+         * Instance handed out to all callers if the fragmenter is thread-safe; null if not created yet.
+         */
+        private IMoleculeFragmenter sharedInstance;
+    }
+    //</editor-fold>
+}
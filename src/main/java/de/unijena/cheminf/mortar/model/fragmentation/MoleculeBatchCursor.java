@@ -0,0 +1,122 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared cursor over a list of molecules that hands out consecutive batches of molecules to the parallel
+ * {@link FragmentationTask} instances. Every task keeps requesting new batches until the list is exhausted, so a task
+ * that got a batch of large molecules does not keep the other tasks waiting at the end of the fragmentation, like it
+ * happens with one static slice of the list per task.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class MoleculeBatchCursor {
+    //<editor-fold desc="private final class variables" defaultstate="collapsed">
+    /**
+     * List of molecules to hand out.
+     */
+    private final List<MoleculeDataModel> molecules;
+    /**
+     * Number of molecules per batch.
+     */
+    private final int batchSize;
+    /**
+     * Index of the first molecule of the next batch to hand out.
+     */
+    private final AtomicInteger nextIndex;
+    //</editor-fold>
+    //
+    //<editor-fold desc="constructors" defaultstate="collapsed">
+    /**
+     * Constructor.
+     *
+     * @param aListOfMolecules molecules to hand out; the list must not be structurally modified while the cursor is in use
+     * @param aBatchSize number of molecules per batch, the last batch may be smaller
+     * @throws NullPointerException if the given list is null
+     * @throws IllegalArgumentException if the batch size is 0 or negative
+     */
+    public MoleculeBatchCursor(List<MoleculeDataModel> aListOfMolecules, int aBatchSize) throws NullPointerException, IllegalArgumentException {
+        //<editor-fold desc="checks" defaultstate="collapsed">
+        Objects.requireNonNull(aListOfMolecules, "aListOfMolecules must not be null");
+        if (aBatchSize <= 0) {
+            throw new IllegalArgumentException("aBatchSize must be positive.");
+        }
+        //</editor-fold>
+        this.molecules = aListOfMolecules;
+        this.batchSize = aBatchSize;
+        this.nextIndex = new AtomicInteger(0);
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public methods" defaultstate="collapsed">
+    /**
+     * Returns the next batch of molecules as a view of the underlying list or an empty list if all molecules have
+     * already been handed out. This method is thread-safe and every molecule is handed out exactly once.
+     *
+     * @return next batch of molecules, empty if the list is exhausted
+     */
+    public List<MoleculeDataModel> nextBatch() {
+        int tmpSize = this.molecules.size();
+        int tmpFromIndex = this.nextIndex.get();
+        //compare-and-set loop instead of getAndAdd() to never move the index beyond the list size
+        while (tmpFromIndex < tmpSize) {
+            int tmpToIndex = tmpFromIndex + Math.min(this.batchSize, tmpSize - tmpFromIndex);
+            if (this.nextIndex.compareAndSet(tmpFromIndex, tmpToIndex)) {
+                return this.molecules.subList(tmpFromIndex, tmpToIndex);
+            }
+            tmpFromIndex = this.nextIndex.get();
+        }
+        return List.of();
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="public properties" defaultstate="collapsed">
+    /**
+     * Returns the total number of molecules this cursor hands out.
+     *
+     * @return number of molecules
+     */
+    public int getNumberOfMolecules() {
+        return this.molecules.size();
+    }
+    //
+    /**
+     * Returns the number of molecules per batch.
+     *
+     * @return batch size
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    //</editor-fold>
+}
@@ -46,13 +46,20 @@ import org.openscience.cdk.graph.Cycles;
 import org.openscience.cdk.interfaces.IAtom;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomContainerSet;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.interfaces.IChemObject;
+import org.openscience.cdk.interfaces.ILonePair;
+import org.openscience.cdk.interfaces.ISingleElectron;
+import org.openscience.cdk.interfaces.IStereoElement;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -726,6 +733,28 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
     @Override
     public List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule)
             throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, true);
+    }
+
+    @Override
+    public List<IAtomContainer> fragmentMoleculeInPlace(IAtomContainer aMolecule)
+            throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, false);
+    }
+
+    /**
+     * Fragments the given molecule or a clone of it, see {@link #fragmentMolecule(IAtomContainer)} and
+     * {@link #fragmentMoleculeInPlace(IAtomContainer)}.
+     *
+     * @param aMolecule to fragment
+     * @param isInputCloned false if the given molecule may be modified and its atoms and bonds reused in the fragments
+     * @return a list of fragments
+     * @throws NullPointerException if aMolecule is null
+     * @throws IllegalArgumentException if the given molecule cannot be fragmented but should be filtered or preprocessed
+     * @throws CloneNotSupportedException if cloning the given molecule fails
+     */
+    private List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule, boolean isInputCloned)
+            throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
         //<editor-fold desc="Parameter tests">
         Objects.requireNonNull(aMolecule, "Given molecule is null.");
         boolean tmpCanBeFragmented = this.canBeFragmented(aMolecule);
@@ -733,7 +762,7 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
             throw new IllegalArgumentException("Given molecule cannot be fragmented but should be filtered or preprocessed first.");
         }
         //</editor-fold>
-        IAtomContainer tmpMoleculeClone = aMolecule.clone();
+        IAtomContainer tmpMoleculeClone = isInputCloned ? aMolecule.clone() : aMolecule;
         List<IAtomContainer> tmpFunctionalGroupFragments;
         List<IAtomContainer> tmpNonFGFragments = null;
         try {
@@ -745,9 +774,25 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
             }
             Aromaticity.clear(tmpMoleculeClone);
             this.aromaticityModelInstance.apply(tmpMoleculeClone);
-            //generate FG fragments using EFGF
-            tmpFunctionalGroupFragments = this.ertlFGFInstance.extract(tmpMoleculeClone, this.applyInputRestrictionsSetting.get());
-            if (!tmpFunctionalGroupFragments.isEmpty()) {
+            boolean tmpAreAlkaneFragmentsReturned = this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ALL_FRAGMENTS)
+                    || this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_ALKANE_FRAGMENTS);
+            boolean tmpAreFunctionalGroupsReturned = this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ALL_FRAGMENTS)
+                    || this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_FUNCTIONAL_GROUPS);
+            //generate FG fragments using EFGF, only if they are returned at all
+            if (tmpAreFunctionalGroupsReturned) {
+                tmpFunctionalGroupFragments = this.ertlFGFInstance.extract(tmpMoleculeClone, this.applyInputRestrictionsSetting.get());
+            } else {
+                tmpFunctionalGroupFragments = new ArrayList<>(0);
+            }
+            //the alkane fragments need the FG atom marking, the detection for it is skipped if they are not returned or
+            // if the extraction already found no FG, so that the whole molecule is the alkane fragment anyway
+            int[] tmpFunctionalGroupIndices = null;
+            boolean tmpHasFunctionalGroups = !tmpFunctionalGroupFragments.isEmpty();
+            if (tmpAreAlkaneFragmentsReturned && (tmpHasFunctionalGroups || !tmpAreFunctionalGroupsReturned)) {
+                tmpFunctionalGroupIndices = new int[tmpMoleculeClone.getAtomCount()];
+                tmpHasFunctionalGroups = this.ertlFGFInstance.find(tmpFunctionalGroupIndices, tmpMoleculeClone) > 0;
+            }
+            if (tmpHasFunctionalGroups) {
                 for (IAtomContainer tmpFunctionalGroup : tmpFunctionalGroupFragments) {
                     //post-processing FG fragments
                     tmpFunctionalGroup.setProperty(IMoleculeFragmenter.FRAGMENT_CATEGORY_PROPERTY_KEY,
@@ -757,32 +802,13 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
                     }
                     ChemUtil.checkAndCorrectElectronConfiguration(tmpFunctionalGroup);
                 }
-                if (this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ALL_FRAGMENTS)
-                        || this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_ALKANE_FRAGMENTS)) {
-                    //FG fragments are removed from molecule to generate alkane fragments
-                    //note: only removes marked atoms, so atoms added as env C atoms to the FGs are duplicated
-                    //also note: yes, we have to do the detection again using the indices-returning method, sadly...
-                    int[] tmpFunctionalGroupIndices = new int[tmpMoleculeClone.getAtomCount()];
-                    this.ertlFGFInstance.find(tmpFunctionalGroupIndices, tmpMoleculeClone);
-                    //use map of index to atom because indices will change whenever an atom is removed
-                    int tmpInitialCapacityForIdToAtomMap = CollectionUtil.calculateInitialHashCollectionCapacity(
-                            tmpMoleculeClone.getAtomCount(),
-                            BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
-                    HashMap<Integer, IAtom> tmpIndexToAtomMap = new HashMap<>(
-                                    tmpInitialCapacityForIdToAtomMap,
-                                    BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
-                    for (IAtom tmpAtom : tmpMoleculeClone.atoms()) {
-                        tmpIndexToAtomMap.put(tmpAtom.getIndex(), tmpAtom);
-                    }
-                    //now, remove FG atoms from the molecule to generate alkane fragments
-                    for (Map.Entry<Integer, IAtom> tmpEntry : tmpIndexToAtomMap.entrySet()) {
-                        if (tmpFunctionalGroupIndices[tmpEntry.getKey()] != -1) {
-                            tmpMoleculeClone.removeAtom(tmpEntry.getValue());
-                        }
-                    }
-                    if (!tmpMoleculeClone.isEmpty()) {
+                if (tmpAreAlkaneFragmentsReturned) {
+                    //FG atoms are left out of the alkane remainder of the molecule
+                    //note: only leaves out marked atoms, so atoms added as env C atoms to the FGs are duplicated
+                    IAtomContainer tmpAlkaneRemainder = this.extractAlkaneRemainder(tmpMoleculeClone, tmpFunctionalGroupIndices);
+                    if (!tmpAlkaneRemainder.isEmpty()) {
                         //Partition unconnected alkane fragments in distinct atom containers
-                        IAtomContainerSet tmpPartitionedMoietiesSet = ConnectivityChecker.partitionIntoMolecules(tmpMoleculeClone);
+                        IAtomContainerSet tmpPartitionedMoietiesSet = ConnectivityChecker.partitionIntoMolecules(tmpAlkaneRemainder);
                         tmpNonFGFragments = new ArrayList<>(tmpPartitionedMoietiesSet.getAtomContainerCount());
                         for (IAtomContainer tmpContainer : tmpPartitionedMoietiesSet.atomContainers()) {
                             //post-processing of alkane fragments
@@ -795,15 +821,14 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
                             tmpNonFGFragments.add(tmpContainer);
                         }
                     } else {
-                        // molecule clone is empty after FG removal, no alkane fragments
+                        // remainder is empty, no alkane fragments
                         tmpNonFGFragments = new ArrayList<>(0);
                     }
                 }
             } else {
                 //no FG identified
                 List<IAtomContainer> tmpReturnList = new ArrayList<>(1);
-                if (this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ALL_FRAGMENTS)
-                        || this.returnedFragmentsSetting.get().equals(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_ALKANE_FRAGMENTS)) {
+                if (tmpAreAlkaneFragmentsReturned) {
                     tmpReturnList.addFirst(tmpMoleculeClone);
                     tmpMoleculeClone.setProperty(IMoleculeFragmenter.FRAGMENT_CATEGORY_PROPERTY_KEY,
                             ErtlFunctionalGroupsFinderFragmenter.FRAGMENT_CATEGORY_ALKANE_VALUE);
@@ -875,6 +900,75 @@ public class ErtlFunctionalGroupsFinderFragmenter implements IMoleculeFragmenter
     //</editor-fold>
     //
     //<editor-fold desc="Private methods">
+    /**
+     * Builds the alkane remainder of the given molecule, i.e. a new atom container holding all atoms that are not
+     * marked as part of a functional group and the bonds, lone pairs, single electrons, and stereo elements between
+     * them. The atoms themselves are not copied, so the given molecule must not be used afterwards. Replaces removing
+     * the marked atoms one after another from the molecule, which updates its atom indices on every removal.
+     *
+     * @param aMolecule molecule the functional group atoms were marked in
+     * @param aFunctionalGroupIndices functional group index of every atom of the molecule, -1 for unmarked atoms
+     * @return the alkane remainder, may be empty and unconnected
+     */
+    private IAtomContainer extractAlkaneRemainder(IAtomContainer aMolecule, int[] aFunctionalGroupIndices) {
+        IAtomContainer tmpAlkaneRemainder = aMolecule.getBuilder().newAtomContainer();
+        tmpAlkaneRemainder.addProperties(aMolecule.getProperties());
+        Set<IAtom> tmpRemovedAtomSet = new HashSet<>(CollectionUtil.calculateInitialHashCollectionCapacity(
+                aMolecule.getAtomCount(),
+                BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR),
+                BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
+        for (int i = 0; i < aMolecule.getAtomCount(); i++) {
+            if (aFunctionalGroupIndices[i] != -1) {
+                tmpRemovedAtomSet.add(aMolecule.getAtom(i));
+            } else {
+                tmpAlkaneRemainder.addAtom(aMolecule.getAtom(i));
+            }
+        }
+        for (IBond tmpBond : aMolecule.bonds()) {
+            if (!tmpRemovedAtomSet.contains(tmpBond.getBegin()) && !tmpRemovedAtomSet.contains(tmpBond.getEnd())) {
+                tmpAlkaneRemainder.addBond(tmpBond);
+            }
+        }
+        for (ILonePair tmpLonePair : aMolecule.lonePairs()) {
+            if (!tmpRemovedAtomSet.contains(tmpLonePair.getAtom())) {
+                tmpAlkaneRemainder.addLonePair(tmpLonePair);
+            }
+        }
+        for (ISingleElectron tmpSingleElectron : aMolecule.singleElectrons()) {
+            if (!tmpRemovedAtomSet.contains(tmpSingleElectron.getAtom())) {
+                tmpAlkaneRemainder.addSingleElectron(tmpSingleElectron);
+            }
+        }
+        //a stereo element is kept if neither its focus nor any of its carriers is or contains a removed atom
+        for (IStereoElement<?, ?> tmpStereoElement : aMolecule.stereoElements()) {
+            boolean tmpContainsRemovedAtom = ErtlFunctionalGroupsFinderFragmenter.containsAnyAtom(tmpStereoElement.getFocus(), tmpRemovedAtomSet);
+            for (int i = 0; i < tmpStereoElement.getCarriers().size() && !tmpContainsRemovedAtom; i++) {
+                tmpContainsRemovedAtom = ErtlFunctionalGroupsFinderFragmenter.containsAnyAtom(tmpStereoElement.getCarriers().get(i), tmpRemovedAtomSet);
+            }
+            if (!tmpContainsRemovedAtom) {
+                tmpAlkaneRemainder.addStereoElement(tmpStereoElement);
+            }
+        }
+        return tmpAlkaneRemainder;
+    }
+
+    /**
+     * Checks whether the given focus or carrier of a stereo element is one of the given atoms or a bond to one of them.
+     *
+     * @param aChemObject focus or carrier of a stereo element
+     * @param anAtomSet atoms to check for
+     * @return true if the object is or contains one of the atoms
+     */
+    private static boolean containsAnyAtom(IChemObject aChemObject, Set<IAtom> anAtomSet) {
+        if (aChemObject instanceof IAtom) {
+            return anAtomSet.contains(aChemObject);
+        }
+        if (aChemObject instanceof IBond tmpBond) {
+            return anAtomSet.contains(tmpBond.getBegin()) || anAtomSet.contains(tmpBond.getEnd());
+        }
+        return false;
+    }
+
     /**
      * Sets only the instance, not the property! So it is safe for the property to call this method when overriding set().
      */
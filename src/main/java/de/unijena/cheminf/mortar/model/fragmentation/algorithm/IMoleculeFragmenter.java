@@ -35,8 +35,11 @@ import javafx.beans.property.Property;
 
 import org.openscience.cdk.interfaces.IAtomContainer;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Central interface for implementing wrapper classes for fragmentation algorithms. To make a new fragmentation algorithm
@@ -370,6 +373,20 @@ public interface IMoleculeFragmenter {
      */
     IMoleculeFragmenter copy();
 
+    /**
+     * Returns whether one instance of the fragmenter may be used by multiple threads at the same time, i.e. whether
+     * {@link #fragmentMolecule(IAtomContainer)}, {@link #shouldBeFiltered(IAtomContainer)},
+     * {@link #shouldBePreprocessed(IAtomContainer)}, {@link #canBeFragmented(IAtomContainer)}, and
+     * {@link #applyPreprocessing(IAtomContainer)} keep no state between calls except for the settings. Settings must
+     * never be changed while the fragmenter is in use. If false, the fragmenter has to be confined to one thread and
+     * every thread needs its own instance, see {@link #copy()}. Defaults to false.
+     *
+     * @return true if one instance may be shared by multiple threads
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     /**
      * Restore all settings of the fragmenter to their default values.
      */
@@ -389,6 +406,64 @@ public interface IMoleculeFragmenter {
     List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule)
             throws NullPointerException, IllegalArgumentException, CloneNotSupportedException;
 
+    /**
+     * Fragments the given molecule itself, without cloning it first, according to the respective algorithm and returns
+     * the resulting fragments. The molecule may be modified and its atoms and bonds may be reused in the fragments, so
+     * it must only be passed here if the caller owns it and never uses it afterwards, e.g. if it was freshly parsed for
+     * the fragmentation. The default clones it anyway via {@link #fragmentMolecule(IAtomContainer)}.
+     *
+     * @param aMolecule to fragment, consumed by the fragmentation
+     * @return a list of fragments (the list may be empty if no fragments are extracted, but the fragments should not be!)
+     * @throws NullPointerException if aMolecule is null
+     * @throws IllegalArgumentException if the given molecule cannot be fragmented but should be filtered or preprocessed
+     * @throws CloneNotSupportedException if cloning parts of the given molecule fails
+     */
+    default List<IAtomContainer> fragmentMoleculeInPlace(IAtomContainer aMolecule)
+            throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule);
+    }
+
+    /**
+     * Fragments clones(!) of the given molecules according to the respective algorithm and returns the resulting
+     * fragments of every molecule. Implementations may override this batch entry point to amortize the per-molecule
+     * setup of the algorithm over all given molecules; the default fragments them one after another via
+     * {@link #fragmentMolecule(IAtomContainer)}. The fragmentation of one molecule failing does not affect the others,
+     * so overriding implementations must not let an exception caused by a single molecule escape either.
+     *
+     * @param aMoleculeList molecules to fragment, each should be checked for filtering and preprocessing first
+     * @return a list with one entry per given molecule in the same order, the list of its fragments or null if the
+     * molecule could not be fragmented; the reason is logged
+     * @throws NullPointerException if the list is null
+     */
+    default List<List<IAtomContainer>> fragmentMolecules(List<IAtomContainer> aMoleculeList) throws NullPointerException {
+        return this.fragmentMolecules(aMoleculeList, false);
+    }
+
+    /**
+     * Fragments the given molecules like {@link #fragmentMolecules(List)} but, if they are consumable, without cloning
+     * them first, see {@link #fragmentMoleculeInPlace(IAtomContainer)}.
+     *
+     * @param aMoleculeList molecules to fragment, each should be checked for filtering and preprocessing first
+     * @param areMoleculesConsumable true if the caller owns all given molecules and never uses them afterwards
+     * @return a list with one entry per given molecule in the same order, the list of its fragments or null if the
+     * molecule could not be fragmented; the reason is logged
+     * @throws NullPointerException if the list is null
+     */
+    default List<List<IAtomContainer>> fragmentMolecules(List<IAtomContainer> aMoleculeList, boolean areMoleculesConsumable)
+            throws NullPointerException {
+        List<List<IAtomContainer>> tmpFragmentsLists = new ArrayList<>(aMoleculeList.size());
+        for (IAtomContainer tmpMolecule : aMoleculeList) {
+            try {
+                tmpFragmentsLists.add(areMoleculesConsumable ? this.fragmentMoleculeInPlace(tmpMolecule) : this.fragmentMolecule(tmpMolecule));
+            } catch (Exception anException) {
+                //any exception only fails this molecule, the others of the list are still fragmented
+                Logger.getLogger(IMoleculeFragmenter.class.getName()).log(Level.SEVERE, anException.toString(), anException);
+                tmpFragmentsLists.add(null);
+            }
+        }
+        return tmpFragmentsLists;
+    }
+
     /**
      * Returns true if the given molecule cannot be fragmented by the respective algorithm, even after preprocessing.
      * If the molecule is null, true is returned and no exception thrown.
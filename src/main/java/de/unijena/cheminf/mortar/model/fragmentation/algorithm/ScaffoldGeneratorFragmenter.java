@@ -1045,6 +1045,26 @@ public class ScaffoldGeneratorFragmenter implements IMoleculeFragmenter {
 
     @Override
     public List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, true);
+    }
+
+    @Override
+    public List<IAtomContainer> fragmentMoleculeInPlace(IAtomContainer aMolecule) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, false);
+    }
+
+    /**
+     * Fragments the given molecule or a clone of it, see {@link #fragmentMolecule(IAtomContainer)} and
+     * {@link #fragmentMoleculeInPlace(IAtomContainer)}.
+     *
+     * @param aMolecule to fragment
+     * @param isInputCloned false if the given molecule may be modified and its atoms and bonds reused in the fragments
+     * @return a list of fragments
+     * @throws NullPointerException if aMolecule is null
+     * @throws IllegalArgumentException if the given molecule cannot be fragmented but should be filtered or preprocessed
+     * @throws CloneNotSupportedException if cloning the given molecule fails
+     */
+    private List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule, boolean isInputCloned) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
         /*Parameter test*/
         Objects.requireNonNull(aMolecule, "Given molecule is null.");
         boolean tmpCanBeFragmented = this.canBeFragmented(aMolecule);
@@ -1054,7 +1074,7 @@ public class ScaffoldGeneratorFragmenter implements IMoleculeFragmenter {
         /*Generate fragments*/
         List<IAtomContainer> tmpReturnList = new ArrayList<>();
         List<IAtomContainer> tmpSideChainList = new ArrayList<>();
-        IAtomContainer tmpMoleculeClone = aMolecule.clone();
+        IAtomContainer tmpMoleculeClone = isInputCloned ? aMolecule.clone() : aMolecule;
         // note that Scaffold Generator detects aromaticity in the input molecule internally
         try {
             /*Generate side chains*/
@@ -1169,6 +1169,26 @@ public class SugarRemovalUtilityFragmenter implements IMoleculeFragmenter {
 
     @Override
     public List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, true);
+    }
+
+    @Override
+    public List<IAtomContainer> fragmentMoleculeInPlace(IAtomContainer aMolecule) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
+        return this.fragmentMolecule(aMolecule, false);
+    }
+
+    /**
+     * Fragments the given molecule or a clone of it, see {@link #fragmentMolecule(IAtomContainer)} and
+     * {@link #fragmentMoleculeInPlace(IAtomContainer)}.
+     *
+     * @param aMolecule to fragment
+     * @param isInputCloned false if the given molecule may be modified and its atoms and bonds reused in the fragments
+     * @return a list of fragments
+     * @throws NullPointerException if aMolecule is null
+     * @throws IllegalArgumentException if the given molecule cannot be fragmented but should be filtered or preprocessed
+     * @throws CloneNotSupportedException if cloning the given molecule fails
+     */
+    private List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule, boolean isInputCloned) throws NullPointerException, IllegalArgumentException, CloneNotSupportedException {
         Objects.requireNonNull(aMolecule, "Given molecule is null.");
         boolean tmpCanBeFragmented = this.canBeFragmented(aMolecule);
         if (!tmpCanBeFragmented) {
@@ -1176,7 +1196,7 @@ public class SugarRemovalUtilityFragmenter implements IMoleculeFragmenter {
         }
         List<IAtomContainer> tmpFragments;
         SugarRemovalUtilityFragmenter.SugarTypeToRemoveOption tmpOption = (SugarRemovalUtilityFragmenter.SugarTypeToRemoveOption) this.sugarTypeToRemoveSetting.get();
-        IAtomContainer tmpMoleculeClone = aMolecule.clone();
+        IAtomContainer tmpMoleculeClone = isInputCloned ? aMolecule.clone() : aMolecule;
         try {
             tmpFragments = switch (tmpOption) {
                 case SugarTypeToRemoveOption.CIRCULAR ->
@@ -0,0 +1,222 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.io;
+
+import de.unijena.cheminf.mortar.model.util.BasicDefinitions;
+import de.unijena.cheminf.mortar.model.util.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Utility for reading molecule files that may be gzip-compressed or packed into a zip archive. Compressed files are
+ * decompressed on the fly while they are read, so they never have to be decompressed to disk. Of a zip archive, only
+ * the first file entry is read; see {@link #getNumberOfFileEntries(File)} to detect archives whose other files would
+ * be left out.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public final class CompressedInputUtil {
+    //<editor-fold desc="Public static final class constants" defaultstate="collapsed">
+    /**
+     * File extension of gzip-compressed files, formatted as ".xyz".
+     */
+    public static final String GZIP_FILE_EXTENSION = ".gz";
+    //
+    /**
+     * File extension of zip archives, formatted as ".xyz".
+     */
+    public static final String ZIP_FILE_EXTENSION = ".zip";
+    //
+    /**
+     * Unmodifiable set of the file extensions of compressed files that can be read.
+     */
+    public static final Set<String> COMPRESSED_FILE_EXTENSIONS_SET = Set.of(CompressedInputUtil.GZIP_FILE_EXTENSION,
+            CompressedInputUtil.ZIP_FILE_EXTENSION);
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private static final class constants" defaultstate="collapsed">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CompressedInputUtil.class.getName());
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private constructor" defaultstate="collapsed">
+    /**
+     * Private parameter-less constructor.
+     * Introduced because javadoc build complained about classes without declared default constructor.
+     */
+    private CompressedInputUtil() {
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Public static methods" defaultstate="collapsed">
+    /**
+     * Returns whether the given file is gzip-compressed or a zip archive, judged by its file extension.
+     *
+     * @param aFile file to check
+     * @return true if the file is compressed
+     * @throws NullPointerException if the given file is null
+     */
+    public static boolean isCompressed(File aFile) throws NullPointerException {
+        return CompressedInputUtil.COMPRESSED_FILE_EXTENSIONS_SET.contains(FileUtil.getFileExtension(aFile.getPath()).toLowerCase());
+    }
+    //
+    /**
+     * Returns the name of the file whose content is read from the given file, i.e. the name without the ".gz"
+     * extension for gzip-compressed files, the name of the first file entry for zip archives, and the name of the file
+     * itself otherwise.
+     *
+     * @param aFile file to read
+     * @return name of the read content
+     * @throws IOException if the zip archive cannot be read or contains no file entry
+     * @throws NullPointerException if the given file is null
+     */
+    public static String getContentFileName(File aFile) throws IOException, NullPointerException {
+        String tmpFileExtension = FileUtil.getFileExtension(aFile.getPath()).toLowerCase();
+        if (tmpFileExtension.equals(CompressedInputUtil.GZIP_FILE_EXTENSION)) {
+            return aFile.getName().substring(0, aFile.getName().length() - CompressedInputUtil.GZIP_FILE_EXTENSION.length());
+        }
+        if (tmpFileExtension.equals(CompressedInputUtil.ZIP_FILE_EXTENSION)) {
+            try (ZipInputStream tmpZipInputStream = new ZipInputStream(new BufferedInputStream(new FileInputStream(aFile), BasicDefinitions.BUFFER_SIZE))) {
+                return new File(CompressedInputUtil.moveToFirstFileEntry(tmpZipInputStream, aFile).getName()).getName();
+            }
+        }
+        return aFile.getName();
+    }
+    //
+    /**
+     * Returns the number of file entries, i.e. entries that are not directories, of the given zip archive, read from its
+     * central directory without decompressing it. For all other files, 1 is returned because their whole content is read.
+     *
+     * @param aFile file to read
+     * @return number of files in the zip archive or 1 if the file is no zip archive
+     * @throws IOException if the zip archive cannot be read
+     * @throws NullPointerException if the given file is null
+     */
+    public static int getNumberOfFileEntries(File aFile) throws IOException, NullPointerException {
+        if (!FileUtil.getFileExtension(aFile.getPath()).toLowerCase().equals(CompressedInputUtil.ZIP_FILE_EXTENSION)) {
+            return 1;
+        }
+        try (ZipFile tmpZipFile = new ZipFile(aFile)) {
+            return (int) tmpZipFile.stream().filter(anEntry -> !anEntry.isDirectory()).count();
+        }
+    }
+    //
+    /**
+     * Returns the name of the content of the given file without its file extension, see
+     * {@link #getContentFileName(File)}. Used to name molecules without name after their file.
+     *
+     * @param aFile file to read
+     * @return name of the read content without file extension
+     * @throws IOException if the zip archive cannot be read or contains no file entry
+     * @throws NullPointerException if the given file is null
+     */
+    public static String getContentFileNameWithoutExtension(File aFile) throws IOException, NullPointerException {
+        return FileUtil.getFileNameWithoutExtension(new File(CompressedInputUtil.getContentFileName(aFile)));
+    }
+    //
+    /**
+     * Opens a buffered input stream on the content of the given file that decompresses it on the fly if the file is
+     * gzip-compressed or a zip archive. The returned stream supports mark and reset.
+     *
+     * @param aFile file to read
+     * @return buffered input stream of the file content
+     * @throws IOException if the file cannot be found or opened, or the zip archive contains no file entry
+     * @throws NullPointerException if the given file is null
+     */
+    public static InputStream openInputStream(File aFile) throws IOException, NullPointerException {
+        String tmpFileExtension = FileUtil.getFileExtension(aFile.getPath()).toLowerCase();
+        // throws FileNotFoundException if the file cannot be found
+        InputStream tmpFileInputStream = new FileInputStream(aFile);
+        try {
+            if (tmpFileExtension.equals(CompressedInputUtil.GZIP_FILE_EXTENSION)) {
+                return new BufferedInputStream(new GZIPInputStream(tmpFileInputStream, BasicDefinitions.BUFFER_SIZE), BasicDefinitions.BUFFER_SIZE);
+            }
+            if (tmpFileExtension.equals(CompressedInputUtil.ZIP_FILE_EXTENSION)) {
+                ZipInputStream tmpZipInputStream = new ZipInputStream(new BufferedInputStream(tmpFileInputStream, BasicDefinitions.BUFFER_SIZE));
+                CompressedInputUtil.moveToFirstFileEntry(tmpZipInputStream, aFile);
+                return new BufferedInputStream(tmpZipInputStream, BasicDefinitions.BUFFER_SIZE);
+            }
+            return new BufferedInputStream(tmpFileInputStream, BasicDefinitions.BUFFER_SIZE);
+        } catch (IOException | RuntimeException anException) {
+            tmpFileInputStream.close();
+            throw anException;
+        }
+    }
+    //
+    /**
+     * Opens a buffered reader on the content of the given file that decompresses it on the fly if the file is
+     * gzip-compressed or a zip archive, see {@link #openInputStream(File)}. The content is decoded with the default
+     * charset like by a FileReader.
+     *
+     * @param aFile file to read
+     * @return buffered reader of the file content
+     * @throws IOException if the file cannot be found or opened, or the zip archive contains no file entry
+     * @throws NullPointerException if the given file is null
+     */
+    public static BufferedReader openReader(File aFile) throws IOException, NullPointerException {
+        return new BufferedReader(new InputStreamReader(CompressedInputUtil.openInputStream(aFile), Charset.defaultCharset()),
+                BasicDefinitions.BUFFER_SIZE);
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private static methods" defaultstate="collapsed">
+    /**
+     * Positions the given zip input stream at the start of the first entry that is not a directory.
+     *
+     * @param aZipInputStream stream of the zip archive, positioned before its first entry
+     * @param aFile zip archive, for the log and exception messages
+     * @return the first file entry
+     * @throws IOException if the archive cannot be read or contains no file entry
+     */
+    private static ZipEntry moveToFirstFileEntry(ZipInputStream aZipInputStream, File aFile) throws IOException {
+        ZipEntry tmpEntry;
+        while ((tmpEntry = aZipInputStream.getNextEntry()) != null) {
+            if (!tmpEntry.isDirectory()) {
+                CompressedInputUtil.LOGGER.log(Level.FINE, "Reading entry {0} of zip archive {1}", new Object[]{tmpEntry.getName(), aFile.getName()});
+                return tmpEntry;
+            }
+        }
+        throw new IOException("Zip archive " + aFile.getPath() + " contains no file.");
+    }
+    //</editor-fold>
+}
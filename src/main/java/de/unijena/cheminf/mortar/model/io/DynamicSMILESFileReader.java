@@ -25,9 +25,6 @@
 
 package de.unijena.cheminf.mortar.model.io;
 
-import de.unijena.cheminf.mortar.model.util.BasicDefinitions;
-import de.unijena.cheminf.mortar.model.util.FileUtil;
-
 import org.openscience.cdk.AtomContainerSet;
 import org.openscience.cdk.exception.InvalidSmilesException;
 import org.openscience.cdk.interfaces.IAtomContainer;
@@ -39,10 +36,20 @@ import org.openscience.cdk.smiles.SmilesParser;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -83,6 +90,22 @@ public class DynamicSMILESFileReader {
      * Logger of this class.
      */
     private static final Logger LOGGER = Logger.getLogger(DynamicSMILESFileReader.class.getName());
+    //
+    /**
+     * Number of lines that are read into one block and parsed together by one parser thread.
+     */
+    private static final int DEFAULT_LINE_BLOCK_SIZE = 1000;
+    //
+    /**
+     * Maximum number of line blocks per parser thread that are read ahead of the oldest block that is not parsed yet,
+     * to limit the memory consumed by lines and parsed molecules waiting to be added to the result.
+     */
+    private static final int MAXIMUM_PENDING_LINE_BLOCKS_PER_THREAD = 4;
+    //
+    /**
+     * Name of the parser threads.
+     */
+    private static final String PARSER_THREAD_NAME = "MORTAR_SMILES_Parser";
     //</editor-fold>
     //
     //<editor-fold desc="Private variables">
@@ -91,13 +114,54 @@ public class DynamicSMILESFileReader {
      * headline not counted.
      */
     private int skippedLinesCounter;
+    //
+    /**
+     * Number of threads that parse the SMILES codes of a file in parallel.
+     */
+    private final int numberOfParserThreads;
+    //
+    /**
+     * Number of lines that are read into one block and parsed together by one parser thread.
+     */
+    private final int lineBlockSize;
     //</editor-fold>
     //
-    //<editor-fold desc="Constructor">
+    //<editor-fold desc="Constructors">
     /**
-     * Creates new instance. Initialises the skipped lines counter.
+     * Creates new instance that parses the SMILES codes on the reading thread. Initialises the skipped lines counter.
      */
     public DynamicSMILESFileReader() {
+        this(1);
+    }
+    //
+    /**
+     * Creates new instance that parses the SMILES codes of a file with the given number of parallel threads while the
+     * calling thread reads the file. Initialises the skipped lines counter.
+     *
+     * @param aNumberOfParserThreads number of threads parsing the SMILES codes, 1 to parse them on the reading thread
+     * @throws IllegalArgumentException if the given number is smaller than 1
+     */
+    public DynamicSMILESFileReader(int aNumberOfParserThreads) throws IllegalArgumentException {
+        this(aNumberOfParserThreads, DynamicSMILESFileReader.DEFAULT_LINE_BLOCK_SIZE);
+    }
+    //
+    /**
+     * Creates new instance with the given number of parser threads and lines per parsed block. Initialises the skipped
+     * lines counter.
+     *
+     * @param aNumberOfParserThreads number of threads parsing the SMILES codes, 1 to parse them on the reading thread
+     * @param aLineBlockSize number of lines parsed together by one parser thread
+     * @throws IllegalArgumentException if one of the given numbers is smaller than 1
+     */
+    DynamicSMILESFileReader(int aNumberOfParserThreads, int aLineBlockSize) throws IllegalArgumentException {
+        if (aNumberOfParserThreads < 1) {
+            throw new IllegalArgumentException("Number of parser threads must be at least 1 but is " + aNumberOfParserThreads);
+        }
+        if (aLineBlockSize < 1) {
+            throw new IllegalArgumentException("Line block size must be at least 1 but is " + aLineBlockSize);
+        }
+        this.numberOfParserThreads = aNumberOfParserThreads;
+        this.lineBlockSize = aLineBlockSize;
         this.skippedLinesCounter = 0;
     }
     //</editor-fold>
@@ -128,9 +192,8 @@ public class DynamicSMILESFileReader {
      */
     public static DynamicSMILESFileFormat detectFormat(File aFile) throws IOException {
         try (
-                // throws FileNotFoundException if file cannot be found, see catch block below
-                FileReader tmpSmilesFileReader = new FileReader(aFile);
-                BufferedReader tmpSmilesFileBufferedReader = new BufferedReader(tmpSmilesFileReader, BasicDefinitions.BUFFER_SIZE)
+                // throws FileNotFoundException if file cannot be found, see catch block below; decompresses gzip and zip files
+                BufferedReader tmpSmilesFileBufferedReader = CompressedInputUtil.openReader(aFile)
         ) {
             IChemObjectBuilder tmpBuilder = SilentChemObjectBuilder.getInstance();
             // AtomContainer to save the parsed SMILES in
@@ -235,6 +298,8 @@ public class DynamicSMILESFileReader {
      * Skipped lines (due to being empty or containing erroneous SMILES codes) are counted and this counter can be queried
      * after import via the respective getter method. If a name/ID column is given in the file, it is read and saved as
      * a property of the respective atom container under the name property key taken from the Importer class.
+     * The calling thread reads the file in blocks of lines that are parsed by the parser threads of this instance, if
+     * there is more than one, and the parsed molecules are added to the returned set in the order of the file.
      *
      * @param aFile a SMILES file
      * @param aFormat the determined format of the file
@@ -242,66 +307,196 @@ public class DynamicSMILESFileReader {
      * @throws IOException if the given file cannot be found
      */
     public IAtomContainerSet readFile(File aFile, DynamicSMILESFileFormat aFormat) throws IOException {
+        IAtomContainerSet tmpAtomContainerSet = new AtomContainerSet();
+        this.readFile(aFile, aFormat, tmpAtomContainerSet::addAtomContainer);
+        return tmpAtomContainerSet;
+    }
+    //
+    /**
+     * Reads SMILES file according to the given format like {@link #readFile(File, DynamicSMILESFileFormat)} but hands
+     * every parsed molecule to the given consumer instead of collecting them, so that they can be processed and
+     * discarded while the file is still being read. The consumer is called on the calling thread in the order of the file.
+     *
+     * @param aFile a SMILES file
+     * @param aFormat the determined format of the file
+     * @param aMoleculeConsumer consumer of the parsed molecules
+     * @throws IOException if the given file cannot be found
+     */
+    public void readFile(File aFile, DynamicSMILESFileFormat aFormat, Consumer<IAtomContainer> aMoleculeConsumer) throws IOException {
+        ExecutorService tmpParserExecutor = null;
         try (
-                // throws FileNotFoundException if file cannot be found, see catch block below
-                FileReader tmpSmilesFileReader = new FileReader(aFile);
-                BufferedReader tmpSmilesFileBufferedReader = new BufferedReader(tmpSmilesFileReader, BasicDefinitions.BUFFER_SIZE)
+                // throws FileNotFoundException if file cannot be found, see catch block below; decompresses gzip and zip files
+                BufferedReader tmpSmilesFileBufferedReader = CompressedInputUtil.openReader(aFile)
         ) {
-            IAtomContainerSet tmpAtomContainerSet = new AtomContainerSet();
-            IChemObjectBuilder tmpBuilder = SilentChemObjectBuilder.getInstance();
-            // AtomContainer to save the parsed SMILES in
-            IAtomContainer tmpMolecule;
-            SmilesParser tmpSmilesParser = new SmilesParser(tmpBuilder);
+            String tmpFileNameWithoutExtension = CompressedInputUtil.getContentFileNameWithoutExtension(aFile);
+            //every parser thread uses its own parser, it is not thread-safe
+            ThreadLocal<SmilesParser> tmpSmilesParser = ThreadLocal.withInitial(() -> new SmilesParser(SilentChemObjectBuilder.getInstance()));
+            if (this.numberOfParserThreads > 1) {
+                tmpParserExecutor = Executors.newFixedThreadPool(this.numberOfParserThreads, aRunnable -> {
+                    Thread tmpThread = new Thread(aRunnable, DynamicSMILESFileReader.PARSER_THREAD_NAME);
+                    tmpThread.setDaemon(true);
+                    return tmpThread;
+                });
+            }
+            Deque<Future<ParsedLineBlock>> tmpPendingBlocks = new ArrayDeque<>();
+            int tmpMaximumNumberOfPendingBlocks = this.numberOfParserThreads * DynamicSMILESFileReader.MAXIMUM_PENDING_LINE_BLOCKS_PER_THREAD;
             String tmpSmilesFileCurrentLine;
-            String tmpSmilesFileDeterminedSeparator = aFormat.getSeparatorChar().toString();
-            String[] tmpProcessedLineArray = new String[0];
-            int tmpSmilesCodeExpectedPosition = aFormat.getSMILESCodeColumnPosition();
-            int tmpIDExpectedPosition = aFormat.getIDColumnPosition();
             this.skippedLinesCounter = 0;
             int tmpLineInFileCounter = -1;
             if (aFormat.hasHeaderLine()) {
-                tmpSmilesFileCurrentLine = tmpSmilesFileBufferedReader.readLine();
+                tmpSmilesFileBufferedReader.readLine();
                 tmpLineInFileCounter++;
             }
+            List<String> tmpLineBlock = new ArrayList<>(this.lineBlockSize);
+            int tmpLineBlockFirstLineNumber = tmpLineInFileCounter + 1;
             while (!Thread.currentThread().isInterrupted() && (tmpSmilesFileCurrentLine = tmpSmilesFileBufferedReader.readLine()) != null) {
                 tmpLineInFileCounter++;
-                //trying to parse as SMILES code
-                try {
-                    String tmpSmiles;
-                    if (aFormat.hasIDColumn()) {
-                        tmpProcessedLineArray = tmpSmilesFileCurrentLine.split(tmpSmilesFileDeterminedSeparator, 3);
-                        tmpSmiles = tmpProcessedLineArray[tmpSmilesCodeExpectedPosition].trim().isBlank() ? null :
-                                tmpProcessedLineArray[tmpSmilesCodeExpectedPosition].trim();
-                    } else {
-                        tmpSmiles = tmpSmilesFileCurrentLine.trim();
-                    }
-                    if (tmpSmiles != null && !tmpSmiles.isEmpty()) {
-                        //throws exception if SMILES string is null, goes to catch block
-                        tmpMolecule = tmpSmilesParser.parseSmiles(tmpSmiles);
-                    } else {
-                        throw new InvalidSmilesException("String is empty");
-                    }
-                } catch (InvalidSmilesException | IndexOutOfBoundsException | NullPointerException anException) {
-                    this.skippedLinesCounter++;
-                    DynamicSMILESFileReader.LOGGER.log(Level.WARNING, String.format("Import failed for structure in line (starting at 0):\t%s", tmpLineInFileCounter));
+                tmpLineBlock.add(tmpSmilesFileCurrentLine);
+                if (tmpLineBlock.size() < this.lineBlockSize) {
                     continue;
                 }
-                //setting the name of the atom container
-                String tmpName;
-                if (aFormat.hasIDColumn() && tmpProcessedLineArray.length > 1 && !tmpProcessedLineArray[tmpIDExpectedPosition].trim().isEmpty()) {
-                    tmpName = tmpProcessedLineArray[tmpIDExpectedPosition].trim();
-                } else {
-                    tmpName = FileUtil.getFileNameWithoutExtension(aFile) + tmpLineInFileCounter;
+                tmpPendingBlocks.add(this.submitLineBlock(tmpParserExecutor, tmpLineBlock, tmpLineBlockFirstLineNumber,
+                        aFormat, tmpFileNameWithoutExtension, tmpSmilesParser));
+                tmpLineBlock = new ArrayList<>(this.lineBlockSize);
+                tmpLineBlockFirstLineNumber = tmpLineInFileCounter + 1;
+                //wait for the oldest block before reading further ahead
+                while (tmpPendingBlocks.size() >= tmpMaximumNumberOfPendingBlocks && !Thread.currentThread().isInterrupted()) {
+                    this.addParsedLineBlock(tmpPendingBlocks.poll(), aMoleculeConsumer);
                 }
-                tmpMolecule.setProperty(Importer.MOLECULE_NAME_PROPERTY_KEY, tmpName);
-                tmpAtomContainerSet.addAtomContainer(tmpMolecule);
             }
-            return tmpAtomContainerSet;
+            if (!tmpLineBlock.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                tmpPendingBlocks.add(this.submitLineBlock(tmpParserExecutor, tmpLineBlock, tmpLineBlockFirstLineNumber,
+                        aFormat, tmpFileNameWithoutExtension, tmpSmilesParser));
+            }
+            while (!tmpPendingBlocks.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                this.addParsedLineBlock(tmpPendingBlocks.poll(), aMoleculeConsumer);
+            }
         } catch (FileNotFoundException anException) {
             String tmpMessage = "File " + aFile.getPath() + " could not be found";
             DynamicSMILESFileReader.LOGGER.log(Level.SEVERE, tmpMessage);
             throw new IOException(tmpMessage);
+        } finally {
+            if (tmpParserExecutor != null) {
+                //also cancels the blocks still pending if the import was interrupted
+                tmpParserExecutor.shutdownNow();
+            }
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private methods">
+    /**
+     * Parses the given block of lines with the given executor or directly on the calling thread if the executor is null.
+     *
+     * @param anExecutor parser threads or null
+     * @param aLineBlock lines to parse
+     * @param aFirstLineNumber number of the first given line in the file, starting at 0
+     * @param aFormat the determined format of the file
+     * @param aFileNameWithoutExtension file name used to name molecules without name/ID
+     * @param aSmilesParser parser of the thread parsing the block
+     * @return the future parsed block
+     */
+    private Future<ParsedLineBlock> submitLineBlock(ExecutorService anExecutor, List<String> aLineBlock, int aFirstLineNumber,
+                                                    DynamicSMILESFileFormat aFormat, String aFileNameWithoutExtension,
+                                                    ThreadLocal<SmilesParser> aSmilesParser) {
+        Callable<ParsedLineBlock> tmpParsing = () -> DynamicSMILESFileReader.parseLineBlock(aLineBlock, aFirstLineNumber,
+                aFormat, aFileNameWithoutExtension, aSmilesParser.get());
+        if (anExecutor == null) {
+            FutureTask<ParsedLineBlock> tmpFutureTask = new FutureTask<>(tmpParsing);
+            tmpFutureTask.run();
+            return tmpFutureTask;
+        }
+        return anExecutor.submit(tmpParsing);
+    }
+    //
+    /**
+     * Waits for the given block to be parsed, hands its molecules to the given consumer, and counts its skipped lines.
+     * If the calling thread is interrupted while waiting, the block is dropped and the interrupted status is restored.
+     *
+     * @param aParsedLineBlock future parsed block
+     * @param aMoleculeConsumer consumer of the molecules
+     * @throws IOException if parsing the block failed unexpectedly
+     */
+    private void addParsedLineBlock(Future<ParsedLineBlock> aParsedLineBlock, Consumer<IAtomContainer> aMoleculeConsumer) throws IOException {
+        ParsedLineBlock tmpParsedLineBlock;
+        try {
+            tmpParsedLineBlock = aParsedLineBlock.get();
+        } catch (InterruptedException anException) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException anException) {
+            if (anException.getCause() instanceof RuntimeException tmpRuntimeException) {
+                throw tmpRuntimeException;
+            }
+            if (anException.getCause() instanceof Error tmpError) {
+                throw tmpError;
+            }
+            throw new IOException(anException.getCause());
+        }
+        for (IAtomContainer tmpMolecule : tmpParsedLineBlock.molecules()) {
+            aMoleculeConsumer.accept(tmpMolecule);
         }
+        this.skippedLinesCounter += tmpParsedLineBlock.numberOfSkippedLines();
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private static methods">
+    /**
+     * Parses the SMILES codes and IDs of the given lines according to the given format. Molecules without name/ID are
+     * named after the file and their line number. Lines that cannot be parsed are logged and counted.
+     *
+     * @param aLineBlock lines to parse
+     * @param aFirstLineNumber number of the first given line in the file, starting at 0
+     * @param aFormat the determined format of the file
+     * @param aFileNameWithoutExtension file name used to name molecules without name/ID
+     * @param aSmilesParser parser to use, exclusively for the calling thread
+     * @return parsed molecules in the order of the lines and the number of skipped lines
+     */
+    private static ParsedLineBlock parseLineBlock(List<String> aLineBlock, int aFirstLineNumber, DynamicSMILESFileFormat aFormat,
+                                                  String aFileNameWithoutExtension, SmilesParser aSmilesParser) {
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(aLineBlock.size());
+        int tmpSkippedLinesCounter = 0;
+        // AtomContainer to save the parsed SMILES in
+        IAtomContainer tmpMolecule;
+        String tmpSmilesFileDeterminedSeparator = aFormat.getSeparatorChar().toString();
+        String[] tmpProcessedLineArray = new String[0];
+        int tmpSmilesCodeExpectedPosition = aFormat.getSMILESCodeColumnPosition();
+        int tmpIDExpectedPosition = aFormat.getIDColumnPosition();
+        for (int i = 0; i < aLineBlock.size(); i++) {
+            String tmpSmilesFileCurrentLine = aLineBlock.get(i);
+            int tmpLineInFileCounter = aFirstLineNumber + i;
+            //trying to parse as SMILES code
+            try {
+                String tmpSmiles;
+                if (aFormat.hasIDColumn()) {
+                    tmpProcessedLineArray = tmpSmilesFileCurrentLine.split(tmpSmilesFileDeterminedSeparator, 3);
+                    tmpSmiles = tmpProcessedLineArray[tmpSmilesCodeExpectedPosition].trim().isBlank() ? null :
+                            tmpProcessedLineArray[tmpSmilesCodeExpectedPosition].trim();
+                } else {
+                    tmpSmiles = tmpSmilesFileCurrentLine.trim();
+                }
+                if (tmpSmiles != null && !tmpSmiles.isEmpty()) {
+                    //throws exception if SMILES string is null, goes to catch block
+                    tmpMolecule = aSmilesParser.parseSmiles(tmpSmiles);
+                } else {
+                    throw new InvalidSmilesException("String is empty");
+                }
+            } catch (InvalidSmilesException | IndexOutOfBoundsException | NullPointerException anException) {
+                tmpSkippedLinesCounter++;
+                DynamicSMILESFileReader.LOGGER.log(Level.WARNING, String.format("Import failed for structure in line (starting at 0):\t%s", tmpLineInFileCounter));
+                continue;
+            }
+            //setting the name of the atom container
+            String tmpName;
+            if (aFormat.hasIDColumn() && tmpProcessedLineArray.length > 1 && !tmpProcessedLineArray[tmpIDExpectedPosition].trim().isEmpty()) {
+                tmpName = tmpProcessedLineArray[tmpIDExpectedPosition].trim();
+            } else {
+                tmpName = aFileNameWithoutExtension + tmpLineInFileCounter;
+            }
+            tmpMolecule.setProperty(Importer.MOLECULE_NAME_PROPERTY_KEY, tmpName);
+            tmpMolecules.add(tmpMolecule);
+        }
+        return new ParsedLineBlock(tmpMolecules, tmpSkippedLinesCounter);
     }
     //</editor-fold>
     //
@@ -331,4 +526,15 @@ public class DynamicSMILESFileReader {
         return matcher.find();
     }
     //</editor-fold>
+    //
+    //<editor-fold desc="Private records">
+    /**
+     * Molecules parsed from one block of lines and the number of lines of the block that were skipped.
+     *
+     * @param molecules parsed molecules in the order of the lines
+     * @param numberOfSkippedLines number of lines that could not be parsed
+     */
+    private record ParsedLineBlock(List<IAtomContainer> molecules, int numberOfSkippedLines) {
+    }
+    //</editor-fold>
 }
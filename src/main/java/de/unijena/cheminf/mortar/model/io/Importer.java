@@ -28,12 +28,14 @@ package de.unijena.cheminf.mortar.model.io;
 import de.unijena.cheminf.mortar.gui.util.GuiUtil;
 import de.unijena.cheminf.mortar.message.Message;
 import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+import de.unijena.cheminf.mortar.model.data.MoleculeIndex;
 import de.unijena.cheminf.mortar.model.settings.SettingsContainer;
 import de.unijena.cheminf.mortar.model.util.BasicDefinitions;
 import de.unijena.cheminf.mortar.model.util.ChemUtil;
 import de.unijena.cheminf.mortar.model.util.FileUtil;
 import de.unijena.cheminf.mortar.model.util.LogUtil;
 
+import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
@@ -54,26 +56,32 @@ import org.openscience.cdk.io.PDBReader;
 import org.openscience.cdk.io.formats.IChemFormat;
 import org.openscience.cdk.io.formats.MDLV2000Format;
 import org.openscience.cdk.io.formats.MDLV3000Format;
-import org.openscience.cdk.io.iterator.IteratingSDFReader;
 import org.openscience.cdk.io.setting.IOSetting;
 import org.openscience.cdk.silent.SilentChemObjectBuilder;
 import org.openscience.cdk.tools.CDKHydrogenAdder;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 import org.openscience.cdk.tools.manipulator.ChemFileManipulator;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -147,7 +155,8 @@ public class Importer {
      */
     public static final String MOLECULE_NAME_PROPERTY_KEY = "MORTAR_IMPORTER_NAME";
     /**
-     * Unmodifiable Set of valid files extensions for file import.
+     * Unmodifiable Set of valid files extensions for file import, including the extensions of gzip-compressed files
+     * and zip archives whose content has one of the other extensions.
      */
     public static final Set<String> VALID_IMPORT_FILE_EXTENSIONS_SET;
     static {
@@ -155,6 +164,7 @@ public class Importer {
         for (Importer.ValidImportFileTypes tmpType : Importer.ValidImportFileTypes.values()) {
             tmpSet.add(tmpType.getFileExtension());
         }
+        tmpSet.addAll(CompressedInputUtil.COMPRESSED_FILE_EXTENSIONS_SET);
         VALID_IMPORT_FILE_EXTENSIONS_SET = Collections.unmodifiableSet(tmpSet);
     }
     //</editor-fold>
@@ -164,6 +174,28 @@ public class Importer {
      * Logger of this class.
      */
     private static final Logger LOGGER = Logger.getLogger(Importer.class.getName());
+    //
+    /**
+     * Hydrogen adder of every thread preprocessing imported molecules.
+     */
+    private static final ThreadLocal<CDKHydrogenAdder> HYDROGEN_ADDER = ThreadLocal.withInitial(
+            () -> CDKHydrogenAdder.getInstance(SilentChemObjectBuilder.getInstance()));
+    //
+    /**
+     * Number of imported molecules that are preprocessed and parsed together by one import thread.
+     */
+    private static final int IMPORT_BATCH_SIZE = 256;
+    //
+    /**
+     * Maximum number of batches per import thread that are waiting to be processed or to be added to the result, to
+     * limit the memory consumed by atom containers of the file.
+     */
+    private static final int MAXIMUM_PENDING_IMPORT_BATCHES_PER_THREAD = 4;
+    //
+    /**
+     * Name of the threads preprocessing and parsing imported molecules.
+     */
+    private static final String IMPORT_THREAD_NAME = "MORTAR_Import";
     //</editor-fold>
     //
     //<editor-fold desc="private class variables" defaultstate="collapsed">
@@ -175,6 +207,10 @@ public class Importer {
      * Container of general MORTAR settings, providing the recent directory path and other import-related settings.
      */
     private final SettingsContainer settingsContainer;
+    /**
+     * Index the imported molecules are appended to, null if they get a new index.
+     */
+    private MoleculeIndex moleculeIndexToExtend;
     //</editor-fold>
     //
     //<editor-fold desc="Constructor" defaultstate="collapsed">
@@ -194,6 +230,7 @@ public class Importer {
             Importer.LOGGER.log(Level.INFO, "Recent directory could not be read, resetting to default.");
         }
         this.fileName = null;
+        this.moleculeIndexToExtend = null;
     }
     //</editor-fold>
     //
@@ -203,7 +240,8 @@ public class Importer {
      * CSV/TSV/DSV file will be treated
      * as a SMILES file. If the respective setting is activated, incomplete valences of the imported atoms are filled
      * with implicit hydrogen atoms. If no molecule name or ID is given in the input file, the file name with an appended
-     * counter is used as such and added to the returned atom containers as a property.
+     * counter is used as such and added to the returned atom containers as a property. All file types can also be
+     * imported gzip-compressed (e.g. "x.sdf.gz") or as the first file of a zip archive; they are decompressed on the fly.
      *
      * @param aFile File to import
      * @param isRegardStereo whether stereochemistry should be encoded in the SMILES strings
@@ -222,8 +260,8 @@ public class Importer {
             this.settingsContainer.setRecentDirectoryPathSetting(SettingsContainer.RECENT_DIRECTORY_PATH_SETTING_DEFAULT);
             Importer.LOGGER.log(Level.INFO, "Recent directory could not be read, resetting to default.");
         }
-        String tmpFilePath = aFile.getPath();
-        String tmpFileExtension = FileUtil.getFileExtension(tmpFilePath);
+        //the file type of compressed files is given by the extension of their content, e.g. ".sdf" for "x.sdf.gz"
+        String tmpFileExtension = FileUtil.getFileExtension(CompressedInputUtil.getContentFileName(aFile));
         Importer.ValidImportFileTypes tmpInputFileType = null;
         for (Importer.ValidImportFileTypes tmpType : Importer.ValidImportFileTypes.values()) {
             if (tmpType.getFileExtension().equals(tmpFileExtension)) {
@@ -233,72 +271,41 @@ public class Importer {
         if (tmpInputFileType == null) {
             return null;
         }
-        IAtomContainerSet tmpImportedMoleculesSet;
-        switch (tmpInputFileType) {
-            case Importer.ValidImportFileTypes.MOL_FILE:
-                tmpImportedMoleculesSet = this.importMolFile(aFile);
-                break;
-            case Importer.ValidImportFileTypes.STRUCTURE_DATA_FORMAT_FILE:
-                tmpImportedMoleculesSet = this.importSDFile(aFile);
-                break;
-            //Needs more work before it can be made available
-            /*case ".pdb":
-                tmpImportedMoleculesSet = this.importPDBFile(aFile);
-                break;*/
-            case Importer.ValidImportFileTypes.SMILES_FILE,
-                 Importer.ValidImportFileTypes.TEXT_FILE,
-                 Importer.ValidImportFileTypes.COMMA_SEPARATED_VALUES_FILE,
-                 Importer.ValidImportFileTypes.TAB_SEPARATED_VALUES_FILE:
-                tmpImportedMoleculesSet = this.importSMILESFile(aFile);
-                break;
-            default:
-                throw new UnsupportedOperationException(String.format("Input file type %s is defined but not treated " +
-                        "in Importer.importMoleculeFile() yet.", tmpInputFileType.toString()));
-        }
-        this.preprocessMoleculeSet(tmpImportedMoleculesSet, isFillOpenValencesWithImplH);
-        this.fileName = aFile.getName();
-        List<MoleculeDataModel> tmpReturnList = this.parse(tmpImportedMoleculesSet, isRegardStereo);
-        return tmpReturnList;
-    }
-    //
-    /**
-     * Parses an atom container set into a list of the MORTAR-internal MoleculeDataModel instances. If the parameter is null or empty, an empty
-     * list is returned. Most time-consuming step is the SMILES generation, especially if stereochemistry is regarded because
-     * then, the InChI numbering algorithm is used. Logs the size of the input data set and the number of exceptions that occurred during
-     * SMILES generation (leads to molecule not being parsed into MoleculeDataModel).
-     *
-     * @param anAtomContainerSet the set to parse
-     * @param isRegardStereo whether stereochemistry should be encoded in the SMILES strings
-     * @return list of MoleculeDataModel instances or empty list if the input set is empty or null
-     */
-    private List<MoleculeDataModel> parse(IAtomContainerSet anAtomContainerSet, boolean isRegardStereo) {
-        if (anAtomContainerSet == null || anAtomContainerSet.isEmpty()) {
-            return new ArrayList<>(0);
-        }
-        List<MoleculeDataModel> tmpReturnList = new ArrayList<>(anAtomContainerSet.getAtomContainerCount());
-        int tmpExceptionCount = 0;
-        for (IAtomContainer tmpAtomContainer : anAtomContainerSet.atomContainers()) {
-            //returns null if no SMILES code could be created
-            String tmpSmiles = ChemUtil.createUniqueSmiles(tmpAtomContainer, isRegardStereo);
-            if (tmpSmiles == null) {
-                tmpExceptionCount++;
-                continue;
-            }
-            MoleculeDataModel tmpMoleculeDataModel;
-            if (this.settingsContainer.getKeepAtomContainerInDataModelSetting()) {
-                tmpMoleculeDataModel = new MoleculeDataModel(tmpAtomContainer, isRegardStereo);
-            } else {
-                tmpMoleculeDataModel = new MoleculeDataModel(tmpSmiles, tmpAtomContainer.getTitle(), tmpAtomContainer.getProperties());
+        int tmpNumberOfFileEntries = CompressedInputUtil.getNumberOfFileEntries(aFile);
+        if (tmpNumberOfFileEntries > 1) {
+            Importer.LOGGER.log(Level.WARNING, "Zip archive {0} contains {1} files, only the first one, {2}, is imported.",
+                    new Object[]{aFile.getName(), tmpNumberOfFileEntries, CompressedInputUtil.getContentFileName(aFile)});
+        }
+        //every molecule is preprocessed and parsed into the data model as soon as it is read, so that its atom
+        // container can be discarded right away instead of holding the atom containers of the whole file
+        try (Importer.MoleculeImportPipeline tmpPipeline = new Importer.MoleculeImportPipeline(isRegardStereo,
+                isFillOpenValencesWithImplH, Importer.getNumberOfImportThreads(this.settingsContainer.getNumberOfTasksForFragmentationSetting()))) {
+            switch (tmpInputFileType) {
+                case Importer.ValidImportFileTypes.MOL_FILE:
+                    for (IAtomContainer tmpAtomContainer : this.importMolFile(aFile).atomContainers()) {
+                        tmpPipeline.accept(tmpAtomContainer);
+                    }
+                    break;
+                case Importer.ValidImportFileTypes.STRUCTURE_DATA_FORMAT_FILE:
+                    this.importSDFile(aFile, tmpPipeline);
+                    break;
+                //Needs more work before it can be made available
+                /*case ".pdb":
+                    tmpImportedMoleculesSet = this.importPDBFile(aFile);
+                    break;*/
+                case Importer.ValidImportFileTypes.SMILES_FILE,
+                     Importer.ValidImportFileTypes.TEXT_FILE,
+                     Importer.ValidImportFileTypes.COMMA_SEPARATED_VALUES_FILE,
+                     Importer.ValidImportFileTypes.TAB_SEPARATED_VALUES_FILE:
+                    this.importSMILESFile(aFile, tmpPipeline);
+                    break;
+                default:
+                    throw new UnsupportedOperationException(String.format("Input file type %s is defined but not treated " +
+                            "in Importer.importMoleculeFile() yet.", tmpInputFileType.toString()));
             }
-            tmpMoleculeDataModel.setName(tmpAtomContainer.getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
-            tmpReturnList.add(tmpMoleculeDataModel);
-        }
-        int finalTmpExceptionCount = tmpExceptionCount;
-        Importer.LOGGER.log(Level.INFO, () -> String.format("Successfully imported %d molecules from file: %s; " +
-                "%d molecules could not be parsed into the internal data model (SMILES code generation failed). " +
-                "See above how many molecules could not be read from the input file at all or produced exceptions while preprocessing.",
-                anAtomContainerSet.getAtomContainerCount(), this.getFileName(), finalTmpExceptionCount));
-        return tmpReturnList;
+            this.fileName = aFile.getName();
+            return tmpPipeline.finish();
+        }
     }
     //
     /**
@@ -310,6 +317,17 @@ public class Importer {
         return this.fileName;
     }
     //
+    /**
+     * Sets the index the molecules of the following imports are appended to, e.g. the index of the molecules a
+     * fragmentation is appended to, so that the parent molecule sets of the shared fragments can store all molecules
+     * by their index.
+     *
+     * @param aMoleculeIndex index to extend or null if the imported molecules should get a new index
+     */
+    public void setMoleculeIndexToExtend(MoleculeIndex aMoleculeIndex) {
+        this.moleculeIndexToExtend = aMoleculeIndex;
+    }
+    //
     /**
      * Opens a file chooser and loads the chosen file.
      *
@@ -340,6 +358,15 @@ public class Importer {
            tmpFile = tmpFileChooser.showOpenDialog(aParentStage);
            if (tmpFile != null) {
                this.settingsContainer.setRecentDirectoryPathSetting(tmpFile.getParent() + File.separator);
+               //only the first file of a zip archive is imported, the user should know that the others are left out
+               int tmpNumberOfFileEntries = CompressedInputUtil.getNumberOfFileEntries(tmpFile);
+               if (tmpNumberOfFileEntries > 1) {
+                   GuiUtil.guiMessageAlert(Alert.AlertType.WARNING,
+                           Message.get("Importer.ZipArchiveWithMultipleFilesAlert.Title"),
+                           Message.get("Importer.ZipArchiveWithMultipleFilesAlert.Header"),
+                           String.format(Message.get("Importer.ZipArchiveWithMultipleFilesAlert.Content"),
+                                   tmpNumberOfFileEntries, CompressedInputUtil.getContentFileName(tmpFile)));
+               }
            }
            return tmpFile;
         } catch (Exception anException){
@@ -354,6 +381,35 @@ public class Importer {
     }
     //</editor-fold>
     //
+    //<editor-fold desc="package-private static methods" defaultstate="collapsed">
+    /**
+     * Returns the number of threads parsing the records of an imported file out of the given number of threads an
+     * import may use, i.e. half of them. The parser threads and the import threads of
+     * {@link #getNumberOfImportThreads(int)} share this budget, so that an import does not run twice as many threads
+     * as the fragmentation. If only one parser thread is returned, the records are parsed on the reading thread.
+     *
+     * @param aNumberOfThreads number of threads an import may use
+     * @return number of parser threads, at least 1
+     */
+    static int getNumberOfParserThreads(int aNumberOfThreads) {
+        return Math.max(1, aNumberOfThreads / 2);
+    }
+    //
+    /**
+     * Returns the number of threads preprocessing and parsing the imported molecules into data models out of the given
+     * number of threads an import may use, i.e. the threads left by {@link #getNumberOfParserThreads(int)}. If the
+     * records are parsed on the reading thread, it takes no share of the budget. If only one import thread is returned,
+     * the molecules are processed on the reading thread.
+     *
+     * @param aNumberOfThreads number of threads an import may use
+     * @return number of import threads, at least 1
+     */
+    static int getNumberOfImportThreads(int aNumberOfThreads) {
+        int tmpNumberOfParserThreads = Importer.getNumberOfParserThreads(aNumberOfThreads);
+        return Math.max(1, aNumberOfThreads - (tmpNumberOfParserThreads > 1 ? tmpNumberOfParserThreads : 0));
+    }
+    //</editor-fold>
+    //
     //<editor-fold desc="private methods" defaultstate="collapsed">
     /**
      * Imports a mol file as AtomContainer and adds the first line of the mol file (name of the
@@ -368,7 +424,7 @@ public class Importer {
     private IAtomContainerSet importMolFile(File aFile) throws IOException, CDKException {
         IAtomContainerSet tmpAtomContainerSet = new AtomContainerSet();
         IChemFormat tmpFormat;
-        try (BufferedInputStream tmpInputStream = new BufferedInputStream(new FileInputStream(aFile))) {
+        try (InputStream tmpInputStream = CompressedInputUtil.openInputStream(aFile)) {
             FormatFactory tmpFactory = new FormatFactory();
             tmpFormat = tmpFactory.guessFormat(tmpInputStream);
         }
@@ -377,11 +433,11 @@ public class Importer {
         }
         IAtomContainer tmpAtomContainer;
         if (tmpFormat.getFormatName().equalsIgnoreCase(MDLV2000Format.getInstance().getFormatName())) {
-            try (MDLV2000Reader tmpReader = new MDLV2000Reader(new FileInputStream(aFile), IChemObjectReader.Mode.RELAXED)) {
+            try (MDLV2000Reader tmpReader = new MDLV2000Reader(CompressedInputUtil.openInputStream(aFile), IChemObjectReader.Mode.RELAXED)) {
                 tmpAtomContainer = tmpReader.read(new AtomContainer());
             }
         } else if (tmpFormat.getFormatName().equalsIgnoreCase(MDLV3000Format.getInstance().getFormatName())) {
-            try (MDLV3000Reader tmpReader = new MDLV3000Reader(new FileInputStream(aFile), IChemObjectReader.Mode.RELAXED)) {
+            try (MDLV3000Reader tmpReader = new MDLV3000Reader(CompressedInputUtil.openInputStream(aFile), IChemObjectReader.Mode.RELAXED)) {
                 tmpAtomContainer = tmpReader.read(new AtomContainer());
             }
         } else {
@@ -390,10 +446,10 @@ public class Importer {
         }
         String tmpName = this.findMoleculeName(tmpAtomContainer);
         if (tmpName == null) {
-            try (BufferedReader tmpBufferedReader = new BufferedReader(new FileReader(aFile))) {
+            try (BufferedReader tmpBufferedReader = CompressedInputUtil.openReader(aFile)) {
                 tmpName = tmpBufferedReader.readLine();
                 if (tmpName == null || tmpName.isBlank() || tmpName.isEmpty()) {
-                    tmpName = FileUtil.getFileNameWithoutExtension(aFile);
+                    tmpName = CompressedInputUtil.getContentFileNameWithoutExtension(aFile);
                 }
             }
         }
@@ -404,51 +460,39 @@ public class Importer {
     //
     /**
      * Imports an SD file. If no name can be detected for a structure, the file name extended with the index of the
-     * structure in the file is used as name of the structure.
-     * NOTE: if multiple erroneous entries in a row are there in the input file, they are skipped together and not
-     * logged individually!
+     * structure in the file is used as name of the structure. The records are parsed in parallel by the parser share of
+     * the threads the fragmentation uses and every erroneous record is logged with its index in the file. The imported molecules
+     * are handed to the given consumer in the order of the file while the file is still being read.
      *
      * @param aFile sdf
-     * @return the imported molecules in an IAtomContainerSet
+     * @param aMoleculeConsumer consumer of the imported molecules
      * @throws IOException if a file input stream cannot be opened or closed for the given file
      */
-    private IAtomContainerSet importSDFile(File aFile) throws IOException {
-        IAtomContainerSet tmpAtomContainerSet = new AtomContainerSet();
-        /*the IteratingSDFReader is not set to skip erroneous input molecules in its constructor to be able to log them*/
-        try (IteratingSDFReader tmpSDFReader = new IteratingSDFReader(new FileInputStream(aFile), SilentChemObjectBuilder.getInstance())) {
-            int tmpCounter = 0;
-            while (!Thread.currentThread().isInterrupted()) {
-                //end of file or encountered erroneous entry
-                if (!tmpSDFReader.hasNext()) {
-                    //skip if it is an erroneous entry
-                    tmpSDFReader.setSkip(true);
-                    if (!tmpSDFReader.hasNext()) {
-                        if (tmpCounter == 0) {
-                            Importer.LOGGER.log(Level.WARNING, "Import failed for first and only structure in the file");
-                        }
-                        // there is no next, end of file!
-                        break;
-                    }
-                    // molecule just could not be read and has therefore been skipped, restore skip setting for next iteration
-                    tmpSDFReader.setSkip(false);
-                    Importer.LOGGER.log(Level.WARNING, "Import failed for structure: {0} (index of structure in file).", tmpCounter);
-                    tmpCounter++;
-                }
-                IAtomContainer tmpAtomContainer = tmpSDFReader.next();
-                String tmpName = this.findMoleculeName(tmpAtomContainer);
-                if (tmpName == null || tmpName.isBlank()) {
-                    // the counter here equals the index of the structure in the file
-                    tmpName = FileUtil.getFileNameWithoutExtension(aFile) + tmpCounter;
-                }
-                tmpAtomContainer.setProperty(Importer.MOLECULE_NAME_PROPERTY_KEY, tmpName);
-                tmpAtomContainerSet.addAtomContainer(tmpAtomContainer);
-                tmpCounter++;
+    private void importSDFile(File aFile, Consumer<IAtomContainer> aMoleculeConsumer) throws IOException {
+        ParallelSDFileReader tmpSDFReader = new ParallelSDFileReader(Importer.getNumberOfParserThreads(this.settingsContainer.getNumberOfTasksForFragmentationSetting()));
+        String tmpFileNameWithoutExtension = CompressedInputUtil.getContentFileNameWithoutExtension(aFile);
+        int[] tmpRecordsAndFailedImportsCounts = new int[2];
+        // stops after the records read until then if the thread has been interrupted
+        tmpSDFReader.readRecords(aFile, (aMolecule, anIndex) -> {
+            tmpRecordsAndFailedImportsCounts[0]++;
+            if (aMolecule == null) {
+                Importer.LOGGER.log(Level.WARNING, "Import failed for structure: {0} (index of structure in file).", anIndex);
+                tmpRecordsAndFailedImportsCounts[1]++;
+                return;
             }
-            int tmpFailedImportsCount = tmpCounter - tmpAtomContainerSet.getAtomContainerCount();
-            if (tmpFailedImportsCount > 0) {
-                Importer.LOGGER.log(Level.WARNING, "The import from SD file failed for a total of {0} structure(s).", tmpFailedImportsCount);
+            String tmpName = this.findMoleculeName(aMolecule);
+            if (tmpName == null || tmpName.isBlank()) {
+                // the index equals the index of the structure in the file
+                tmpName = tmpFileNameWithoutExtension + anIndex;
             }
-            return tmpAtomContainerSet;
+            aMolecule.setProperty(Importer.MOLECULE_NAME_PROPERTY_KEY, tmpName);
+            aMoleculeConsumer.accept(aMolecule);
+        });
+        if (tmpRecordsAndFailedImportsCounts[0] == 1 && tmpRecordsAndFailedImportsCounts[1] == 1) {
+            Importer.LOGGER.log(Level.WARNING, "Import failed for first and only structure in the file");
+        }
+        if (tmpRecordsAndFailedImportsCounts[1] > 0) {
+            Importer.LOGGER.log(Level.WARNING, "The import from SD file failed for a total of {0} structure(s).", tmpRecordsAndFailedImportsCounts[1]);
         }
     }
     //
@@ -459,24 +503,25 @@ public class Importer {
      * SMILES and name/ID strings are expected to be in the first two columns. Files that do not fit to the expected
      * format or lack a parsable SMILES string in the first ten lines are classified as not being a SMILES file and
      * an exception gets thrown. If no name can be detected for a structure, the structure
-     * is assigned the name of the file extended with the index of the structure in the file as name.
+     * is assigned the name of the file extended with the index of the structure in the file as name. The imported
+     * molecules are handed to the given consumer in the order of the file while the file is still being read.
      *
      * @param aFile a SMILES codes-containing *.txt, *.csv, *.tsv, or *.smi file
-     * @return the imported molecules in an IAtomContainerSet
+     * @param aMoleculeConsumer consumer of the imported molecules
      * @throws IOException if the given file does not fit to the expected format of a SMILES file
      * @author Samuel Behr
      * @author Jonas Schaub
      */
-    private IAtomContainerSet importSMILESFile(File aFile) throws IOException {
+    private void importSMILESFile(File aFile, Consumer<IAtomContainer> aMoleculeConsumer) throws IOException {
         DynamicSMILESFileFormat tmpFormat = DynamicSMILESFileReader.detectFormat(aFile);
-        DynamicSMILESFileReader tmpReader = new DynamicSMILESFileReader();
+        // the SMILES codes are parsed by the parser share of the threads the fragmentation uses
+        DynamicSMILESFileReader tmpReader = new DynamicSMILESFileReader(Importer.getNumberOfParserThreads(this.settingsContainer.getNumberOfTasksForFragmentationSetting()));
         // checks whether thread has been interrupted, logs faulty structures, and assigns names like the other methods
-        IAtomContainerSet tmpAtomContainerSet = tmpReader.readFile(aFile, tmpFormat);
+        tmpReader.readFile(aFile, tmpFormat, aMoleculeConsumer);
         if (tmpReader.getSkippedLinesCounter() > 0) {
             Importer.LOGGER.log(Level.WARNING, "The import from SMILES file failed for a total of {0} structures.",
                     tmpReader.getSkippedLinesCounter());
         }
-        return tmpAtomContainerSet;
     }
     //
     /**
@@ -579,31 +624,9 @@ public class Importer {
         int tmpMoleculesWithRadicalsCounter = 0;
         for (IAtomContainer tmpMolecule : aMoleculeSet.atomContainers()) {
             try {
-                // perceive atom types and configure atoms is always done as preprocessing
-                AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(tmpMolecule);
-                //if open valences should be filled with implicit hydrogens, fix radicals first and then saturate everything
-                if (isFillOpenValencesWithImplH) {
-                    if (tmpMolecule.getSingleElectronCount() > 0) {
-                        ChemUtil.fixRadicals(tmpMolecule);
-                        tmpMoleculesWithRadicalsCounter++;
-                    }
-                    CDKHydrogenAdder.getInstance(tmpMolecule.getBuilder()).addImplicitHydrogens(tmpMolecule);
-                //otherwise, just set implicit hydrogen counts to zero if unset to prevent exceptions
-                } else {
-                    for (IAtom tmpAtom : tmpMolecule.atoms()) {
-                        if (tmpAtom.getImplicitHydrogenCount() == CDKConstants.UNSET
-                                || tmpAtom.getImplicitHydrogenCount() == null) {
-                            tmpAtom.setImplicitHydrogenCount(0);
-                        }
-                    }
+                if (Importer.preprocessMolecule(tmpMolecule, isFillOpenValencesWithImplH)) {
+                    tmpMoleculesWithRadicalsCounter++;
                 }
-                /* note: the doc says: "Suppress any explicit hydrogens in the provided container. Only hydrogens that
-                can be represented as a hydrogen count value on the atom are suppressed." Therefore, there will
-                still be some explicit hydrogen atoms!
-                 */
-                AtomContainerManipulator.suppressHydrogens(tmpMolecule);
-                //might throw exceptions if the implicit hydrogen count is unset or kekulization is impossible
-                Kekulization.kekulize(tmpMolecule);
             } catch (Exception anException) {
                 Importer.LOGGER.log(Level.WARNING,
                         String.format("%s molecule name: %s", anException.toString(), tmpMolecule.getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY)),
@@ -611,14 +634,303 @@ public class Importer {
                 tmpExceptionsCounter++;
             }
         }
+        Importer.logPreprocessingResult(isFillOpenValencesWithImplH, tmpExceptionsCounter, tmpMoleculesWithRadicalsCounter);
+    }
+    //
+    /**
+     * Does the general preprocessing of {@link #preprocessMoleculeSet(IAtomContainerSet, boolean)} on the given
+     * molecule, i.e. assigning atom types and bond orders and suppressing explicit hydrogen atoms, and fills empty
+     * valences with implicit hydrogen atoms if the respective setting is activated.
+     *
+     * @param aMolecule the molecule to process
+     * @param isFillOpenValencesWithImplH whether open valences in the molecule should be filled with implicit
+     *                                    hydrogen atoms
+     * @return true if the molecule had radicals that were fixed
+     * @throws Exception if the molecule cannot be processed, e.g. if kekulization is impossible
+     */
+    private static boolean preprocessMolecule(IAtomContainer aMolecule, boolean isFillOpenValencesWithImplH) throws Exception {
+        boolean tmpHadRadicals = false;
+        // perceive atom types and configure atoms is always done as preprocessing
+        AtomContainerManipulator.percieveAtomTypesAndConfigureAtoms(aMolecule);
+        //if open valences should be filled with implicit hydrogens, fix radicals first and then saturate everything
+        if (isFillOpenValencesWithImplH) {
+            if (aMolecule.getSingleElectronCount() > 0) {
+                ChemUtil.fixRadicals(aMolecule);
+                tmpHadRadicals = true;
+            }
+            Importer.HYDROGEN_ADDER.get().addImplicitHydrogens(aMolecule);
+        //otherwise, just set implicit hydrogen counts to zero if unset to prevent exceptions
+        } else {
+            for (IAtom tmpAtom : aMolecule.atoms()) {
+                if (tmpAtom.getImplicitHydrogenCount() == CDKConstants.UNSET
+                        || tmpAtom.getImplicitHydrogenCount() == null) {
+                    tmpAtom.setImplicitHydrogenCount(0);
+                }
+            }
+        }
+        /* note: the doc says: "Suppress any explicit hydrogens in the provided container. Only hydrogens that
+        can be represented as a hydrogen count value on the atom are suppressed." Therefore, there will
+        still be some explicit hydrogen atoms!
+         */
+        AtomContainerManipulator.suppressHydrogens(aMolecule);
+        //might throw exceptions if the implicit hydrogen count is unset or kekulization is impossible
+        Kekulization.kekulize(aMolecule);
+        return tmpHadRadicals;
+    }
+    //
+    /**
+     * Logs the number of exceptions and fixed radicals of the preprocessing of an imported molecule set.
+     *
+     * @param isFillOpenValencesWithImplH whether open valences were filled with implicit hydrogen atoms
+     * @param anExceptionsCount number of molecules that caused an exception
+     * @param aMoleculesWithRadicalsCount number of molecules whose radicals were fixed
+     */
+    private static void logPreprocessingResult(boolean isFillOpenValencesWithImplH, int anExceptionsCount, int aMoleculesWithRadicalsCount) {
         if (!isFillOpenValencesWithImplH) {
             Importer.LOGGER.log(Level.INFO, "Imported and preprocessed molecule set. {0} exceptions occurred while processing.",
-                    tmpExceptionsCounter);
+                    anExceptionsCount);
         } else {
             Importer.LOGGER.log(Level.INFO, "Imported and preprocessed molecule set. {0} exceptions occurred while processing, " +
                             "{1} molecules with radicals were fixed and saturated with implicit hydrogens.",
-                    new Object[]{tmpExceptionsCounter, tmpMoleculesWithRadicalsCounter});
+                    new Object[]{anExceptionsCount, aMoleculesWithRadicalsCount});
         }
     }
     //</editor-fold>
+    //
+    //<editor-fold desc="private classes" defaultstate="collapsed">
+    /**
+     * Import stage that preprocesses every molecule it is handed, generates its unique SMILES code, and parses it into
+     * a MoleculeDataModel right away. Unless the atom containers should be kept in the data models, nothing refers to
+     * an atom container afterwards, so only the atom containers currently read and processed are held in memory
+     * instead of those of the whole file. The molecules are processed in batches by a pool of import threads, if there
+     * is more than one, and the data models are collected in the order the molecules were handed. Molecules that cause
+     * an exception in the preprocessing are logged but still parsed, molecules without SMILES code are left out.
+     */
+    private class MoleculeImportPipeline implements Consumer<IAtomContainer>, AutoCloseable {
+        /**
+         * Whether stereochemistry should be encoded in the SMILES strings.
+         */
+        private final boolean isRegardStereo;
+        /**
+         * Whether open valences in the imported molecules should be filled with implicit hydrogen atoms.
+         */
+        private final boolean isFillOpenValencesWithImplH;
+        /**
+         * Whether the atom containers are kept in the data models.
+         */
+        private final boolean isKeepAtomContainer;
+        /**
+         * Import threads or null if the molecules are processed on the calling thread.
+         */
+        private final ExecutorService importExecutor;
+        /**
+         * Maximum number of batches waiting to be processed or to be added to the result.
+         */
+        private final int maximumNumberOfPendingBatches;
+        /**
+         * Batches in the order they were handed, waiting to be processed or to be added to the result.
+         */
+        private final Deque<Future<ProcessedImportBatch>> pendingBatches;
+        /**
+         * Data models of the molecules handed to this pipeline, in the order they were handed.
+         */
+        private final List<MoleculeDataModel> moleculeDataModelList;
+        /**
+         * Molecules handed to this pipeline that are not submitted for processing yet.
+         */
+        private List<IAtomContainer> currentBatch;
+        /**
+         * Number of molecules handed to this pipeline.
+         */
+        private int moleculesCounter;
+        /**
+         * Number of molecules that caused an exception while preprocessing.
+         */
+        private int preprocessingExceptionsCounter;
+        /**
+         * Number of molecules whose radicals were fixed while preprocessing.
+         */
+        private int moleculesWithRadicalsCounter;
+        /**
+         * Number of molecules for which no SMILES code could be created.
+         */
+        private int smilesExceptionsCounter;
+        /**
+         * Creates new pipeline.
+         *
+         * @param isRegardStereo whether stereochemistry should be encoded in the SMILES strings
+         * @param isFillOpenValencesWithImplH whether open valences in the imported molecules should be filled with
+         *                                    implicit hydrogen atoms
+         * @param aNumberOfThreads number of import threads, 1 to process the molecules on the calling thread
+         */
+        MoleculeImportPipeline(boolean isRegardStereo, boolean isFillOpenValencesWithImplH, int aNumberOfThreads) {
+            this.isRegardStereo = isRegardStereo;
+            this.isFillOpenValencesWithImplH = isFillOpenValencesWithImplH;
+            this.isKeepAtomContainer = Importer.this.settingsContainer.getKeepAtomContainerInDataModelSetting();
+            int tmpNumberOfThreads = Math.max(1, aNumberOfThreads);
+            if (tmpNumberOfThreads > 1) {
+                this.importExecutor = Executors.newFixedThreadPool(tmpNumberOfThreads, aRunnable -> {
+                    Thread tmpThread = new Thread(aRunnable, Importer.IMPORT_THREAD_NAME);
+                    tmpThread.setDaemon(true);
+                    return tmpThread;
+                });
+            } else {
+                this.importExecutor = null;
+            }
+            this.maximumNumberOfPendingBatches = tmpNumberOfThreads * Importer.MAXIMUM_PENDING_IMPORT_BATCHES_PER_THREAD;
+            this.pendingBatches = new ArrayDeque<>();
+            this.moleculeDataModelList = new ArrayList<>();
+            this.currentBatch = new ArrayList<>(Importer.IMPORT_BATCH_SIZE);
+        }
+
+        @Override
+        public void accept(IAtomContainer aMolecule) {
+            this.moleculesCounter++;
+            this.currentBatch.add(aMolecule);
+            if (this.currentBatch.size() < Importer.IMPORT_BATCH_SIZE) {
+                return;
+            }
+            this.submitCurrentBatch();
+            //wait for the oldest batch before accepting further molecules
+            while (this.pendingBatches.size() >= this.maximumNumberOfPendingBatches && !Thread.currentThread().isInterrupted()) {
+                this.addProcessedBatch(this.pendingBatches.poll());
+            }
+        }
+        /**
+         * Processes the remaining molecules, logs the number of molecules and exceptions, assigns the molecule indices
+         * or appends the molecules to the index to extend, and returns the data models of the molecules handed to this pipeline. Most time-consuming step of the import
+         * is the SMILES generation, especially if stereochemistry is regarded because then, the InChI numbering
+         * algorithm is used. If the calling thread is interrupted, the data models processed until then are returned.
+         *
+         * @return list of MoleculeDataModel instances, empty if no molecules were handed
+         */
+        List<MoleculeDataModel> finish() {
+            if (this.moleculesCounter == 0) {
+                return new ArrayList<>(0);
+            }
+            if (!this.currentBatch.isEmpty()) {
+                this.submitCurrentBatch();
+            }
+            while (!this.pendingBatches.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                this.addProcessedBatch(this.pendingBatches.poll());
+            }
+            Importer.logPreprocessingResult(this.isFillOpenValencesWithImplH, this.preprocessingExceptionsCounter, this.moleculesWithRadicalsCounter);
+            //dense integer indices, used e.g. to store the parent molecules of fragments compactly
+            if (Importer.this.moleculeIndexToExtend == null) {
+                MoleculeIndex.assign(this.moleculeDataModelList);
+            } else {
+                Importer.this.moleculeIndexToExtend.append(this.moleculeDataModelList);
+            }
+            Importer.LOGGER.log(Level.INFO, () -> String.format("Successfully imported %d molecules from file: %s; " +
+                    "%d molecules could not be parsed into the internal data model (SMILES code generation failed). " +
+                    "See above how many molecules could not be read from the input file at all or produced exceptions while preprocessing.",
+                    this.moleculesCounter, Importer.this.getFileName(), this.smilesExceptionsCounter));
+            return this.moleculeDataModelList;
+        }
+        /**
+         * Shuts the import threads down, also cancelling the batches still pending if the import was interrupted or failed.
+         */
+        @Override
+        public void close() {
+            if (this.importExecutor != null) {
+                this.importExecutor.shutdownNow();
+            }
+        }
+        /**
+         * Submits the current batch to the import threads or processes it directly if there are none and starts a new
+         * current batch.
+         */
+        private void submitCurrentBatch() {
+            List<IAtomContainer> tmpBatch = this.currentBatch;
+            this.currentBatch = new ArrayList<>(Importer.IMPORT_BATCH_SIZE);
+            if (this.importExecutor == null) {
+                FutureTask<ProcessedImportBatch> tmpFutureTask = new FutureTask<>(() -> this.processBatch(tmpBatch));
+                tmpFutureTask.run();
+                this.pendingBatches.add(tmpFutureTask);
+            } else {
+                this.pendingBatches.add(this.importExecutor.submit(() -> this.processBatch(tmpBatch)));
+            }
+        }
+        /**
+         * Waits for the given batch to be processed and adds its data models and counts to the result. If the calling
+         * thread is interrupted while waiting, the batch is dropped and the interrupted status is restored.
+         *
+         * @param aProcessedBatch future processed batch
+         */
+        private void addProcessedBatch(Future<ProcessedImportBatch> aProcessedBatch) {
+            ProcessedImportBatch tmpProcessedBatch;
+            try {
+                tmpProcessedBatch = aProcessedBatch.get();
+            } catch (InterruptedException anException) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException anException) {
+                if (anException.getCause() instanceof RuntimeException tmpRuntimeException) {
+                    throw tmpRuntimeException;
+                }
+                if (anException.getCause() instanceof Error tmpError) {
+                    throw tmpError;
+                }
+                throw new IllegalStateException(anException.getCause());
+            }
+            this.moleculeDataModelList.addAll(tmpProcessedBatch.moleculeDataModels());
+            this.preprocessingExceptionsCounter += tmpProcessedBatch.preprocessingExceptionsCount();
+            this.moleculesWithRadicalsCounter += tmpProcessedBatch.moleculesWithRadicalsCount();
+            this.smilesExceptionsCounter += tmpProcessedBatch.smilesExceptionsCount();
+        }
+        /**
+         * Preprocesses the given molecules, generates their unique SMILES codes, and parses them into data models.
+         * Called by the import threads, so it only reads the final fields of this pipeline.
+         *
+         * @param aBatch molecules to process
+         * @return data models in the order of the molecules and the counts of the batch
+         */
+        private ProcessedImportBatch processBatch(List<IAtomContainer> aBatch) {
+            List<MoleculeDataModel> tmpMoleculeDataModels = new ArrayList<>(aBatch.size());
+            int tmpPreprocessingExceptionsCounter = 0;
+            int tmpMoleculesWithRadicalsCounter = 0;
+            int tmpSmilesExceptionsCounter = 0;
+            for (IAtomContainer tmpMolecule : aBatch) {
+                try {
+                    if (Importer.preprocessMolecule(tmpMolecule, this.isFillOpenValencesWithImplH)) {
+                        tmpMoleculesWithRadicalsCounter++;
+                    }
+                } catch (Exception anException) {
+                    Importer.LOGGER.log(Level.WARNING,
+                            String.format("%s molecule name: %s", anException.toString(), tmpMolecule.getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY)),
+                            anException);
+                    tmpPreprocessingExceptionsCounter++;
+                }
+                //returns null if no SMILES code could be created
+                String tmpSmiles = ChemUtil.createUniqueSmiles(tmpMolecule, this.isRegardStereo);
+                if (tmpSmiles == null) {
+                    tmpSmilesExceptionsCounter++;
+                    continue;
+                }
+                MoleculeDataModel tmpMoleculeDataModel;
+                if (this.isKeepAtomContainer) {
+                    tmpMoleculeDataModel = new MoleculeDataModel(tmpMolecule, this.isRegardStereo);
+                } else {
+                    tmpMoleculeDataModel = new MoleculeDataModel(tmpSmiles, tmpMolecule.getTitle(), tmpMolecule.getProperties());
+                }
+                tmpMoleculeDataModel.setName(tmpMolecule.getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
+                tmpMoleculeDataModels.add(tmpMoleculeDataModel);
+            }
+            return new ProcessedImportBatch(tmpMoleculeDataModels, tmpPreprocessingExceptionsCounter,
+                    tmpMoleculesWithRadicalsCounter, tmpSmilesExceptionsCounter);
+        }
+    }
+    //
+    /**
+     * Data models of one batch of imported molecules and the counts of exceptions and fixed radicals of the batch.
+     *
+     * @param moleculeDataModels data models in the order of the molecules
+     * @param preprocessingExceptionsCount number of molecules that caused an exception while preprocessing
+     * @param moleculesWithRadicalsCount number of molecules whose radicals were fixed while preprocessing
+     * @param smilesExceptionsCount number of molecules for which no SMILES code could be created
+     */
+    private record ProcessedImportBatch(List<MoleculeDataModel> moleculeDataModels, int preprocessingExceptionsCount,
+                                        int moleculesWithRadicalsCount, int smilesExceptionsCount) {
+    }
+    //</editor-fold>
 }
@@ -0,0 +1,312 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.io;
+
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reader for SD files that parses the records of a file in parallel. The calling thread scans the file for the record
+ * delimiter lines ("$$$$") and hands blocks of records to parser threads that parse every record on its own with the
+ * CDK IteratingSDFReader. The results are reassembled in the order of the file, so that failed records can be reported
+ * by their index in the file.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class ParallelSDFileReader {
+    //<editor-fold desc="Public static final class constants">
+    /**
+     * Line delimiting the records of an SD file.
+     */
+    public static final String RECORD_DELIMITER = "$$$$";
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private static class constants">
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ParallelSDFileReader.class.getName());
+    //
+    /**
+     * Number of records that are scanned into one block and parsed together by one parser thread.
+     */
+    private static final int DEFAULT_RECORD_BLOCK_SIZE = 100;
+    //
+    /**
+     * Maximum number of record blocks per parser thread that are scanned ahead of the oldest block that is not parsed
+     * yet, to limit the memory consumed by records and parsed molecules waiting to be added to the result.
+     */
+    private static final int MAXIMUM_PENDING_RECORD_BLOCKS_PER_THREAD = 4;
+    //
+    /**
+     * Name of the parser threads.
+     */
+    private static final String PARSER_THREAD_NAME = "MORTAR_SDF_Parser";
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private final variables">
+    /**
+     * Number of threads that parse the records of a file in parallel.
+     */
+    private final int numberOfParserThreads;
+    //
+    /**
+     * Number of records that are scanned into one block and parsed together by one parser thread.
+     */
+    private final int recordBlockSize;
+    //</editor-fold>
+    //
+    //<editor-fold desc="Constructors">
+    /**
+     * Creates new instance that parses the records of a file with the given number of parallel threads while the
+     * calling thread scans the file.
+     *
+     * @param aNumberOfParserThreads number of threads parsing the records, 1 to parse them on the scanning thread
+     * @throws IllegalArgumentException if the given number is smaller than 1
+     */
+    public ParallelSDFileReader(int aNumberOfParserThreads) throws IllegalArgumentException {
+        this(aNumberOfParserThreads, ParallelSDFileReader.DEFAULT_RECORD_BLOCK_SIZE);
+    }
+    //
+    /**
+     * Creates new instance with the given number of parser threads and records per parsed block.
+     *
+     * @param aNumberOfParserThreads number of threads parsing the records, 1 to parse them on the scanning thread
+     * @param aRecordBlockSize number of records parsed together by one parser thread
+     * @throws IllegalArgumentException if one of the given numbers is smaller than 1
+     */
+    ParallelSDFileReader(int aNumberOfParserThreads, int aRecordBlockSize) throws IllegalArgumentException {
+        if (aNumberOfParserThreads < 1) {
+            throw new IllegalArgumentException("Number of parser threads must be at least 1 but is " + aNumberOfParserThreads);
+        }
+        if (aRecordBlockSize < 1) {
+            throw new IllegalArgumentException("Record block size must be at least 1 but is " + aRecordBlockSize);
+        }
+        this.numberOfParserThreads = aNumberOfParserThreads;
+        this.recordBlockSize = aRecordBlockSize;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Public methods">
+    /**
+     * Reads the records of the given SD file. The returned list holds one entry per record in the order of the file,
+     * the parsed molecule or null if the record could not be parsed. Blank content after the last record delimiter is
+     * not regarded as a record. If the calling thread is interrupted, the records read until then are returned.
+     *
+     * @param aFile SD file
+     * @return parsed molecules in the order of the records, null for every record that could not be parsed
+     * @throws IOException if the file cannot be found or read
+     */
+    public List<IAtomContainer> readRecords(File aFile) throws IOException {
+        List<IAtomContainer> tmpMolecules = new ArrayList<>();
+        this.readRecords(aFile, (aMolecule, anIndex) -> tmpMolecules.add(aMolecule));
+        return tmpMolecules;
+    }
+    //
+    /**
+     * Reads the records of the given SD file like {@link #readRecords(File)} but hands every parsed molecule, or null
+     * if the record could not be parsed, together with the index of its record to the given consumer instead of
+     * collecting them, so that they can be processed and discarded while the file is still being read. The consumer is
+     * called on the calling thread in the order of the file.
+     *
+     * @param aFile SD file
+     * @param aRecordConsumer consumer of the parsed molecules, or null for erroneous records, and their record indices
+     * @throws IOException if the file cannot be found or read
+     */
+    public void readRecords(File aFile, ObjIntConsumer<IAtomContainer> aRecordConsumer) throws IOException {
+        RecordIndexedConsumer tmpConsumer = new RecordIndexedConsumer(aRecordConsumer);
+        ExecutorService tmpParserExecutor = null;
+        //decompresses gzip and zip files on the fly
+        try (BufferedReader tmpBufferedReader = CompressedInputUtil.openReader(aFile)) {
+            if (this.numberOfParserThreads > 1) {
+                tmpParserExecutor = Executors.newFixedThreadPool(this.numberOfParserThreads, aRunnable -> {
+                    Thread tmpThread = new Thread(aRunnable, ParallelSDFileReader.PARSER_THREAD_NAME);
+                    tmpThread.setDaemon(true);
+                    return tmpThread;
+                });
+            }
+            Deque<Future<List<IAtomContainer>>> tmpPendingBlocks = new ArrayDeque<>();
+            int tmpMaximumNumberOfPendingBlocks = this.numberOfParserThreads * ParallelSDFileReader.MAXIMUM_PENDING_RECORD_BLOCKS_PER_THREAD;
+            List<String> tmpRecordBlock = new ArrayList<>(this.recordBlockSize);
+            StringBuilder tmpRecordBuilder = new StringBuilder();
+            String tmpLine;
+            while (!Thread.currentThread().isInterrupted() && (tmpLine = tmpBufferedReader.readLine()) != null) {
+                tmpRecordBuilder.append(tmpLine).append('\n');
+                //same delimiter check as in the IteratingSDFReader
+                if (!tmpLine.startsWith(ParallelSDFileReader.RECORD_DELIMITER)) {
+                    continue;
+                }
+                tmpRecordBlock.add(tmpRecordBuilder.toString());
+                tmpRecordBuilder.setLength(0);
+                if (tmpRecordBlock.size() < this.recordBlockSize) {
+                    continue;
+                }
+                tmpPendingBlocks.add(ParallelSDFileReader.submitRecordBlock(tmpParserExecutor, tmpRecordBlock));
+                tmpRecordBlock = new ArrayList<>(this.recordBlockSize);
+                //wait for the oldest block before scanning further ahead
+                while (tmpPendingBlocks.size() >= tmpMaximumNumberOfPendingBlocks && !Thread.currentThread().isInterrupted()) {
+                    ParallelSDFileReader.addParsedRecordBlock(tmpPendingBlocks.poll(), tmpConsumer);
+                }
+            }
+            //last record might lack the delimiter
+            if (!tmpRecordBuilder.toString().isBlank()) {
+                tmpRecordBlock.add(tmpRecordBuilder.toString());
+            }
+            if (!tmpRecordBlock.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                tmpPendingBlocks.add(ParallelSDFileReader.submitRecordBlock(tmpParserExecutor, tmpRecordBlock));
+            }
+            while (!tmpPendingBlocks.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                ParallelSDFileReader.addParsedRecordBlock(tmpPendingBlocks.poll(), tmpConsumer);
+            }
+        } finally {
+            if (tmpParserExecutor != null) {
+                //also cancels the blocks still pending if the import was interrupted
+                tmpParserExecutor.shutdownNow();
+            }
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private static methods">
+    /**
+     * Parses the given block of records with the given executor or directly on the calling thread if the executor is
+     * null.
+     *
+     * @param anExecutor parser threads or null
+     * @param aRecordBlock records to parse
+     * @return the future parsed molecules of the block, null for records that could not be parsed
+     */
+    private static Future<List<IAtomContainer>> submitRecordBlock(ExecutorService anExecutor, List<String> aRecordBlock) {
+        Callable<List<IAtomContainer>> tmpParsing = () -> ParallelSDFileReader.parseRecordBlock(aRecordBlock);
+        if (anExecutor == null) {
+            FutureTask<List<IAtomContainer>> tmpFutureTask = new FutureTask<>(tmpParsing);
+            tmpFutureTask.run();
+            return tmpFutureTask;
+        }
+        return anExecutor.submit(tmpParsing);
+    }
+    //
+    /**
+     * Waits for the given block to be parsed and hands its entries to the given consumer. If the calling thread is
+     * interrupted while waiting, the block is dropped and the interrupted status is restored.
+     *
+     * @param aParsedRecordBlock future parsed block
+     * @param aConsumer consumer of the entries
+     * @throws IOException if parsing the block failed unexpectedly
+     */
+    private static void addParsedRecordBlock(Future<List<IAtomContainer>> aParsedRecordBlock, RecordIndexedConsumer aConsumer) throws IOException {
+        try {
+            for (IAtomContainer tmpMolecule : aParsedRecordBlock.get()) {
+                aConsumer.accept(tmpMolecule);
+            }
+        } catch (InterruptedException anException) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException anException) {
+            if (anException.getCause() instanceof RuntimeException tmpRuntimeException) {
+                throw tmpRuntimeException;
+            }
+            if (anException.getCause() instanceof Error tmpError) {
+                throw tmpError;
+            }
+            throw new IOException(anException.getCause());
+        }
+    }
+    //
+    /**
+     * Parses every given record on its own, so that an erroneous record does not affect the following ones.
+     *
+     * @param aRecordBlock records to parse, each including its delimiter line if it has one
+     * @return parsed molecules in the order of the records, null for records that could not be parsed
+     */
+    private static List<IAtomContainer> parseRecordBlock(List<String> aRecordBlock) {
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(aRecordBlock.size());
+        for (String tmpRecord : aRecordBlock) {
+            IAtomContainer tmpMolecule = null;
+            try (IteratingSDFReader tmpSDFReader = new IteratingSDFReader(new StringReader(tmpRecord), SilentChemObjectBuilder.getInstance())) {
+                if (tmpSDFReader.hasNext()) {
+                    tmpMolecule = tmpSDFReader.next();
+                }
+            } catch (IOException | RuntimeException anException) {
+                ParallelSDFileReader.LOGGER.log(Level.FINE, anException.toString(), anException);
+                tmpMolecule = null;
+            }
+            tmpMolecules.add(tmpMolecule);
+        }
+        return tmpMolecules;
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private classes">
+    /**
+     * Consumer that hands the entries it gets to the wrapped consumer together with their running record index.
+     */
+    private static class RecordIndexedConsumer implements Consumer<IAtomContainer> {
+        /**
+         * Wrapped consumer.
+         */
+        private final ObjIntConsumer<IAtomContainer> recordConsumer;
+        /**
+         * Index of the next record.
+         */
+        private int nextRecordIndex;
+        /**
+         * Creates new instance starting at record index 0.
+         *
+         * @param aRecordConsumer consumer to hand the entries to
+         */
+        RecordIndexedConsumer(ObjIntConsumer<IAtomContainer> aRecordConsumer) {
+            this.recordConsumer = aRecordConsumer;
+            this.nextRecordIndex = 0;
+        }
+
+        @Override
+        public void accept(IAtomContainer aMolecule) {
+            this.recordConsumer.accept(aMolecule, this.nextRecordIndex++);
+        }
+    }
+    //</editor-fold>
+}
@@ -33,6 +33,7 @@ import de.unijena.cheminf.mortar.model.util.CollectionUtil;
 import de.unijena.cheminf.mortar.model.util.FileUtil;
 import de.unijena.cheminf.mortar.model.util.IDisplayEnum;
 import de.unijena.cheminf.mortar.model.util.SimpleIDisplayEnumConstantProperty;
+import de.unijena.cheminf.mortar.model.util.ThreadUtil;
 import de.unijena.cheminf.mortar.preference.PreferenceContainer;
 import de.unijena.cheminf.mortar.preference.PreferenceUtil;
 import de.unijena.cheminf.mortar.preference.SingleTermPreference;
@@ -113,6 +114,87 @@ public class SettingsContainer {
      * Default value of whether to keep last fragment.
      */
     public static final boolean KEEP_LAST_FRAGMENT_SETTING_DEFAULT = false;
+
+    /**
+     * Default value of whether the molecules should be handed out to the parallel fragmentation tasks dynamically in
+     * small batches instead of in one static slice per task.
+     */
+    public static final boolean DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT = true;
+
+    /**
+     * Default value of the number of molecules a parallel fragmentation task takes from the shared molecule list at once.
+     */
+    public static final int FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT = 8;
+
+    /**
+     * Default kind of threads the I/O-bound background tasks like file import and export are run on.
+     */
+    public static final ThreadUtil.ThreadExecutionMode THREAD_EXECUTION_MODE_SETTING_DEFAULT = ThreadUtil.ThreadExecutionMode.PLATFORM_THREADS;
+
+    /**
+     * Default value of whether each parallel fragmentation task should collect the fragments in its own maps that are
+     * merged at the end instead of updating one map shared by all tasks.
+     */
+    public static final boolean TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT = true;
+
+    /**
+     * Default value of whether the fragmentation tasks should look up the unique SMILES codes of already seen fragments
+     * by a structure hash before generating them; cached codes are only reused for fragments identical to the cached
+     * one, so the results do not change.
+     */
+    public static final boolean HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT = true;
+
+    /**
+     * Default value of whether molecules with the same unique SMILES code should be fragmented only once per
+     * fragmentation and reuse the result.
+     */
+    public static final boolean FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT = true;
+
+    /**
+     * Default value of whether fragmentation results should be cached on disk in the application directory to be reused
+     * in later fragmentations with the same fragmenter settings, also across sessions.
+     */
+    public static final boolean PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT = false;
+
+    /**
+     * Default value of the maximum size of the persistent fragmentation cache on disk in megabytes.
+     */
+    public static final int FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT = 256;
+
+    /**
+     * Maximum value of the maximum size of the persistent fragmentation cache on disk in megabytes (100 GB).
+     */
+    public static final int FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM = 102400;
+
+    /**
+     * Default value of whether the pipeline fragmenters should be applied to every molecule one after another in
+     * one pass instead of running every pipeline stage on the whole molecule set.
+     */
+    public static final boolean FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT = false;
+
+    /**
+     * Default value of the time budget in seconds for the fragmentation of a single molecule, 0 for no budget.
+     */
+    public static final int FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT = 0;
+
+    /**
+     * Default value of whether the number of active fragmentation workers should be adapted to the heap usage after
+     * garbage collection. Off by default because it only slows down fragmentations that would otherwise run out of
+     * memory.
+     */
+    public static final boolean MEMORY_GOVERNOR_SETTING_DEFAULT = false;
+
+    /**
+     * Default value of the heap usage after garbage collection in percent above which the memory governor halves the
+     * number of active fragmentation workers.
+     */
+    public static final int MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT = 80;
+
+    /**
+     * Default value of the heap usage after garbage collection in percent above which the memory governor pauses the
+     * intake of molecules for all fragmentation workers but one.
+     */
+    public static final int MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT = 90;
     //</editor-fold>
     //
     //<editor-fold desc="private static final constants" defaultstate="collapsed">
@@ -150,6 +232,32 @@ public class SettingsContainer {
 
     private SimpleBooleanProperty keepLastFragmentSetting;
 
+    private SimpleBooleanProperty dynamicFragmentationSchedulingSetting;
+
+    private SimpleIntegerProperty fragmentationBatchSizeSetting;
+
+    private SimpleIDisplayEnumConstantProperty threadExecutionModeSetting;
+
+    private SimpleBooleanProperty taskLocalFragmentAggregationSetting;
+
+    private SimpleBooleanProperty hashFirstFragmentDeduplicationSetting;
+
+    private SimpleBooleanProperty fragmentationMemoizationSetting;
+
+    private SimpleBooleanProperty persistentFragmentationCacheSetting;
+
+    private SimpleIntegerProperty fragmentationCacheSizeLimitSetting;
+
+    private SimpleBooleanProperty fusedPipelineFragmentationSetting;
+
+    private SimpleIntegerProperty fragmentationTimeBudgetSetting;
+
+    private SimpleBooleanProperty memoryGovernorSetting;
+
+    private SimpleIntegerProperty memoryGovernorHighThresholdSetting;
+
+    private SimpleIntegerProperty memoryGovernorCriticalThresholdSetting;
+
     /**
      * List of setting to display in the general settings dialogue; excludes recent directory path because this is only
      * for internal use, not intended to be changed by the user via this dialogue.
@@ -415,6 +523,240 @@ public class SettingsContainer {
         return this.keepLastFragmentSetting;
     }
 
+    /**
+     * Returns the current value of the dynamic fragmentation scheduling setting.
+     *
+     * @return dynamic fragmentation scheduling setting value
+     */
+    public boolean getDynamicFragmentationSchedulingSetting() {
+        return this.dynamicFragmentationSchedulingSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the dynamic fragmentation scheduling setting.
+     *
+     * @return dynamic fragmentation scheduling setting property
+     */
+    public SimpleBooleanProperty dynamicFragmentationSchedulingSettingProperty() {
+        return this.dynamicFragmentationSchedulingSetting;
+    }
+
+    /**
+     * Returns the current value of the fragmentation batch size setting.
+     *
+     * @return fragmentation batch size setting value
+     */
+    public int getFragmentationBatchSizeSetting() {
+        return this.fragmentationBatchSizeSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the fragmentation batch size setting.
+     *
+     * @return fragmentation batch size setting property
+     */
+    public SimpleIntegerProperty fragmentationBatchSizeSettingProperty() {
+        return this.fragmentationBatchSizeSetting;
+    }
+
+    /**
+     * Returns the current value of the thread execution mode setting.
+     *
+     * @return thread execution mode setting value
+     */
+    public ThreadUtil.ThreadExecutionMode getThreadExecutionModeSetting() {
+        return (ThreadUtil.ThreadExecutionMode) this.threadExecutionModeSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the thread execution mode setting.
+     *
+     * @return thread execution mode setting property
+     */
+    public SimpleIDisplayEnumConstantProperty threadExecutionModeSettingProperty() {
+        return this.threadExecutionModeSetting;
+    }
+
+    /**
+     * Returns the current value of the task-local fragment aggregation setting.
+     *
+     * @return task-local fragment aggregation setting value
+     */
+    public boolean getTaskLocalFragmentAggregationSetting() {
+        return this.taskLocalFragmentAggregationSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the task-local fragment aggregation setting.
+     *
+     * @return task-local fragment aggregation setting property
+     */
+    public SimpleBooleanProperty taskLocalFragmentAggregationSettingProperty() {
+        return this.taskLocalFragmentAggregationSetting;
+    }
+
+    /**
+     * Returns the current value of the hash-first fragment deduplication setting.
+     *
+     * @return hash-first fragment deduplication setting value
+     */
+    public boolean getHashFirstFragmentDeduplicationSetting() {
+        return this.hashFirstFragmentDeduplicationSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the hash-first fragment deduplication setting.
+     *
+     * @return hash-first fragment deduplication setting property
+     */
+    public SimpleBooleanProperty hashFirstFragmentDeduplicationSettingProperty() {
+        return this.hashFirstFragmentDeduplicationSetting;
+    }
+
+    /**
+     * Returns the current value of the fragmentation memoization setting.
+     *
+     * @return fragmentation memoization setting value
+     */
+    public boolean getFragmentationMemoizationSetting() {
+        return this.fragmentationMemoizationSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the fragmentation memoization setting.
+     *
+     * @return fragmentation memoization setting property
+     */
+    public SimpleBooleanProperty fragmentationMemoizationSettingProperty() {
+        return this.fragmentationMemoizationSetting;
+    }
+
+    /**
+     * Returns the current value of the persistent fragmentation cache setting.
+     *
+     * @return persistent fragmentation cache setting value
+     */
+    public boolean getPersistentFragmentationCacheSetting() {
+        return this.persistentFragmentationCacheSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the persistent fragmentation cache setting.
+     *
+     * @return persistent fragmentation cache setting property
+     */
+    public SimpleBooleanProperty persistentFragmentationCacheSettingProperty() {
+        return this.persistentFragmentationCacheSetting;
+    }
+
+    /**
+     * Returns the current value of the fragmentation cache size limit setting.
+     *
+     * @return fragmentation cache size limit setting value
+     */
+    public int getFragmentationCacheSizeLimitSetting() {
+        return this.fragmentationCacheSizeLimitSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the fragmentation cache size limit setting.
+     *
+     * @return fragmentation cache size limit setting property
+     */
+    public SimpleIntegerProperty fragmentationCacheSizeLimitSettingProperty() {
+        return this.fragmentationCacheSizeLimitSetting;
+    }
+
+    /**
+     * Returns the current value of the fused pipeline fragmentation setting.
+     *
+     * @return fused pipeline fragmentation setting value
+     */
+    public boolean getFusedPipelineFragmentationSetting() {
+        return this.fusedPipelineFragmentationSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the fused pipeline fragmentation setting.
+     *
+     * @return fused pipeline fragmentation setting property
+     */
+    public SimpleBooleanProperty fusedPipelineFragmentationSettingProperty() {
+        return this.fusedPipelineFragmentationSetting;
+    }
+
+    /**
+     * Returns the current value of the fragmentation time budget setting.
+     *
+     * @return fragmentation time budget setting value
+     */
+    public int getFragmentationTimeBudgetSetting() {
+        return this.fragmentationTimeBudgetSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the fragmentation time budget setting.
+     *
+     * @return fragmentation time budget setting property
+     */
+    public SimpleIntegerProperty fragmentationTimeBudgetSettingProperty() {
+        return this.fragmentationTimeBudgetSetting;
+    }
+
+    /**
+     * Returns the current value of the memory governor setting.
+     *
+     * @return memory governor setting value
+     */
+    public boolean getMemoryGovernorSetting() {
+        return this.memoryGovernorSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the memory governor setting.
+     *
+     * @return memory governor setting property
+     */
+    public SimpleBooleanProperty memoryGovernorSettingProperty() {
+        return this.memoryGovernorSetting;
+    }
+
+    /**
+     * Returns the current value of the memory governor high threshold setting.
+     *
+     * @return memory governor high threshold setting value
+     */
+    public int getMemoryGovernorHighThresholdSetting() {
+        return this.memoryGovernorHighThresholdSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the memory governor high threshold setting.
+     *
+     * @return memory governor high threshold setting property
+     */
+    public SimpleIntegerProperty memoryGovernorHighThresholdSettingProperty() {
+        return this.memoryGovernorHighThresholdSetting;
+    }
+
+    /**
+     * Returns the current value of the memory governor critical threshold setting.
+     *
+     * @return memory governor critical threshold setting value
+     */
+    public int getMemoryGovernorCriticalThresholdSetting() {
+        return this.memoryGovernorCriticalThresholdSetting.get();
+    }
+
+    /**
+     * Returns the property wrapping the memory governor critical threshold setting.
+     *
+     * @return memory governor critical threshold setting property
+     */
+    public SimpleIntegerProperty memoryGovernorCriticalThresholdSettingProperty() {
+        return this.memoryGovernorCriticalThresholdSetting;
+    }
+
     /**
      * Sets the setting for how many rows/molecules should be displayed per page in the tabs.
      *
@@ -533,6 +875,170 @@ public class SettingsContainer {
         this.keepLastFragmentSetting.set(aBoolean);
     }
 
+    /**
+     * Sets the setting for whether the molecules should be handed out to the parallel fragmentation tasks dynamically
+     * in small batches. If false, every task gets one static slice of the molecule list, like in previous versions.
+     *
+     * @param aBoolean whether to distribute the molecules dynamically
+     */
+    public void setDynamicFragmentationSchedulingSetting(boolean aBoolean) {
+        this.dynamicFragmentationSchedulingSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the setting for how many molecules a parallel fragmentation task takes from the shared molecule list at once
+     * if the molecules are distributed dynamically.
+     *
+     * @param anInteger the number of molecules per batch
+     * @throws IllegalArgumentException if the given parameter is 0 or negative
+     */
+    public void setFragmentationBatchSizeSetting(int anInteger) throws IllegalArgumentException {
+        if (this.isLegalFragmentationBatchSizeSetting(anInteger)) {
+            //synchronises the preference also
+            this.fragmentationBatchSizeSetting.set(anInteger);
+        } else {
+            throw new IllegalArgumentException("The given fragmentation batch size is 0 or negative.");
+        }
+    }
+
+    /**
+     * Sets the setting for the kind of threads the I/O-bound background tasks like file import and export are run on.
+     *
+     * @param anExecutionMode enum constant
+     * @throws NullPointerException if the given parameter is null
+     */
+    public void setThreadExecutionModeSetting(ThreadUtil.ThreadExecutionMode anExecutionMode) throws NullPointerException {
+        Objects.requireNonNull(anExecutionMode, "Given thread execution mode is null.");
+        this.threadExecutionModeSetting.set(anExecutionMode);
+    }
+
+    /**
+     * Sets the setting for whether each parallel fragmentation task should collect the fragments in its own maps that
+     * are merged at the end instead of updating one map shared by all tasks.
+     *
+     * @param aBoolean true if the fragments should be aggregated task-locally
+     */
+    public void setTaskLocalFragmentAggregationSetting(boolean aBoolean) {
+        this.taskLocalFragmentAggregationSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the setting for whether the fragmentation tasks should look up the unique SMILES codes of already seen
+     * fragments by a structure hash before generating them.
+     *
+     * @param aBoolean true if fragments should be deduplicated by their structure hash first
+     */
+    public void setHashFirstFragmentDeduplicationSetting(boolean aBoolean) {
+        this.hashFirstFragmentDeduplicationSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the setting for whether molecules with the same unique SMILES code should be fragmented only once per
+     * fragmentation and reuse the result.
+     *
+     * @param aBoolean true if fragmentation results should be reused for repeated structures
+     */
+    public void setFragmentationMemoizationSetting(boolean aBoolean) {
+        this.fragmentationMemoizationSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the setting for whether fragmentation results should be cached on disk in the application directory to be
+     * reused in later fragmentations with the same fragmenter settings, also across sessions.
+     *
+     * @param aBoolean true if fragmentation results should be cached on disk
+     */
+    public void setPersistentFragmentationCacheSetting(boolean aBoolean) {
+        this.persistentFragmentationCacheSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the setting for the maximum size of the persistent fragmentation cache on disk in megabytes. The least
+     * recently used entries are evicted when the cache exceeds it.
+     *
+     * @param anInteger the maximum size of the cache in megabytes
+     * @throws IllegalArgumentException if the given parameter is 0, negative, or higher than
+     * {@link #FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM}
+     */
+    public void setFragmentationCacheSizeLimitSetting(int anInteger) throws IllegalArgumentException {
+        if (this.isLegalFragmentationCacheSizeLimitSetting(anInteger)) {
+            //synchronises the preference also
+            this.fragmentationCacheSizeLimitSetting.set(anInteger);
+        } else {
+            throw new IllegalArgumentException("The given fragmentation cache size limit is 0, negative, or higher than "
+                    + SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM + ".");
+        }
+    }
+
+    /**
+     * Sets the setting for whether the pipeline fragmenters should be applied to every molecule one after another in
+     * one pass instead of running every pipeline stage on the whole molecule set.
+     *
+     * @param aBoolean boolean whether pipeline fragmentations should be fused
+     */
+    public void setFusedPipelineFragmentationSetting(boolean aBoolean) {
+        this.fusedPipelineFragmentationSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the time budget in seconds for the fragmentation of a single molecule. Molecules whose fragmentation
+     * exceeds it are abandoned and reported as timed out; 0 disables the budget. A running call of the fragmentation
+     * algorithm is not interrupted, the molecule is abandoned once the call returns.
+     *
+     * @param anInteger time budget in seconds, 0 for no budget
+     * @throws IllegalArgumentException if the given number is negative
+     */
+    public void setFragmentationTimeBudgetSetting(int anInteger) throws IllegalArgumentException {
+        if (this.isLegalFragmentationTimeBudgetSetting(anInteger)) {
+            //synchronises the preference also
+            this.fragmentationTimeBudgetSetting.set(anInteger);
+        } else {
+            throw new IllegalArgumentException("Given time budget is negative.");
+        }
+    }
+
+    /**
+     * Sets the setting for whether the number of active fragmentation workers should be reduced when the heap usage
+     * after garbage collection crosses the memory governor thresholds and increased again when it drops.
+     *
+     * @param aBoolean true if the fragmentation should be throttled under memory pressure
+     */
+    public void setMemoryGovernorSetting(boolean aBoolean) {
+        this.memoryGovernorSetting.set(aBoolean);
+    }
+
+    /**
+     * Sets the heap usage after garbage collection in percent above which the memory governor halves the number of
+     * active fragmentation workers, once per excursion above it.
+     *
+     * @param anInteger heap usage threshold in percent, between 1 and 100
+     * @throws IllegalArgumentException if the given number is not between 1 and 100
+     */
+    public void setMemoryGovernorHighThresholdSetting(int anInteger) throws IllegalArgumentException {
+        if (this.isLegalMemoryGovernorHighThresholdSetting(anInteger)) {
+            //synchronises the preference also
+            this.memoryGovernorHighThresholdSetting.set(anInteger);
+        } else {
+            throw new IllegalArgumentException("Given heap usage threshold is not between 1 and 100.");
+        }
+    }
+
+    /**
+     * Sets the heap usage after garbage collection in percent above which the memory governor pauses the intake of
+     * molecules for all fragmentation workers but one.
+     *
+     * @param anInteger heap usage threshold in percent, between 1 and 100
+     * @throws IllegalArgumentException if the given number is not between 1 and 100
+     */
+    public void setMemoryGovernorCriticalThresholdSetting(int anInteger) throws IllegalArgumentException {
+        if (this.isLegalMemoryGovernorCriticalThresholdSetting(anInteger)) {
+            //synchronises the preference also
+            this.memoryGovernorCriticalThresholdSetting.set(anInteger);
+        } else {
+            throw new IllegalArgumentException("Given heap usage threshold is not between 1 and 100.");
+        }
+    }
+
     /**
      * Restores all setting to their default setting according to the respective public constants in this class.
      */
@@ -548,6 +1054,19 @@ public class SettingsContainer {
         this.regardStereochemistrySetting.set(SettingsContainer.REGARD_STEREOCHEMISTRY_SETTING_DEFAULT);
         //DEPRECATED
         //this.keepLastFragmentSetting.set(SettingsContainer.KEEP_LAST_FRAGMENT_SETTING_DEFAULT);
+        this.dynamicFragmentationSchedulingSetting.set(SettingsContainer.DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT);
+        this.fragmentationBatchSizeSetting.set(SettingsContainer.FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT);
+        this.threadExecutionModeSetting.set(SettingsContainer.THREAD_EXECUTION_MODE_SETTING_DEFAULT);
+        this.taskLocalFragmentAggregationSetting.set(SettingsContainer.TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT);
+        this.hashFirstFragmentDeduplicationSetting.set(SettingsContainer.HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT);
+        this.fragmentationMemoizationSetting.set(SettingsContainer.FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT);
+        this.persistentFragmentationCacheSetting.set(SettingsContainer.PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT);
+        this.fragmentationCacheSizeLimitSetting.set(SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT);
+        this.fusedPipelineFragmentationSetting.set(SettingsContainer.FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT);
+        this.fragmentationTimeBudgetSetting.set(SettingsContainer.FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT);
+        this.memoryGovernorSetting.set(SettingsContainer.MEMORY_GOVERNOR_SETTING_DEFAULT);
+        this.memoryGovernorHighThresholdSetting.set(SettingsContainer.MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT);
+        this.memoryGovernorCriticalThresholdSetting.set(SettingsContainer.MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT);
     }
     //</editor-fold>
     //
@@ -633,7 +1152,7 @@ public class SettingsContainer {
      * to the list of settings for display to the user.
      */
     private void initialiseSettings() {
-        int tmpNumberOfSettings = 6;
+        int tmpNumberOfSettings = 19;
         int tmpInitialCapacityForSettingNameMaps = CollectionUtil.calculateInitialHashCollectionCapacity(
                 tmpNumberOfSettings,
                 BasicDefinitions.DEFAULT_HASH_COLLECTION_LOAD_FACTOR);
@@ -770,6 +1289,152 @@ public class SettingsContainer {
         };
         //this.settingNameTooltipTextMap.put(this.keepLastFragmentSetting.getName(), Message.get("SettingsContainer.keepLastFragmentSetting.tooltip"));
         //this.settingNameDisplayNameMap.put(this.keepLastFragmentSetting.getName(), Message.get("SettingsContainer.keepLastFragmentSetting.displayName"));
+        this.dynamicFragmentationSchedulingSetting = new SimpleBooleanProperty(this,
+                "Dynamic fragmentation scheduling setting",
+                SettingsContainer.DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.dynamicFragmentationSchedulingSetting.getName(), Message.get("SettingsContainer.dynamicFragmentationSchedulingSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.dynamicFragmentationSchedulingSetting.getName(), Message.get("SettingsContainer.dynamicFragmentationSchedulingSetting.displayName"));
+        this.fragmentationBatchSizeSetting = new SimpleIntegerProperty(this,
+                "Fragmentation batch size setting",
+                SettingsContainer.FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT) {
+            @Override
+            public void set(int newValue) throws IllegalArgumentException {
+                if (SettingsContainer.this.isLegalFragmentationBatchSizeSetting(newValue)) {
+                    super.set(newValue);
+                } else {
+                    IllegalArgumentException tmpException = new IllegalArgumentException("An illegal fragmentation batch size was given: " + newValue);
+                    SettingsContainer.LOGGER.log(Level.WARNING, tmpException.toString(), tmpException);
+                    GuiUtil.guiExceptionAlert(Message.get("SettingsContainer.Error.invalidSettingArgument.Title"),
+                            Message.get("SettingsContainer.Error.invalidSettingArgument.Header"),
+                            tmpException.toString(),
+                            tmpException);
+                    //re-throws the exception to properly reset the binding
+                    throw tmpException;
+                }
+            }
+        };
+        this.settingNameTooltipTextMap.put(this.fragmentationBatchSizeSetting.getName(), Message.get("SettingsContainer.fragmentationBatchSizeSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.fragmentationBatchSizeSetting.getName(), Message.get("SettingsContainer.fragmentationBatchSizeSetting.displayName"));
+        this.threadExecutionModeSetting = new SimpleIDisplayEnumConstantProperty(this,
+                "Thread execution mode setting", SettingsContainer.THREAD_EXECUTION_MODE_SETTING_DEFAULT,
+                ThreadUtil.ThreadExecutionMode.class);
+        this.settingNameTooltipTextMap.put(this.threadExecutionModeSetting.getName(), Message.get("SettingsContainer.threadExecutionModeSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.threadExecutionModeSetting.getName(), Message.get("SettingsContainer.threadExecutionModeSetting.displayName"));
+        this.taskLocalFragmentAggregationSetting = new SimpleBooleanProperty(this,
+                "Task-local fragment aggregation setting",
+                SettingsContainer.TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.taskLocalFragmentAggregationSetting.getName(), Message.get("SettingsContainer.taskLocalFragmentAggregationSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.taskLocalFragmentAggregationSetting.getName(), Message.get("SettingsContainer.taskLocalFragmentAggregationSetting.displayName"));
+        this.hashFirstFragmentDeduplicationSetting = new SimpleBooleanProperty(this,
+                "Hash-first fragment deduplication setting",
+                SettingsContainer.HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.hashFirstFragmentDeduplicationSetting.getName(), Message.get("SettingsContainer.hashFirstFragmentDeduplicationSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.hashFirstFragmentDeduplicationSetting.getName(), Message.get("SettingsContainer.hashFirstFragmentDeduplicationSetting.displayName"));
+        this.fragmentationMemoizationSetting = new SimpleBooleanProperty(this,
+                "Fragmentation memoization setting",
+                SettingsContainer.FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.fragmentationMemoizationSetting.getName(), Message.get("SettingsContainer.fragmentationMemoizationSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.fragmentationMemoizationSetting.getName(), Message.get("SettingsContainer.fragmentationMemoizationSetting.displayName"));
+        this.persistentFragmentationCacheSetting = new SimpleBooleanProperty(this,
+                "Persistent fragmentation cache setting",
+                SettingsContainer.PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.persistentFragmentationCacheSetting.getName(), Message.get("SettingsContainer.persistentFragmentationCacheSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.persistentFragmentationCacheSetting.getName(), Message.get("SettingsContainer.persistentFragmentationCacheSetting.displayName"));
+        this.fragmentationCacheSizeLimitSetting = new SimpleIntegerProperty(this,
+                "Fragmentation cache size limit setting",
+                SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT) {
+            @Override
+            public void set(int newValue) throws IllegalArgumentException {
+                if (SettingsContainer.this.isLegalFragmentationCacheSizeLimitSetting(newValue)) {
+                    super.set(newValue);
+                } else {
+                    IllegalArgumentException tmpException = new IllegalArgumentException("An illegal fragmentation cache size limit was given: " + newValue);
+                    SettingsContainer.LOGGER.log(Level.WARNING, tmpException.toString(), tmpException);
+                    GuiUtil.guiExceptionAlert(Message.get("SettingsContainer.Error.invalidSettingArgument.Title"),
+                            Message.get("SettingsContainer.Error.invalidSettingArgument.Header"),
+                            tmpException.toString(),
+                            tmpException);
+                    //re-throws the exception to properly reset the binding
+                    throw tmpException;
+                }
+            }
+        };
+        this.settingNameTooltipTextMap.put(this.fragmentationCacheSizeLimitSetting.getName(),
+                String.format(Message.get("SettingsContainer.fragmentationCacheSizeLimitSetting.tooltip"), SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM));
+        this.settingNameDisplayNameMap.put(this.fragmentationCacheSizeLimitSetting.getName(), Message.get("SettingsContainer.fragmentationCacheSizeLimitSetting.displayName"));
+        this.fusedPipelineFragmentationSetting = new SimpleBooleanProperty(this,
+                "Fused pipeline fragmentation setting",
+                SettingsContainer.FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.fusedPipelineFragmentationSetting.getName(), Message.get("SettingsContainer.fusedPipelineFragmentationSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.fusedPipelineFragmentationSetting.getName(), Message.get("SettingsContainer.fusedPipelineFragmentationSetting.displayName"));
+        this.fragmentationTimeBudgetSetting = new SimpleIntegerProperty(this,
+                "Fragmentation time budget setting",
+                SettingsContainer.FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT) {
+            @Override
+            public void set(int newValue) throws IllegalArgumentException {
+                if (SettingsContainer.this.isLegalFragmentationTimeBudgetSetting(newValue)) {
+                    super.set(newValue);
+                } else {
+                    IllegalArgumentException tmpException = new IllegalArgumentException("An illegal fragmentation time budget was given: " + newValue);
+                    SettingsContainer.LOGGER.log(Level.WARNING, tmpException.toString(), tmpException);
+                    GuiUtil.guiExceptionAlert(Message.get("SettingsContainer.Error.invalidSettingArgument.Title"),
+                            Message.get("SettingsContainer.Error.invalidSettingArgument.Header"),
+                            tmpException.toString(),
+                            tmpException);
+                    //re-throws the exception to properly reset the binding
+                    throw tmpException;
+                }
+            }
+        };
+        this.settingNameTooltipTextMap.put(this.fragmentationTimeBudgetSetting.getName(), Message.get("SettingsContainer.fragmentationTimeBudgetSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.fragmentationTimeBudgetSetting.getName(), Message.get("SettingsContainer.fragmentationTimeBudgetSetting.displayName"));
+        this.memoryGovernorSetting = new SimpleBooleanProperty(this,
+                "Memory governor setting",
+                SettingsContainer.MEMORY_GOVERNOR_SETTING_DEFAULT);
+        this.settingNameTooltipTextMap.put(this.memoryGovernorSetting.getName(), Message.get("SettingsContainer.memoryGovernorSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.memoryGovernorSetting.getName(), Message.get("SettingsContainer.memoryGovernorSetting.displayName"));
+        this.memoryGovernorHighThresholdSetting = new SimpleIntegerProperty(this,
+                "Memory governor high threshold setting",
+                SettingsContainer.MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT) {
+            @Override
+            public void set(int newValue) throws IllegalArgumentException {
+                if (SettingsContainer.this.isLegalMemoryGovernorHighThresholdSetting(newValue)) {
+                    super.set(newValue);
+                } else {
+                    IllegalArgumentException tmpException = new IllegalArgumentException("An illegal memory governor high threshold was given: " + newValue);
+                    SettingsContainer.LOGGER.log(Level.WARNING, tmpException.toString(), tmpException);
+                    GuiUtil.guiExceptionAlert(Message.get("SettingsContainer.Error.invalidSettingArgument.Title"),
+                            Message.get("SettingsContainer.Error.invalidSettingArgument.Header"),
+                            tmpException.toString(),
+                            tmpException);
+                    //re-throws the exception to properly reset the binding
+                    throw tmpException;
+                }
+            }
+        };
+        this.settingNameTooltipTextMap.put(this.memoryGovernorHighThresholdSetting.getName(), Message.get("SettingsContainer.memoryGovernorHighThresholdSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.memoryGovernorHighThresholdSetting.getName(), Message.get("SettingsContainer.memoryGovernorHighThresholdSetting.displayName"));
+        this.memoryGovernorCriticalThresholdSetting = new SimpleIntegerProperty(this,
+                "Memory governor critical threshold setting",
+                SettingsContainer.MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT) {
+            @Override
+            public void set(int newValue) throws IllegalArgumentException {
+                if (SettingsContainer.this.isLegalMemoryGovernorCriticalThresholdSetting(newValue)) {
+                    super.set(newValue);
+                } else {
+                    IllegalArgumentException tmpException = new IllegalArgumentException("An illegal memory governor critical threshold was given: " + newValue);
+                    SettingsContainer.LOGGER.log(Level.WARNING, tmpException.toString(), tmpException);
+                    GuiUtil.guiExceptionAlert(Message.get("SettingsContainer.Error.invalidSettingArgument.Title"),
+                            Message.get("SettingsContainer.Error.invalidSettingArgument.Header"),
+                            tmpException.toString(),
+                            tmpException);
+                    //re-throws the exception to properly reset the binding
+                    throw tmpException;
+                }
+            }
+        };
+        this.settingNameTooltipTextMap.put(this.memoryGovernorCriticalThresholdSetting.getName(), Message.get("SettingsContainer.memoryGovernorCriticalThresholdSetting.tooltip"));
+        this.settingNameDisplayNameMap.put(this.memoryGovernorCriticalThresholdSetting.getName(), Message.get("SettingsContainer.memoryGovernorCriticalThresholdSetting.displayName"));
         this.settings = new ArrayList<>(tmpNumberOfSettings);
         this.settings.add(this.rowsPerPageSetting);
         this.settings.add(this.numberOfTasksForFragmentationSetting);
@@ -781,6 +1446,19 @@ public class SettingsContainer {
         //DEPRECATED
         //this.settings.add(this.keepLastFragmentSetting);
         this.settings.add(this.csvExportSeparatorSetting);
+        this.settings.add(this.dynamicFragmentationSchedulingSetting);
+        this.settings.add(this.fragmentationBatchSizeSetting);
+        this.settings.add(this.threadExecutionModeSetting);
+        this.settings.add(this.taskLocalFragmentAggregationSetting);
+        this.settings.add(this.hashFirstFragmentDeduplicationSetting);
+        this.settings.add(this.fragmentationMemoizationSetting);
+        this.settings.add(this.persistentFragmentationCacheSetting);
+        this.settings.add(this.fragmentationCacheSizeLimitSetting);
+        this.settings.add(this.fusedPipelineFragmentationSetting);
+        this.settings.add(this.fragmentationTimeBudgetSetting);
+        this.settings.add(this.memoryGovernorSetting);
+        this.settings.add(this.memoryGovernorHighThresholdSetting);
+        this.settings.add(this.memoryGovernorCriticalThresholdSetting);
         //note: recent directory path is only internal, all settings in the list are for the user
     }
 
@@ -822,6 +1500,61 @@ public class SettingsContainer {
         return !(anInteger <= 0 || anInteger > SettingsContainer.MAX_AVAILABLE_THREADS);
     }
 
+    /**
+     * Tests whether an integer value would be an allowed argument for the fragmentation batch size setting. For this,
+     * it must be positive and non-zero.
+     *
+     * @param anInteger the integer to test
+     * @return true if the given parameter is a legal value for the setting
+     */
+    private boolean isLegalFragmentationBatchSizeSetting(int anInteger) {
+        return anInteger > 0;
+    }
+
+    /**
+     * Tests whether an integer value would be an allowed argument for the memory governor critical threshold setting.
+     * For this, it must be between 1 and 100.
+     *
+     * @param anInteger the integer to test
+     * @return true if the given parameter is a legal value for the setting
+     */
+    private boolean isLegalMemoryGovernorCriticalThresholdSetting(int anInteger) {
+        return anInteger >= 1 && anInteger <= 100;
+    }
+
+    /**
+     * Tests whether an integer value would be an allowed argument for a memory governor threshold setting. For this,
+     * it must be between 1 and 100.
+     *
+     * @param anInteger the integer to test
+     * @return true if the given parameter is a legal value for the setting
+     */
+    private boolean isLegalMemoryGovernorHighThresholdSetting(int anInteger) {
+        return anInteger >= 1 && anInteger <= 100;
+    }
+
+    /**
+     * Tests whether an integer value would be an allowed argument for the fragmentation time budget setting. For this,
+     * it must be 0 or positive.
+     *
+     * @param anInteger the integer to test
+     * @return true if the given parameter is a legal value for the setting
+     */
+    private boolean isLegalFragmentationTimeBudgetSetting(int anInteger) {
+        return anInteger >= 0;
+    }
+
+    /**
+     * Tests whether an integer value would be an allowed argument for the fragmentation cache size limit setting. For
+     * this, it must be positive, non-zero, and not higher than {@link #FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM}.
+     *
+     * @param anInteger the integer to test
+     * @return true if the given parameter is a legal value for the setting
+     */
+    private boolean isLegalFragmentationCacheSizeLimitSetting(int anInteger) {
+        return anInteger > 0 && anInteger <= SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_MAXIMUM;
+    }
+
     /**
      * Tests whether a path would be an allowed argument for the recent directory path setting. For this, it must be
      * not null, not empty, existing, a directory, and readable.
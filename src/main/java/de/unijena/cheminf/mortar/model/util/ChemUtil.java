@@ -66,6 +66,28 @@ public final class ChemUtil {
      * Logger of this class.
      */
     private static final Logger LOGGER = Logger.getLogger(ChemUtil.class.getName());
+    //
+    /**
+     * Unique SMILES generators for all combinations of aromaticity and stereochemistry encoding, see
+     * {@link #getSmilesGeneratorIndex(boolean, boolean)}. SmilesGenerator instances are immutable and can therefore be
+     * shared by all threads.
+     */
+    private static final SmilesGenerator[] UNIQUE_SMILES_GENERATORS = {
+            new SmilesGenerator(SmiFlavor.Unique),
+            new SmilesGenerator(SmiFlavor.Unique | SmiFlavor.UseAromaticSymbols),
+            new SmilesGenerator(SmiFlavor.Unique | SmiFlavor.Stereo),
+            new SmilesGenerator(SmiFlavor.Unique | SmiFlavor.UseAromaticSymbols | SmiFlavor.Stereo)
+    };
+    //
+    /**
+     * SMILES parser of the current thread, not kekulising the parsed molecules. SmilesParser instances are not
+     * thread-safe but cheap to reuse, so every thread gets its own one instead of creating one per call.
+     */
+    private static final ThreadLocal<SmilesParser> SMILES_PARSER = ThreadLocal.withInitial(() -> {
+        SmilesParser tmpSmilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        tmpSmilesParser.kekulise(false);
+        return tmpSmilesParser;
+    });
     //</editor-fold>
     //
     //<editor-fold desc="Private constructor" defaultstate="collapsed">
@@ -104,21 +126,16 @@ public final class ChemUtil {
      * @return unique SMILES of the given atom container or 'null' if no creation was possible
      */
     public static String createUniqueSmiles(IAtomContainer anAtomContainer, boolean isStereoChemEncoded, boolean isAromaticityEncoded) {
-        int tmpFlavor = SmiFlavor.Unique;
-        if (isAromaticityEncoded) {
-            tmpFlavor = tmpFlavor | SmiFlavor.UseAromaticSymbols;
-        }
-        if (isStereoChemEncoded && anAtomContainer.stereoElements().iterator().hasNext()) {
-            tmpFlavor = tmpFlavor | SmiFlavor.Stereo;
-        }
+        boolean tmpIsStereoChemEncoded = isStereoChemEncoded && anAtomContainer.stereoElements().iterator().hasNext();
+        SmilesGenerator tmpSmilesGenerator = ChemUtil.UNIQUE_SMILES_GENERATORS[ChemUtil.getSmilesGeneratorIndex(isAromaticityEncoded, tmpIsStereoChemEncoded)];
         String tmpSmiles = null;
         try {
             try {
-                tmpSmiles = SmilesGenerator.create(anAtomContainer, tmpFlavor, new int[anAtomContainer.getAtomCount()]);
+                tmpSmiles = tmpSmilesGenerator.create(anAtomContainer, new int[anAtomContainer.getAtomCount()]);
             } catch (CDKException anException) {
                 IAtomContainer tmpAtomContainer = anAtomContainer.clone();
                 Kekulization.kekulize(tmpAtomContainer);
-                tmpSmiles = SmilesGenerator.create(tmpAtomContainer, tmpFlavor, new int[anAtomContainer.getAtomCount()]);
+                tmpSmiles = tmpSmilesGenerator.create(tmpAtomContainer, new int[anAtomContainer.getAtomCount()]);
                 ChemUtil.LOGGER.log(Level.INFO, String.format("Kekulized molecule %s", anAtomContainer.getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY)));
             }
         } catch (CDKException | NullPointerException | IllegalArgumentException | CloneNotSupportedException | ArrayIndexOutOfBoundsException anException){
@@ -130,7 +147,8 @@ public final class ChemUtil {
     /**
      * Returns an IAtomContainer instance which represents the molecule parsed from the SMILES string. Bond types and
      * atom types are assigned to it (the former through kekulization) if required. Aromaticity flags are set only if
-     * there is aromaticity information present in the SMILES code, no aromaticity perception is performed here.
+     * there is aromaticity information present in the SMILES code, no aromaticity perception is performed here. The
+     * SMILES parser is reused by the calling thread.
      *
      * @param aSmilesCode SMILES representation
      * @param shouldBeKekulized whether explicit bond orders should be assigned or "aromatic bond" can be used if present;
@@ -143,8 +161,7 @@ public final class ChemUtil {
             throws CDKException {
         //no checks because .parseSmiles() checks and throws InvalidSmilesException (subclass of CDKException) if the SMILES cannot be parsed
         IAtomContainer tmpAtomContainer;
-        SmilesParser tmpSmiPar = new SmilesParser(SilentChemObjectBuilder.getInstance());
-        tmpSmiPar.kekulise(false);
+        SmilesParser tmpSmiPar = ChemUtil.SMILES_PARSER.get();
         //throws InvalidSmilesException
         tmpAtomContainer = tmpSmiPar.parseSmiles(aSmilesCode);
         if (shouldBeKekulized) {
@@ -421,4 +438,17 @@ public final class ChemUtil {
         } //else: do nothing
     }
     //</editor-fold>
+    //
+    //<editor-fold defaultstate="collapsed" desc="Private static methods">
+    /**
+     * Returns the index of the unique SMILES generator with the given encodings in {@link #UNIQUE_SMILES_GENERATORS}.
+     *
+     * @param isAromaticityEncoded whether aromaticity should be encoded
+     * @param isStereoChemEncoded whether stereochemistry should be encoded
+     * @return index of the generator
+     */
+    private static int getSmilesGeneratorIndex(boolean isAromaticityEncoded, boolean isStereoChemEncoded) {
+        return (isAromaticityEncoded ? 1 : 0) + (isStereoChemEncoded ? 2 : 0);
+    }
+    //</editor-fold>
 }
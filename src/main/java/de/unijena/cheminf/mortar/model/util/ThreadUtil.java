@@ -0,0 +1,128 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.util;
+
+import de.unijena.cheminf.mortar.message.Message;
+
+import java.util.Objects;
+
+/**
+ * Utilities for creating the background threads of the application.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public final class ThreadUtil {
+    //<editor-fold desc="Enum ThreadExecutionMode" defaultstate="collapsed">
+    /**
+     * Enum for the kinds of threads that I/O-bound background work like file import and export can be run on.
+     * CPU-bound work like the fragmentation itself is not affected and always runs on a bounded pool of platform threads.
+     */
+    public enum ThreadExecutionMode implements IDisplayEnum {
+        /**
+         * Classic platform threads, one operating system thread per background task.
+         */
+        PLATFORM_THREADS(Message.get("ThreadUtil.ThreadExecutionMode.PlatformThreads.displayName"),
+                Message.get("ThreadUtil.ThreadExecutionMode.PlatformThreads.tooltip")),
+        /**
+         * Virtual threads that are mounted on a small pool of carrier threads and unmounted while they wait for I/O.
+         */
+        VIRTUAL_THREADS(Message.get("ThreadUtil.ThreadExecutionMode.VirtualThreads.displayName"),
+                Message.get("ThreadUtil.ThreadExecutionMode.VirtualThreads.tooltip"));
+        /**
+         * Language-specific name for display in GUI.
+         */
+        private final String displayName;
+        /**
+         * Language-specific tooltip text for display in GUI.
+         */
+        private final String tooltip;
+        /**
+         * Constructor setting the display name and tooltip text.
+         *
+         * @param aDisplayName display name
+         * @param aTooltipText tooltip text
+         */
+        private ThreadExecutionMode(String aDisplayName, String aTooltipText) {
+            this.displayName = aDisplayName;
+            this.tooltip = aTooltipText;
+        }
+        //
+        @Override
+        public String getDisplayName() {
+            return this.displayName;
+        }
+        //
+        @Override
+        public String getTooltipText() {
+            return this.tooltip;
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="Private constructor" defaultstate="collapsed">
+    /**
+     * Private parameter-less constructor.
+     * Introduced because javadoc build complained about classes without declared default constructor.
+     */
+    private ThreadUtil() {
+    }
+    //</editor-fold>
+    //
+    //<editor-fold defaultstate="collapsed" desc="Public static methods">
+    /**
+     * Creates an unstarted thread for the given background task. In platform thread mode, the thread is a non-daemon
+     * thread with a priority lowered by two compared to the calling thread. Virtual threads are always daemon threads
+     * and have a fixed priority, so these two properties are not set for them. In both cases, the thread gets the given
+     * name and the uncaught exception handler of {@link LogUtil}.
+     *
+     * @param aRunnable task to run in the thread
+     * @param aThreadName name of the thread
+     * @param anExecutionMode kind of thread to create
+     * @return new unstarted thread
+     * @throws NullPointerException if any parameter is null
+     */
+    public static Thread createBackgroundThread(Runnable aRunnable, String aThreadName, ThreadExecutionMode anExecutionMode)
+            throws NullPointerException {
+        Objects.requireNonNull(aRunnable, "aRunnable (instance of Runnable) is null.");
+        Objects.requireNonNull(aThreadName, "aThreadName (instance of String) is null.");
+        Objects.requireNonNull(anExecutionMode, "anExecutionMode (instance of ThreadExecutionMode) is null.");
+        return switch (anExecutionMode) {
+            case VIRTUAL_THREADS -> Thread.ofVirtual()
+                    .name(aThreadName)
+                    .uncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler())
+                    .unstarted(aRunnable);
+            case PLATFORM_THREADS -> {
+                Thread tmpThread = new Thread(aRunnable, aThreadName);
+                tmpThread.setUncaughtExceptionHandler(LogUtil.getUncaughtExceptionHandler());
+                tmpThread.setDaemon(false);
+                tmpThread.setPriority(Thread.currentThread().getPriority() - 2); //magic number
+                yield tmpThread;
+            }
+        };
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,164 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Test class for the ParentMoleculeSet that stores the parent molecules of fragments by their index.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class ParentMoleculeSetTest {
+    /**
+     * Tests random additions and removals against a reference set for index sizes that keep the sorted array and that
+     * force the switch to the bitmap, and that the molecules are iterated in the order of their indices.
+     */
+    @Test
+    public void testAgainstReferenceSet() {
+        Random tmpRandom = new Random(42);
+        for (int tmpNumberOfMolecules : new int[] {5, 1000, 70000}) {
+            List<MoleculeDataModel> tmpMolecules = ParentMoleculeSetTest.createIndexedMolecules(tmpNumberOfMolecules);
+            ParentMoleculeSet tmpSet = new ParentMoleculeSet();
+            TreeSet<Integer> tmpReferenceSet = new TreeSet<>();
+            for (int i = 0; i < tmpNumberOfMolecules * 2; i++) {
+                int tmpIndex = tmpRandom.nextInt(tmpNumberOfMolecules);
+                if (tmpRandom.nextInt(3) > 0) {
+                    Assertions.assertEquals(tmpReferenceSet.add(tmpIndex), tmpSet.add(tmpMolecules.get(tmpIndex)));
+                } else {
+                    Assertions.assertEquals(tmpReferenceSet.remove(tmpIndex), tmpSet.remove(tmpMolecules.get(tmpIndex)));
+                }
+                Assertions.assertEquals(tmpReferenceSet.size(), tmpSet.size());
+            }
+            List<Integer> tmpIteratedIndices = new ArrayList<>(tmpSet.size());
+            for (MoleculeDataModel tmpMolecule : tmpSet) {
+                tmpIteratedIndices.add(tmpMolecule.getIndexInMoleculeIndex());
+            }
+            Assertions.assertEquals(new ArrayList<>(tmpReferenceSet), tmpIteratedIndices);
+            for (int i = 0; i < tmpNumberOfMolecules; i++) {
+                Assertions.assertEquals(tmpReferenceSet.contains(i), tmpSet.contains(tmpMolecules.get(i)));
+            }
+        }
+    }
+    //
+    /**
+     * Tests that molecules without an index are stored as well, iterated after the indexed ones, and that removeIf()
+     * and clear() work on both kinds of molecules.
+     */
+    @Test
+    public void testUnindexedMolecules() {
+        List<MoleculeDataModel> tmpMolecules = ParentMoleculeSetTest.createIndexedMolecules(10);
+        MoleculeDataModel tmpUnindexedMolecule = new MoleculeDataModel("CCO", "Unindexed", new HashMap<>());
+        ParentMoleculeSet tmpSet = new ParentMoleculeSet();
+        Assertions.assertTrue(tmpSet.add(tmpUnindexedMolecule));
+        Assertions.assertTrue(tmpSet.add(tmpMolecules.get(7)));
+        Assertions.assertTrue(tmpSet.add(tmpMolecules.get(2)));
+        Assertions.assertFalse(tmpSet.add(tmpMolecules.get(2)));
+        Assertions.assertFalse(tmpSet.add(tmpUnindexedMolecule));
+        Assertions.assertEquals(List.of(tmpMolecules.get(2), tmpMolecules.get(7), tmpUnindexedMolecule), new ArrayList<>(tmpSet));
+        Assertions.assertTrue(tmpSet.removeIf(aMolecule -> !tmpMolecules.contains(aMolecule)));
+        Assertions.assertEquals(2, tmpSet.size());
+        Assertions.assertFalse(tmpSet.contains(tmpUnindexedMolecule));
+        tmpSet.clear();
+        Assertions.assertTrue(tmpSet.isEmpty());
+        Assertions.assertFalse(tmpSet.iterator().hasNext());
+    }
+    //
+    /**
+     * Tests that molecules cannot be indexed a second time, so that parent molecule sets holding them by their index
+     * stay valid, and that a rejected assignment does not change any molecule.
+     */
+    @Test
+    public void testReassignmentIsRejected() {
+        List<MoleculeDataModel> tmpMolecules = ParentMoleculeSetTest.createIndexedMolecules(3);
+        MoleculeIndex tmpMoleculeIndex = tmpMolecules.getFirst().getMoleculeIndex();
+        ParentMoleculeSet tmpSet = new ParentMoleculeSet();
+        tmpSet.add(tmpMolecules.get(1));
+        MoleculeDataModel tmpNewMolecule = new MoleculeDataModel("CCO", "New", new HashMap<>());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MoleculeIndex.assign(List.of(tmpNewMolecule, tmpMolecules.get(2))));
+        Assertions.assertNull(tmpNewMolecule.getMoleculeIndex());
+        Assertions.assertSame(tmpMoleculeIndex, tmpMolecules.get(2).getMoleculeIndex());
+        Assertions.assertEquals(2, tmpMolecules.get(2).getIndexInMoleculeIndex());
+        Assertions.assertTrue(tmpSet.contains(tmpMolecules.get(1)));
+        Assertions.assertEquals(List.of(tmpMolecules.get(1)), new ArrayList<>(tmpSet));
+    }
+    //
+    /**
+     * Tests that molecules appended to an index get the following indices and are stored by their index in sets that
+     * already contain molecules of the index, also after the switch to the bitmap.
+     */
+    @Test
+    public void testAppendedMoleculesAreStoredByIndex() {
+        List<MoleculeDataModel> tmpMolecules = ParentMoleculeSetTest.createIndexedMolecules(100);
+        MoleculeIndex tmpMoleculeIndex = tmpMolecules.getFirst().getMoleculeIndex();
+        ParentMoleculeSet tmpSmallSet = new ParentMoleculeSet();
+        ParentMoleculeSet tmpLargeSet = new ParentMoleculeSet();
+        tmpSmallSet.add(tmpMolecules.get(1));
+        tmpLargeSet.addAll(tmpMolecules);
+        List<MoleculeDataModel> tmpAppendedMolecules = new ArrayList<>(200);
+        for (int i = 0; i < 200; i++) {
+            tmpAppendedMolecules.add(new MoleculeDataModel("CCN", "Appended_" + i, new HashMap<>()));
+        }
+        tmpMoleculeIndex.append(tmpAppendedMolecules);
+        Assertions.assertEquals(300, tmpMoleculeIndex.size());
+        Assertions.assertSame(tmpMoleculeIndex, tmpAppendedMolecules.getLast().getMoleculeIndex());
+        Assertions.assertEquals(299, tmpAppendedMolecules.getLast().getIndexInMoleculeIndex());
+        Assertions.assertSame(tmpAppendedMolecules.getLast(), tmpMoleculeIndex.get(299));
+        Assertions.assertFalse(tmpLargeSet.contains(tmpAppendedMolecules.getLast()));
+        Assertions.assertFalse(tmpLargeSet.remove(tmpAppendedMolecules.getLast()));
+        tmpSmallSet.add(tmpAppendedMolecules.getFirst());
+        tmpLargeSet.addAll(tmpAppendedMolecules);
+        Assertions.assertEquals(2, tmpSmallSet.getNumberOfMoleculesStoredByIndex());
+        Assertions.assertEquals(300, tmpLargeSet.getNumberOfMoleculesStoredByIndex());
+        Assertions.assertEquals(300, tmpLargeSet.size());
+        Assertions.assertTrue(tmpLargeSet.contains(tmpAppendedMolecules.getLast()));
+        Assertions.assertEquals(List.of(tmpMolecules.get(1), tmpAppendedMolecules.getFirst()), new ArrayList<>(tmpSmallSet));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpMoleculeIndex.append(List.of(tmpAppendedMolecules.getFirst())));
+    }
+    //
+    /**
+     * Creates the given number of molecules and indexes them.
+     *
+     * @param aNumberOfMolecules number of molecules to create
+     * @return list of indexed molecules
+     */
+    private static List<MoleculeDataModel> createIndexedMolecules(int aNumberOfMolecules) {
+        List<MoleculeDataModel> tmpMolecules = new ArrayList<>(aNumberOfMolecules);
+        for (int i = 0; i < aNumberOfMolecules; i++) {
+            tmpMolecules.add(new MoleculeDataModel("CCO", "Molecule_" + i, new HashMap<>()));
+        }
+        MoleculeIndex.assign(tmpMolecules);
+        return tmpMolecules;
+    }
+}
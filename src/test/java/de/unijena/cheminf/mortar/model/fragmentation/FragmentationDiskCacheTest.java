@@ -0,0 +1,200 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Test class for the FragmentationDiskCache.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationDiskCacheTest {
+    /**
+     * Temporary cache directory.
+     */
+    @TempDir
+    Path cacheDirectory;
+    //
+    /**
+     * Tests that stored results are loaded again only for the requested structures and only with the same settings key.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        FragmentationDiskCache tmpCache = new FragmentationDiskCache(this.cacheDirectory.toString());
+        Map<Object, Object> tmpProperties = new HashMap<>();
+        tmpProperties.put("Category", "Functional group");
+        tmpProperties.put(1, new Object());
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpResults = new LinkedHashMap<>();
+        tmpResults.put("OC(=O)C1=CC=CC=C1O", List.of(
+                new FragmentationMemo.FragmentOccurrence("O=CO", "Fragment", tmpProperties, 1),
+                new FragmentationMemo.FragmentOccurrence("O", null, tmpProperties, 2)));
+        tmpResults.put("CCO", List.of());
+        tmpCache.store("Settings", tmpResults, 1024L * 1024L);
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpLoaded = tmpCache.load("Settings", Set.of("CCO", "OC(=O)C1=CC=CC=C1O", "C"));
+        Assertions.assertEquals(tmpResults.keySet(), tmpLoaded.keySet());
+        Assertions.assertTrue(tmpLoaded.get("CCO").isEmpty());
+        List<FragmentationMemo.FragmentOccurrence> tmpFragments = tmpLoaded.get("OC(=O)C1=CC=CC=C1O");
+        Assertions.assertEquals("O=CO", tmpFragments.getFirst().uniqueSmiles());
+        Assertions.assertEquals("Fragment", tmpFragments.getFirst().name());
+        Assertions.assertEquals(1, tmpFragments.getFirst().frequency());
+        //only string properties are cached
+        Assertions.assertEquals(Map.of("Category", "Functional group"), tmpFragments.getFirst().properties());
+        Assertions.assertNull(tmpFragments.get(1).name());
+        Assertions.assertEquals(2, tmpFragments.get(1).frequency());
+        Assertions.assertTrue(tmpCache.load("Other settings", Set.of("CCO")).isEmpty());
+        Assertions.assertTrue(tmpCache.clear());
+        Assertions.assertTrue(tmpCache.load("Settings", Set.of("CCO")).isEmpty());
+    }
+    //
+    /**
+     * Tests that the least recently stored results are evicted first if the cache exceeds its size limit.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        FragmentationDiskCache tmpCache = new FragmentationDiskCache(this.cacheDirectory.toString());
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpOldResults = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            tmpOldResults.put("C".repeat(i + 1), List.of(new FragmentationMemo.FragmentOccurrence("C", null, null, i + 1)));
+        }
+        tmpCache.store("Settings", tmpOldResults, 1024L * 1024L);
+        long tmpSizeLimit = tmpCache.getSizeInBytes() / 2;
+        tmpCache.store("Settings", Map.of("N", List.of()), tmpSizeLimit);
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpLoaded = tmpCache.load("Settings", tmpOldResults.keySet().stream().toList());
+        Assertions.assertTrue(tmpCache.getSizeInBytes() <= tmpSizeLimit + 1024L);
+        Assertions.assertTrue(tmpLoaded.containsKey("C"));
+        Assertions.assertFalse(tmpLoaded.containsKey("C".repeat(100)));
+        Assertions.assertTrue(tmpCache.load("Settings", Set.of("N")).containsKey("N"));
+    }
+    //
+    /**
+     * Tests that strings longer than the limit of modified UTF-8 are cached and that the results are kept in the given
+     * access order when the size limit is reached.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testLongStringsAndAccessOrder() throws Exception {
+        FragmentationDiskCache tmpCache = new FragmentationDiskCache(this.cacheDirectory.toString());
+        String tmpLongValue = "\u00e9".repeat(70000);
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpResults = new LinkedHashMap<>();
+        tmpResults.put("CCO", List.of(new FragmentationMemo.FragmentOccurrence("O", "Fragment", Map.of("Comment", tmpLongValue), 1)));
+        tmpCache.store("Settings", tmpResults, 1024L * 1024L);
+        Assertions.assertEquals(tmpLongValue, tmpCache.load("Settings", Set.of("CCO")).get("CCO").getFirst().properties().get("Comment"));
+        Assertions.assertTrue(tmpCache.clear());
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpOrderedResults = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            tmpOrderedResults.put("N".repeat(i + 1), List.of(new FragmentationMemo.FragmentOccurrence("N", null, null, 1)));
+        }
+        tmpCache.store("Settings", tmpOrderedResults, 1024L * 1024L);
+        long tmpSizeLimit = tmpCache.getSizeInBytes() / 2;
+        tmpCache.clear();
+        tmpCache.store("Settings", tmpOrderedResults, tmpSizeLimit);
+        Assertions.assertTrue(tmpCache.getSizeInBytes() <= tmpSizeLimit);
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpLoaded = tmpCache.load("Settings", tmpOrderedResults.keySet());
+        //the most recently used results come first and are kept
+        Assertions.assertTrue(tmpLoaded.containsKey("N"));
+        Assertions.assertFalse(tmpLoaded.containsKey("N".repeat(100)));
+        //marking the file as used keeps its results
+        tmpCache.markAsUsed("Settings");
+        Assertions.assertEquals(tmpLoaded.keySet(), tmpCache.load("Settings", tmpOrderedResults.keySet()).keySet());
+    }
+    //
+    /**
+     * Tests that a corrupt cache file is deleted and treated as empty when loading, that storing over a corrupt cache
+     * file writes the recent results only, and that no temporary file is left behind.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testCorruptCacheFileIsDiscarded() throws Exception {
+        FragmentationDiskCache tmpCache = new FragmentationDiskCache(this.cacheDirectory.toString());
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpResults = new LinkedHashMap<>();
+        tmpResults.put("CCO", List.of(new FragmentationMemo.FragmentOccurrence("O", null, new HashMap<>(), 1)));
+        tmpCache.store("Settings", tmpResults, 1024L * 1024L);
+        Path tmpCacheFile = FragmentationDiskCacheTest.corruptCacheFile(this.cacheDirectory, "CCO");
+        Assertions.assertTrue(tmpCache.load("Settings", Set.of("CCO")).isEmpty());
+        Assertions.assertFalse(Files.exists(tmpCacheFile));
+        //a corrupt file is also dropped when the older results are copied during a store
+        tmpCache.store("Settings", tmpResults, 1024L * 1024L);
+        FragmentationDiskCacheTest.corruptCacheFile(this.cacheDirectory, "CCO");
+        Map<String, List<FragmentationMemo.FragmentOccurrence>> tmpRecentResults = new LinkedHashMap<>();
+        tmpRecentResults.put("C", List.of());
+        tmpCache.store("Settings", tmpRecentResults, 1024L * 1024L);
+        Assertions.assertEquals(Set.of("C"), tmpCache.load("Settings", Set.of("CCO", "C")).keySet());
+        try (Stream<Path> tmpFiles = Files.list(this.cacheDirectory)) {
+            Assertions.assertTrue(tmpFiles.noneMatch(aPath -> aPath.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+    //
+    /**
+     * Overwrites the length of the given SMILES code in the only cache file of the given directory with a negative
+     * value.
+     *
+     * @param aDirectory cache directory
+     * @param aSmiles SMILES code stored in the cache file
+     * @return the corrupted cache file
+     * @throws Exception if anything goes wrong
+     */
+    private static Path corruptCacheFile(Path aDirectory, String aSmiles) throws Exception {
+        Path tmpCacheFile;
+        try (Stream<Path> tmpFiles = Files.list(aDirectory)) {
+            tmpCacheFile = tmpFiles.filter(aPath -> aPath.getFileName().toString().endsWith(FragmentationDiskCache.CACHE_FILE_EXTENSION))
+                    .findFirst().orElseThrow();
+        }
+        byte[] tmpBytes = Files.readAllBytes(tmpCacheFile);
+        byte[] tmpSmilesBytes = aSmiles.getBytes(StandardCharsets.UTF_8);
+        int tmpSmilesIndex = -1;
+        for (int i = tmpBytes.length - tmpSmilesBytes.length; i >= 4 && tmpSmilesIndex < 0; i--) {
+            if (Arrays.equals(tmpBytes, i, i + tmpSmilesBytes.length, tmpSmilesBytes, 0, tmpSmilesBytes.length)) {
+                tmpSmilesIndex = i;
+            }
+        }
+        Assertions.assertTrue(tmpSmilesIndex >= 4);
+        //the four bytes before the SMILES code are its length
+        Arrays.fill(tmpBytes, tmpSmilesIndex - 4, tmpSmilesIndex, (byte) 0xFF);
+        Files.write(tmpCacheFile, tmpBytes);
+        return tmpCacheFile;
+    }
+}
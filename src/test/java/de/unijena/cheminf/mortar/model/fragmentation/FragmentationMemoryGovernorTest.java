@@ -0,0 +1,160 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for the FragmentationMemoryGovernor that adapts the number of parallel fragmentation workers to the heap
+ * usage.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationMemoryGovernorTest {
+    /**
+     * Tests that the number of allowed workers is halved above the high threshold, reduced to one above the critical
+     * threshold, kept within the recovery margin, and increased step by step below it.
+     */
+    @Test
+    public void testAllowedWorkersFollowHeapOccupancy() {
+        AtomicReference<Double> tmpHeapOccupancy = new AtomicReference<>(0.5);
+        FragmentationMemoryGovernor tmpGovernor = new FragmentationMemoryGovernor(8, 80, 90, tmpHeapOccupancy::get);
+        tmpGovernor.run();
+        Assertions.assertEquals(8, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.85);
+        tmpGovernor.run();
+        Assertions.assertEquals(4, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.95);
+        tmpGovernor.run();
+        Assertions.assertEquals(1, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.75);
+        tmpGovernor.run();
+        Assertions.assertEquals(1, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.5);
+        tmpGovernor.run();
+        tmpGovernor.run();
+        Assertions.assertEquals(3, tmpGovernor.getAllowedNumberOfWorkers());
+        for (int i = 0; i < 10; i++) {
+            tmpGovernor.run();
+        }
+        Assertions.assertEquals(8, tmpGovernor.getAllowedNumberOfWorkers());
+    }
+    //
+    /**
+     * Tests that the number of allowed workers is halved only once while the heap occupancy stays above the high
+     * threshold and again after it dropped below the recovery margin and crossed the threshold anew.
+     */
+    @Test
+    public void testWorkersAreHalvedOncePerExcursion() {
+        AtomicReference<Double> tmpHeapOccupancy = new AtomicReference<>(0.85);
+        FragmentationMemoryGovernor tmpGovernor = new FragmentationMemoryGovernor(8, 80, 90, tmpHeapOccupancy::get);
+        for (int i = 0; i < 5; i++) {
+            tmpGovernor.run();
+        }
+        Assertions.assertEquals(4, tmpGovernor.getAllowedNumberOfWorkers());
+        //within the recovery margin, the excursion is not over yet
+        tmpHeapOccupancy.set(0.75);
+        tmpGovernor.run();
+        tmpHeapOccupancy.set(0.85);
+        tmpGovernor.run();
+        Assertions.assertEquals(4, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.5);
+        tmpGovernor.run();
+        Assertions.assertEquals(5, tmpGovernor.getAllowedNumberOfWorkers());
+        tmpHeapOccupancy.set(0.85);
+        tmpGovernor.run();
+        tmpGovernor.run();
+        Assertions.assertEquals(2, tmpGovernor.getAllowedNumberOfWorkers());
+    }
+    //
+    /**
+     * Tests that the heap occupancy is sampled from the tenured pool only, so that a survivor space that is close to
+     * full right after a young collection does not count as a high heap usage.
+     */
+    @Test
+    public void testOnlyTenuredPoolsAreSampled() {
+        MemoryPoolMXBean tmpSurvivorPool = this.createMemoryPoolMXBean(false, 95L);
+        MemoryPoolMXBean tmpTenuredPool = this.createMemoryPoolMXBean(true, 30L);
+        double tmpHeapOccupancy = FragmentationMemoryGovernor.createHeapOccupancySupplier(
+                List.of(tmpSurvivorPool, tmpTenuredPool), ManagementFactory.getMemoryMXBean()).getAsDouble();
+        Assertions.assertEquals(0.3, tmpHeapOccupancy, 1.0E-9);
+    }
+    //
+    /**
+     * Tests that a worker waits for a permit while the allowed number of workers is reached and proceeds once another
+     * worker releases its permit.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testWorkerWaitsForPermit() throws Exception {
+        FragmentationMemoryGovernor tmpGovernor = new FragmentationMemoryGovernor(2, 80, 90, () -> 0.95);
+        tmpGovernor.run();
+        tmpGovernor.acquirePermit();
+        Thread tmpWorker = new Thread(() -> {
+            try {
+                tmpGovernor.acquirePermit();
+                tmpGovernor.releasePermit();
+            } catch (InterruptedException anInterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        tmpWorker.start();
+        tmpWorker.join(200L);
+        Assertions.assertTrue(tmpWorker.isAlive());
+        tmpGovernor.releasePermit();
+        tmpWorker.join(5000L);
+        Assertions.assertFalse(tmpWorker.isAlive());
+    }
+    //
+    /**
+     * Creates a valid heap memory pool bean stub with a maximum of 100 bytes after the last collection.
+     *
+     * @param isTenured whether the pool supports usage thresholds like the old generation does
+     * @param anUsedAfterCollection bytes used after the last collection
+     * @return memory pool bean stub
+     */
+    private MemoryPoolMXBean createMemoryPoolMXBean(boolean isTenured, long anUsedAfterCollection) {
+        return (MemoryPoolMXBean) Proxy.newProxyInstance(MemoryPoolMXBean.class.getClassLoader(),
+                new Class<?>[]{MemoryPoolMXBean.class},
+                (aProxy, aMethod, anArgumentArray) -> switch (aMethod.getName()) {
+                    case "getType" -> MemoryType.HEAP;
+                    case "isValid" -> true;
+                    case "isUsageThresholdSupported", "isCollectionUsageThresholdSupported" -> isTenured;
+                    case "getCollectionUsage" -> new MemoryUsage(0L, anUsedAfterCollection, 100L, 100L);
+                    default -> throw new UnsupportedOperationException(aMethod.getName());
+                });
+    }
+}
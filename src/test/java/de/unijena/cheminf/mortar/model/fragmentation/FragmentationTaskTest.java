@@ -0,0 +1,593 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.data.FragmentDataModel;
+import de.unijena.cheminf.mortar.model.data.FragmentDictionary;
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.ErtlFunctionalGroupsFinderFragmenter;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.ScaffoldGeneratorFragmenter;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.SugarRemovalUtilityFragmenter;
+import de.unijena.cheminf.mortar.model.settings.SettingsContainer;
+import de.unijena.cheminf.mortar.model.util.ChemUtil;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for the FragmentationTask.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmentationTaskTest {
+    /**
+     * Name of the fragmentation used in the tests.
+     */
+    private static final String FRAGMENTATION_NAME = "Test";
+    /**
+     * Number of parallel tasks used in the tests.
+     */
+    private static final int NUMBER_OF_TASKS = 4;
+    /**
+     * SMILES codes of the test molecules, each one is fragmented multiple times under different names.
+     */
+    private static final String[] SMILES_CODES = new String[] {
+            "OC(=O)C1=CC=CC=C1O", //salicylic acid
+            "CC(=O)OC1=CC=CC=C1C(O)=O", //acetylsalicylic acid
+            "CN1C=NC2=C1C(=O)N(C)C(=O)N2C", //caffeine
+            "OC(=O)CC(O)(CC(O)=O)C(O)=O", //citric acid
+            "NCCC1=CC(O)=C(O)C=C1", //dopamine
+            "CCO"
+    };
+    //
+    /**
+     * Constructor that sets the default locale to british english, which is important for the correct functioning of the
+     * fragmenter because the settings tooltips are imported from the message.properties file.
+     */
+    public FragmentationTaskTest() {
+        Locale.setDefault(Locale.of("en", "GB"));
+    }
+    //
+    /**
+     * Tests that aggregating the fragments in task-local partial maps that are merged at the end gives the same results
+     * as updating one shared map from all tasks. The shared path stores the fragments of the molecules in ordinary
+     * lists and maps, the partial path as IDs of a fragment dictionary.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testPartialAggregationEqualsSharedAggregation() throws Exception {
+        IMoleculeFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        List<MoleculeDataModel> tmpSharedMolecules = FragmentationTaskTest.createMolecules(50);
+        List<MoleculeDataModel> tmpPartialMolecules = FragmentationTaskTest.createMolecules(50);
+        Map<String, FragmentDataModel> tmpSharedMap = new ConcurrentHashMap<>();
+        Map<String, FragmentDataModel> tmpMergedMap = new ConcurrentHashMap<>();
+        FragmentDictionary tmpFragmentDictionary = new FragmentDictionary();
+        ExecutorService tmpExecutor = Executors.newFixedThreadPool(FragmentationTaskTest.NUMBER_OF_TASKS);
+        try {
+            MoleculeBatchCursor tmpSharedCursor = new MoleculeBatchCursor(tmpSharedMolecules, 3);
+            List<FragmentationTask> tmpSharedTasks = new ArrayList<>(FragmentationTaskTest.NUMBER_OF_TASKS);
+            MoleculeBatchCursor tmpPartialCursor = new MoleculeBatchCursor(tmpPartialMolecules, 3);
+            List<FragmentationTask> tmpPartialTasks = new ArrayList<>(FragmentationTaskTest.NUMBER_OF_TASKS);
+            for (int i = 0; i < FragmentationTaskTest.NUMBER_OF_TASKS; i++) {
+                tmpSharedTasks.add(new FragmentationTask(tmpSharedCursor, tmpFragmenter.copy(), tmpSharedMap, null,
+                        FragmentationTaskTest.FRAGMENTATION_NAME, true));
+                tmpPartialTasks.add(new FragmentationTask(tmpPartialCursor, tmpFragmenter.copy(), tmpFragmentDictionary,
+                        FragmentationTaskTest.FRAGMENTATION_NAME, true, FragmentationTaskTest.NUMBER_OF_TASKS));
+            }
+            for (Future<Integer> tmpFuture : tmpExecutor.invokeAll(tmpSharedTasks)) {
+                Assertions.assertEquals(0, tmpFuture.get());
+            }
+            for (Future<Integer> tmpFuture : tmpExecutor.invokeAll(tmpPartialTasks)) {
+                Assertions.assertEquals(0, tmpFuture.get());
+            }
+            FragmentationTask.mergePartialFragmentMaps(tmpPartialTasks, tmpMergedMap, tmpExecutor);
+            tmpFragmentDictionary.setFragments(tmpMergedMap);
+        } finally {
+            tmpExecutor.shutdown();
+        }
+        Assertions.assertFalse(tmpSharedMap.isEmpty());
+        Assertions.assertEquals(tmpSharedMap.keySet(), tmpMergedMap.keySet());
+        Assertions.assertEquals(tmpMergedMap.size(), tmpFragmentDictionary.size());
+        for (String tmpKey : tmpSharedMap.keySet()) {
+            FragmentDataModel tmpSharedFragment = tmpSharedMap.get(tmpKey);
+            FragmentDataModel tmpMergedFragment = tmpMergedMap.get(tmpKey);
+            Assertions.assertEquals(tmpSharedFragment.getAbsoluteFrequency(), tmpMergedFragment.getAbsoluteFrequency());
+            Assertions.assertEquals(tmpSharedFragment.getMoleculeFrequency(), tmpMergedFragment.getMoleculeFrequency());
+            Assertions.assertEquals(FragmentationTaskTest.getNames(tmpSharedFragment.getParentMolecules()),
+                    FragmentationTaskTest.getNames(tmpMergedFragment.getParentMolecules()));
+        }
+        for (int i = 0; i < tmpPartialMolecules.size(); i++) {
+            MoleculeDataModel tmpSharedMolecule = tmpSharedMolecules.get(i);
+            MoleculeDataModel tmpPartialMolecule = tmpPartialMolecules.get(i);
+            Assertions.assertEquals(tmpSharedMolecule.getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME),
+                    tmpPartialMolecule.getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+            Assertions.assertEquals(tmpSharedMolecule.getAllFragments().get(FragmentationTaskTest.FRAGMENTATION_NAME).size(),
+                    tmpPartialMolecule.getAllFragments().get(FragmentationTaskTest.FRAGMENTATION_NAME).size());
+            //the molecules must refer to the merged fragments, not to the partial ones of the other tasks
+            for (FragmentDataModel tmpFragment : tmpPartialMolecule.getAllFragments().get(FragmentationTaskTest.FRAGMENTATION_NAME)) {
+                Assertions.assertSame(tmpMergedMap.get(tmpFragment.getUniqueSmiles()), tmpFragment);
+            }
+        }
+    }
+    //
+    /**
+     * Tests that looking up the unique SMILES codes of repeated fragments by their structure hash gives the same
+     * fragments and frequencies as generating the unique SMILES code of every fragment.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testHashFirstDeduplicationEqualsSmilesGeneration() throws Exception {
+        IMoleculeFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(20);
+        List<MoleculeDataModel> tmpCachedMolecules = FragmentationTaskTest.createMolecules(20);
+        Map<String, FragmentDataModel> tmpMap = new ConcurrentHashMap<>();
+        Map<String, FragmentDataModel> tmpCachedMap = new ConcurrentHashMap<>();
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, 5), tmpFragmenter.copy(),
+                tmpMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        FragmentationTask tmpCachedTask = new FragmentationTask(new MoleculeBatchCursor(tmpCachedMolecules, 5), tmpFragmenter.copy(),
+                tmpCachedMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        FragmentSmilesCache tmpCache = new FragmentSmilesCache(true);
+        tmpCachedTask.setFragmentSmilesCache(tmpCache);
+        Assertions.assertEquals(0, tmpTask.call());
+        Assertions.assertEquals(0, tmpCachedTask.call());
+        Assertions.assertFalse(tmpMap.isEmpty());
+        Assertions.assertEquals(tmpMap.keySet(), tmpCachedMap.keySet());
+        for (String tmpKey : tmpMap.keySet()) {
+            Assertions.assertEquals(tmpMap.get(tmpKey).getAbsoluteFrequency(), tmpCachedMap.get(tmpKey).getAbsoluteFrequency());
+            Assertions.assertEquals(tmpMap.get(tmpKey).getMoleculeFrequency(), tmpCachedMap.get(tmpKey).getMoleculeFrequency());
+        }
+        for (int i = 0; i < tmpMolecules.size(); i++) {
+            Assertions.assertEquals(tmpMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME),
+                    tmpCachedMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+        }
+        //every molecule is repeated, so most fragments must have been found in the cache
+        Assertions.assertTrue(tmpCache.getNumberOfHits() > tmpCache.getNumberOfLookups() / 2);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tmpTask.setFragmentSmilesCache(new FragmentSmilesCache(false)));
+    }
+    //
+    /**
+     * Tests that fragments sharing the lookup key of a different fragment in the fragment SMILES cache get their own
+     * unique SMILES code, including stereoisomers, by forcing every fragment onto the same hash.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testFragmentSmilesCacheCollisions() throws Exception {
+        FragmentSmilesCache tmpCache = new FragmentSmilesCache(aFragment -> 42L, true);
+        //same atom and bond counts, so all of them get the same key
+        String[] tmpSmilesCodes = new String[] {"C[C@H](N)O", "C[C@@H](N)O", "CC(N)O", "CC(C)N", "C[C@H](N)O"};
+        for (String tmpSmilesCode : tmpSmilesCodes) {
+            IAtomContainer tmpFragment = ChemUtil.parseSmilesToAtomContainer(tmpSmilesCode, false, false);
+            Assertions.assertEquals(ChemUtil.createUniqueSmiles(tmpFragment, true), tmpCache.getUniqueSmiles(tmpFragment));
+        }
+        Assertions.assertEquals(tmpSmilesCodes.length, tmpCache.getNumberOfLookups());
+        //only the last fragment is identical to the representative of the key
+        Assertions.assertEquals(1, tmpCache.getNumberOfHits());
+        Assertions.assertEquals(3, tmpCache.getNumberOfCollisions());
+    }
+    //
+    /**
+     * Tests that reusing the memoized fragmentation results of repeated structures gives the same fragments,
+     * frequencies, and parent molecules as fragmenting every molecule.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testMemoizedFragmentationEqualsFragmentation() throws Exception {
+        IMoleculeFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(20);
+        List<MoleculeDataModel> tmpMemoizedMolecules = FragmentationTaskTest.createMolecules(20);
+        Map<String, FragmentDataModel> tmpMap = new ConcurrentHashMap<>();
+        Map<String, FragmentDataModel> tmpMemoizedMap = new ConcurrentHashMap<>();
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, 5), tmpFragmenter.copy(),
+                tmpMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        FragmentationTask tmpMemoizedTask = new FragmentationTask(new MoleculeBatchCursor(tmpMemoizedMolecules, 5), tmpFragmenter.copy(),
+                tmpMemoizedMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        FragmentationMemo tmpMemo = new FragmentationMemo(FragmentationMemo.createSettingsKey(tmpFragmenter, true));
+        tmpMemoizedTask.setFragmentationMemo(tmpMemo);
+        Assertions.assertEquals(0, tmpTask.call());
+        Assertions.assertEquals(0, tmpMemoizedTask.call());
+        Assertions.assertFalse(tmpMap.isEmpty());
+        Assertions.assertEquals(tmpMap.keySet(), tmpMemoizedMap.keySet());
+        for (String tmpKey : tmpMap.keySet()) {
+            Assertions.assertEquals(tmpMap.get(tmpKey).getAbsoluteFrequency(), tmpMemoizedMap.get(tmpKey).getAbsoluteFrequency());
+            Assertions.assertEquals(tmpMap.get(tmpKey).getMoleculeFrequency(), tmpMemoizedMap.get(tmpKey).getMoleculeFrequency());
+            Assertions.assertEquals(FragmentationTaskTest.getNames(tmpMap.get(tmpKey).getParentMolecules()),
+                    FragmentationTaskTest.getNames(tmpMemoizedMap.get(tmpKey).getParentMolecules()));
+        }
+        for (int i = 0; i < tmpMolecules.size(); i++) {
+            Assertions.assertEquals(tmpMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME),
+                    tmpMemoizedMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+        }
+        //every structure is fragmented once, all other molecules reuse the result
+        Assertions.assertEquals(FragmentationTaskTest.SMILES_CODES.length, tmpMemo.size());
+        Assertions.assertEquals(tmpMemoizedMolecules.size() - FragmentationTaskTest.SMILES_CODES.length, tmpMemo.getNumberOfHits());
+    }
+    //
+    /**
+     * Tests that a memo restricted to the repeated structures of the input only keeps their results and that they are
+     * still reused.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testMemoOnlyKeepsRepeatedStructures() throws Exception {
+        IMoleculeFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        Assertions.assertTrue(FragmentationMemo.findRepeatedSmiles(FragmentationTaskTest.createMolecules(1)).isEmpty());
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(2);
+        Assertions.assertEquals(FragmentationTaskTest.SMILES_CODES.length, FragmentationMemo.findRepeatedSmiles(tmpMolecules).size());
+        //only the first structure is retained
+        Set<String> tmpMemoizedSmilesSet = Set.of(tmpMolecules.getFirst().getUniqueSmiles());
+        FragmentationMemo tmpMemo = new FragmentationMemo(FragmentationMemo.createSettingsKey(tmpFragmenter, true), tmpMemoizedSmilesSet);
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, 5), tmpFragmenter.copy(),
+                new ConcurrentHashMap<>(), null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        tmpTask.setFragmentationMemo(tmpMemo);
+        Assertions.assertEquals(0, tmpTask.call());
+        Assertions.assertEquals(1, tmpMemo.size());
+        Assertions.assertEquals(1, tmpMemo.getNumberOfHits());
+        for (int i = 0; i < FragmentationTaskTest.SMILES_CODES.length; i++) {
+            Assertions.assertEquals(tmpMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME),
+                    tmpMolecules.get(i + FragmentationTaskTest.SMILES_CODES.length).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+        }
+    }
+    //
+    /**
+     * Tests that repeated structures within one chunk are passed to the fragmenter only once and that the other
+     * molecules of the chunk get the same fragments.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testDuplicatesWithinChunkAreFragmentedOnce() throws Exception {
+        AtomicInteger tmpFragmentedMoleculesCounter = new AtomicInteger(0);
+        IMoleculeFragmenter tmpCountingFragmenter = new ErtlFunctionalGroupsFinderFragmenter() {
+            @Override
+            public List<List<IAtomContainer>> fragmentMolecules(List<IAtomContainer> aMoleculeList, boolean areMoleculesConsumable) {
+                tmpFragmentedMoleculesCounter.addAndGet(aMoleculeList.size());
+                return super.fragmentMolecules(aMoleculeList, areMoleculesConsumable);
+            }
+        };
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(3);
+        FragmentationMemo tmpMemo = new FragmentationMemo(FragmentationMemo.createSettingsKey(tmpCountingFragmenter, true));
+        //all molecules in one batch and chunk
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, tmpMolecules.size()),
+                tmpCountingFragmenter, new ConcurrentHashMap<>(), null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        tmpTask.setFragmentationMemo(tmpMemo);
+        Assertions.assertEquals(0, tmpTask.call());
+        Assertions.assertEquals(FragmentationTaskTest.SMILES_CODES.length, tmpFragmentedMoleculesCounter.get());
+        Assertions.assertEquals(tmpMolecules.size() - FragmentationTaskTest.SMILES_CODES.length, tmpMemo.getNumberOfHits());
+        Assertions.assertEquals(tmpMolecules.size(), tmpTask.getNumberOfProcessedMolecules());
+        for (int i = FragmentationTaskTest.SMILES_CODES.length; i < tmpMolecules.size(); i++) {
+            Assertions.assertEquals(tmpMolecules.get(i % FragmentationTaskTest.SMILES_CODES.length).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME),
+                    tmpMolecules.get(i).getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+        }
+    }
+    //
+    /**
+     * Tests that an unexpected exception of the fragmenter for one molecule of a chunk only fails this molecule and
+     * that the other molecules of the chunk still get their fragments.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testExceptionOfOneMoleculeDoesNotFailChunk() throws Exception {
+        //stub fragmenter that fails for molecules with exactly three atoms
+        IMoleculeFragmenter tmpFailingFragmenter = new ErtlFunctionalGroupsFinderFragmenter() {
+            @Override
+            public List<IAtomContainer> fragmentMolecule(IAtomContainer aMolecule) throws CloneNotSupportedException {
+                this.checkAtomCount(aMolecule);
+                return super.fragmentMolecule(aMolecule);
+            }
+            @Override
+            public List<IAtomContainer> fragmentMoleculeInPlace(IAtomContainer aMolecule) throws CloneNotSupportedException {
+                this.checkAtomCount(aMolecule);
+                return super.fragmentMoleculeInPlace(aMolecule);
+            }
+            private void checkAtomCount(IAtomContainer aMolecule) {
+                if (aMolecule.getAtomCount() == 3) {
+                    throw new IllegalStateException("Stub failure");
+                }
+            }
+        };
+        MoleculeDataModel tmpFirstMolecule = new MoleculeDataModel("OCCCCCCCCCO", "First", new HashMap<>());
+        MoleculeDataModel tmpFailingMolecule = new MoleculeDataModel("CCO", "Failing", new HashMap<>());
+        MoleculeDataModel tmpLastMolecule = new MoleculeDataModel("CC(=O)OC", "Last", new HashMap<>());
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(List.of(tmpFirstMolecule, tmpFailingMolecule, tmpLastMolecule), 3),
+                tmpFailingFragmenter, new ConcurrentHashMap<>(), null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        Assertions.assertEquals(1, tmpTask.call());
+        Assertions.assertEquals(3, tmpTask.getNumberOfProcessedMolecules());
+        Assertions.assertTrue(tmpFailingMolecule.getFragmentsOfSpecificFragmentation(FragmentationTaskTest.FRAGMENTATION_NAME).isEmpty());
+        Assertions.assertFalse(tmpFirstMolecule.getFragmentsOfSpecificFragmentation(FragmentationTaskTest.FRAGMENTATION_NAME).isEmpty());
+        Assertions.assertFalse(tmpLastMolecule.getFragmentsOfSpecificFragmentation(FragmentationTaskTest.FRAGMENTATION_NAME).isEmpty());
+    }
+    //
+    /**
+     * Tests that molecules fragmented in a second run with the fragment dictionary of a first run, as done when appending
+     * molecules to a fragmentation, refer to the fragments of the first run where they share fragments, and that the
+     * molecules of the first run keep referring to them.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testAppendedMoleculesReferToExistingFragments() throws Exception {
+        IMoleculeFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(2);
+        List<MoleculeDataModel> tmpFirstMolecules = tmpMolecules.subList(0, FragmentationTaskTest.SMILES_CODES.length);
+        List<MoleculeDataModel> tmpAppendedMolecules = tmpMolecules.subList(FragmentationTaskTest.SMILES_CODES.length, tmpMolecules.size());
+        FragmentDictionary tmpFragmentDictionary = new FragmentDictionary();
+        Map<String, FragmentDataModel> tmpFirstMap = new ConcurrentHashMap<>();
+        Map<String, FragmentDataModel> tmpAppendedMap = new ConcurrentHashMap<>();
+        new FragmentationTask(new MoleculeBatchCursor(tmpFirstMolecules, 3), tmpFragmenter.copy(), tmpFirstMap,
+                tmpFragmentDictionary, FragmentationTaskTest.FRAGMENTATION_NAME, true).call();
+        tmpFragmentDictionary.setFragments(tmpFirstMap);
+        new FragmentationTask(new MoleculeBatchCursor(tmpAppendedMolecules, 3), tmpFragmenter.copy(), tmpAppendedMap,
+                tmpFragmentDictionary, FragmentationTaskTest.FRAGMENTATION_NAME, true).call();
+        tmpFragmentDictionary.setFragments(tmpAppendedMap);
+        //the appended molecules have the same structures, so there are no new fragments
+        Assertions.assertEquals(tmpFirstMap.keySet(), tmpAppendedMap.keySet());
+        Assertions.assertEquals(tmpFirstMap.size(), tmpFragmentDictionary.size());
+        for (MoleculeDataModel tmpMolecule : tmpMolecules) {
+            for (FragmentDataModel tmpFragment : tmpMolecule.getAllFragments().get(FragmentationTaskTest.FRAGMENTATION_NAME)) {
+                Assertions.assertSame(tmpFirstMap.get(tmpFragment.getUniqueSmiles()), tmpFragment);
+            }
+        }
+    }
+    //
+    /**
+     * Tests that a fused pipeline fragmentation assigns every molecule the fragments obtained by applying the pipeline
+     * fragmenters one after another to the molecule and its fragments.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testFusedPipelineEqualsStagesAppliedOneAfterAnother() throws Exception {
+        IMoleculeFragmenter[] tmpPipeline = new IMoleculeFragmenter[] {new SugarRemovalUtilityFragmenter(), new ErtlFunctionalGroupsFinderFragmenter()};
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(2);
+        Map<String, FragmentDataModel> tmpMap = new ConcurrentHashMap<>();
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, 5), tmpPipeline[0].copy(),
+                tmpMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        tmpTask.setFurtherPipelineFragmenters(new IMoleculeFragmenter[] {tmpPipeline[1].copy()});
+        Assertions.assertEquals(0, tmpTask.call());
+        Assertions.assertFalse(tmpMap.isEmpty());
+        for (MoleculeDataModel tmpMolecule : tmpMolecules) {
+            List<IAtomContainer> tmpFragments = List.of(tmpMolecule.getAtomContainer());
+            for (IMoleculeFragmenter tmpFragmenter : tmpPipeline) {
+                List<IAtomContainer> tmpNextFragments = new ArrayList<>();
+                for (IAtomContainer tmpFragment : tmpFragments) {
+                    if (tmpFragmenter.shouldBeFiltered(tmpFragment)) {
+                        continue;
+                    }
+                    if (tmpFragmenter.shouldBePreprocessed(tmpFragment)) {
+                        tmpFragment = tmpFragmenter.applyPreprocessing(tmpFragment);
+                    }
+                    tmpNextFragments.addAll(tmpFragmenter.fragmentMolecule(tmpFragment));
+                }
+                tmpFragments = tmpNextFragments;
+            }
+            Map<String, Integer> tmpExpectedFrequencies = new HashMap<>();
+            for (IAtomContainer tmpFragment : tmpFragments) {
+                tmpExpectedFrequencies.merge(ChemUtil.createUniqueSmiles(tmpFragment, true), 1, Integer::sum);
+            }
+            Assertions.assertEquals(tmpExpectedFrequencies, tmpMolecule.getFragmentFrequencies().get(FragmentationTaskTest.FRAGMENTATION_NAME));
+        }
+        //the memo of a fused pipeline is bound to all of its fragmenters
+        Assertions.assertNotEquals(FragmentationMemo.createSettingsKey(tmpPipeline[0], true), FragmentationMemo.createSettingsKey(tmpPipeline, true));
+        Assertions.assertEquals(FragmentationMemo.createSettingsKey(tmpPipeline[0], true),
+                FragmentationMemo.createSettingsKey(new IMoleculeFragmenter[] {tmpPipeline[0]}, true));
+    }
+    //
+    /**
+     * Tests that consecutive fragmentations of one fragmentation service run on the same executor, that the executor
+     * follows the number of tasks setting, and that a new one is created after the fragmentation was aborted.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testExecutorIsReusedAcrossFragmentations() throws Exception {
+        SettingsContainer tmpSettingsContainer = new SettingsContainer();
+        tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(SettingsContainer.MAX_AVAILABLE_THREADS);
+        FragmentationService tmpService = new FragmentationService(tmpSettingsContainer);
+        tmpService.startSingleFragmentation(FragmentationTaskTest.createMolecules(2), SettingsContainer.MAX_AVAILABLE_THREADS, true);
+        ThreadPoolExecutor tmpExecutor = tmpService.getExecutorService(1);
+        Assertions.assertEquals(SettingsContainer.MAX_AVAILABLE_THREADS, tmpExecutor.getMaximumPoolSize());
+        tmpService.startSingleFragmentation(FragmentationTaskTest.createMolecules(2), SettingsContainer.MAX_AVAILABLE_THREADS, true);
+        Assertions.assertSame(tmpExecutor, tmpService.getExecutorService(1));
+        Assertions.assertFalse(tmpExecutor.isShutdown());
+        tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(1);
+        Assertions.assertEquals(1, tmpExecutor.getMaximumPoolSize());
+        tmpService.abortExecutor();
+        Assertions.assertTrue(tmpExecutor.isShutdown());
+        Assertions.assertNotSame(tmpExecutor, tmpService.getExecutorService(1));
+        tmpService.abortExecutor();
+    }
+    //
+    /**
+     * Tests that the consolidation of a multi-step pipeline fragmentation yields the same fragments, frequencies, and
+     * parent molecules as the sequential consolidation, i.e. every fragment only keeps the input molecules containing it
+     * as parents and its frequencies add up the frequencies in these molecules.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testPipelineConsolidationMatchesSequentialConsolidation() throws Exception {
+        SettingsContainer tmpSettingsContainer = new SettingsContainer();
+        tmpSettingsContainer.setFusedPipelineFragmentationSetting(false);
+        FragmentationService tmpService = new FragmentationService(tmpSettingsContainer);
+        tmpService.setPipelineFragmenter(new IMoleculeFragmenter[] {new ScaffoldGeneratorFragmenter(), new ErtlFunctionalGroupsFinderFragmenter()});
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(3);
+        tmpService.startPipelineFragmentation(tmpMolecules, 2, true, false);
+        String tmpName = tmpService.getCurrentFragmentationName();
+        Map<String, FragmentDataModel> tmpFragments = tmpService.getFragments();
+        Assertions.assertFalse(tmpFragments.isEmpty());
+        //expected results derived from the fragments of the input molecules
+        Map<String, Set<MoleculeDataModel>> tmpExpectedParents = new HashMap<>();
+        Map<String, Integer> tmpExpectedFrequencies = new HashMap<>();
+        int tmpFrequencySum = 0;
+        for (MoleculeDataModel tmpMolecule : tmpMolecules) {
+            for (FragmentDataModel tmpFragment : tmpMolecule.getFragmentsOfSpecificFragmentation(tmpName)) {
+                int tmpFrequency = tmpMolecule.getFragmentFrequencyOfSpecificFragmentation(tmpName).get(tmpFragment.getUniqueSmiles());
+                tmpExpectedParents.computeIfAbsent(tmpFragment.getUniqueSmiles(), aKey -> new HashSet<>()).add(tmpMolecule);
+                tmpExpectedFrequencies.merge(tmpFragment.getUniqueSmiles(), tmpFrequency, Integer::sum);
+                tmpFrequencySum += tmpFrequency;
+            }
+        }
+        Assertions.assertEquals(tmpExpectedParents.keySet(), tmpFragments.keySet());
+        for (FragmentDataModel tmpFragment : tmpFragments.values()) {
+            Set<MoleculeDataModel> tmpParents = tmpFragment.getParentMolecules();
+            //the sequential consolidation removed every parent not contained in the input list
+            for (MoleculeDataModel tmpParent : tmpParents) {
+                Assertions.assertTrue(tmpMolecules.contains(tmpParent));
+            }
+            Assertions.assertEquals(FragmentationTaskTest.getNames(tmpExpectedParents.get(tmpFragment.getUniqueSmiles())),
+                    FragmentationTaskTest.getNames(tmpParents));
+            Assertions.assertEquals(tmpExpectedParents.get(tmpFragment.getUniqueSmiles()).size(), tmpFragment.getMoleculeFrequency());
+            Assertions.assertEquals(tmpExpectedFrequencies.get(tmpFragment.getUniqueSmiles()), tmpFragment.getAbsoluteFrequency());
+            Assertions.assertEquals(1.0 * tmpFragment.getAbsoluteFrequency() / tmpFrequencySum, tmpFragment.getAbsolutePercentage(), 1e-9);
+            Assertions.assertEquals(1.0 * tmpFragment.getMoleculeFrequency() / tmpMolecules.size(), tmpFragment.getMoleculePercentage(), 1e-9);
+        }
+        tmpService.abortExecutor();
+    }
+    //
+    /**
+     * Tests that the progress counters of a finished task, sampled by the progress reporter, match the fragmentation
+     * result.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testProgressCountersMatchFragmentationResult() throws Exception {
+        List<MoleculeDataModel> tmpMolecules = FragmentationTaskTest.createMolecules(2);
+        Map<String, FragmentDataModel> tmpFragmentsMap = new ConcurrentHashMap<>();
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(tmpMolecules, 3),
+                new ErtlFunctionalGroupsFinderFragmenter(), tmpFragmentsMap, null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        FragmentationProgressReporter tmpReporter = new FragmentationProgressReporter(List.of(tmpTask), tmpMolecules.size(),
+                FragmentationTaskTest.FRAGMENTATION_NAME, null);
+        Assertions.assertEquals(0, tmpReporter.sample().processedMolecules());
+        int tmpExceptions = tmpTask.call();
+        long tmpNumberOfFragments = 0;
+        for (FragmentDataModel tmpFragment : tmpFragmentsMap.values()) {
+            tmpNumberOfFragments += tmpFragment.getAbsoluteFrequency();
+        }
+        FragmentationProgressReporter.ProgressSample tmpSample = tmpReporter.sample();
+        Assertions.assertEquals(tmpMolecules.size(), tmpSample.processedMolecules());
+        Assertions.assertEquals(tmpNumberOfFragments, tmpSample.producedFragments());
+        Assertions.assertEquals(tmpExceptions, tmpSample.failures());
+        Assertions.assertEquals(1.0, tmpSample.getProgress());
+        Assertions.assertEquals("1:02:03", FragmentationProgressReporter.formatDuration(3723L));
+    }
+    //
+    /**
+     * Tests that a molecule whose fragmentation exceeds the time budget is marked as timed out by the watchdog and
+     * abandoned after the fragmenter call returns, while the other molecules are fragmented and the task completes.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testMoleculeExceedingTimeBudgetIsTimedOut() throws Exception {
+        //stub fragmenter that takes far longer than the budget for molecules with at least ten atoms
+        IMoleculeFragmenter tmpSlowFragmenter = new ErtlFunctionalGroupsFinderFragmenter() {
+            @Override
+            public List<List<IAtomContainer>> fragmentMolecules(List<IAtomContainer> aMoleculeList, boolean areMoleculesConsumable) {
+                for (IAtomContainer tmpMolecule : aMoleculeList) {
+                    if (tmpMolecule.getAtomCount() >= 10) {
+                        try {
+                            Thread.sleep(500L);
+                        } catch (InterruptedException anException) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+                return super.fragmentMolecules(aMoleculeList, areMoleculesConsumable);
+            }
+        };
+        MoleculeDataModel tmpSlowMolecule = new MoleculeDataModel("OCCCCCCCCCO", "Slow", new HashMap<>());
+        MoleculeDataModel tmpFastMolecule = new MoleculeDataModel("CCO", "Fast", new HashMap<>());
+        FragmentationTask tmpTask = new FragmentationTask(new MoleculeBatchCursor(List.of(tmpSlowMolecule, tmpFastMolecule), 2),
+                tmpSlowFragmenter, new ConcurrentHashMap<>(), null, FragmentationTaskTest.FRAGMENTATION_NAME, true);
+        //the time of a batch would be attributed to its last molecule otherwise
+        tmpTask.setFragmenterBatchSize(1);
+        FragmentationWatchdog tmpWatchdog = new FragmentationWatchdog(List.of(tmpTask), 50L);
+        tmpWatchdog.start();
+        try {
+            Assertions.assertEquals(0, tmpTask.call());
+        } finally {
+            tmpWatchdog.stop();
+        }
+        Assertions.assertEquals(List.of(tmpSlowMolecule), tmpTask.getTimedOutMolecules());
+        Assertions.assertTrue(tmpSlowMolecule.getFragmentsOfSpecificFragmentation(FragmentationTaskTest.FRAGMENTATION_NAME).isEmpty());
+        Assertions.assertFalse(tmpFastMolecule.getFragmentsOfSpecificFragmentation(FragmentationTaskTest.FRAGMENTATION_NAME).isEmpty());
+    }
+    //
+    /**
+     * Creates molecule data models of the test SMILES codes, every SMILES code is repeated the given number of times
+     * under different names.
+     *
+     * @param aNumberOfRepetitions how often each SMILES code should be used
+     * @return list of molecules
+     */
+    private static List<MoleculeDataModel> createMolecules(int aNumberOfRepetitions) {
+        List<MoleculeDataModel> tmpMolecules = new ArrayList<>(aNumberOfRepetitions * FragmentationTaskTest.SMILES_CODES.length);
+        for (int i = 0; i < aNumberOfRepetitions; i++) {
+            for (String tmpSmiles : FragmentationTaskTest.SMILES_CODES) {
+                tmpMolecules.add(new MoleculeDataModel(tmpSmiles, "Molecule_" + tmpMolecules.size(), new HashMap<>()));
+            }
+        }
+        return tmpMolecules;
+    }
+    //
+    /**
+     * Returns the names of the given molecules.
+     *
+     * @param aMoleculeSet molecules
+     * @return set of names
+     */
+    private static Set<String> getNames(Set<MoleculeDataModel> aMoleculeSet) {
+        Set<String> tmpNames = new HashSet<>(aMoleculeSet.size() * 2);
+        for (MoleculeDataModel tmpMolecule : aMoleculeSet) {
+            tmpNames.add(tmpMolecule.getName());
+        }
+        return tmpNames;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.ErtlFunctionalGroupsFinderFragmenter;
+import de.unijena.cheminf.mortar.model.fragmentation.algorithm.IMoleculeFragmenter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the FragmenterPool that reuses configured fragmenter instances for the parallel fragmentation tasks.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class FragmenterPoolTest {
+    /**
+     * Tests that returned instances are handed out again, that instances handed out at the same time are distinct, and
+     * that a changed setting of the prototype discards the pooled instances.
+     */
+    @Test
+    public void testInstancesAreReusedUntilSettingsChange() {
+        FragmenterPool tmpPool = new FragmenterPool();
+        IMoleculeFragmenter tmpPrototype = new ErtlFunctionalGroupsFinderFragmenter();
+        IMoleculeFragmenter tmpFirstInstance = tmpPool.borrow(tmpPrototype);
+        IMoleculeFragmenter tmpSecondInstance = tmpPool.borrow(tmpPrototype);
+        Assertions.assertNotSame(tmpPrototype, tmpFirstInstance);
+        Assertions.assertNotSame(tmpFirstInstance, tmpSecondInstance);
+        tmpPool.giveBack(tmpPrototype, tmpFirstInstance);
+        tmpPool.giveBack(tmpPrototype, tmpSecondInstance);
+        Assertions.assertSame(tmpSecondInstance, tmpPool.borrow(tmpPrototype));
+        Assertions.assertEquals(2, tmpPool.getNumberOfCreatedInstances());
+        tmpPrototype.setFragmentSaturationSetting(IMoleculeFragmenter.FragmentSaturationOption.NO_SATURATION);
+        tmpPool.giveBack(tmpPrototype, tmpSecondInstance);
+        IMoleculeFragmenter tmpNewInstance = tmpPool.borrow(tmpPrototype);
+        Assertions.assertNotSame(tmpFirstInstance, tmpNewInstance);
+        Assertions.assertNotSame(tmpSecondInstance, tmpNewInstance);
+        Assertions.assertEquals(IMoleculeFragmenter.FragmentSaturationOption.NO_SATURATION, tmpNewInstance.getFragmentSaturationSetting());
+        //the property is validated again by the pool, so a second change is noticed as well
+        tmpPool.giveBack(tmpPrototype, tmpNewInstance);
+        tmpPrototype.setFragmentSaturationSetting(IMoleculeFragmenter.FragmentSaturationOption.HYDROGEN_SATURATION);
+        Assertions.assertEquals(IMoleculeFragmenter.FragmentSaturationOption.HYDROGEN_SATURATION,
+                tmpPool.borrow(tmpPrototype).getFragmentSaturationSetting());
+    }
+    //
+    /**
+     * Tests that a fragmenter declaring itself thread-safe is handed out as one shared instance to all borrowers, also
+     * to concurrent ones, and that a changed setting of the prototype replaces the shared instance.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testThreadSafeFragmenterIsShared() throws Exception {
+        FragmenterPool tmpPool = new FragmenterPool();
+        IMoleculeFragmenter tmpPrototype = new ErtlFunctionalGroupsFinderFragmenter() {
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        };
+        IMoleculeFragmenter tmpSharedInstance = tmpPool.borrow(tmpPrototype);
+        Assertions.assertNotSame(tmpPrototype, tmpSharedInstance);
+        ExecutorService tmpExecutorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<IMoleculeFragmenter>> tmpBorrowTasks = new ArrayList<>(8);
+            for (int i = 0; i < 8; i++) {
+                tmpBorrowTasks.add(() -> tmpPool.borrow(tmpPrototype));
+            }
+            for (Future<IMoleculeFragmenter> tmpFuture : tmpExecutorService.invokeAll(tmpBorrowTasks)) {
+                Assertions.assertSame(tmpSharedInstance, tmpFuture.get());
+            }
+        } finally {
+            tmpExecutorService.shutdownNow();
+        }
+        //giving the shared instance back does not pool it a second time
+        tmpPool.giveBack(tmpPrototype, tmpSharedInstance);
+        Assertions.assertSame(tmpSharedInstance, tmpPool.borrow(tmpPrototype));
+        Assertions.assertEquals(1, tmpPool.getNumberOfCreatedInstances());
+        tmpPrototype.setFragmentSaturationSetting(IMoleculeFragmenter.FragmentSaturationOption.NO_SATURATION);
+        IMoleculeFragmenter tmpNewSharedInstance = tmpPool.borrow(tmpPrototype);
+        Assertions.assertNotSame(tmpSharedInstance, tmpNewSharedInstance);
+        Assertions.assertEquals(IMoleculeFragmenter.FragmentSaturationOption.NO_SATURATION, tmpNewSharedInstance.getFragmentSaturationSetting());
+    }
+    //
+    /**
+     * Tests that a discarded instance, e.g. of a cancelled task, is not handed out again, even if it is given back
+     * afterwards.
+     */
+    @Test
+    public void testDiscardedInstanceIsNotPooled() {
+        FragmenterPool tmpPool = new FragmenterPool();
+        IMoleculeFragmenter tmpPrototype = new ErtlFunctionalGroupsFinderFragmenter();
+        IMoleculeFragmenter tmpInstance = tmpPool.borrow(tmpPrototype);
+        tmpPool.discard(tmpPrototype, tmpInstance);
+        tmpPool.giveBack(tmpPrototype, tmpInstance);
+        Assertions.assertNotSame(tmpInstance, tmpPool.borrow(tmpPrototype));
+        Assertions.assertEquals(2, tmpPool.getNumberOfCreatedInstances());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.fragmentation;
+
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the MoleculeBatchCursor that distributes the molecules onto the parallel fragmentation tasks.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class MoleculeBatchCursorTest {
+    /**
+     * Tests that the batches cover the whole list in order and that the last batch is smaller if the list size is not
+     * a multiple of the batch size.
+     */
+    @Test
+    public void testBatchesCoverListInOrder() {
+        List<MoleculeDataModel> tmpMolecules = MoleculeBatchCursorTest.createMolecules(10);
+        MoleculeBatchCursor tmpCursor = new MoleculeBatchCursor(tmpMolecules, 4);
+        Assertions.assertEquals(tmpMolecules.subList(0, 4), tmpCursor.nextBatch());
+        Assertions.assertEquals(tmpMolecules.subList(4, 8), tmpCursor.nextBatch());
+        Assertions.assertEquals(tmpMolecules.subList(8, 10), tmpCursor.nextBatch());
+        Assertions.assertTrue(tmpCursor.nextBatch().isEmpty());
+        Assertions.assertTrue(tmpCursor.nextBatch().isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MoleculeBatchCursor(tmpMolecules, 0));
+    }
+    //
+    /**
+     * Tests that every molecule is handed out exactly once if multiple threads share one cursor.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testEveryMoleculeIsHandedOutOnceInParallel() throws Exception {
+        List<MoleculeDataModel> tmpMolecules = MoleculeBatchCursorTest.createMolecules(10007);
+        MoleculeBatchCursor tmpCursor = new MoleculeBatchCursor(tmpMolecules, 3);
+        Set<MoleculeDataModel> tmpHandedOut = Collections.synchronizedSet(new HashSet<>(tmpMolecules.size() * 2));
+        List<Callable<Integer>> tmpTasks = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            tmpTasks.add(() -> {
+                int tmpCounter = 0;
+                List<MoleculeDataModel> tmpBatch = tmpCursor.nextBatch();
+                while (!tmpBatch.isEmpty()) {
+                    for (MoleculeDataModel tmpMolecule : tmpBatch) {
+                        Assertions.assertTrue(tmpHandedOut.add(tmpMolecule));
+                        tmpCounter++;
+                    }
+                    tmpBatch = tmpCursor.nextBatch();
+                }
+                return tmpCounter;
+            });
+        }
+        ExecutorService tmpExecutor = Executors.newFixedThreadPool(4);
+        int tmpTotal = 0;
+        try {
+            for (Future<Integer> tmpFuture : tmpExecutor.invokeAll(tmpTasks)) {
+                tmpTotal += tmpFuture.get();
+            }
+        } finally {
+            tmpExecutor.shutdown();
+        }
+        Assertions.assertEquals(tmpMolecules.size(), tmpTotal);
+        Assertions.assertEquals(tmpMolecules.size(), tmpHandedOut.size());
+    }
+    //
+    /**
+     * Creates the given number of molecule data models with distinct names.
+     *
+     * @param aNumberOfMolecules number of molecules to create
+     * @return list of molecules
+     */
+    private static List<MoleculeDataModel> createMolecules(int aNumberOfMolecules) {
+        List<MoleculeDataModel> tmpMolecules = new ArrayList<>(aNumberOfMolecules);
+        for (int i = 0; i < aNumberOfMolecules; i++) {
+            tmpMolecules.add(new MoleculeDataModel("CCO", "Molecule_" + i, null));
+        }
+        return tmpMolecules;
+    }
+}
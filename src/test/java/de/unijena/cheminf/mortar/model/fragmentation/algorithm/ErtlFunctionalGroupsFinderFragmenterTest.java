@@ -39,6 +39,7 @@ import org.openscience.cdk.smiles.SmilesGenerator;
 import org.openscience.cdk.smiles.SmilesParser;
 import org.openscience.cdk.tools.manipulator.AtomContainerManipulator;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -204,4 +205,101 @@ public class ErtlFunctionalGroupsFinderFragmenterTest {
             }
         }
     }
+    //
+    /**
+     * Tests that the batch fragmentation returns the same fragments as fragmenting the molecules one by one and null for
+     * a molecule that cannot be fragmented without affecting the others.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testBatchFragmentationEqualsSingleFragmentation() throws Exception {
+        ErtlFunctionalGroupsFinderFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(3);
+        tmpMolecules.add(ChemUtil.parseSmilesToAtomContainer("CC(=O)OC1=CC=CC=C1C(=O)O", false, false));
+        //empty, should be filtered
+        tmpMolecules.add(SilentChemObjectBuilder.getInstance().newAtomContainer());
+        tmpMolecules.add(ChemUtil.parseSmilesToAtomContainer("CN1C=NC2=C1C(=O)N(C(=O)N2C)C", false, false));
+        List<List<IAtomContainer>> tmpFragmentsLists = tmpFragmenter.fragmentMolecules(tmpMolecules);
+        Assertions.assertEquals(tmpMolecules.size(), tmpFragmentsLists.size());
+        Assertions.assertNull(tmpFragmentsLists.get(1));
+        for (int i : new int[] {0, 2}) {
+            List<String> tmpExpectedSmiles = new ArrayList<>();
+            for (IAtomContainer tmpFragment : tmpFragmenter.fragmentMolecule(tmpMolecules.get(i))) {
+                tmpExpectedSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+            }
+            List<String> tmpBatchSmiles = new ArrayList<>();
+            for (IAtomContainer tmpFragment : tmpFragmentsLists.get(i)) {
+                tmpBatchSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+            }
+            Assertions.assertEquals(tmpExpectedSmiles, tmpBatchSmiles);
+        }
+    }
+    //
+    /**
+     * Tests that fragmenting a molecule in place yields the same fragments as fragmenting a clone of it.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testInPlaceFragmentationEqualsClonedFragmentation() throws Exception {
+        ErtlFunctionalGroupsFinderFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        String tmpSmiles = "CC(=O)OC1=CC=CC=C1C(=O)O";
+        List<String> tmpExpectedSmiles = new ArrayList<>();
+        for (IAtomContainer tmpFragment : tmpFragmenter.fragmentMolecule(ChemUtil.parseSmilesToAtomContainer(tmpSmiles, false, false))) {
+            tmpExpectedSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+        }
+        List<String> tmpInPlaceSmiles = new ArrayList<>();
+        for (IAtomContainer tmpFragment : tmpFragmenter.fragmentMoleculeInPlace(ChemUtil.parseSmilesToAtomContainer(tmpSmiles, false, false))) {
+            tmpInPlaceSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+        }
+        Assertions.assertEquals(tmpExpectedSmiles, tmpInPlaceSmiles);
+    }
+    //
+    /**
+     * Tests that the functional groups and the alkane fragments returned on their own add up to all fragments.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testReturnedFragmentsOptionsAddUpToAllFragments() throws Exception {
+        ErtlFunctionalGroupsFinderFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        String tmpSmiles = "CC1=C2C(=O)C=C(C)C2[C@@H]3C(CC1)C(=C)C(=O)O3";
+        List<String> tmpSplitSmiles = new ArrayList<>();
+        for (ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption tmpOption
+                : new ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption[] {
+                        ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_FUNCTIONAL_GROUPS,
+                        ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_ALKANE_FRAGMENTS}) {
+            tmpFragmenter.setReturnedFragmentsSetting(tmpOption);
+            for (IAtomContainer tmpFragment : tmpFragmenter.fragmentMolecule(ChemUtil.parseSmilesToAtomContainer(tmpSmiles, false, false))) {
+                tmpSplitSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+            }
+        }
+        tmpFragmenter.setReturnedFragmentsSetting(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ALL_FRAGMENTS);
+        List<String> tmpAllSmiles = new ArrayList<>();
+        for (IAtomContainer tmpFragment : tmpFragmenter.fragmentMolecule(ChemUtil.parseSmilesToAtomContainer(tmpSmiles, false, false))) {
+            tmpAllSmiles.add(ChemUtil.createUniqueSmiles(tmpFragment, true));
+        }
+        Assertions.assertEquals(tmpAllSmiles, tmpSplitSmiles);
+    }
+    //
+    /**
+     * Tests that the alkane fragments keep the stereo elements whose atoms all belong to them and lose those that
+     * involve a functional group atom.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testAlkaneFragmentsKeepOnlyTheirStereoElements() throws Exception {
+        ErtlFunctionalGroupsFinderFragmenter tmpFragmenter = new ErtlFunctionalGroupsFinderFragmenter();
+        tmpFragmenter.setReturnedFragmentsSetting(ErtlFunctionalGroupsFinderFragmenter.EFGFFragmenterReturnedFragmentsOption.ONLY_ALKANE_FRAGMENTS);
+        //stereo centre within the alkane remainder
+        List<IAtomContainer> tmpFragments = tmpFragmenter.fragmentMolecule(ChemUtil.parseSmilesToAtomContainer("C[C@H](CCC)CCO", false, false));
+        Assertions.assertEquals(1, tmpFragments.size());
+        Assertions.assertTrue(ChemUtil.createUniqueSmiles(tmpFragments.getFirst(), true).contains("@"));
+        //stereo centre carrying the hydroxy group
+        tmpFragments = tmpFragmenter.fragmentMolecule(ChemUtil.parseSmilesToAtomContainer("CC[C@H](O)CCC", false, false));
+        Assertions.assertEquals(1, tmpFragments.size());
+        Assertions.assertFalse(ChemUtil.createUniqueSmiles(tmpFragments.getFirst(), true).contains("@"));
+    }
 }
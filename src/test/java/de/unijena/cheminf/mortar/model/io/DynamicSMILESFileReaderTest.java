@@ -33,8 +33,15 @@ import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IAtomContainerSet;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Test class for the DynamicSMILESFileReader class.
@@ -365,4 +372,87 @@ public class DynamicSMILESFileReaderTest {
         Assertions.assertEquals("cmnpd_id_11687", tmpMolSet.getAtomContainer(36).getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
         Assertions.assertEquals(0, tmpReader.getSkippedLinesCounter());
     }
+    //
+    /**
+     * Tests that reading files with multiple parser threads and small line blocks yields the same molecules, names,
+     * order, and number of skipped lines as reading them on one thread.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void parallelSmilesFileImportEqualsSequentialImportTest() throws Exception {
+        for (String tmpFileName : new String[] {"SMILESTestFileOne.txt", "SMILESTestFileSix.smi"}) {
+            URL tmpURL = this.getClass().getResource(tmpFileName);
+            File tmpResourceFile = Paths.get(tmpURL.toURI()).toFile();
+            DynamicSMILESFileFormat tmpFormat = DynamicSMILESFileReader.detectFormat(tmpResourceFile);
+            DynamicSMILESFileReader tmpSequentialReader = new DynamicSMILESFileReader();
+            IAtomContainerSet tmpSequentialMolSet = tmpSequentialReader.readFile(tmpResourceFile, tmpFormat);
+            DynamicSMILESFileReader tmpParallelReader = new DynamicSMILESFileReader(4, 2);
+            IAtomContainerSet tmpParallelMolSet = tmpParallelReader.readFile(tmpResourceFile, tmpFormat);
+            Assertions.assertEquals(tmpSequentialMolSet.getAtomContainerCount(), tmpParallelMolSet.getAtomContainerCount());
+            for (int i = 0; i < tmpSequentialMolSet.getAtomContainerCount(); i++) {
+                Assertions.assertEquals((String) tmpSequentialMolSet.getAtomContainer(i).getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY),
+                        tmpParallelMolSet.getAtomContainer(i).getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
+                Assertions.assertEquals(tmpSequentialMolSet.getAtomContainer(i).getAtomCount(), tmpParallelMolSet.getAtomContainer(i).getAtomCount());
+            }
+            Assertions.assertEquals(tmpSequentialReader.getSkippedLinesCounter(), tmpParallelReader.getSkippedLinesCounter());
+        }
+    }
+    //
+    /**
+     * Tests that gzip-compressed and zipped SMILES files are detected and read like the uncompressed file, with the
+     * fallback names taken from the name of the compressed content, and that the files of a zip archive with more
+     * than one file are counted, so that the left out files can be reported.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void compressedSmilesFileImportTest() throws Exception {
+        URL tmpURL = this.getClass().getResource("SMILESTestFileOne.txt");
+        Path tmpResourcePath = Paths.get(tmpURL.toURI());
+        Path tmpDirectory = Files.createTempDirectory("DynamicSMILESFileReaderTest");
+        File tmpGzipFile = tmpDirectory.resolve("SMILESTestFileOne.txt.gz").toFile();
+        try (OutputStream tmpOutputStream = new GZIPOutputStream(new FileOutputStream(tmpGzipFile))) {
+            Files.copy(tmpResourcePath, tmpOutputStream);
+        }
+        File tmpZipFile = tmpDirectory.resolve("Archive.zip").toFile();
+        try (ZipOutputStream tmpOutputStream = new ZipOutputStream(new FileOutputStream(tmpZipFile))) {
+            tmpOutputStream.putNextEntry(new ZipEntry("SMILESTestFileOne.txt"));
+            Files.copy(tmpResourcePath, tmpOutputStream);
+            tmpOutputStream.closeEntry();
+        }
+        File tmpMultipleFilesZipFile = tmpDirectory.resolve("MultipleFilesArchive.zip").toFile();
+        try (ZipOutputStream tmpOutputStream = new ZipOutputStream(new FileOutputStream(tmpMultipleFilesZipFile))) {
+            tmpOutputStream.putNextEntry(new ZipEntry("Folder/"));
+            tmpOutputStream.closeEntry();
+            for (String tmpEntryName : new String[] {"Folder/SMILESTestFileOne.txt", "Folder/SMILESTestFileOneCopy.txt"}) {
+                tmpOutputStream.putNextEntry(new ZipEntry(tmpEntryName));
+                Files.copy(tmpResourcePath, tmpOutputStream);
+                tmpOutputStream.closeEntry();
+            }
+        }
+        try {
+            Assertions.assertEquals(1, CompressedInputUtil.getNumberOfFileEntries(tmpResourcePath.toFile()));
+            Assertions.assertEquals(1, CompressedInputUtil.getNumberOfFileEntries(tmpGzipFile));
+            Assertions.assertEquals(1, CompressedInputUtil.getNumberOfFileEntries(tmpZipFile));
+            //the directory entry is no file
+            Assertions.assertEquals(2, CompressedInputUtil.getNumberOfFileEntries(tmpMultipleFilesZipFile));
+            Assertions.assertEquals("SMILESTestFileOne.txt", CompressedInputUtil.getContentFileName(tmpMultipleFilesZipFile));
+            for (File tmpFile : new File[] {tmpGzipFile, tmpZipFile}) {
+                Assertions.assertEquals("SMILESTestFileOne.txt", CompressedInputUtil.getContentFileName(tmpFile));
+                DynamicSMILESFileFormat tmpFormat = DynamicSMILESFileReader.detectFormat(tmpFile);
+                DynamicSMILESFileReader tmpReader = new DynamicSMILESFileReader();
+                IAtomContainerSet tmpMolSet = tmpReader.readFile(tmpFile, tmpFormat);
+                Assertions.assertEquals(3, tmpMolSet.getAtomContainerCount());
+                Assertions.assertEquals("SMILESTestFileOne1", tmpMolSet.getAtomContainer(0).getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
+                Assertions.assertEquals("SMILESTestFileOne5", tmpMolSet.getAtomContainer(2).getProperty(Importer.MOLECULE_NAME_PROPERTY_KEY));
+                Assertions.assertEquals(2, tmpReader.getSkippedLinesCounter());
+            }
+        } finally {
+            Files.deleteIfExists(tmpGzipFile.toPath());
+            Files.deleteIfExists(tmpZipFile.toPath());
+            Files.deleteIfExists(tmpMultipleFilesZipFile.toPath());
+            Files.deleteIfExists(tmpDirectory);
+        }
+    }
 }
@@ -25,7 +25,9 @@
 
 package de.unijena.cheminf.mortar.model.io;
 
+import de.unijena.cheminf.mortar.model.data.MoleculeDataModel;
 import de.unijena.cheminf.mortar.model.settings.SettingsContainer;
+import de.unijena.cheminf.mortar.model.util.ChemUtil;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -41,7 +43,10 @@ import org.openscience.cdk.smiles.SmilesParser;
 import java.io.File;
 import java.io.FileReader;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -107,5 +112,115 @@ public class ImporterTest extends Importer {
         SmilesGenerator smiGen = new SmilesGenerator(SmiFlavor.Canonical);
         Assertions.assertEquals("CCCCC(C)CCC", smiGen.create(tmpMolecule));
     }
+    //
+    /**
+     * Tests that importing a SMILES file with multiple import threads yields the same data models in the same order
+     * as importing it with one thread.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testParallelImportEqualsSequentialImport() throws Exception {
+        URL tmpURL = this.getClass().getResource("SMILESTestFileSix.smi");
+        File tmpResourceFile = Paths.get(tmpURL.toURI()).toFile();
+        SettingsContainer tmpSettingsContainer = new SettingsContainer();
+        tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(1);
+        List<MoleculeDataModel> tmpSequentialList = new Importer(tmpSettingsContainer).importMoleculeFile(tmpResourceFile, true, true);
+        tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(Math.min(4, SettingsContainer.MAX_AVAILABLE_THREADS));
+        List<MoleculeDataModel> tmpParallelList = new Importer(tmpSettingsContainer).importMoleculeFile(tmpResourceFile, true, true);
+        Assertions.assertEquals(50, tmpSequentialList.size());
+        Assertions.assertEquals(tmpSequentialList.size(), tmpParallelList.size());
+        for (int i = 0; i < tmpSequentialList.size(); i++) {
+            Assertions.assertEquals(tmpSequentialList.get(i).getName(), tmpParallelList.get(i).getName());
+            Assertions.assertEquals(tmpSequentialList.get(i).getUniqueSmiles(), tmpParallelList.get(i).getUniqueSmiles());
+        }
+    }
+    //
+    /**
+     * Tests that the parser threads and the import threads of an import together never use more pool threads than the
+     * fragmentation and that both get at least one thread.
+     */
+    @Test
+    public void testParserAndImportThreadsShareThreadBudget() {
+        for (int tmpNumberOfThreads = 1; tmpNumberOfThreads <= 16; tmpNumberOfThreads++) {
+            int tmpParserThreads = Importer.getNumberOfParserThreads(tmpNumberOfThreads);
+            int tmpImportThreads = Importer.getNumberOfImportThreads(tmpNumberOfThreads);
+            Assertions.assertTrue(tmpParserThreads >= 1);
+            Assertions.assertTrue(tmpImportThreads >= 1);
+            //a single thread means that the work is done on the reading thread instead of a pool
+            int tmpPoolThreads = (tmpParserThreads > 1 ? tmpParserThreads : 0) + (tmpImportThreads > 1 ? tmpImportThreads : 0);
+            Assertions.assertTrue(tmpPoolThreads <= tmpNumberOfThreads);
+        }
+        //both stages run in parallel as soon as the budget allows it
+        Assertions.assertEquals(2, Importer.getNumberOfParserThreads(4));
+        Assertions.assertEquals(2, Importer.getNumberOfImportThreads(4));
+    }
+    //
+    /**
+     * Tests that the streaming import of a small SD file and a small SMILES file, both with a record that cannot be
+     * read, yields the molecules in the order of the file, with the same names and unique SMILES codes as reading the
+     * whole file into a molecule set first and preprocessing the set, and skips the failed records.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void testStreamingImportEqualsSetImport() throws Exception {
+        SettingsContainer tmpSettingsContainer = new SettingsContainer();
+        tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(Math.min(4, SettingsContainer.MAX_AVAILABLE_THREADS));
+        URL tmpURL = this.getClass().getResource("Mirabilin_B.mol");
+        String tmpRecordWithoutTitle = Files.readString(Paths.get(tmpURL.toURI()));
+        //the first line of a record is its title, which is used as molecule name
+        String tmpRecordBody = tmpRecordWithoutTitle.substring(tmpRecordWithoutTitle.indexOf('\n'));
+        String tmpErroneousRecord = "Erroneous\n\n\n  not a counts line\n" + ParallelSDFileReader.RECORD_DELIMITER + "\n";
+        Path tmpSDFile = Files.createTempFile("ImporterTest", ".sdf");
+        Path tmpSmilesFile = Files.createTempFile("ImporterTest", ".smi");
+        try {
+            Files.writeString(tmpSDFile, "First" + tmpRecordBody + ParallelSDFileReader.RECORD_DELIMITER + "\n"
+                    + tmpErroneousRecord
+                    + "Third" + tmpRecordBody + ParallelSDFileReader.RECORD_DELIMITER + "\n"
+                    + tmpRecordWithoutTitle + ParallelSDFileReader.RECORD_DELIMITER + "\n");
+            IAtomContainerSet tmpSDSet = new AtomContainerSet();
+            for (IAtomContainer tmpRecord : new ParallelSDFileReader(1).readRecords(tmpSDFile.toFile())) {
+                if (tmpRecord != null) {
+                    tmpSDSet.addAtomContainer(tmpRecord);
+                }
+            }
+            List<MoleculeDataModel> tmpSDList = new Importer(tmpSettingsContainer).importMoleculeFile(tmpSDFile.toFile(), true, true);
+            //the record without title is named after the file and its index in the file
+            String tmpSDFileName = tmpSDFile.getFileName().toString();
+            ImporterTest.assertImportEqualsSetImport(tmpSDSet, List.of("First", "Third",
+                    tmpSDFileName.substring(0, tmpSDFileName.lastIndexOf('.')) + "3"), tmpSDList);
+            Files.writeString(tmpSmilesFile, "Ethanol\tCCO\nBroken\tC1CC(\nBenzene\tc1ccccc1\nAcetic_acid\tCC(=O)O\n");
+            IAtomContainerSet tmpSmilesSet = new DynamicSMILESFileReader(1).readFile(tmpSmilesFile.toFile(),
+                    DynamicSMILESFileReader.detectFormat(tmpSmilesFile.toFile()));
+            List<MoleculeDataModel> tmpSmilesList = new Importer(tmpSettingsContainer).importMoleculeFile(tmpSmilesFile.toFile(), true, true);
+            ImporterTest.assertImportEqualsSetImport(tmpSmilesSet, List.of("Ethanol", "Benzene", "Acetic_acid"), tmpSmilesList);
+        } finally {
+            Files.deleteIfExists(tmpSDFile);
+            Files.deleteIfExists(tmpSmilesFile);
+        }
+    }
+    //</editor-fold>
+    //
+    //<editor-fold desc="private methods">
+    /**
+     * Preprocesses the given molecule set read from a file as a whole and asserts that the given imported data models
+     * have the given names and the unique SMILES codes of the molecules in the set, in the same order.
+     *
+     * @param aMoleculeSet molecules of the file, without the records that could not be read
+     * @param anExpectedNamesList expected names of the imported molecules
+     * @param anImportedList data models imported from the file
+     */
+    private static void assertImportEqualsSetImport(IAtomContainerSet aMoleculeSet, List<String> anExpectedNamesList,
+                                                    List<MoleculeDataModel> anImportedList) {
+        new ImporterTest().preprocessMoleculeSet(aMoleculeSet, true);
+        Assertions.assertEquals(anExpectedNamesList.size(), aMoleculeSet.getAtomContainerCount());
+        Assertions.assertEquals(anExpectedNamesList.size(), anImportedList.size());
+        for (int i = 0; i < anImportedList.size(); i++) {
+            Assertions.assertEquals(anExpectedNamesList.get(i), anImportedList.get(i).getName());
+            Assertions.assertEquals(ChemUtil.createUniqueSmiles(aMoleculeSet.getAtomContainer(i), true),
+                    anImportedList.get(i).getUniqueSmiles());
+        }
+    }
     //</editor-fold>
 }
@@ -0,0 +1,75 @@
+/*
+ * MORTAR - MOlecule fRagmenTAtion fRamework
+ * Copyright (C) 2025  Felix Baensch, Jonas Schaub (felix.j.baensch@gmail.com, jonas.schaub@uni-jena.de)
+ *
+ * Source code is available at <https://github.com/FelixBaensch/MORTAR>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.unijena.cheminf.mortar.model.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Test class for the ParallelSDFileReader class.
+ *
+ * @author Jonas Schaub
+ * @version 1.0.0.0
+ */
+public class ParallelSDFileReaderTest {
+    /**
+     * Tests that the records of an SD file with an erroneous record are read in file order, with null for the
+     * erroneous record only, by one and by multiple parser threads.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void readRecordsInFileOrderTest() throws Exception {
+        URL tmpURL = this.getClass().getResource("Mirabilin_B.mol");
+        String tmpRecord = Files.readString(Paths.get(tmpURL.toURI())) + ParallelSDFileReader.RECORD_DELIMITER + "\n";
+        String tmpErroneousRecord = "erroneous\n\n\n  not a counts line\n" + ParallelSDFileReader.RECORD_DELIMITER + "\n";
+        Path tmpSDFile = Files.createTempFile("ParallelSDFileReaderTest", ".sdf");
+        try {
+            Files.writeString(tmpSDFile, tmpRecord + tmpErroneousRecord + tmpRecord + tmpRecord + tmpErroneousRecord);
+            File tmpFile = tmpSDFile.toFile();
+            for (ParallelSDFileReader tmpReader : new ParallelSDFileReader[] {new ParallelSDFileReader(1), new ParallelSDFileReader(3, 1)}) {
+                List<IAtomContainer> tmpRecords = tmpReader.readRecords(tmpFile);
+                Assertions.assertEquals(5, tmpRecords.size());
+                for (int i : new int[] {0, 2, 3}) {
+                    Assertions.assertNotNull(tmpRecords.get(i));
+                    Assertions.assertEquals(18, tmpRecords.get(i).getAtomCount());
+                }
+                Assertions.assertNull(tmpRecords.get(1));
+                Assertions.assertNull(tmpRecords.get(4));
+            }
+        } finally {
+            Files.deleteIfExists(tmpSDFile);
+        }
+    }
+}
@@ -27,6 +27,7 @@ package de.unijena.cheminf.mortar.model.settings;
 
 import de.unijena.cheminf.mortar.configuration.Configuration;
 import de.unijena.cheminf.mortar.model.io.Exporter;
+import de.unijena.cheminf.mortar.model.util.ThreadUtil;
 
 import javafx.beans.property.Property;
 
@@ -77,12 +78,38 @@ public class SettingsContainerTest {
         //Assertions.assertEquals(SettingsContainer.KEEP_ATOM_CONTAINER_IN_DATA_MODEL_SETTING_DEFAULT, tmpSettingsContainer.getKeepAtomContainerInDataModelSetting());
         Assertions.assertEquals(SettingsContainer.ALWAYS_MDLV3000_FORMAT_AT_EXPORT_SETTING_DEFAULT, tmpSettingsContainer.getAlwaysMDLV3000FormatAtExportSetting());
         Assertions.assertEquals(SettingsContainer.CSV_EXPORT_SEPARATOR_SETTING_DEFAULT, tmpSettingsContainer.getCsvExportSeparatorSetting());
+        Assertions.assertEquals(SettingsContainer.DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT, tmpSettingsContainer.getDynamicFragmentationSchedulingSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT, tmpSettingsContainer.getFragmentationBatchSizeSetting());
+        Assertions.assertEquals(SettingsContainer.THREAD_EXECUTION_MODE_SETTING_DEFAULT, tmpSettingsContainer.getThreadExecutionModeSetting());
+        Assertions.assertEquals(SettingsContainer.TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT, tmpSettingsContainer.getTaskLocalFragmentAggregationSetting());
+        Assertions.assertEquals(SettingsContainer.HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT, tmpSettingsContainer.getHashFirstFragmentDeduplicationSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT, tmpSettingsContainer.getFragmentationMemoizationSetting());
+        Assertions.assertEquals(SettingsContainer.PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT, tmpSettingsContainer.getPersistentFragmentationCacheSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT, tmpSettingsContainer.getFragmentationCacheSizeLimitSetting());
+        Assertions.assertEquals(SettingsContainer.FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT, tmpSettingsContainer.getFusedPipelineFragmentationSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT, tmpSettingsContainer.getFragmentationTimeBudgetSetting());
+        Assertions.assertEquals(SettingsContainer.MEMORY_GOVERNOR_SETTING_DEFAULT, tmpSettingsContainer.getMemoryGovernorSetting());
+        Assertions.assertEquals(SettingsContainer.MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT, tmpSettingsContainer.getMemoryGovernorHighThresholdSetting());
+        Assertions.assertEquals(SettingsContainer.MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT, tmpSettingsContainer.getMemoryGovernorCriticalThresholdSetting());
         tmpSettingsContainer.setRowsPerPageSetting(SettingsContainer.ROWS_PER_PAGE_SETTING_DEFAULT + 5);
         tmpSettingsContainer.setAddImplicitHydrogensAtImportSetting(!SettingsContainer.ADD_IMPLICIT_HYDROGENS_AT_IMPORT_SETTING_DEFAULT);
         //tmpSettingsContainer.setNumberOfTasksForFragmentationSetting(tmpSettingsContainer.getNumberOfTasksForFragmentationSettingDefault() - 1);
         //tmpSettingsContainer.setKeepAtomContainerInDataModelSetting(!SettingsContainer.KEEP_ATOM_CONTAINER_IN_DATA_MODEL_SETTING_DEFAULT);
         tmpSettingsContainer.setAlwaysMDLV3000FormatAtExportSetting(!SettingsContainer.ALWAYS_MDLV3000_FORMAT_AT_EXPORT_SETTING_DEFAULT);
         tmpSettingsContainer.setCsvExportSeparatorSetting(tmpCsvExportSeparatorTest);
+        tmpSettingsContainer.setDynamicFragmentationSchedulingSetting(!SettingsContainer.DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT);
+        tmpSettingsContainer.setFragmentationBatchSizeSetting(SettingsContainer.FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT + 3);
+        tmpSettingsContainer.setThreadExecutionModeSetting(ThreadUtil.ThreadExecutionMode.VIRTUAL_THREADS);
+        tmpSettingsContainer.setTaskLocalFragmentAggregationSetting(!SettingsContainer.TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT);
+        tmpSettingsContainer.setHashFirstFragmentDeduplicationSetting(!SettingsContainer.HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT);
+        tmpSettingsContainer.setFragmentationMemoizationSetting(!SettingsContainer.FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT);
+        tmpSettingsContainer.setPersistentFragmentationCacheSetting(!SettingsContainer.PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT);
+        tmpSettingsContainer.setFragmentationCacheSizeLimitSetting(SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT + 3);
+        tmpSettingsContainer.setFusedPipelineFragmentationSetting(!SettingsContainer.FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT);
+        tmpSettingsContainer.setFragmentationTimeBudgetSetting(SettingsContainer.FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT + 3);
+        tmpSettingsContainer.setMemoryGovernorSetting(!SettingsContainer.MEMORY_GOVERNOR_SETTING_DEFAULT);
+        tmpSettingsContainer.setMemoryGovernorHighThresholdSetting(SettingsContainer.MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT + 3);
+        tmpSettingsContainer.setMemoryGovernorCriticalThresholdSetting(SettingsContainer.MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT + 3);
         //persisting the settings container
         tmpSettingsContainer.preserveSettings();
         //reload persisted container
@@ -94,6 +121,19 @@ public class SettingsContainerTest {
         //Assertions.assertEquals(!SettingsContainer.KEEP_ATOM_CONTAINER_IN_DATA_MODEL_SETTING_DEFAULT, tmpSettingsContainer.getKeepAtomContainerInDataModelSetting());
         Assertions.assertEquals(!SettingsContainer.ALWAYS_MDLV3000_FORMAT_AT_EXPORT_SETTING_DEFAULT, tmpSettingsContainer.getAlwaysMDLV3000FormatAtExportSetting());
         Assertions.assertEquals(tmpCsvExportSeparatorTest, tmpSecondContainer.getCsvExportSeparatorSetting());
+        Assertions.assertEquals(!SettingsContainer.DYNAMIC_FRAGMENTATION_SCHEDULING_SETTING_DEFAULT, tmpSecondContainer.getDynamicFragmentationSchedulingSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_BATCH_SIZE_SETTING_DEFAULT + 3, tmpSecondContainer.getFragmentationBatchSizeSetting());
+        Assertions.assertEquals(ThreadUtil.ThreadExecutionMode.VIRTUAL_THREADS, tmpSecondContainer.getThreadExecutionModeSetting());
+        Assertions.assertEquals(!SettingsContainer.TASK_LOCAL_FRAGMENT_AGGREGATION_SETTING_DEFAULT, tmpSecondContainer.getTaskLocalFragmentAggregationSetting());
+        Assertions.assertEquals(!SettingsContainer.HASH_FIRST_FRAGMENT_DEDUPLICATION_SETTING_DEFAULT, tmpSecondContainer.getHashFirstFragmentDeduplicationSetting());
+        Assertions.assertEquals(!SettingsContainer.FRAGMENTATION_MEMOIZATION_SETTING_DEFAULT, tmpSecondContainer.getFragmentationMemoizationSetting());
+        Assertions.assertEquals(!SettingsContainer.PERSISTENT_FRAGMENTATION_CACHE_SETTING_DEFAULT, tmpSecondContainer.getPersistentFragmentationCacheSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_CACHE_SIZE_LIMIT_SETTING_DEFAULT + 3, tmpSecondContainer.getFragmentationCacheSizeLimitSetting());
+        Assertions.assertEquals(!SettingsContainer.FUSED_PIPELINE_FRAGMENTATION_SETTING_DEFAULT, tmpSecondContainer.getFusedPipelineFragmentationSetting());
+        Assertions.assertEquals(SettingsContainer.FRAGMENTATION_TIME_BUDGET_SETTING_DEFAULT + 3, tmpSecondContainer.getFragmentationTimeBudgetSetting());
+        Assertions.assertEquals(!SettingsContainer.MEMORY_GOVERNOR_SETTING_DEFAULT, tmpSecondContainer.getMemoryGovernorSetting());
+        Assertions.assertEquals(SettingsContainer.MEMORY_GOVERNOR_HIGH_THRESHOLD_SETTING_DEFAULT + 3, tmpSecondContainer.getMemoryGovernorHighThresholdSetting());
+        Assertions.assertEquals(SettingsContainer.MEMORY_GOVERNOR_CRITICAL_THRESHOLD_SETTING_DEFAULT + 3, tmpSecondContainer.getMemoryGovernorCriticalThresholdSetting());
         tmpSecondContainer.restoreDefaultSettings();
         tmpSecondContainer.preserveSettings();
     }
@@ -38,6 +38,12 @@ import java.io.File;
 import java.io.FileReader;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tests for the utility functions in ChemUtil.
@@ -94,4 +100,43 @@ class ChemUtilTest {
         SmilesGenerator smiGen = new SmilesGenerator(SmiFlavor.Canonical);
         Assertions.assertEquals("N=C1N=C2C3=C(N1)CCC3CC(C)C2CCCC", smiGen.create(tmpMolecule));
     }
+    /**
+     * Tests that parsing SMILES codes and creating unique SMILES codes from several threads at once with the reused
+     * per-thread parsers and shared generators gives the same results as doing it sequentially, for molecules of varying size.
+     */
+    @Test
+    public void testParseAndCreateUniqueSmilesConcurrently() throws Exception {
+        String[] tmpSmilesCodes = new String[] {
+                "N#CS",
+                "CC(=CCC[C@H](C)C1=CC(=O)C(=C(C1=O)O)C)C",
+                "O=C(OC1=CC=C2C(=O)C3=CC=CC=C3C(=O)C2=C1O)C",
+                "CC1=C2C(=O)C=C(C)C2[C@@H]3C(CC1)C(=C)C(=O)O3",
+                "C[C@@H](C1=CC=C2C(=C1)CC[C@H]3[C@H]2CC(=O)[C@]4(CC=CC(=O)[C@]34C)O)[C@@H]5C[C@H]6[C@@H](C(=O)O5)O6"
+        };
+        List<String> tmpExpectedSmilesCodes = new ArrayList<>(tmpSmilesCodes.length);
+        for (String tmpSmilesCode : tmpSmilesCodes) {
+            tmpExpectedSmilesCodes.add(ChemUtil.createUniqueSmiles(ChemUtil.parseSmilesToAtomContainer(tmpSmilesCode, false, false), true));
+        }
+        ExecutorService tmpExecutor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<List<String>>> tmpTasks = new ArrayList<>(4);
+            for (int i = 0; i < 4; i++) {
+                tmpTasks.add(() -> {
+                    List<String> tmpResults = new ArrayList<>(tmpSmilesCodes.length);
+                    for (int j = 0; j < 100; j++) {
+                        tmpResults.clear();
+                        for (String tmpSmilesCode : tmpSmilesCodes) {
+                            tmpResults.add(ChemUtil.createUniqueSmiles(ChemUtil.parseSmilesToAtomContainer(tmpSmilesCode, false, false), true));
+                        }
+                    }
+                    return tmpResults;
+                });
+            }
+            for (Future<List<String>> tmpFuture : tmpExecutor.invokeAll(tmpTasks)) {
+                Assertions.assertEquals(tmpExpectedSmilesCodes, tmpFuture.get());
+            }
+        } finally {
+            tmpExecutor.shutdown();
+        }
+    }
 }